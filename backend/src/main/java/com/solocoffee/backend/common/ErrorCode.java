@@ -9,6 +9,7 @@ public enum ErrorCode {
     SYSTEM_ERROR(50001, "系统内部错误"),
     DATABASE_ERROR(50002, "数据库错误"),
     THIRD_PARTY_ERROR(50003, "第三方服务错误"),
+    SERVICE_BUSY(50301, "服务繁忙，请稍后重试"),
 
     // 业务错误
     PARAMETER_ERROR(40001, "请求参数错误"),
@@ -19,6 +20,7 @@ public enum ErrorCode {
     PAYMENT_FAILED(40005, "支付失败"),
     CANCEL_FAILED(40006, "取消失败"),
     REFUND_FAILED(40007, "退款失败"),
+    REQUEST_IN_PROGRESS(40008, "相同请求正在处理中"),
 
     // 认证授权错误
     UNAUTHORIZED(40101, "未授权"),
@@ -33,6 +35,9 @@ public enum ErrorCode {
     STORE_NOT_FOUND(40404, "店铺不存在"),
     CUSTOMER_NOT_FOUND(40405, "客户不存在"),
 
+    // 请求无法处理
+    IDEMPOTENCY_KEY_REUSED(42201, "幂等键已用于内容不同的请求"),
+
     // 成功
     SUCCESS(200, "请求成功");
 
@@ -69,6 +69,10 @@ public class GlobalExceptionHandler {
             return HttpStatus.FORBIDDEN;
         } else if (code >= 44000 && code < 45000) {
             return HttpStatus.NOT_FOUND;
+        } else if (code >= 42200 && code < 42300) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        } else if (code >= 50300 && code < 50400) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
         } else if (code >= 50000) {
             return HttpStatus.INTERNAL_SERVER_ERROR;
         } else {
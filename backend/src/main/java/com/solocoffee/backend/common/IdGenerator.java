@@ -0,0 +1,23 @@
+package com.solocoffee.backend.common;
+
+/**
+ * 全局唯一ID生成器
+ * 默认实现为 {@link SnowflakeIdGenerator}，可通过注册自定义的 IdGenerator Bean 替换
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成下一个ID
+     * @return 全局唯一、同一节点内单调递增的ID
+     */
+    long nextId();
+
+    /**
+     * 生成带前缀的业务编号，如订单号、交易流水号
+     * @param prefix 编号前缀
+     * @return 前缀 + ID
+     */
+    default String nextId(String prefix) {
+        return prefix + nextId();
+    }
+}
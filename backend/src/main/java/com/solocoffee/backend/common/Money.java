@@ -0,0 +1,126 @@
+package com.solocoffee.backend.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额值类型，以 long 保存最小货币单位（分）
+ * 订单计价、促销和会员折扣在内部使用整数运算，只在接口和持久化边界与 BigDecimal 互相转换。
+ * 比例运算（折扣率）按万分比计算并四舍五入到分；溢出时抛出 ArithmeticException。
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long BASIS_POINTS = 10_000L;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * 从 BigDecimal 转换，超过两位小数的部分四舍五入
+     * @param amount 金额，为 null 时视为0
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // 前端或预测模型传入的 double 价格，先按十进制字符串转换再取整，避免二进制误差
+    public static Money of(double amount) {
+        return of(BigDecimal.valueOf(amount));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    /**
+     * 按万分比计算，如 9500 表示 95%，结果四舍五入到分
+     * @param basisPoints 万分比
+     */
+    public Money timesBasisPoints(long basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long half = product >= 0 ? BASIS_POINTS / 2 : -BASIS_POINTS / 2;
+        return ofMinor((product + half) / BASIS_POINTS);
+    }
+
+    /**
+     * 按比例计算，如 0.95 表示 95%；比例精确到万分之一
+     * @param rate 比例
+     */
+    public Money times(BigDecimal rate) {
+        return timesBasisPoints(toBasisPoints(rate));
+    }
+
+    /**
+     * 按百分比计算，如 20 表示 20%；百分比精确到0.01
+     * @param percent 百分比
+     */
+    public Money percent(double percent) {
+        return timesBasisPoints(Math.round(percent * 100));
+    }
+
+    // 本金额包含多少个 other（向下取整），用于满减次数等计算
+    public long divideToIntegral(Money other) {
+        return minorUnits / other.minorUnits;
+    }
+
+    public boolean isGreaterThanOrEqual(Money other) {
+        return minorUnits >= other.minorUnits;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long toBasisPoints(BigDecimal rate) {
+        return rate.movePointRight(4).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.solocoffee.backend.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake风格的ID生成器：41位毫秒时间戳 + 10位节点ID + 12位序列号
+ *
+ * 时间戳和序列号打包在一个 long 中，通过CAS无锁更新。同一毫秒内序列号用尽时自旋等待时钟进入下一毫秒，
+ * ID中的时间戳不会超前于时钟（单节点每毫秒最多 4096 个ID）；时钟回拨时沿用上次的时间戳继续分配序列号，
+ * 用尽后等待时钟追上，因此生成的ID在节点内始终单调递增。
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    // 起始时间 2024-01-01T00:00:00Z
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    // (相对时间戳 << SEQUENCE_BITS) | 序列号
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在 0 到 " + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            if (now > (current >>> SEQUENCE_BITS)) {
+                // 进入新的毫秒，序列号从0开始
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                // 序列号用尽，等待时钟进入下一毫秒，不借用未来的时间戳
+                Thread.onSpinWait();
+                continue;
+            } else {
+                // 同一毫秒或时钟回拨：序列号加一
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // 从ID中解析生成时间（毫秒）
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    // 从ID中解析节点ID
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
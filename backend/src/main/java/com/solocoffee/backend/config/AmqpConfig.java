@@ -0,0 +1,20 @@
+package com.solocoffee.backend.config;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "outbox.publisher", havingValue = "amqp")
+public class AmqpConfig {
+
+    /**
+     * 领域事件交换机，消费方（分析、推荐、通知）按路由键 order.# 等绑定自己的队列
+     */
+    @Bean
+    public TopicExchange eventExchange(@Value("${outbox.amqp.exchange:solocoffee.events}") String exchange) {
+        return new TopicExchange(exchange, true, false);
+    }
+}
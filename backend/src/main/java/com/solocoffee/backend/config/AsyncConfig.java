@@ -0,0 +1,108 @@
+package com.solocoffee.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String ORDER_EVENT_EXECUTOR = "orderEventExecutor";
+    public static final String MVC_ASYNC_EXECUTOR = "mvcAsyncExecutor";
+    public static final String ARCHIVE_EXECUTOR = "archiveExecutor";
+    public static final String MAKE_LINE_EXECUTOR = "makeLineExecutor";
+
+    /**
+     * 订单事件的异步处理线程池（积分、通知、报表计数等次要副作用）
+     * 队列有界，队列满时由提交线程执行，起到背压作用而不是丢弃事件
+     * 虚拟线程模式下每个事件一个虚拟线程，同时执行的数量不超过 max-size，超出时提交线程等待
+     */
+    @Bean(name = ORDER_EVENT_EXECUTOR)
+    public Executor orderEventExecutor(Environment environment,
+            @Value("${order.events.executor.core-size:2}") int coreSize,
+            @Value("${order.events.executor.max-size:4}") int maxSize,
+            @Value("${order.events.executor.queue-capacity:1000}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-event-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxSize);
+            executor.setTaskTerminationTimeout(30000);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-event-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * MVC 异步响应（流式导出等）的写出线程池
+     * 每个导出占用一个线程直到写完，同时写出的数量不超过 max-size，超出时排队等待
+     */
+    @Bean(name = MVC_ASYNC_EXECUTOR)
+    public AsyncTaskExecutor mvcAsyncExecutor(Environment environment,
+            @Value("${mvc.async.executor.max-size:4}") int maxSize,
+            @Value("${mvc.async.executor.queue-capacity:100}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxSize);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 订单归档任务的执行线程，归档批次之间的暂停不占用定时任务线程
+     * 只有一个线程，运行中再次触发的任务直接丢弃（归档本身也会跳过重复执行）
+     */
+    @Bean(name = ARCHIVE_EXECUTOR)
+    public Executor archiveExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("order-archive-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 出品队列 SSE 推送线程
+     * 单线程按提交顺序发送，同一连接收到的事件顺序与版本号一致；队列满时丢弃，客户端发现版本不连续后重连获取快照
+     */
+    @Bean(name = MAKE_LINE_EXECUTOR)
+    public Executor makeLineExecutor(@Value("${makeline.sse.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("make-line-sse-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,83 @@
+package com.solocoffee.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.common.ErrorCode;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求并发限制
+ * 虚拟线程模式下请求线程不再受 Tomcat 线程池约束，大量请求会同时排队等待数据库连接，
+ * 并在 JDBC 驱动的同步锁上钉住载体线程。这里按连接池大小限制同时处理的请求数，
+ * 超出的请求短暂等待，仍拿不到许可时返回 503，而不是堆积到连接池超时。
+ * 异步请求（如 SSE）只在初始分派期间占用许可。
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final Semaphore permits;
+    private final int limit;
+    private final long acquireTimeoutMs;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(int limit, long acquireTimeoutMs, ObjectMapper objectMapper) {
+        this.permits = new Semaphore(limit, true);
+        this.limit = limit;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            logger.warn("并发请求已达上限 {}，拒绝请求: {} {}", limit, request.getMethod(), request.getRequestURI());
+            reject(response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // 当前正在处理的请求数
+    public int getActive() {
+        return limit - permits.availablePermits();
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error(ErrorCode.SERVICE_BUSY.getCode(), ErrorCode.SERVICE_BUSY.getMessage()));
+    }
+}
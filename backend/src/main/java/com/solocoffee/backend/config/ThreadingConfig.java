@@ -0,0 +1,58 @@
+package com.solocoffee.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * 请求执行模式
+ * spring.threads.virtual.enabled=true 且运行在 JDK 21 及以上时，Tomcat 请求处理和 @Async 执行器使用虚拟线程，
+ * 否则使用平台线程池。虚拟线程模式下默认启用按连接池大小的请求并发限制。
+ */
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    // 无法取得连接池大小时的并发上限，与 HikariCP 默认连接数一致
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(Environment environment,
+            DataSource dataSource, ObjectMapper objectMapper,
+            @Value("${request.limiter.enabled:}") String enabled,
+            @Value("${request.limiter.max-concurrent:0}") int maxConcurrent,
+            @Value("${request.limiter.acquire-timeout-ms:1000}") long acquireTimeoutMs) {
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        // 未配置时跟随执行模式：平台线程已由 Tomcat 线程池限制并发
+        boolean active = enabled.isBlank() ? virtual : Boolean.parseBoolean(enabled);
+        int limit = maxConcurrent > 0 ? maxConcurrent : poolSize(dataSource);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, acquireTimeoutMs, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(active);
+        logger.info("请求执行模式: {}，并发限制: {}", virtual ? "虚拟线程" : "平台线程",
+                active ? String.valueOf(limit) : "关闭");
+        return registration;
+    }
+
+    private int poolSize(DataSource dataSource) {
+        // 连接池启动前未显式配置时为 -1
+        if (dataSource instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0) {
+            return hikari.getMaximumPoolSize();
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -1,13 +1,20 @@
 package com.solocoffee.backend.controller;
 
 import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.service.ExportService;
 import com.solocoffee.backend.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,10 +26,13 @@ public class AnalyticsController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping("/overview")
-    public ResponseEntity<ApiResponse<?>> getOverview() {
+    public ResponseEntity<ApiResponse<?>> getOverview(@RequestParam(required = false) Long storeId) {
         try {
-            Map<String, Object> overview = reportService.generateOverviewReport();
+            Map<String, Object> overview = reportService.generateOverviewReport(storeId);
             return ResponseEntity.ok(ApiResponse.success("概览数据查询成功", overview));
         } catch (Exception e) {
             logger.error("概览数据查询失败: {}", e.getMessage(), e);
@@ -33,7 +43,8 @@ public class AnalyticsController {
     @GetMapping("/sales")
     public ResponseEntity<ApiResponse<?>> getSalesData(
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) List<String> groupBy) {
         try {
             // 解析日期参数
             java.util.Date start = startDate != null ? new java.text.SimpleDateFormat("yyyy-MM-dd").parse(startDate)
@@ -41,7 +52,10 @@ public class AnalyticsController {
             java.util.Date end = endDate != null ? new java.text.SimpleDateFormat("yyyy-MM-dd").parse(endDate)
                     : new java.util.Date();
 
-            Map<String, Object> salesReport = reportService.generateSalesReport(start, end);
+            // groupBy=store,status 按门店和/或订单状态分组
+            boolean byStore = groupBy != null && groupBy.contains("store");
+            boolean byStatus = groupBy != null && groupBy.contains("status");
+            Map<String, Object> salesReport = reportService.generateSalesReport(start, end, byStore, byStatus);
             return ResponseEntity.ok(ApiResponse.success("销售数据查询成功", salesReport));
         } catch (Exception e) {
             logger.error("销售数据查询失败: {}", e.getMessage(), e);
@@ -49,10 +63,27 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * 导出小时销售汇总 CSV，按小时、门店、商品逐行写出；endDate 当天包含在内
+     */
+    @GetMapping("/sales/export")
+    public ResponseEntity<StreamingResponseBody> exportHourlySales(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        LocalDate end = parseDate(endDate, LocalDate.now());
+        LocalDate start = parseDate(startDate, end.minusDays(30));
+        return exportService.download("sales-hourly", gzip, csv -> exportService.writeHourlySales(
+                start.atStartOfDay(), end.plusDays(1).atStartOfDay(), csv));
+    }
+
     @GetMapping("/popular-products")
     public ResponseEntity<ApiResponse<?>> getPopularProducts(
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
         try {
             // 解析日期参数
             java.util.Date start = startDate != null ? new java.text.SimpleDateFormat("yyyy-MM-dd").parse(startDate)
@@ -60,7 +91,8 @@ public class AnalyticsController {
             java.util.Date end = endDate != null ? new java.text.SimpleDateFormat("yyyy-MM-dd").parse(endDate)
                     : new java.util.Date();
 
-            Map<String, Object> productReport = reportService.generateProductSalesReport(start, end);
+            Map<String, Object> productReport = reportService.generateProductSalesReport(start, end, storeId,
+                    categoryId, limit);
             return ResponseEntity.ok(ApiResponse.success("热销商品统计成功", productReport));
         } catch (Exception e) {
             logger.error("热销商品统计失败: {}", e.getMessage(), e);
@@ -117,4 +149,15 @@ public class AnalyticsController {
             return ResponseEntity.internalServerError().body(ApiResponse.internalError("系统内部错误"));
         }
     }
+
+    private LocalDate parseDate(String value, LocalDate defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "日期格式不正确: " + value);
+        }
+    }
 }
@@ -1,13 +1,21 @@
 package com.solocoffee.backend.controller;
 
 import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
 import com.solocoffee.backend.entity.Customer;
+import com.solocoffee.backend.entity.CustomerOrderHistory;
+import com.solocoffee.backend.service.CustomerOrderHistoryService;
 import com.solocoffee.backend.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -15,9 +23,14 @@ import java.util.Optional;
 @RequestMapping("/api/v1/customers")
 public class CustomerController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CustomerOrderHistoryService customerOrderHistoryService;
+
     @PostMapping
     public ResponseEntity<ApiResponse<Customer>> createCustomer(@RequestBody Customer customer) {
         Customer createdCustomer = customerService.createCustomer(customer);
@@ -97,4 +110,37 @@ public class CustomerController {
         return levelInfo != null ? ResponseEntity.ok(ApiResponse.success(levelInfo))
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.notFound("顾客不存在"));
     }
-}
\ No newline at end of file
+
+    /**
+     * 顾客订单历史（"我的订单"），键集分页：下一页传入上一页返回的 nextAfterCreatedAt 和 nextAfterId
+     */
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCustomerOrders(@PathVariable Long id,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String afterCreatedAt,
+            @RequestParam(required = false) Long afterId) {
+        if (size <= 0 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "每页数量必须在1到" + MAX_HISTORY_PAGE_SIZE + "之间");
+        }
+        LocalDateTime after = null;
+        if (afterCreatedAt != null && !afterCreatedAt.isBlank()) {
+            try {
+                after = LocalDateTime.parse(afterCreatedAt.trim());
+            } catch (DateTimeParseException e) {
+                throw new BizException(ErrorCode.PARAMETER_ERROR, "时间格式不正确: " + afterCreatedAt);
+            }
+        }
+
+        Slice<CustomerOrderHistory> history = customerOrderHistoryService.getHistory(id, after, afterId, size);
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", history.getContent());
+        response.put("size", size);
+        response.put("hasMore", history.hasNext());
+        if (history.hasContent()) {
+            CustomerOrderHistory last = history.getContent().get(history.getNumberOfElements() - 1);
+            response.put("nextAfterId", last.getOrderId());
+            response.put("nextAfterCreatedAt", last.getCreatedAt());
+        }
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+}
@@ -0,0 +1,37 @@
+package com.solocoffee.backend.controller;
+
+import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.dto.MakeLineOrder;
+import com.solocoffee.backend.service.MakeLineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 门店出品队列，供吧台屏幕使用
+ */
+@RestController
+@RequestMapping("/api/v1/stores/{storeId}/queue")
+public class MakeLineController {
+
+    @Autowired
+    private MakeLineService makeLineService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<MakeLineOrder>>> getQueue(@PathVariable Long storeId) {
+        return ResponseEntity.ok(ApiResponse.success(makeLineService.getQueue(storeId)));
+    }
+
+    // 事件: snapshot（连接时的完整队列）、add、remove；事件ID为门店队列版本号
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable Long storeId) {
+        return makeLineService.subscribe(storeId);
+    }
+}
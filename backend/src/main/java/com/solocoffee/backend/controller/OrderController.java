@@ -3,15 +3,27 @@ package com.solocoffee.backend.controller;
 import com.solocoffee.backend.common.ApiResponse;
 import com.solocoffee.backend.common.BizException;
 import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.dto.BatchOrderResult;
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
 import com.solocoffee.backend.entity.Order;
 import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.service.ExportService;
+import com.solocoffee.backend.service.IdempotencyService;
 import com.solocoffee.backend.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,6 +31,7 @@ import java.util.HashMap;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
 @RestController
@@ -27,11 +40,28 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ExportService exportService;
+
     @PostMapping
-    public ResponseEntity<ApiResponse<Order>> createOrder(@RequestBody Order order) {
+    public ResponseEntity<ApiResponse<?>> createOrder(@RequestBody Order order,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotencyService.execute("order-create", idempotencyKey, httpRequest, order,
+                () -> doCreateOrder(order));
+    }
+
+    private ResponseEntity<ApiResponse<?>> doCreateOrder(Order order) {
         logger.debug("开始创建订单: {}", order);
         try {
             // 验证订单数据
@@ -54,9 +84,32 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<?>> createOrders(@RequestBody List<Order> orders,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        if (orders == null || orders.isEmpty()) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "订单列表不能为空");
+        }
+        if (orders.size() > MAX_BATCH_SIZE) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "每批订单数量不能超过" + MAX_BATCH_SIZE);
+        }
+        return idempotencyService.execute("order-batch", idempotencyKey, httpRequest, orders, () -> {
+            List<BatchOrderResult> results = orderService.createOrders(orders);
+            long succeeded = results.stream().filter(BatchOrderResult::isSuccess).count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("total", results.size());
+            response.put("succeeded", succeeded);
+            response.put("failed", results.size() - succeeded);
+            response.put("results", results);
+            return ResponseEntity.ok(ApiResponse.success("批量创建订单完成", response));
+        });
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Order>> getOrderById(@PathVariable Long id) {
-        Optional<Order> order = orderService.getOrderById(id);
+        Optional<Order> order = orderService.getOrderDetail(id);
         if (order.isPresent()) {
             return ResponseEntity.ok(ApiResponse.success(order.get()));
         } else {
@@ -72,15 +125,66 @@ public class OrderController {
             @RequestParam(required = false) String endTime,
             @RequestParam(required = false) Integer orderStatus,
             @RequestParam(required = false) Long storeId,
-            @RequestParam(required = false) Long customerId) {
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) String afterCreatedAt,
+            @RequestParam(required = false) String view) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "每页数量必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStartTime(parseTime(startTime, false));
+        query.setEndTime(parseTime(endTime, true));
+        query.setOrderStatus(orderStatus);
+        query.setStoreId(storeId);
+        query.setCustomerId(customerId);
+        query.setAfterId(afterId);
+        query.setAfterCreatedAt(parseTime(afterCreatedAt, false));
+        // view=summary 时只返回订单摘要，不加载商品行
+        boolean summary = "summary".equalsIgnoreCase(view);
         try {
+            Map<String, Object> response = new HashMap<>();
+
+            // 带游标时使用键集分页，不统计总数
+            if (query.isKeyset()) {
+                Slice<?> slice;
+                Long nextAfterId = null;
+                LocalDateTime nextAfterCreatedAt = null;
+                if (summary) {
+                    Slice<OrderSummary> summaries = orderService.getOrderSummariesAfter(query, size);
+                    if (summaries.hasContent()) {
+                        OrderSummary last = summaries.getContent().get(summaries.getNumberOfElements() - 1);
+                        nextAfterId = last.getId();
+                        nextAfterCreatedAt = last.getCreatedAt();
+                    }
+                    slice = summaries;
+                } else {
+                    Slice<Order> orders = orderService.getOrdersAfter(query, size);
+                    if (orders.hasContent()) {
+                        Order last = orders.getContent().get(orders.getNumberOfElements() - 1);
+                        nextAfterId = last.getId();
+                        nextAfterCreatedAt = last.getCreatedAt();
+                    }
+                    slice = orders;
+                }
+                response.put("orders", slice.getContent());
+                response.put("size", size);
+                response.put("hasMore", slice.hasNext());
+                if (nextAfterId != null) {
+                    response.put("nextAfterId", nextAfterId);
+                    response.put("nextAfterCreatedAt", nextAfterCreatedAt);
+                }
+                return ResponseEntity.ok(ApiResponse.success(response));
+            }
+
             // 创建 Pageable
-            Pageable pageable = PageRequest.of(page - 1, size, Sort.by("id").descending());
+            Pageable pageable = PageRequest.of(page - 1, size,
+                    Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
 
-            // 使用分页查询
-            Page<Order> orderPage = orderService.getOrders(pageable);
+            // 使用分页查询，筛选条件在数据库中执行
+            Page<?> orderPage = summary ? orderService.getOrderSummaries(query, pageable)
+                    : orderService.getOrders(query, pageable);
 
-            Map<String, Object> response = new HashMap<>();
             response.put("orders", orderPage.getContent());
             response.put("total", orderPage.getTotalElements());
             response.put("page", page);
@@ -95,6 +199,54 @@ public class OrderController {
         }
     }
 
+    /**
+     * 导出订单 CSV，type=orders 每个订单一行，type=items 每个商品行一行
+     * 包含时间范围内的归档订单；响应边查询边写出，gzip=true 时输出压缩文件
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false, defaultValue = "orders") String type,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) Integer orderStatus,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        if (!"orders".equals(type) && !"items".equals(type)) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "导出类型必须是 orders 或 items");
+        }
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStartTime(parseTime(startTime, false));
+        query.setEndTime(parseTime(endTime, true));
+        query.setOrderStatus(orderStatus);
+        query.setStoreId(storeId);
+        query.setCustomerId(customerId);
+        if ("items".equals(type)) {
+            return exportService.download("order-items", gzip, csv -> exportService.writeOrderItems(query, csv));
+        }
+        return exportService.download("orders", gzip, csv -> exportService.writeOrders(query, csv));
+    }
+
+    // 解析时间参数，支持 yyyy-MM-dd、yyyy-MM-dd HH:mm:ss 和 ISO 格式；只有日期的结束时间取当天最后一刻
+    private LocalDateTime parseTime(String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                LocalDate date = LocalDate.parse(text);
+                return endOfDay ? date.atTime(LocalTime.MAX) : date.atStartOfDay();
+            }
+            if (text.length() > 10 && text.charAt(10) == ' ') {
+                return LocalDateTime.parse(text, DATE_TIME_FORMATTER);
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, "时间格式不正确: " + value);
+        }
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<ApiResponse<Order>> updateOrderStatus(@PathVariable Long id,
             @RequestBody Map<String, Object> request) {
@@ -136,7 +288,14 @@ public class OrderController {
 
     @PostMapping("/{id}/pay")
     public ResponseEntity<ApiResponse<?>> processPayment(@PathVariable Long id,
-            @RequestBody Map<String, Object> request) {
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotencyService.execute("order-pay:" + id, idempotencyKey, httpRequest, request,
+                () -> doProcessPayment(id, request));
+    }
+
+    private ResponseEntity<ApiResponse<?>> doProcessPayment(Long id, Map<String, Object> request) {
         try {
             // 验证订单是否存在
             Optional<Order> optionalOrder = orderService.getOrderById(id);
@@ -0,0 +1,41 @@
+package com.solocoffee.backend.dto;
+
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.entity.Order;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量创建订单中单个订单的结果
+ */
+@Data
+public class BatchOrderResult {
+    private int index; // 在提交列表中的位置
+    private boolean success;
+    private Long orderId;
+    private String orderNo;
+    private BigDecimal totalAmount;
+    private Integer code;
+    private String message;
+
+    public static BatchOrderResult success(int index, Order order) {
+        BatchOrderResult result = new BatchOrderResult();
+        result.index = index;
+        result.success = true;
+        result.orderId = order.getId();
+        result.orderNo = order.getOrderNo();
+        result.totalAmount = order.getTotalAmount();
+        result.code = 200;
+        return result;
+    }
+
+    public static BatchOrderResult failure(int index, BizException error) {
+        BatchOrderResult result = new BatchOrderResult();
+        result.index = index;
+        result.success = false;
+        result.code = error.getCode();
+        result.message = error.getMessage();
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package com.solocoffee.backend.dto;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 出品队列中的一个订单，只包含制作需要的信息
+ */
+@Data
+public class MakeLineOrder {
+    private Long orderId;
+    private String orderNo;
+    private Long customerId;
+    private LocalDateTime pickupTime;
+    private LocalDateTime createdAt;
+    private String remarks;
+    private List<Item> items = new ArrayList<>();
+
+    public static MakeLineOrder of(Order order) {
+        MakeLineOrder makeLineOrder = new MakeLineOrder();
+        makeLineOrder.setOrderId(order.getId());
+        makeLineOrder.setOrderNo(order.getOrderNo());
+        makeLineOrder.setCustomerId(order.getCustomerId());
+        makeLineOrder.setPickupTime(order.getPickupTime());
+        makeLineOrder.setCreatedAt(order.getCreatedAt());
+        makeLineOrder.setRemarks(order.getRemarks());
+        if (order.getOrderItems() != null) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                Item item = new Item();
+                item.setProductId(orderItem.getProductId());
+                item.setProductName(orderItem.getProductName());
+                item.setQuantity(orderItem.getQuantity());
+                item.setOptions(orderItem.getOptions());
+                makeLineOrder.getItems().add(item);
+            }
+        }
+        return makeLineOrder;
+    }
+
+    // 排队依据：有取餐时间按取餐时间，否则按下单时间
+    public LocalDateTime getDueAt() {
+        return pickupTime != null ? pickupTime : createdAt;
+    }
+
+    @Data
+    public static class Item {
+        private Long productId;
+        private String productName;
+        private Integer quantity;
+        private String options;
+    }
+}
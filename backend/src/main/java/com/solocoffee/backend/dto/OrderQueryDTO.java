@@ -0,0 +1,24 @@
+package com.solocoffee.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单列表查询条件
+ * afterCreatedAt/afterId 为游标（上一页最后一条订单的创建时间和ID），用于键集分页
+ */
+@Data
+public class OrderQueryDTO {
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer orderStatus;
+    private Long storeId;
+    private Long customerId;
+    private LocalDateTime afterCreatedAt;
+    private Long afterId;
+
+    public boolean isKeyset() {
+        return afterCreatedAt != null || afterId != null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.solocoffee.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单列表摘要，只包含订单表自身的列，不加载订单商品行
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    private Long id;
+    private String orderNo;
+    private Long customerId;
+    private Long storeId;
+    private BigDecimal totalAmount;
+    private BigDecimal actualAmount;
+    private Integer paymentMethod;
+    private Integer orderStatus;
+    private LocalDateTime pickupTime;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,34 @@
+package com.solocoffee.backend.dto;
+
+import com.solocoffee.backend.common.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 单个商品在时间范围内的销售合计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSales {
+    private Long productId;
+    private String productName;
+    private long quantity;
+    private BigDecimal revenue = BigDecimal.ZERO; // 商品行小计合计
+    private long orderCount; // 包含该商品的订单数
+
+    // 平均成交单价
+    public BigDecimal getAveragePrice() {
+        return quantity == 0 ? BigDecimal.ZERO
+                : revenue.divide(BigDecimal.valueOf(quantity), Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    public ProductSales plus(ProductSales other) {
+        return new ProductSales(productId, productName != null ? productName : other.productName,
+                quantity + other.quantity, revenue.add(other.revenue), orderCount + other.orderCount);
+    }
+}
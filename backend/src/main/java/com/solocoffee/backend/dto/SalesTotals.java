@@ -0,0 +1,42 @@
+package com.solocoffee.backend.dto;
+
+import com.solocoffee.backend.common.Money;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 销售额合计和订单数，按门店或订单状态分组时带分组键
+ */
+@Data
+@NoArgsConstructor
+public class SalesTotals {
+    // 分组键，未按门店/状态分组时为 null
+    private Long storeId;
+    private Integer orderStatus;
+    private BigDecimal amount = BigDecimal.ZERO;
+    private long orderCount;
+
+    public SalesTotals(BigDecimal amount, long orderCount) {
+        this(null, null, amount, orderCount);
+    }
+
+    public SalesTotals(Long storeId, Integer orderStatus, BigDecimal amount, long orderCount) {
+        this.storeId = storeId;
+        this.orderStatus = orderStatus;
+        this.amount = amount;
+        this.orderCount = orderCount;
+    }
+
+    // 平均订单金额，由合计和订单数计算，跨表合并后仍然准确
+    public BigDecimal getAverage() {
+        return orderCount == 0 ? BigDecimal.ZERO
+                : amount.divide(BigDecimal.valueOf(orderCount), Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    public SalesTotals plus(SalesTotals other) {
+        return new SalesTotals(storeId, orderStatus, amount.add(other.amount), orderCount + other.orderCount);
+    }
+}
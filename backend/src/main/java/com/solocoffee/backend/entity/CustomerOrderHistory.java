@@ -0,0 +1,52 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 顾客订单历史（读模型），由订单事件维护，"我的订单"列表只查询这张表，不读取订单明细
+ */
+@Data
+@Entity
+@Table(name = "customer_order_history", indexes = {
+        @Index(name = "idx_history_customer_created", columnList = "customer_id, created_at, order_id")
+})
+public class CustomerOrderHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_order_history_id_gen")
+    @SequenceGenerator(name = "customer_order_history_id_gen", sequenceName = "customer_order_history_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "order_id", unique = true, nullable = false)
+    private Long orderId;
+    
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+    
+    @Column(name = "order_no", nullable = false)
+    private String orderNo;
+    
+    @Column(name = "actual_amount", nullable = false)
+    private BigDecimal actualAmount;
+    
+    @Column(name = "order_status", nullable = false)
+    private Integer orderStatus;
+    
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount; // 商品总件数
+    
+    @Column(name = "item_names", length = 500)
+    private String itemNames; // 商品名称摘要，如 "拿铁 x2, 美式"
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // 下单时间
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,40 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 仪表盘内存计数器的定期快照，每个门店每天一条，重启后从快照恢复当天和前一天的计数
+ */
+@Data
+@Entity
+@Table(name = "dashboard_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_dashboard_store_date", columnNames = {"store_id", "business_date"})
+})
+public class DashboardCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dashboard_checkpoints_id_gen")
+    @SequenceGenerator(name = "dashboard_checkpoints_id_gen", sequenceName = "dashboard_checkpoints_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "sales_slots", nullable = false, length = 4000)
+    private String salesSlots; // 每15分钟的销售额（分），逗号分隔
+
+    @Column(name = "order_slots", nullable = false, length = 4000)
+    private String orderSlots; // 每15分钟的下单数，逗号分隔
+
+    @Column(name = "low_stock_count", nullable = false)
+    private Long lowStockCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,42 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "idempotency_records", indexes = {
+        @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_records_id_gen")
+    @SequenceGenerator(name = "idempotency_records_id_gen", sequenceName = "idempotency_records_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "record_key", unique = true, nullable = false, length = 200)
+    private String recordKey; // 接口范围 + 客户端传入的 Idempotency-Key
+    
+    @Column(name = "request_hash", length = 64)
+    private String requestHash; // 请求方法、路径和请求体的 SHA-256，同一个键用于不同请求时拒绝
+
+    @Column(name = "status_code", nullable = false)
+    private Integer statusCode;
+    
+    @Lob
+    @Column(name = "response_body", nullable = false)
+    private String responseBody; // ApiResponse 的JSON
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
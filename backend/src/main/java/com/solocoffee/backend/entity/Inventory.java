@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @Table(name = "inventory")
 public class Inventory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_id_gen")
+    @SequenceGenerator(name = "inventory_id_gen", sequenceName = "inventory_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "store_id", nullable = false)
@@ -0,0 +1,34 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单归档分区目录，每个自然月一条，对应一对归档表
+ */
+@Data
+@Entity
+@Table(name = "order_archive_partitions")
+public class OrderArchivePartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_archive_partitions_id_gen")
+    @SequenceGenerator(name = "order_archive_partitions_id_gen", sequenceName = "order_archive_partitions_seq", allocationSize = 1)
+    private Long id;
+    
+    @Column(name = "archive_month", unique = true, nullable = false, length = 6)
+    private String archiveMonth; // yyyyMM
+    
+    @Column(name = "orders_table", nullable = false, length = 64)
+    private String ordersTable;
+    
+    @Column(name = "items_table", nullable = false, length = 64)
+    private String itemsTable;
+    
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // 最近一次写入时间
+}
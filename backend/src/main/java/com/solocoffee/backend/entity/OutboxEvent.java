@@ -0,0 +1,63 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_outbox_aggregate", columnList = "aggregate_type, aggregate_id, status")
+})
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_id_gen")
+    @SequenceGenerator(name = "outbox_events_id_gen", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType; // 聚合类型，如 order
+    
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId; // 聚合ID，同一聚合的事件按写入顺序投递
+    
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+    
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload; // 事件JSON
+    
+    @Column(name = "status", nullable = false)
+    private Integer status; // 0: 待投递, 1: 已投递, 2: 投递失败（超过最大重试次数）
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt; // 失败后下次重试的时间，为空表示立即投递
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (status == null) {
+            status = 0;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+}
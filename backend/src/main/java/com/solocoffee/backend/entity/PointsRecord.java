@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Table(name = "points_records")
 public class PointsRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "points_records_id_gen")
+    @SequenceGenerator(name = "points_records_id_gen", sequenceName = "points_records_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "customer_id", nullable = false)
@@ -20,7 +21,7 @@ public class PointsRecord {
     private Integer points; // 正数为增加，负数为减少
     
     @Column(name = "type", nullable = false)
-    private Integer type; // 1: 消费获得, 2: 积分兑换, 3: 活动奖励
+    private Integer type; // 1: 消费获得, 2: 积分兑换, 3: 活动奖励, 4: 退款扣回
     
     @Column(name = "related_id")
     private Long relatedId; // 关联ID（订单ID、兑换ID等）
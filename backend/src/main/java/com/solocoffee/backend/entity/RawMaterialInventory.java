@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @Table(name = "raw_material_inventory")
 public class RawMaterialInventory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "raw_material_inventory_id_gen")
+    @SequenceGenerator(name = "raw_material_inventory_id_gen", sequenceName = "raw_material_inventory_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "store_id", nullable = false)
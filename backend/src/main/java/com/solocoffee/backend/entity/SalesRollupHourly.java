@@ -0,0 +1,49 @@
+package com.solocoffee.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 按门店、商品、小时预聚合的销售数据，由订单完成/退款增量维护，趋势报表只读取这张表
+ * product_id 为 0 的行是整单合计：revenue 为实付金额，order_count 为订单数
+ */
+@Data
+@Entity
+@Table(name = "sales_rollup_hourly", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_store_product_hour", columnNames = {"store_id", "product_id", "bucket_hour"})
+}, indexes = {
+        @Index(name = "idx_rollup_hour", columnList = "bucket_hour, product_id")
+})
+public class SalesRollupHourly {
+    // 整单合计行的商品ID
+    public static final long ORDER_TOTAL = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_rollup_hourly_id_gen")
+    @SequenceGenerator(name = "sales_rollup_hourly_id_gen", sequenceName = "sales_rollup_hourly_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId; // 0: 整单合计
+
+    @Column(name = "bucket_hour", nullable = false)
+    private LocalDateTime bucketHour; // 下单时间截断到小时
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity; // 商品件数
+
+    @Column(name = "revenue", nullable = false)
+    private BigDecimal revenue; // 商品行小计合计，整单行为实付金额合计
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount; // 包含该商品的订单数
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
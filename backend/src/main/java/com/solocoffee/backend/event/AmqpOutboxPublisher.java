@@ -0,0 +1,52 @@
+package com.solocoffee.backend.event;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 通过 RabbitMQ 发布发件箱消息（outbox.publisher=amqp）
+ * 路由键为 聚合类型.事件类型，如 order.OrderStatusChanged；每条消息等待 broker 确认后才视为投递成功，
+ * 需要配置 spring.rabbitmq.publisher-confirm-type=simple
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.publisher", havingValue = "amqp")
+public class AmqpOutboxPublisher implements OutboxPublisher {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${outbox.amqp.exchange:solocoffee.events}")
+    private String exchange;
+
+    @Value("${outbox.amqp.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Override
+    public void publish(OutboxMessage message) {
+        Message amqpMessage = MessageBuilder.withBody(message.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(String.valueOf(message.getId()))
+                .setType(message.getEventType())
+                .setHeader("aggregateType", message.getAggregateType())
+                .setHeader("aggregateId", message.getAggregateId())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .build();
+        String routingKey = message.getAggregateType() + "." + message.getEventType();
+        // 在同一个信道上发送并等待确认，同一批消息保持发送顺序
+        rabbitTemplate.invoke(operations -> {
+            operations.send(exchange, routingKey, amqpMessage);
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+}
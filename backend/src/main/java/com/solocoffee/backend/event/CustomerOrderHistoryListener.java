@@ -0,0 +1,33 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.service.CustomerOrderHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 由订单事件维护顾客订单历史读模型
+ * 同步监听，与订单变更在同一事务中写入；新订单从当前持久化上下文取得，不额外查询商品行
+ */
+@Component
+public class CustomerOrderHistoryListener {
+
+    @Autowired
+    private CustomerOrderHistoryService historyService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getCustomerId() == null) {
+            return;
+        }
+        if (event.getFromStatus() == null) {
+            orderRepository.findById(event.getOrderId()).ifPresent(historyService::recordCreated);
+        } else {
+            historyService.recordStatus(event.getOrderId(), event.getToStatus());
+        }
+    }
+}
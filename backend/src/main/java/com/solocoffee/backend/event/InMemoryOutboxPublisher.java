@@ -0,0 +1,52 @@
+package com.solocoffee.backend.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的发件箱发布器，未配置消息队列时使用（开发、测试）
+ * 队列有界，满时发布失败，消息留在发件箱中等待消费方取走后重试
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.publisher", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxPublisher implements OutboxPublisher {
+
+    private final BlockingQueue<OutboxMessage> queue;
+
+    public InMemoryOutboxPublisher(@Value("${outbox.memory.capacity:10000}") int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void publish(OutboxMessage message) {
+        if (!queue.offer(message)) {
+            throw new IllegalStateException("内存发件箱队列已满");
+        }
+    }
+
+    /**
+     * 等待并取出一条消息
+     * @return 超时未取到时返回 null
+     */
+    public OutboxMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    // 取出当前队列中的全部消息
+    public List<OutboxMessage> drain() {
+        List<OutboxMessage> messages = new ArrayList<>();
+        queue.drainTo(messages);
+        return messages;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
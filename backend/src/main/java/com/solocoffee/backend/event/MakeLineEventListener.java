@@ -0,0 +1,31 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.service.MakeLineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 订单状态变更提交后同步更新门店出品队列
+ * 不走异步线程池：同一订单的加入和移除必须按提交顺序处理
+ */
+@Component
+public class MakeLineEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MakeLineEventListener.class);
+
+    @Autowired
+    private MakeLineService makeLineService;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        try {
+            makeLineService.onStatusChanged(event.getOrderId(), event.getStoreId(), event.getFromStatus(),
+                    event.getToStatus());
+        } catch (Exception e) {
+            logger.error("订单ID: {} 更新出品队列失败: {}", event.getOrderId(), e.getMessage(), e);
+        }
+    }
+}
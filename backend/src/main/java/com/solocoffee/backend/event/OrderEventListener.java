@@ -0,0 +1,122 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.config.AsyncConfig;
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.service.CustomerService;
+import com.solocoffee.backend.service.DashboardCounterService;
+import com.solocoffee.backend.service.NotificationService;
+import com.solocoffee.backend.service.OrderStateMachine;
+import com.solocoffee.backend.service.ReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.RoundingMode;
+
+/**
+ * 订单事件的次要副作用：积分累计与退款扣回、客户通知、报表计数
+ * 在状态变更事务提交后于订单事件线程池中异步执行；每个副作用单独捕获异常，失败只记录日志，
+ * 不影响其他副作用和订单状态
+ */
+@Component
+public class OrderEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
+
+    private static final int POINTS_TYPE_CONSUMPTION = 1; // 消费获得
+    private static final int POINTS_TYPE_REFUND = 4; // 退款扣回
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Async(AsyncConfig.ORDER_EVENT_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        logger.debug("处理订单状态变更事件: {}", event);
+        safely(event, "报表计数", () -> reportService.recordStatusChange(event.getStoreId(), event.getToStatus()));
+        safely(event, "看板计数", () -> dashboardCounterService.record(event));
+
+        if (event.getCustomerId() == null) {
+            return;
+        }
+        if (event.getToStatus() == OrderStateMachine.COMPLETED) {
+            safely(event, "积分累计", () -> accruePoints(event));
+        } else if (event.getToStatus() == OrderStateMachine.REFUNDED) {
+            safely(event, "积分扣回", () -> revokePoints(event));
+        }
+        safely(event, "通知发送", () -> notifyCustomer(event));
+    }
+
+    private void safely(OrderStatusChangedEvent event, String action, Runnable sideEffect) {
+        try {
+            sideEffect.run();
+        } catch (Exception e) {
+            logger.error("订单ID: {} {}失败: {}", event.getOrderId(), action, e.getMessage(), e);
+        }
+    }
+
+    // 每消费1元积1分
+    // 累计和扣回在不同线程执行，扣回可能先于累计完成；锁定客户后订单已不是已完成状态（已发起退款）时不再累计
+    private void accruePoints(OrderStatusChangedEvent event) {
+        if (event.getActualAmount() == null) {
+            return;
+        }
+        int points = event.getActualAmount().setScale(0, RoundingMode.DOWN).intValue();
+        if (points > 0) {
+            customerService.addPointsIf(event.getCustomerId(), points, POINTS_TYPE_CONSUMPTION, event.getOrderId(),
+                    "订单消费获得积分: " + event.getOrderNo(), () -> isStillCompleted(event.getOrderId()));
+        }
+    }
+
+    private boolean isStillCompleted(Long orderId) {
+        return orderRepository.findById(orderId)
+                .map(order -> Integer.valueOf(OrderStateMachine.COMPLETED).equals(order.getOrderStatus()))
+                .orElse(false);
+    }
+
+    // 退款扣回该订单获得的积分；未完成就退款的订单没有积分记录，不扣除
+    private void revokePoints(OrderStatusChangedEvent event) {
+        int points = customerService.revokePoints(event.getCustomerId(), POINTS_TYPE_CONSUMPTION, POINTS_TYPE_REFUND,
+                event.getOrderId(), "订单退款扣回积分: " + event.getOrderNo());
+        if (points > 0) {
+            logger.info("订单ID: {} 退款扣回积分: {}", event.getOrderId(), points);
+        }
+    }
+
+    private void notifyCustomer(OrderStatusChangedEvent event) {
+        String content;
+        switch (event.getToStatus()) {
+            case OrderStateMachine.PREPARING:
+                content = "您的订单 " + event.getOrderNo() + " 已支付，正在制作中";
+                break;
+            case OrderStateMachine.COMPLETED:
+                content = "您的订单 " + event.getOrderNo() + " 已完成，请取餐";
+                break;
+            case OrderStateMachine.CANCELLED:
+                content = "您的订单 " + event.getOrderNo() + " 已取消";
+                break;
+            case OrderStateMachine.REFUNDED:
+                content = "您的订单 " + event.getOrderNo() + " 已退款";
+                break;
+            default:
+                return;
+        }
+        notificationService.createNotification(event.getCustomerId(), "订单状态更新", content, "order",
+                event.getOrderId());
+    }
+}
@@ -0,0 +1,68 @@
+package com.solocoffee.backend.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单状态变更事件，在状态变更所在事务中发布：同步写入发件箱，提交后再分发给异步监听器
+ * fromStatus 为 null 表示新建订单
+ */
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final String orderNo;
+    private final Long storeId;
+    private final Long customerId;
+    private final Integer fromStatus;
+    private final Integer toStatus;
+    private final BigDecimal actualAmount;
+    private final LocalDateTime occurredAt;
+
+    public OrderStatusChangedEvent(Long orderId, String orderNo, Long storeId, Long customerId,
+            Integer fromStatus, Integer toStatus, BigDecimal actualAmount) {
+        this.orderId = orderId;
+        this.orderNo = orderNo;
+        this.storeId = storeId;
+        this.customerId = customerId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.actualAmount = actualAmount;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getOrderNo() {
+        return orderNo;
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Integer getFromStatus() {
+        return fromStatus;
+    }
+
+    public Integer getToStatus() {
+        return toStatus;
+    }
+
+    public BigDecimal getActualAmount() {
+        return actualAmount;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatusChangedEvent{orderId=" + orderId + ", " + fromStatus + " -> " + toStatus + "}";
+    }
+}
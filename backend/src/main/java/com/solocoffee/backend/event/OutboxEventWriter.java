@@ -0,0 +1,26 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.service.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把订单领域事件写入发件箱
+ * 同步监听，在发布事件的订单事务中执行：订单变更回滚时事件一并回滚，写入失败时订单变更也不会提交
+ */
+@Component
+public class OutboxEventWriter {
+
+    public static final String ORDER_CREATED = "OrderCreated";
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        String eventType = event.getFromStatus() == null ? ORDER_CREATED : ORDER_STATUS_CHANGED;
+        outboxService.append(OutboxService.AGGREGATE_ORDER, event.getOrderId(), eventType, event);
+    }
+}
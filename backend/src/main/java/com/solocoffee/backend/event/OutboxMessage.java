@@ -0,0 +1,62 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * 交给发布器的发件箱消息快照
+ * id 即发件箱记录ID，至少一次投递下消费方可据此去重
+ */
+public class OutboxMessage {
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxMessage(Long id, String aggregateType, Long aggregateId, String eventType, String payload,
+            LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{id=" + id + ", " + aggregateType + ":" + aggregateId + ", " + eventType + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.solocoffee.backend.event;
+
+/**
+ * 发件箱消息发布器
+ * 正常返回表示消息已被下游确认接收；抛出异常时该消息保留在发件箱中，稍后重试
+ */
+public interface OutboxPublisher {
+
+    void publish(OutboxMessage message) throws Exception;
+}
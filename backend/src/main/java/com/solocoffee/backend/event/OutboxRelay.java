@@ -0,0 +1,63 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.service.OutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发件箱中继，定时把待投递事件分批交给发布器
+ * 每批在独立事务中处理，一次调度内连续处理满批，直到积压清空或达到单次上限
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize = 100;
+
+    // 单次调度最多处理的批数，避免长时间占用调度线程
+    @Value("${outbox.relay.max-batches-per-run:50}")
+    private int maxBatchesPerRun = 50;
+
+    // 已投递事件的保留时长（小时）
+    @Value("${outbox.retention-hours:72}")
+    private long retentionHours = 72;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        try {
+            int batches = 0;
+            int published;
+            do {
+                published = outboxService.relayBatch(batchSize);
+                batches++;
+            } while (published == batchSize && batches < maxBatchesPerRun);
+        } catch (Exception e) {
+            logger.error("发件箱中继失败: {}", e.getMessage(), e);
+        } finally {
+            try {
+                outboxService.refreshBacklog();
+            } catch (Exception e) {
+                logger.warn("发件箱积压统计失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = outboxService.purgePublished(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            logger.info("清理已投递的发件箱事件，数量: {}", deleted);
+        }
+    }
+}
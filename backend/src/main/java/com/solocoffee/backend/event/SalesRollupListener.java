@@ -0,0 +1,36 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.service.OrderStateMachine;
+import com.solocoffee.backend.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 由订单事件维护小时销售汇总
+ * 同步监听，与订单状态变更在同一事务中写入；订单从当前持久化上下文取得
+ */
+@Component
+public class SalesRollupListener {
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Integer status = event.getToStatus();
+        if (status == null) {
+            return;
+        }
+        if (status == OrderStateMachine.COMPLETED) {
+            orderRepository.findWithOrderItemsById(event.getOrderId()).ifPresent(rollupService::recordCompleted);
+        } else if (OrderStateMachine.isRefundOfCompleted(event.getFromStatus(), status)) {
+            // 只冲减计入过汇总的已完成订单，与看板计数规则一致
+            orderRepository.findWithOrderItemsById(event.getOrderId()).ifPresent(rollupService::recordRefunded);
+        }
+    }
+}
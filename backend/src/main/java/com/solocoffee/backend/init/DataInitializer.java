@@ -2,6 +2,8 @@ package com.solocoffee.backend.init;
 
 import com.solocoffee.backend.entity.*;
 import com.solocoffee.backend.repository.*;
+import com.solocoffee.backend.service.CustomerOrderHistoryService;
+import com.solocoffee.backend.service.SalesRollupService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
@@ -18,6 +20,9 @@ public class DataInitializer implements CommandLineRunner {
     private final CustomerRepository customerRepository;
     private final OrderRepository orderRepository;
     private final InventoryRepository inventoryRepository;
+    private final CustomerOrderHistoryService customerOrderHistoryService;
+    private final SyntheticDataGenerator syntheticDataGenerator;
+    private final SalesRollupService salesRollupService;
 
     public DataInitializer(StoreRepository storeRepository,
             CategoryRepository categoryRepository,
@@ -25,7 +30,10 @@ public class DataInitializer implements CommandLineRunner {
             EmployeeRepository employeeRepository,
             CustomerRepository customerRepository,
             OrderRepository orderRepository,
-            InventoryRepository inventoryRepository) {
+            InventoryRepository inventoryRepository,
+            CustomerOrderHistoryService customerOrderHistoryService,
+            SyntheticDataGenerator syntheticDataGenerator,
+            SalesRollupService salesRollupService) {
         this.storeRepository = storeRepository;
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
@@ -33,6 +41,9 @@ public class DataInitializer implements CommandLineRunner {
         this.customerRepository = customerRepository;
         this.orderRepository = orderRepository;
         this.inventoryRepository = inventoryRepository;
+        this.customerOrderHistoryService = customerOrderHistoryService;
+        this.syntheticDataGenerator = syntheticDataGenerator;
+        this.salesRollupService = salesRollupService;
     }
 
     @Override
@@ -172,6 +183,18 @@ public class DataInitializer implements CommandLineRunner {
                 createInventory(store.getId(), s1.getId(), 50);
         }
 
+        // 8. Customer order history read model
+        customerOrderHistoryService.rebuildIfEmpty();
+
+        // 9. Synthetic data (--seed.scale=N)
+        if (syntheticDataGenerator.isEnabled()) {
+            System.out.println(">>> Generating synthetic data...");
+            syntheticDataGenerator.generate();
+        }
+
+        // 10. Hourly sales rollup (backfill from existing orders)
+        salesRollupService.backfillIfEmpty();
+
         System.out.println(">>> Antigravity Data Initializer: Data seeding completed!");
     }
 
@@ -0,0 +1,409 @@
+package com.solocoffee.backend.init;
+
+import com.solocoffee.backend.repository.SeedDataRepository;
+import com.solocoffee.backend.service.OrderStateMachine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 合成数据生成器，启动参数 --seed.scale=N 时生成 N 个门店的模拟数据
+ * 商品（含BOM）和原料全局共用，每个门店生成自己的顾客、原料库存和订单；门店之间并行生成，
+ * 每批订单连同商品行、顾客订单历史在一个事务中用 JDBC 批处理写入。
+ * 订单分布在最近 seed.days 天（不含今天），按营业时间内的小时权重下单，周末订单更多，商品热度呈长尾分布。
+ * 数据量较大时应把 spring.datasource.url 指向文件或独立数据库，内存库受堆大小限制。
+ */
+@Component
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    public static final String STORE_PREFIX = "合成门店";
+    public static final String PRODUCT_PREFIX = "SYN-P";
+    public static final String MATERIAL_PREFIX = "SYN-M";
+    public static final String ORDER_PREFIX = "SYN";
+    public static final String CUSTOMER_PHONE_PREFIX = "190";
+
+    private static final String CATEGORY_PREFIX = "合成分类";
+    private static final int CATEGORY_COUNT = 10;
+    private static final int MAX_BOM_LINES = 6;
+
+    // 各小时的下单权重：7点开门、22点打烊，早高峰、午高峰和下午茶三个峰值
+    private static final int[] HOURLY_WEIGHTS = {
+            0, 0, 0, 0, 0, 0, 0, 6, 14, 12, 7, 8, 11, 9, 6, 8, 7, 5, 4, 3, 2, 1, 0, 0};
+    private static final int[] HOURLY_CUMULATIVE = cumulative(HOURLY_WEIGHTS);
+
+    private static final String[] PRODUCT_NAMES = {"美式", "拿铁", "卡布奇诺", "摩卡", "馥芮白", "冷萃",
+            "燕麦拿铁", "焦糖玛奇朵", "抹茶拿铁", "桂花拿铁", "牛角包", "芝士蛋糕", "司康", "三明治"};
+
+    @Autowired
+    private SeedDataRepository seedDataRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 门店数量，0 表示不生成
+    @Value("${seed.scale:0}")
+    private int scale = 0;
+
+    @Value("${seed.products:2000}")
+    private int productCount = 2000;
+
+    @Value("${seed.materials:300}")
+    private int materialCount = 300;
+
+    @Value("${seed.customers-per-store:20000}")
+    private int customersPerStore = 20000;
+
+    @Value("${seed.orders-per-store:100000}")
+    private int ordersPerStore = 100000;
+
+    // 订单覆盖的天数
+    @Value("${seed.days:90}")
+    private int days = 90;
+
+    // 每个事务写入的订单数
+    @Value("${seed.batch-size:1000}")
+    private int batchSize = 1000;
+
+    // 并行生成的门店数
+    @Value("${seed.threads:4}")
+    private int threads = 4;
+
+    // 随机种子，相同参数生成相同的数据
+    @Value("${seed.random-seed:42}")
+    private long randomSeed = 42;
+
+    public boolean isEnabled() {
+        return scale > 0;
+    }
+
+    /**
+     * 生成合成数据，未启用或已生成过时跳过
+     * @return 生成的订单数
+     */
+    public long generate() throws Exception {
+        if (!isEnabled()) {
+            return 0;
+        }
+        if (seedDataRepository.countProducts(PRODUCT_PREFIX) > 0) {
+            logger.info("合成数据已存在，跳过生成");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        SplittableRandom random = new SplittableRandom(randomSeed);
+        List<Long> storeIds = createStores(now);
+        List<Long> materialIds = createMaterials(now);
+        List<SeedProduct> products = createProducts(random, materialIds, now);
+        logger.info("合成数据: 门店 {}, 原料 {}, 商品 {}，开始并行生成顾客和订单", storeIds.size(), materialIds.size(),
+                products.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, storeIds.size())));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < storeIds.size(); i++) {
+                int storeIndex = i;
+                futures.add(executor.submit(() -> generateStore(storeIndex, storeIds.get(storeIndex), materialIds,
+                        products, now)));
+            }
+            long orders = 0;
+            for (Future<Long> future : futures) {
+                orders += future.get();
+            }
+            logger.info("合成数据生成完成: 门店 {}, 顾客 {}, 订单 {}，耗时 {} 秒", storeIds.size(),
+                    (long) storeIds.size() * customersPerStore, orders, (System.nanoTime() - start) / 1_000_000_000);
+            return orders;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> createStores(LocalDateTime now) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= scale; i++) {
+            rows.add(new Object[]{String.format("%s%04d", STORE_PREFIX, i), "合成地址 " + i + " 号",
+                    String.format("010-%08d", i), "07:00 - 22:00", 1, Timestamp.valueOf(now), Timestamp.valueOf(now)});
+        }
+        seedDataRepository.insertStores(rows);
+        return seedDataRepository.findStoreIds(STORE_PREFIX);
+    }
+
+    private List<Long> createMaterials(LocalDateTime now) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= materialCount; i++) {
+            rows.add(new Object[]{String.format("%s%05d", MATERIAL_PREFIX, i), "合成原料" + i, "g", "合成",
+                    1, Timestamp.valueOf(now), Timestamp.valueOf(now)});
+        }
+        seedDataRepository.insertMaterials(rows);
+        return seedDataRepository.findMaterialIds(MATERIAL_PREFIX);
+    }
+
+    // 每个商品1到6行BOM，原料随机选取
+    private List<SeedProduct> createProducts(SplittableRandom random, List<Long> materialIds, LocalDateTime now) {
+        List<Object[]> categoryRows = new ArrayList<>();
+        for (int i = 1; i <= CATEGORY_COUNT; i++) {
+            categoryRows.add(new Object[]{CATEGORY_PREFIX + i, null, 100 + i, Timestamp.valueOf(now),
+                    Timestamp.valueOf(now)});
+        }
+        seedDataRepository.insertCategories(categoryRows);
+        List<Long> categoryIds = seedDataRepository.findCategoryIds(CATEGORY_PREFIX);
+
+        List<SeedProduct> products = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= productCount; i++) {
+            SeedProduct product = new SeedProduct();
+            product.name = PRODUCT_NAMES[i % PRODUCT_NAMES.length] + " " + i;
+            // 15 到 45 元，以5角为单位
+            product.price = BigDecimal.valueOf(30 + random.nextInt(61), 0).divide(BigDecimal.valueOf(2))
+                    .setScale(2);
+            products.add(product);
+            rows.add(new Object[]{String.format("%s%05d", PRODUCT_PREFIX, i), product.name, product.price,
+                    categoryIds.get(i % categoryIds.size()), 1, Timestamp.valueOf(now), Timestamp.valueOf(now)});
+        }
+        seedDataRepository.insertProducts(rows);
+
+        List<Long> productIds = seedDataRepository.findProductIds(PRODUCT_PREFIX);
+        List<Object[]> bomRows = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            products.get(i).id = productIds.get(i);
+            int lines = 1 + random.nextInt(Math.min(MAX_BOM_LINES, materialIds.size()));
+            int first = random.nextInt(materialIds.size());
+            for (int j = 0; j < lines; j++) {
+                bomRows.add(new Object[]{productIds.get(i), materialIds.get((first + j) % materialIds.size()),
+                        BigDecimal.valueOf(5 + random.nextInt(200)), "g", j == 0, Timestamp.valueOf(now),
+                        Timestamp.valueOf(now)});
+            }
+            if (bomRows.size() >= batchSize) {
+                seedDataRepository.insertBoms(bomRows);
+                bomRows.clear();
+            }
+        }
+        seedDataRepository.insertBoms(bomRows);
+        return products;
+    }
+
+    // 生成一个门店的原料库存、顾客和订单，返回订单数
+    private long generateStore(int storeIndex, Long storeId, List<Long> materialIds, List<SeedProduct> products,
+            LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(randomSeed + storeIndex + 1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long[] ids = seedDataRepository.nextIds("raw_material_inventory_seq", materialIds.size());
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < materialIds.size(); i++) {
+                rows.add(new Object[]{ids[i], storeId, materialIds.get(i), new BigDecimal("1000000"),
+                        new BigDecimal("1000"), Timestamp.valueOf(now), Timestamp.valueOf(now)});
+            }
+            seedDataRepository.insertMaterialInventory(rows);
+        });
+
+        long[] customerIds = createCustomers(storeIndex, now, transactionTemplate);
+
+        OrderBatch batch = new OrderBatch(storeId);
+        int[] dayCounts = distributeOverDays(now.toLocalDate());
+        LocalDate firstDay = now.toLocalDate().minusDays(days);
+        long sequence = 0;
+        for (int d = 0; d < days; d++) {
+            LocalDate day = firstDay.plusDays(d);
+            // 当天的下单时间排序后再分配，订单ID与下单时间顺序一致
+            long[] seconds = new long[dayCounts[d]];
+            for (int i = 0; i < seconds.length; i++) {
+                seconds[i] = pickHour(random) * 3600L + random.nextInt(3600);
+            }
+            Arrays.sort(seconds);
+            for (long second : seconds) {
+                LocalDateTime createdAt = day.atStartOfDay().plusSeconds(second);
+                // 约八成订单来自会员顾客，其余为散客
+                Long customerId = random.nextInt(10) < 8 && customerIds.length > 0
+                        ? customerIds[random.nextInt(customerIds.length)] : null;
+                batch.add(String.format("%s%d-%09d", ORDER_PREFIX, storeId, ++sequence), customerId, createdAt,
+                        pickStatus(random), 1 + random.nextInt(3), products, random);
+                if (batch.size() >= batchSize) {
+                    batch.flush(transactionTemplate);
+                }
+            }
+        }
+        batch.flush(transactionTemplate);
+        logger.info("门店ID: {} 合成数据生成完成，顾客 {}, 订单 {}", storeId, customerIds.length, sequence);
+        return sequence;
+    }
+
+    // 顾客手机号按门店分段，写入后按手机号范围取回ID
+    private long[] createCustomers(int storeIndex, LocalDateTime now, TransactionTemplate transactionTemplate) {
+        long first = (long) storeIndex * customersPerStore;
+        for (int offset = 0; offset < customersPerStore; offset += batchSize) {
+            int from = offset;
+            int to = Math.min(offset + batchSize, customersPerStore);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> rows = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    rows.add(new Object[]{"顾客" + (first + i), phone(first + i), null, 0, Timestamp.valueOf(now),
+                            Timestamp.valueOf(now)});
+                }
+                seedDataRepository.insertCustomers(rows);
+            });
+        }
+        return customersPerStore == 0 ? new long[0]
+                : seedDataRepository.findCustomerIds(phone(first), phone(first + customersPerStore - 1));
+    }
+
+    // 按天分配订单数，周末是工作日的1.3倍
+    private int[] distributeOverDays(LocalDate today) {
+        double[] weights = new double[days];
+        double total = 0;
+        for (int d = 0; d < days; d++) {
+            DayOfWeek dayOfWeek = today.minusDays(days - d).getDayOfWeek();
+            weights[d] = dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY ? 1.3 : 1.0;
+            total += weights[d];
+        }
+        int[] counts = new int[days];
+        int assigned = 0;
+        for (int d = 0; d < days; d++) {
+            counts[d] = (int) (ordersPerStore * weights[d] / total);
+            assigned += counts[d];
+        }
+        if (days > 0) {
+            counts[days - 1] += ordersPerStore - assigned;
+        }
+        return counts;
+    }
+
+    private static int pickHour(SplittableRandom random) {
+        int value = random.nextInt(HOURLY_CUMULATIVE[HOURLY_CUMULATIVE.length - 1]);
+        for (int hour = 0; hour < HOURLY_CUMULATIVE.length; hour++) {
+            if (value < HOURLY_CUMULATIVE[hour]) {
+                return hour;
+            }
+        }
+        return HOURLY_CUMULATIVE.length - 1;
+    }
+
+    // 历史订单都已结束: 92% 已完成，5% 已取消，3% 已退款
+    private static int pickStatus(SplittableRandom random) {
+        int value = random.nextInt(100);
+        if (value < 92) {
+            return OrderStateMachine.COMPLETED;
+        }
+        return value < 97 ? OrderStateMachine.CANCELLED : OrderStateMachine.REFUNDED;
+    }
+
+    private static int[] cumulative(int[] weights) {
+        int[] result = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            result[i] = sum;
+        }
+        return result;
+    }
+
+    private static String phone(long index) {
+        return CUSTOMER_PHONE_PREFIX + String.format("%08d", index);
+    }
+
+    private static class SeedProduct {
+        private Long id;
+        private String name;
+        private BigDecimal price;
+    }
+
+    // 一个门店待写入的一批订单、商品行和顾客订单历史
+    private class OrderBatch {
+        private final Long storeId;
+        private final List<Object[]> orders = new ArrayList<>();
+        private final List<List<Object[]>> items = new ArrayList<>();
+        private final List<Object[]> history = new ArrayList<>();
+
+        OrderBatch(Long storeId) {
+            this.storeId = storeId;
+        }
+
+        int size() {
+            return orders.size();
+        }
+
+        // 商品按热度长尾选取（编号越小越热门），每行1到3件
+        void add(String orderNo, Long customerId, LocalDateTime createdAt, int status, int lineCount,
+                List<SeedProduct> products, SplittableRandom random) {
+            List<Object[]> lines = new ArrayList<>(lineCount);
+            BigDecimal total = BigDecimal.ZERO;
+            int itemCount = 0;
+            StringBuilder names = new StringBuilder();
+            for (int i = 0; i < lineCount; i++) {
+                SeedProduct product = products.get((int) (products.size() * Math.pow(random.nextDouble(), 3)));
+                int quantity = random.nextInt(10) < 8 ? 1 : 2 + random.nextInt(2);
+                BigDecimal subtotal = product.price.multiply(BigDecimal.valueOf(quantity));
+                total = total.add(subtotal);
+                itemCount += quantity;
+                lines.add(new Object[]{null, null, product.id, product.name, quantity, product.price, subtotal});
+                names.append(names.length() > 0 ? ", " : "").append(product.name);
+                if (quantity > 1) {
+                    names.append(" x").append(quantity);
+                }
+            }
+            Timestamp timestamp = Timestamp.valueOf(createdAt);
+            orders.add(new Object[]{null, orderNo, customerId, storeId, total, total, 1 + random.nextInt(3), status,
+                    timestamp, timestamp});
+            items.add(lines);
+            history.add(customerId == null ? null : new Object[]{null, null, customerId, storeId, orderNo, total,
+                    status, itemCount, names.toString(), timestamp, timestamp});
+        }
+
+        // 预留主键并在一个事务中写入三张表
+        void flush(TransactionTemplate transactionTemplate) {
+            if (orders.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                long[] orderIds = seedDataRepository.nextIds("orders_seq", orders.size());
+                int lineCount = items.stream().mapToInt(List::size).sum();
+                long[] itemIds = seedDataRepository.nextIds("order_items_seq", lineCount);
+                List<Object[]> historyRows = new ArrayList<>();
+                List<Object[]> itemRows = new ArrayList<>(lineCount);
+                int itemIndex = 0;
+                for (int i = 0; i < orders.size(); i++) {
+                    orders.get(i)[0] = orderIds[i];
+                    for (Object[] line : items.get(i)) {
+                        line[0] = itemIds[itemIndex++];
+                        line[1] = orderIds[i];
+                        itemRows.add(line);
+                    }
+                    if (history.get(i) != null) {
+                        history.get(i)[1] = orderIds[i];
+                        historyRows.add(history.get(i));
+                    }
+                }
+                long[] historyIds = seedDataRepository.nextIds("customer_order_history_seq", historyRows.size());
+                for (int i = 0; i < historyRows.size(); i++) {
+                    historyRows.get(i)[0] = historyIds[i];
+                }
+                seedDataRepository.insertOrders(orders);
+                seedDataRepository.insertOrderItems(itemRows);
+                seedDataRepository.insertHistory(historyRows);
+            });
+            orders.clear();
+            items.clear();
+            history.clear();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.entity.CustomerOrderHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerOrderHistoryRepository extends JpaRepository<CustomerOrderHistory, Long> {
+
+    // 最新的一页
+    @Query("SELECT h FROM CustomerOrderHistory h WHERE h.customerId = :customerId "
+            + "ORDER BY h.createdAt DESC, h.orderId DESC")
+    List<CustomerOrderHistory> findLatest(@Param("customerId") Long customerId, Pageable pageable);
+
+    // 游标之后的一页（按下单时间、订单ID倒序）
+    @Query("SELECT h FROM CustomerOrderHistory h WHERE h.customerId = :customerId "
+            + "AND (h.createdAt < :afterCreatedAt OR (h.createdAt = :afterCreatedAt AND h.orderId < :afterId)) "
+            + "ORDER BY h.createdAt DESC, h.orderId DESC")
+    List<CustomerOrderHistory> findAfter(@Param("customerId") Long customerId,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE CustomerOrderHistory h SET h.orderStatus = :status, h.updatedAt = :updatedAt "
+            + "WHERE h.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") Integer status,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT h.orderId FROM CustomerOrderHistory h WHERE h.orderId IN :orderIds")
+    List<Long> findExistingOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
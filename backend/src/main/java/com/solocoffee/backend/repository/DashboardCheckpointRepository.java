@@ -0,0 +1,14 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.entity.DashboardCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DashboardCheckpointRepository extends JpaRepository<DashboardCheckpoint, Long> {
+    List<DashboardCheckpoint> findByBusinessDateIn(Collection<LocalDate> businessDates);
+}
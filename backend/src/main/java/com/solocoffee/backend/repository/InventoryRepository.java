@@ -4,12 +4,25 @@ import com.solocoffee.backend.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
     Optional<Inventory> findByProductId(Long productId);
 
+    List<Inventory> findByProductIdIn(Collection<Long> productIds);
+
+    List<Inventory> findByStoreIdAndProductIdIn(Long storeId, Collection<Long> productIds);
+
+    List<Inventory> findByStoreIdInAndProductIdIn(Collection<Long> storeIds, Collection<Long> productIds);
+
     @org.springframework.data.jpa.repository.Query("SELECT COUNT(i) FROM Inventory i WHERE i.quantity <= i.warningThreshold")
     long countLowStock();
+
+    // 每行依次为 门店ID, 低库存商品数
+    @org.springframework.data.jpa.repository.Query("SELECT i.storeId, COUNT(i) FROM Inventory i "
+            + "WHERE i.quantity <= i.warningThreshold GROUP BY i.storeId")
+    List<Object[]> countLowStockByStore();
 }
\ No newline at end of file
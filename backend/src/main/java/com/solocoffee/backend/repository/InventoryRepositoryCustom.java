@@ -0,0 +1,31 @@
+package com.solocoffee.backend.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryRepositoryCustom {
+
+    /**
+     * 按商品批量执行带条件的原子扣减（quantity >= 扣减数量时才更新），一次JDBC批处理提交
+     * @param storeId 门店ID，只扣减该门店的库存
+     * @param quantities 商品ID -> 扣减数量
+     * @return 库存不足或不存在、未能扣减的商品ID
+     */
+    List<Long> deductIfSufficient(Long storeId, Map<Long, BigDecimal> quantities);
+
+    /**
+     * 按商品批量增加库存（用于退款、释放等场景）
+     * @param storeId 门店ID，只增加该门店的库存
+     * @param quantities 商品ID -> 增加数量
+     * @return 不存在库存记录的商品ID
+     */
+    List<Long> addQuantities(Long storeId, Map<Long, BigDecimal> quantities);
+
+    /**
+     * 将门店内低于阈值的成品库存补到指定数量
+     * @return 补货的记录数
+     */
+    int reorderBelow(Long storeId, Collection<Long> productIds, BigDecimal threshold, BigDecimal reorderQuantity);
+}
@@ -0,0 +1,72 @@
+package com.solocoffee.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    private static final String DEDUCT_SQL = "UPDATE inventory SET quantity = quantity - ?, updated_at = ? "
+            + "WHERE store_id = ? AND product_id = ? AND quantity >= ?";
+
+    private static final String ADD_SQL = "UPDATE inventory SET quantity = quantity + ?, updated_at = ? "
+            + "WHERE store_id = ? AND product_id = ?";
+
+    private static final String REORDER_SQL = "UPDATE inventory SET quantity = :reorderQuantity, updated_at = :now "
+            + "WHERE store_id = :storeId AND product_id IN (:productIds) AND quantity < :threshold";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public List<Long> deductIfSufficient(Long storeId, Map<Long, BigDecimal> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batchArgs = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            BigDecimal quantity = quantities.get(productId);
+            batchArgs.add(new Object[] { quantity, now, storeId, productId, quantity });
+        }
+        return RawMaterialInventoryRepositoryCustomImpl.failedKeys(productIds,
+                jdbcTemplate.batchUpdate(DEDUCT_SQL, batchArgs));
+    }
+
+    @Override
+    public List<Long> addQuantities(Long storeId, Map<Long, BigDecimal> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batchArgs = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            batchArgs.add(new Object[] { quantities.get(productId), now, storeId, productId });
+        }
+        return RawMaterialInventoryRepositoryCustomImpl.failedKeys(productIds,
+                jdbcTemplate.batchUpdate(ADD_SQL, batchArgs));
+    }
+
+    @Override
+    public int reorderBelow(Long storeId, Collection<Long> productIds, BigDecimal threshold,
+                            BigDecimal reorderQuantity) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("reorderQuantity", reorderQuantity)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("storeId", storeId)
+                .addValue("productIds", productIds)
+                .addValue("threshold", threshold);
+        return namedParameterJdbcTemplate.update(REORDER_SQL, params);
+    }
+}
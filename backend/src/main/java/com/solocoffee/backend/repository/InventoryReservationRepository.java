@@ -0,0 +1,25 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.entity.InventoryReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+    List<InventoryReservation> findByOrderIdAndStatus(Long orderId, Integer status);
+
+    List<InventoryReservation> findByStatus(Integer status);
+
+    List<InventoryReservation> findByStatusAndExpiresAtBefore(Integer status, LocalDateTime expiresAt);
+
+    // 只在当前状态为 expected 时更新，返回更新行数；并发的过期释放和完成扣减只有一方能更新成功
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = :status WHERE r.id = :id AND r.status = :expected")
+    int updateStatusIf(@Param("id") Long id, @Param("expected") Integer expected, @Param("status") Integer status);
+}
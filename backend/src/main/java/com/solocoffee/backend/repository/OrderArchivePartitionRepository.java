@@ -0,0 +1,12 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.entity.OrderArchivePartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderArchivePartitionRepository extends JpaRepository<OrderArchivePartition, Long> {
+    Optional<OrderArchivePartition> findByArchiveMonth(String archiveMonth);
+}
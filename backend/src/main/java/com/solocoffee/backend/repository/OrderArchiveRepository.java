@@ -0,0 +1,277 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 订单归档表访问
+ * 归档表按月命名（orders_archive_yyyyMM、order_items_archive_yyyyMM），结构与在线表相同，表名只由年月生成。
+ */
+@Repository
+public class OrderArchiveRepository {
+
+    public static final String ORDERS_TABLE_PREFIX = "orders_archive_";
+    public static final String ITEMS_TABLE_PREFIX = "order_items_archive_";
+
+    private static final String ORDER_COLUMNS = "id, order_no, customer_id, store_id, total_amount, actual_amount, "
+            + "payment_method, order_status, pickup_time, created_at, updated_at, remarks";
+
+    private static final String ITEM_COLUMNS = "id, order_id, product_id, product_name, quantity, price, subtotal, "
+            + "options";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static String ordersTable(YearMonth month) {
+        return ORDERS_TABLE_PREFIX + suffix(month);
+    }
+
+    public static String itemsTable(YearMonth month) {
+        return ITEMS_TABLE_PREFIX + suffix(month);
+    }
+
+    public static String suffix(YearMonth month) {
+        return String.format("%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    // 创建某月的归档表（已存在时跳过）
+    public void createTables(YearMonth month) {
+        String orders = ordersTable(month);
+        String items = itemsTable(month);
+        // 只复制归档需要的列，在线表增加新列时不影响已有归档表
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + orders + " AS SELECT " + ORDER_COLUMNS
+                + " FROM orders WITH NO DATA");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_" + orders + "_id ON " + orders + " (id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + orders + "_created ON " + orders
+                + " (created_at, id)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + items + " AS SELECT " + ITEM_COLUMNS
+                + " FROM order_items WITH NO DATA");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + items + "_order ON " + items + " (order_id)");
+    }
+
+    /**
+     * 查询可归档的订单，按创建时间顺序
+     * @return 订单ID -> 创建时间
+     */
+    public Map<Long, LocalDateTime> findArchivable(Collection<Integer> statuses, LocalDateTime before, int limit) {
+        String sql = "SELECT id, created_at FROM orders WHERE order_status IN (" + placeholders(statuses.size())
+                + ") AND created_at < ? ORDER BY created_at, id LIMIT ?";
+        List<Object> args = new ArrayList<>(statuses);
+        args.add(Timestamp.valueOf(before));
+        args.add(limit);
+        Map<Long, LocalDateTime> result = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getLong("id"), rs.getTimestamp("created_at").toLocalDateTime());
+        }, args.toArray());
+        return result;
+    }
+
+    /**
+     * 把一批订单及其商品行移入某月的归档表
+     * 先锁定仍处于终态的订单，只移动锁定成功的部分，避免与并发的状态变更冲突
+     * @return 实际归档的订单数
+     */
+    @Transactional
+    public int moveBatch(YearMonth month, Collection<Long> orderIds, Collection<Integer> statuses) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(orderIds);
+        args.addAll(statuses);
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM orders WHERE id IN ("
+                + placeholders(orderIds.size()) + ") AND order_status IN (" + placeholders(statuses.size())
+                + ") FOR UPDATE", Long.class, args.toArray());
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        String in = "(" + placeholders(locked.size()) + ")";
+        Object[] ids = locked.toArray();
+        jdbcTemplate.update("INSERT INTO " + ordersTable(month) + " (" + ORDER_COLUMNS + ") SELECT " + ORDER_COLUMNS
+                + " FROM orders WHERE id IN " + in, ids);
+        jdbcTemplate.update("INSERT INTO " + itemsTable(month) + " (" + ITEM_COLUMNS + ") SELECT " + ITEM_COLUMNS
+                + " FROM order_items WHERE order_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN " + in, ids);
+        return jdbcTemplate.update("DELETE FROM orders WHERE id IN " + in, ids);
+    }
+
+    /**
+     * 按查询条件读取归档订单摘要，排序与在线查询一致
+     * @param byIdOnly 为 true 时只按ID倒序（只有 afterId 游标时）
+     */
+    public List<OrderSummary> findSummaries(YearMonth month, OrderQueryDTO query, boolean byIdOnly, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + ORDER_COLUMNS + " FROM " + ordersTable(month) + where(query, args)
+                + (byIdOnly ? " ORDER BY id DESC" : " ORDER BY created_at DESC, id DESC") + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, SUMMARY_MAPPER, args.toArray());
+    }
+
+    public long count(YearMonth month, OrderQueryDTO query) {
+        List<Object> args = new ArrayList<>();
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + ordersTable(month) + where(query, args),
+                Long.class, args.toArray());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 读取归档订单及其商品行（商品行一次查询）
+     * @param orderIds 订单ID，返回结果保持该顺序
+     */
+    public List<Order> findOrders(YearMonth month, List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String in = "(" + placeholders(orderIds.size()) + ")";
+        Object[] ids = orderIds.toArray();
+        Map<Long, Order> orders = jdbcTemplate.query("SELECT " + ORDER_COLUMNS + " FROM " + ordersTable(month)
+                + " WHERE id IN " + in, ORDER_MAPPER, ids).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        jdbcTemplate.query("SELECT " + ITEM_COLUMNS + " FROM " + itemsTable(month) + " WHERE order_id IN " + in
+                + " ORDER BY id", rs -> {
+            Order order = orders.get(rs.getLong("order_id"));
+            if (order != null) {
+                OrderItem item = new OrderItem();
+                item.setId(rs.getLong("id"));
+                item.setOrder(order);
+                item.setProductId(rs.getLong("product_id"));
+                item.setProductName(rs.getString("product_name"));
+                item.setQuantity(rs.getInt("quantity"));
+                item.setPrice(rs.getBigDecimal("price"));
+                item.setSubtotal(rs.getBigDecimal("subtotal"));
+                item.setOptions(rs.getString("options"));
+                order.getOrderItems().add(item);
+            }
+        }, ids);
+        List<Order> result = new ArrayList<>(orderIds.size());
+        for (Long id : orderIds) {
+            if (orders.containsKey(id)) {
+                result.add(orders.get(id));
+            }
+        }
+        return result;
+    }
+
+    public Optional<Order> findOrder(YearMonth month, Long orderId) {
+        List<Order> orders = findOrders(month, List.of(orderId));
+        return orders.isEmpty() ? Optional.empty() : Optional.of(orders.get(0));
+    }
+
+    /**
+     * 统计归档订单在时间范围内的实付金额合计和订单数，可按门店和/或订单状态分组
+     * 不分组时返回一行；未参与分组的键为 null
+     */
+    public List<SalesTotals> aggregateSales(YearMonth month, LocalDateTime start, LocalDateTime end,
+            boolean byStore, boolean byStatus) {
+        List<String> groupColumns = new ArrayList<>();
+        if (byStore) {
+            groupColumns.add("store_id");
+        }
+        if (byStatus) {
+            groupColumns.add("order_status");
+        }
+        String sql = "SELECT COALESCE(SUM(actual_amount), 0), COUNT(*), "
+                + (byStore ? "store_id" : "NULL") + ", " + (byStatus ? "order_status" : "NULL")
+                + " FROM " + ordersTable(month) + " WHERE created_at >= ? AND created_at <= ?"
+                + (groupColumns.isEmpty() ? "" : " GROUP BY " + String.join(", ", groupColumns));
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SalesTotals(rs.getObject(3, Long.class),
+                rs.getObject(4, Integer.class), rs.getBigDecimal(1), rs.getLong(2)),
+                Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    // 与 OrderSpecifications.matches 相同的筛选条件
+    private String where(OrderQueryDTO query, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (query.getStoreId() != null) {
+            conditions.add("store_id = ?");
+            args.add(query.getStoreId());
+        }
+        if (query.getCustomerId() != null) {
+            conditions.add("customer_id = ?");
+            args.add(query.getCustomerId());
+        }
+        if (query.getOrderStatus() != null) {
+            conditions.add("order_status = ?");
+            args.add(query.getOrderStatus());
+        }
+        if (query.getStartTime() != null) {
+            conditions.add("created_at >= ?");
+            args.add(Timestamp.valueOf(query.getStartTime()));
+        }
+        if (query.getEndTime() != null) {
+            conditions.add("created_at <= ?");
+            args.add(Timestamp.valueOf(query.getEndTime()));
+        }
+        if (query.getAfterCreatedAt() != null && query.getAfterId() != null) {
+            conditions.add("(created_at < ? OR (created_at = ? AND id < ?))");
+            args.add(Timestamp.valueOf(query.getAfterCreatedAt()));
+            args.add(Timestamp.valueOf(query.getAfterCreatedAt()));
+            args.add(query.getAfterId());
+        } else if (query.getAfterCreatedAt() != null) {
+            conditions.add("created_at < ?");
+            args.add(Timestamp.valueOf(query.getAfterCreatedAt()));
+        } else if (query.getAfterId() != null) {
+            conditions.add("id < ?");
+            args.add(query.getAfterId());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static final RowMapper<OrderSummary> SUMMARY_MAPPER = (rs, rowNum) -> new OrderSummary(
+            rs.getLong("id"), rs.getString("order_no"), getLong(rs, "customer_id"), rs.getLong("store_id"),
+            rs.getBigDecimal("total_amount"), rs.getBigDecimal("actual_amount"), rs.getInt("payment_method"),
+            rs.getInt("order_status"), toLocalDateTime(rs.getTimestamp("pickup_time")),
+            toLocalDateTime(rs.getTimestamp("created_at")));
+
+    private static final RowMapper<Order> ORDER_MAPPER = (rs, rowNum) -> {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setOrderNo(rs.getString("order_no"));
+        order.setCustomerId(getLong(rs, "customer_id"));
+        order.setStoreId(rs.getLong("store_id"));
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setActualAmount(rs.getBigDecimal("actual_amount"));
+        order.setPaymentMethod(rs.getInt("payment_method"));
+        order.setOrderStatus(rs.getInt("order_status"));
+        order.setPickupTime(toLocalDateTime(rs.getTimestamp("pickup_time")));
+        order.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        order.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        order.setRemarks(rs.getString("remarks"));
+        order.setOrderItems(new ArrayList<>());
+        return order;
+    };
+}
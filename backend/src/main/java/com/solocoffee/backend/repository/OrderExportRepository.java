@@ -0,0 +1,89 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单导出查询
+ * 结果集只向前逐行读取并直接交给回调写出，不加载实体；在线表和归档表使用相同的 SQL，只替换表名。
+ * 不在事务中执行，每张表的查询单独取用和归还连接。
+ */
+@Repository
+public class OrderExportRepository {
+
+    // 每次从数据库取回的行数
+    private static final int FETCH_SIZE = 500;
+
+    private static final String ORDER_COLUMNS = "o.id, o.order_no, o.store_id, o.customer_id, o.order_status, "
+            + "o.payment_method, o.total_amount, o.actual_amount, o.created_at, o.pickup_time, o.remarks";
+
+    private static final String ITEM_COLUMNS = "o.order_no, o.store_id, o.order_status, o.created_at, "
+            + "i.product_id, i.product_name, i.quantity, i.price, i.subtotal, i.options";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按创建时间顺序逐行读取订单
+     * @param ordersTable 订单表（在线表或某月归档表）
+     */
+    public void streamOrders(String ordersTable, OrderQueryDTO query, RowCallbackHandler handler) {
+        stream("SELECT " + ORDER_COLUMNS + " FROM " + ordersTable + " o", query, " ORDER BY o.created_at, o.id",
+                handler);
+    }
+
+    /**
+     * 按订单创建时间顺序逐行读取商品行，过滤条件作用在所属订单上
+     * @param ordersTable 订单表（在线表或某月归档表）
+     * @param itemsTable 对应的商品行表
+     */
+    public void streamItems(String ordersTable, String itemsTable, OrderQueryDTO query, RowCallbackHandler handler) {
+        stream("SELECT " + ITEM_COLUMNS + " FROM " + ordersTable + " o JOIN " + itemsTable
+                + " i ON i.order_id = o.id", query, " ORDER BY o.created_at, o.id, i.id", handler);
+    }
+
+    private void stream(String select, OrderQueryDTO query, String orderBy, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (query.getStartTime() != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(query.getStartTime()));
+        }
+        if (query.getEndTime() != null) {
+            sql.append(" AND o.created_at <= ?");
+            args.add(Timestamp.valueOf(query.getEndTime()));
+        }
+        if (query.getStoreId() != null) {
+            sql.append(" AND o.store_id = ?");
+            args.add(query.getStoreId());
+        }
+        if (query.getOrderStatus() != null) {
+            sql.append(" AND o.order_status = ?");
+            args.add(query.getOrderStatus());
+        }
+        if (query.getCustomerId() != null) {
+            sql.append(" AND o.customer_id = ?");
+            args.add(query.getCustomerId());
+        }
+        sql.append(orderBy);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+}
@@ -1,12 +1,59 @@
 package com.solocoffee.backend.repository;
 
 import com.solocoffee.backend.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+        OrderRepositoryCustom {
     java.util.List<Order> findByCreatedAtAfter(java.time.LocalDateTime createdAt);
 
     long countByCreatedAtAfter(java.time.LocalDateTime createdAt);
-}
\ No newline at end of file
+
+    // 一次查询连同商品行加载订单详情
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithOrderItemsById(Long id);
+
+    // 按订单ID批量加载订单及其商品行，用于分页查询后的第二次查询，避免逐单加载商品行
+    @EntityGraph(attributePaths = "orderItems")
+    List<Order> findWithOrderItemsByIdIn(Collection<Long> ids);
+
+    // 按订单ID键集分页读取有顾客的订单ID，用于补建顾客订单历史
+    @Query("SELECT o.id FROM Order o WHERE o.customerId IS NOT NULL AND o.id > :afterId ORDER BY o.id")
+    List<Long> findCustomerOrderIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 门店某状态的全部订单及其商品行，用于出品队列的初始加载
+    @EntityGraph(attributePaths = "orderItems")
+    List<Order> findWithOrderItemsByStoreIdAndOrderStatus(Long storeId, Integer orderStatus);
+
+    /**
+     * 按门店和下单时刻（当天第几分钟）统计订单数，用于仪表盘计数器没有快照时的初始化
+     * @return 每行依次为 门店ID, 分钟, 订单数
+     */
+    @Query("SELECT o.storeId, EXTRACT(HOUR FROM o.createdAt) * 60 + EXTRACT(MINUTE FROM o.createdAt), COUNT(o) "
+            + "FROM Order o WHERE o.createdAt >= :start AND o.createdAt < :end "
+            + "GROUP BY o.storeId, EXTRACT(HOUR FROM o.createdAt) * 60 + EXTRACT(MINUTE FROM o.createdAt)")
+    List<Object[]> countByStoreAndMinute(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * 按门店和完成时刻统计已完成订单的实付金额，完成后没有再变更的订单以最后更新时间为完成时间
+     * @return 每行依次为 门店ID, 分钟, 实付金额合计
+     */
+    @Query("SELECT o.storeId, EXTRACT(HOUR FROM o.updatedAt) * 60 + EXTRACT(MINUTE FROM o.updatedAt), "
+            + "SUM(o.actualAmount) FROM Order o "
+            + "WHERE o.orderStatus = 3 AND o.updatedAt >= :start AND o.updatedAt < :end "
+            + "GROUP BY o.storeId, EXTRACT(HOUR FROM o.updatedAt) * 60 + EXTRACT(MINUTE FROM o.updatedAt)")
+    List<Object[]> sumCompletedByStoreAndMinute(@Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,33 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * 按条件查询订单摘要，只查询订单表的列，不触发订单商品行的加载
+     * @param spec 查询条件
+     * @param sort 排序
+     * @param offset 起始行
+     * @param limit 最大行数
+     * @return 订单摘要
+     */
+    List<OrderSummary> findSummaries(Specification<Order> spec, Sort sort, long offset, int limit);
+
+    /**
+     * 在数据库中统计时间范围内的实付金额合计和订单数，走 created_at 索引，结果行数只与分组数有关
+     * @param start 开始时间（含）
+     * @param end 结束时间（含）
+     * @param byStore 按门店分组
+     * @param byStatus 按订单状态分组
+     * @return 不分组时一行；未参与分组的键为 null
+     */
+    List<SalesTotals> aggregateSales(LocalDateTime start, LocalDateTime end, boolean byStore, boolean byStatus);
+}
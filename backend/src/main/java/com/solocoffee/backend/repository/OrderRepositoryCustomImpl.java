@@ -0,0 +1,74 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> findSummaries(Specification<Order> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> query = cb.createQuery(OrderSummary.class);
+        Root<Order> root = query.from(Order.class);
+        query.select(cb.construct(OrderSummary.class,
+                root.get("id"), root.get("orderNo"), root.get("customerId"), root.get("storeId"),
+                root.get("totalAmount"), root.get("actualAmount"), root.get("paymentMethod"),
+                root.get("orderStatus"), root.get("pickupTime"), root.get("createdAt")));
+        if (spec != null) {
+            query.where(spec.toPredicate(root, query, cb));
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<SalesTotals> aggregateSales(LocalDateTime start, LocalDateTime end, boolean byStore,
+            boolean byStatus) {
+        List<String> groupColumns = new ArrayList<>();
+        if (byStore) {
+            groupColumns.add("o.storeId");
+        }
+        if (byStatus) {
+            groupColumns.add("o.orderStatus");
+        }
+        String group = String.join(", ", groupColumns);
+        String jpql = "SELECT COALESCE(SUM(o.actualAmount), 0), COUNT(o)" + (group.isEmpty() ? "" : ", " + group)
+                + " FROM Order o WHERE o.createdAt >= :start AND o.createdAt <= :end"
+                + (group.isEmpty() ? "" : " GROUP BY " + group);
+        List<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+
+        List<SalesTotals> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int column = 2;
+            Long storeId = byStore ? (Long) row[column++] : null;
+            Integer orderStatus = byStatus ? (Integer) row[column] : null;
+            result.add(new SalesTotals(storeId, orderStatus, (BigDecimal) row[0], (Long) row[1]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.entity.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单查询条件构造，筛选条件全部下推到数据库
+ * 对应索引: orders(store_id, created_at), orders(customer_id, created_at), orders(order_status)
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * 按查询条件过滤，键集分页时附加游标条件 (created_at, id) < (afterCreatedAt, afterId)
+     */
+    public static Specification<Order> matches(OrderQueryDTO query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (query.getStoreId() != null) {
+                predicates.add(cb.equal(root.get("storeId"), query.getStoreId()));
+            }
+            if (query.getCustomerId() != null) {
+                predicates.add(cb.equal(root.get("customerId"), query.getCustomerId()));
+            }
+            if (query.getOrderStatus() != null) {
+                predicates.add(cb.equal(root.get("orderStatus"), query.getOrderStatus()));
+            }
+            if (query.getStartTime() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), query.getStartTime()));
+            }
+            if (query.getEndTime() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), query.getEndTime()));
+            }
+            if (query.getAfterCreatedAt() != null && query.getAfterId() != null) {
+                predicates.add(cb.or(
+                        cb.lessThan(root.get("createdAt"), query.getAfterCreatedAt()),
+                        cb.and(cb.equal(root.get("createdAt"), query.getAfterCreatedAt()),
+                                cb.lessThan(root.get("id"), query.getAfterId()))));
+            } else if (query.getAfterCreatedAt() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), query.getAfterCreatedAt()));
+            } else if (query.getAfterId() != null) {
+                predicates.add(cb.lessThan(root.get("id"), query.getAfterId()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // 按写入顺序加锁读取一批已到重试时间的待投递事件，多个实例同时中继时不会重复读取同一批。
+    // 同一聚合中更早的事件已投递失败或仍在退避等待时，后续事件不读取；更早的事件本批可投递时排在前面，
+    // 由中继按顺序处理
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :pending "
+            + "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now) "
+            + "AND NOT EXISTS (SELECT p.id FROM OutboxEvent p WHERE p.aggregateType = e.aggregateType "
+            + "AND p.aggregateId = e.aggregateId "
+            + "AND (p.createdAt < e.createdAt OR (p.createdAt = e.createdAt AND p.id < e.id)) "
+            + "AND (p.status = :failed OR (p.status = :pending AND p.nextAttemptAt > :now))) "
+            + "ORDER BY e.createdAt, e.id")
+    List<OutboxEvent> findBatchToRelay(@Param("pending") Integer pending, @Param("failed") Integer failed,
+            @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(Integer status);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAtByStatus(@Param("status") Integer status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.publishedAt < :before")
+    int deleteByStatusAndPublishedAtBefore(@Param("status") Integer status, @Param("before") LocalDateTime before);
+}
@@ -9,4 +9,6 @@ import java.util.List;
 @Repository
 public interface PointsRecordRepository extends JpaRepository<PointsRecord, Long> {
     List<PointsRecord> findByCustomerId(Long customerId);
+
+    List<PointsRecord> findByCustomerIdAndRelatedId(Long customerId, Long relatedId);
 }
\ No newline at end of file
@@ -4,10 +4,12 @@ import com.solocoffee.backend.entity.ProductBOM;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductBOMRepository extends JpaRepository<ProductBOM, Long> {
     List<ProductBOM> findByProductId(Long productId);
     List<ProductBOM> findByMaterialId(Long materialId);
+    List<ProductBOM> findByProductIdIn(Collection<Long> productIds);
 }
\ No newline at end of file
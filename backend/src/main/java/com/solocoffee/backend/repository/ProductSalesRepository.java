@@ -0,0 +1,68 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.ProductSales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * 商品销售聚合查询
+ * 订单商品行与已完成订单在数据库中连接并按商品分组，结果集只向前逐行读取，不加载实体；
+ * 在线表和归档表使用相同的 SQL，只替换表名。
+ */
+@Repository
+public class ProductSalesRepository {
+
+    // 每次从数据库取回的行数
+    private static final int FETCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按商品聚合 [start, end) 内某状态订单的商品行，逐行交给 consumer
+     * @param ordersTable 订单表（在线表或某月归档表）
+     * @param itemsTable 对应的商品行表
+     * @param storeId 门店ID，为 null 时不过滤
+     * @param categoryId 商品分类ID，为 null 时不过滤
+     */
+    public void aggregate(String ordersTable, String itemsTable, int status, LocalDateTime start, LocalDateTime end,
+            Long storeId, Long categoryId, Consumer<ProductSales> consumer) {
+        StringBuilder sql = new StringBuilder("SELECT i.product_id, MAX(i.product_name), SUM(i.quantity), "
+                + "SUM(i.subtotal), COUNT(DISTINCT o.id) FROM ").append(ordersTable).append(" o JOIN ")
+                .append(itemsTable).append(" i ON i.order_id = o.id");
+        if (categoryId != null) {
+            sql.append(" JOIN products p ON p.id = i.product_id AND p.category_id = ?");
+        }
+        sql.append(" WHERE o.order_status = ? AND o.created_at >= ? AND o.created_at < ?");
+        if (storeId != null) {
+            sql.append(" AND o.store_id = ?");
+        }
+        sql.append(" GROUP BY i.product_id");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            int index = 1;
+            if (categoryId != null) {
+                ps.setLong(index++, categoryId);
+            }
+            ps.setInt(index++, status);
+            ps.setTimestamp(index++, Timestamp.valueOf(start));
+            ps.setTimestamp(index++, Timestamp.valueOf(end));
+            if (storeId != null) {
+                ps.setLong(index, storeId);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new ProductSales(rs.getLong(1), rs.getString(2),
+                rs.getLong(3), rs.getBigDecimal(4), rs.getLong(5))));
+    }
+}
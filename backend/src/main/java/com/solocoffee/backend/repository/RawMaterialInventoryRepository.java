@@ -4,13 +4,15 @@ import com.solocoffee.backend.entity.RawMaterialInventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RawMaterialInventoryRepository extends JpaRepository<RawMaterialInventory, Long> {
+public interface RawMaterialInventoryRepository extends JpaRepository<RawMaterialInventory, Long>, RawMaterialInventoryRepositoryCustom {
     List<RawMaterialInventory> findByStoreId(Long storeId);
     Optional<RawMaterialInventory> findByStoreIdAndMaterialId(Long storeId, Long materialId);
+    List<RawMaterialInventory> findByStoreIdAndMaterialIdIn(Long storeId, Collection<Long> materialIds);
     List<RawMaterialInventory> findByQuantityLessThanEqual(Double threshold);
     List<RawMaterialInventory> findByStoreIdAndQuantityLessThanEqual(Long storeId, Double threshold);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.solocoffee.backend.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface RawMaterialInventoryRepositoryCustom {
+
+    /**
+     * 直接读取数据库中的当前库存数量，不经过持久化上下文缓存
+     * @param storeId 门店ID
+     * @param materialIds 原料ID
+     * @return 原料ID -> 当前库存数量，不存在库存记录的原料不包含在内
+     */
+    Map<Long, BigDecimal> findQuantities(Long storeId, Collection<Long> materialIds);
+
+    /**
+     * 按原料批量执行带条件的原子扣减（quantity >= 扣减数量时才更新），一次JDBC批处理提交
+     * @param storeId 门店ID
+     * @param quantities 原料ID -> 扣减数量
+     * @return 库存不足或不存在、未能扣减的原料ID
+     */
+    List<Long> deductIfSufficient(Long storeId, Map<Long, BigDecimal> quantities);
+
+    /**
+     * 按原料批量增加库存（用于退款、释放等场景）
+     * @param storeId 门店ID
+     * @param quantities 原料ID -> 增加数量
+     * @return 不存在库存记录的原料ID
+     */
+    List<Long> addQuantities(Long storeId, Map<Long, BigDecimal> quantities);
+
+    /**
+     * 将低于阈值的原料库存补到指定数量
+     * @return 补货的记录数
+     */
+    int reorderBelow(Long storeId, Collection<Long> materialIds, BigDecimal threshold, BigDecimal reorderQuantity);
+}
@@ -0,0 +1,100 @@
+package com.solocoffee.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RawMaterialInventoryRepositoryCustomImpl implements RawMaterialInventoryRepositoryCustom {
+
+    private static final String QUANTITY_SQL = "SELECT material_id, quantity FROM raw_material_inventory "
+            + "WHERE store_id = :storeId AND material_id IN (:materialIds)";
+
+    private static final String DEDUCT_SQL = "UPDATE raw_material_inventory SET quantity = quantity - ?, updated_at = ? "
+            + "WHERE store_id = ? AND material_id = ? AND quantity >= ?";
+
+    private static final String ADD_SQL = "UPDATE raw_material_inventory SET quantity = quantity + ?, updated_at = ? "
+            + "WHERE store_id = ? AND material_id = ?";
+
+    private static final String REORDER_SQL = "UPDATE raw_material_inventory SET quantity = :reorderQuantity, updated_at = :now "
+            + "WHERE store_id = :storeId AND material_id IN (:materialIds) AND quantity < :threshold";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public Map<Long, BigDecimal> findQuantities(Long storeId, Collection<Long> materialIds) {
+        Map<Long, BigDecimal> quantities = new HashMap<>();
+        if (materialIds.isEmpty()) {
+            return quantities;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("storeId", storeId)
+                .addValue("materialIds", materialIds);
+        namedParameterJdbcTemplate.query(QUANTITY_SQL, params, (RowCallbackHandler) rs -> quantities
+                .put(rs.getLong("material_id"), rs.getBigDecimal("quantity")));
+        return quantities;
+    }
+
+    @Override
+    public List<Long> deductIfSufficient(Long storeId, Map<Long, BigDecimal> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> materialIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batchArgs = new ArrayList<>(materialIds.size());
+        for (Long materialId : materialIds) {
+            BigDecimal quantity = quantities.get(materialId);
+            batchArgs.add(new Object[] { quantity, now, storeId, materialId, quantity });
+        }
+        return failedKeys(materialIds, jdbcTemplate.batchUpdate(DEDUCT_SQL, batchArgs));
+    }
+
+    @Override
+    public List<Long> addQuantities(Long storeId, Map<Long, BigDecimal> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> materialIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batchArgs = new ArrayList<>(materialIds.size());
+        for (Long materialId : materialIds) {
+            batchArgs.add(new Object[] { quantities.get(materialId), now, storeId, materialId });
+        }
+        return failedKeys(materialIds, jdbcTemplate.batchUpdate(ADD_SQL, batchArgs));
+    }
+
+    @Override
+    public int reorderBelow(Long storeId, Collection<Long> materialIds, BigDecimal threshold,
+            BigDecimal reorderQuantity) {
+        if (materialIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("reorderQuantity", reorderQuantity)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("storeId", storeId)
+                .addValue("materialIds", materialIds)
+                .addValue("threshold", threshold);
+        return namedParameterJdbcTemplate.update(REORDER_SQL, params);
+    }
+
+    // 批处理中只有影响行数大于0才算成功，驱动返回SUCCESS_NO_INFO(-2)时无法确认已更新，同样视为失败
+    static List<Long> failedKeys(List<Long> keys, int[] updateCounts) {
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (updateCounts[i] <= 0) {
+                failed.add(keys.get(i));
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,166 @@
+package com.solocoffee.backend.repository;
+
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.SalesRollupHourly;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 小时销售汇总表访问
+ * 增量更新用一条 MERGE 累加，并发完成的订单落在同一行时不会丢失更新；
+ * 补建时的聚合查询对在线表和归档表使用相同的 SQL，只替换表名。
+ */
+@Repository
+public class SalesRollupRepository {
+
+    private static final String TABLE = "sales_rollup_hourly";
+
+    // 导出时每次从数据库取回的行数
+    private static final int FETCH_SIZE = 500;
+
+    private static final String MERGE_SQL = "MERGE INTO " + TABLE + " r USING (VALUES (CAST(? AS BIGINT), "
+            + "CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS DECIMAL(38, 2)), "
+            + "CAST(? AS BIGINT))) AS d(store_id, product_id, bucket_hour, quantity, revenue, order_count) "
+            + "ON r.store_id = d.store_id AND r.product_id = d.product_id AND r.bucket_hour = d.bucket_hour "
+            + "WHEN MATCHED THEN UPDATE SET quantity = r.quantity + d.quantity, revenue = r.revenue + d.revenue, "
+            + "order_count = r.order_count + d.order_count, updated_at = CURRENT_TIMESTAMP "
+            + "WHEN NOT MATCHED THEN INSERT (id, store_id, product_id, bucket_hour, quantity, revenue, order_count, "
+            + "updated_at) VALUES (NEXT VALUE FOR sales_rollup_hourly_seq, d.store_id, d.product_id, d.bucket_hour, "
+            + "d.quantity, d.revenue, d.order_count, CURRENT_TIMESTAMP)";
+
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + " (id, store_id, product_id, bucket_hour, "
+            + "quantity, revenue, order_count, updated_at) "
+            + "VALUES (NEXT VALUE FOR sales_rollup_hourly_seq, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private static final Comparator<SalesRollupHourly> KEY_ORDER = Comparator
+            .comparing(SalesRollupHourly::getStoreId)
+            .thenComparing(SalesRollupHourly::getProductId)
+            .thenComparing(SalesRollupHourly::getBucketHour);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 把增量累加到对应的汇总行，行不存在时插入
+     * 按 (门店, 商品, 小时) 排序后执行，多个事务同时更新相同的几行时加锁顺序一致
+     */
+    public void add(List<SalesRollupHourly> deltas) {
+        List<SalesRollupHourly> sorted = new ArrayList<>(deltas);
+        sorted.sort(KEY_ORDER);
+        jdbcTemplate.batchUpdate(MERGE_SQL, toArgs(sorted));
+    }
+
+    public void insert(Collection<SalesRollupHourly> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, toArgs(rows));
+    }
+
+    // 删除 [start, end) 内的汇总行
+    public int deleteRange(LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE bucket_hour >= ? AND bucket_hour < ?",
+                Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 从订单表按 (门店, 商品, 小时) 聚合商品行，order_count 为包含该商品的订单数
+     * @param ordersTable 订单表（在线表或某月归档表）
+     * @param itemsTable 对应的商品行表
+     */
+    public List<SalesRollupHourly> aggregateItems(String ordersTable, String itemsTable, int status,
+            LocalDateTime start, LocalDateTime end) {
+        String hour = "DATE_TRUNC('HOUR', o.created_at)";
+        String sql = "SELECT o.store_id, i.product_id, " + hour + ", SUM(i.quantity), SUM(i.subtotal), "
+                + "COUNT(DISTINCT o.id) FROM " + ordersTable + " o JOIN " + itemsTable + " i ON i.order_id = o.id "
+                + "WHERE o.order_status = ? AND o.created_at >= ? AND o.created_at < ? "
+                + "GROUP BY o.store_id, i.product_id, " + hour;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            SalesRollupHourly row = new SalesRollupHourly();
+            row.setStoreId(rs.getLong(1));
+            row.setProductId(rs.getLong(2));
+            row.setBucketHour(rs.getTimestamp(3).toLocalDateTime());
+            row.setQuantity(rs.getLong(4));
+            row.setRevenue(rs.getBigDecimal(5));
+            row.setOrderCount(rs.getLong(6));
+            return row;
+        }, status, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    /**
+     * 从订单表按 (门店, 小时) 聚合整单合计，件数由调用方从商品行汇总
+     */
+    public List<SalesRollupHourly> aggregateOrders(String ordersTable, int status, LocalDateTime start,
+            LocalDateTime end) {
+        String hour = "DATE_TRUNC('HOUR', created_at)";
+        String sql = "SELECT store_id, " + hour + ", SUM(actual_amount), COUNT(*) FROM " + ordersTable
+                + " WHERE order_status = ? AND created_at >= ? AND created_at < ? GROUP BY store_id, " + hour;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            SalesRollupHourly row = new SalesRollupHourly();
+            row.setStoreId(rs.getLong(1));
+            row.setProductId(SalesRollupHourly.ORDER_TOTAL);
+            row.setBucketHour(rs.getTimestamp(2).toLocalDateTime());
+            row.setQuantity(0L);
+            row.setRevenue(rs.getBigDecimal(3));
+            row.setOrderCount(rs.getLong(4));
+            return row;
+        }, status, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    /**
+     * 按天汇总整单合计，所有门店合并
+     * @return 日期 -> 实付金额合计和订单数，按日期升序
+     */
+    public Map<LocalDate, SalesTotals> dailyTotals(LocalDateTime start, LocalDateTime end) {
+        String day = "CAST(bucket_hour AS DATE)";
+        String sql = "SELECT " + day + ", SUM(revenue), SUM(order_count) FROM " + TABLE
+                + " WHERE product_id = ? AND bucket_hour >= ? AND bucket_hour < ? GROUP BY " + day + " ORDER BY "
+                + day;
+        Map<LocalDate, SalesTotals> result = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getDate(1).toLocalDate(), new SalesTotals(rs.getBigDecimal(2), rs.getLong(3)));
+        }, SalesRollupHourly.ORDER_TOTAL, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        return result;
+    }
+
+    /**
+     * 按小时和门店顺序逐行读取 [start, end) 内的汇总行，结果集只向前读取，供导出使用
+     */
+    public void stream(LocalDateTime start, LocalDateTime end, RowCallbackHandler handler) {
+        String sql = "SELECT bucket_hour, store_id, product_id, quantity, revenue, order_count FROM " + TABLE
+                + " WHERE bucket_hour >= ? AND bucket_hour < ? ORDER BY bucket_hour, store_id, product_id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(start));
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            return ps;
+        }, handler);
+    }
+
+    private List<Object[]> toArgs(Collection<SalesRollupHourly> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (SalesRollupHourly row : rows) {
+            args.add(new Object[]{row.getStoreId(), row.getProductId(), Timestamp.valueOf(row.getBucketHour()),
+                    row.getQuantity(), row.getRevenue(), row.getOrderCount()});
+        }
+        return args;
+    }
+}
@@ -0,0 +1,141 @@
+package com.solocoffee.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 合成数据批量写入
+ * 绕过 JPA 直接用 JDBC 批处理写入，供大规模造数使用；每个方法的参数行按对应列常量的顺序排列。
+ * 序列主键表的ID通过 {@link #nextIds} 预留，与 Hibernate 的 pooled 分配方式一致，不会与应用写入的ID冲突。
+ */
+@Repository
+public class SeedDataRepository {
+
+    // 与实体上 @SequenceGenerator 的 allocationSize 一致
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    public static final String STORE_COLUMNS = "name, address, phone, business_hours, status, created_at, updated_at";
+    public static final String CATEGORY_COLUMNS = "category_name, description, sort_order, created_at, updated_at";
+    public static final String MATERIAL_COLUMNS = "material_no, name, unit, category, status, created_at, updated_at";
+    public static final String PRODUCT_COLUMNS = "product_no, name, price, category_id, status, created_at, updated_at";
+    public static final String BOM_COLUMNS = "product_id, material_id, quantity, unit, is_main, created_at, updated_at";
+    public static final String MATERIAL_INVENTORY_COLUMNS = "id, store_id, material_id, quantity, warning_threshold, "
+            + "created_at, updated_at";
+    public static final String CUSTOMER_COLUMNS = "name, phone, password, points, created_at, updated_at";
+    public static final String ORDER_COLUMNS = "id, order_no, customer_id, store_id, total_amount, actual_amount, "
+            + "payment_method, order_status, created_at, updated_at";
+    public static final String ORDER_ITEM_COLUMNS = "id, order_id, product_id, product_name, quantity, price, subtotal";
+    public static final String HISTORY_COLUMNS = "id, order_id, customer_id, store_id, order_no, actual_amount, "
+            + "order_status, item_count, item_names, created_at, updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 从序列预留一批主键
+     * 序列每次前进 allocationSize，取到的值 v 代表 (v - allocationSize, v] 这一段；
+     * 序列的初始值由 Hibernate 特殊处理（与下一段合并使用），这里跳过
+     * @param sequence 序列名
+     * @param count 需要的主键数量
+     */
+    public long[] nextIds(String sequence, int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            Long hi = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+            if (hi == null || hi < ID_ALLOCATION_SIZE) {
+                continue;
+            }
+            for (long id = hi - ID_ALLOCATION_SIZE + 1; id <= hi && filled < count; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+
+    public void insertStores(List<Object[]> rows) {
+        insert("stores", STORE_COLUMNS, rows);
+    }
+
+    public void insertCategories(List<Object[]> rows) {
+        insert("category", CATEGORY_COLUMNS, rows);
+    }
+
+    public void insertMaterials(List<Object[]> rows) {
+        insert("raw_materials", MATERIAL_COLUMNS, rows);
+    }
+
+    public void insertProducts(List<Object[]> rows) {
+        insert("products", PRODUCT_COLUMNS, rows);
+    }
+
+    public void insertBoms(List<Object[]> rows) {
+        insert("product_bom", BOM_COLUMNS, rows);
+    }
+
+    public void insertMaterialInventory(List<Object[]> rows) {
+        insert("raw_material_inventory", MATERIAL_INVENTORY_COLUMNS, rows);
+    }
+
+    public void insertCustomers(List<Object[]> rows) {
+        insert("customers", CUSTOMER_COLUMNS, rows);
+    }
+
+    public void insertOrders(List<Object[]> rows) {
+        insert("orders", ORDER_COLUMNS, rows);
+    }
+
+    public void insertOrderItems(List<Object[]> rows) {
+        insert("order_items", ORDER_ITEM_COLUMNS, rows);
+    }
+
+    public void insertHistory(List<Object[]> rows) {
+        insert("customer_order_history", HISTORY_COLUMNS, rows);
+    }
+
+    // 按名称前缀查询门店ID，按ID顺序
+    public List<Long> findStoreIds(String namePrefix) {
+        return jdbcTemplate.queryForList("SELECT id FROM stores WHERE name LIKE ? ORDER BY id", Long.class,
+                namePrefix + "%");
+    }
+
+    public List<Long> findCategoryIds(String namePrefix) {
+        return jdbcTemplate.queryForList("SELECT id FROM category WHERE category_name LIKE ? ORDER BY id", Long.class,
+                namePrefix + "%");
+    }
+
+    public List<Long> findMaterialIds(String materialNoPrefix) {
+        return jdbcTemplate.queryForList("SELECT id FROM raw_materials WHERE material_no LIKE ? ORDER BY material_no",
+                Long.class, materialNoPrefix + "%");
+    }
+
+    public List<Long> findProductIds(String productNoPrefix) {
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE product_no LIKE ? ORDER BY product_no",
+                Long.class, productNoPrefix + "%");
+    }
+
+    public long countProducts(String productNoPrefix) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE product_no LIKE ?", Long.class,
+                productNoPrefix + "%");
+        return count == null ? 0 : count;
+    }
+
+    // 按手机号范围查询顾客ID（走 phone 唯一索引），按手机号顺序
+    public long[] findCustomerIds(String fromPhone, String toPhone) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM customers WHERE phone BETWEEN ? AND ? ORDER BY phone", Long.class, fromPhone, toPhone);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void insert(String table, String columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String values = String.join(", ", Collections.nCopies(columns.split(",").length, "?"));
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")", rows);
+    }
+}
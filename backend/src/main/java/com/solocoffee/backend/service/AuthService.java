@@ -1,5 +1,6 @@
 package com.solocoffee.backend.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +26,14 @@ public class AuthService {
     // 模拟令牌存储
     private static final Map<String, TokenInfo> tokenStore = new ConcurrentHashMap<>();
 
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
+    @PostConstruct
+    public void initMetrics() {
+        serviceMetrics.gauge("auth.tokens", "内存中的令牌数", tokenStore, Map::size);
+    }
+
     @Transactional
     public Map<String, Object> login(String username, String password, boolean rememberMe) {
         logger.debug("用户登录: username={}, rememberMe={}", username, rememberMe);
@@ -0,0 +1,174 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.CustomerOrderHistory;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.CustomerOrderHistoryRepository;
+import com.solocoffee.backend.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 顾客订单历史读模型
+ * 订单创建时写入一行（含商品名称摘要），之后的状态变更只更新状态列；与订单变更在同一事务中完成。
+ * 查询按下单时间、订单ID倒序做键集分页，只读 customer_order_history 表。
+ */
+@Service
+public class CustomerOrderHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerOrderHistoryService.class);
+
+    private static final int MAX_ITEM_NAMES_LENGTH = 500;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private CustomerOrderHistoryRepository historyRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 记录新订单，没有顾客的订单（门店散客）不记录
+     * @param order 已保存的订单，商品行已在内存中
+     */
+    @Transactional
+    public void recordCreated(Order order) {
+        if (order.getCustomerId() == null) {
+            return;
+        }
+        historyRepository.save(toHistory(order));
+    }
+
+    /**
+     * 更新订单状态
+     * @param orderId 订单ID
+     * @param status 新状态
+     */
+    @Transactional
+    public void recordStatus(Long orderId, Integer status) {
+        historyRepository.updateStatus(orderId, status, LocalDateTime.now());
+    }
+
+    /**
+     * 查询顾客的订单历史
+     * @param customerId 顾客ID
+     * @param afterCreatedAt 上一页最后一条的下单时间，为 null 时查询第一页
+     * @param afterId 上一页最后一条的订单ID
+     * @param size 每页数量
+     */
+    @Transactional(readOnly = true)
+    public Slice<CustomerOrderHistory> getHistory(Long customerId, LocalDateTime afterCreatedAt, Long afterId,
+            int size) {
+        // 多取一条判断是否还有下一页
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<CustomerOrderHistory> rows = afterCreatedAt == null || afterId == null
+                ? historyRepository.findLatest(customerId, limit)
+                : historyRepository.findAfter(customerId, afterCreatedAt, afterId, limit);
+        boolean hasNext = rows.size() > size;
+        List<CustomerOrderHistory> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * 从订单表补建读模型中缺失的记录（首次上线或数据修复时使用）
+     * 按订单ID键集分页，每批在独立事务中提交并清空持久化上下文，中途失败时已提交的批次保留，重新执行会跳过
+     * @return 补建的记录数
+     */
+    public int rebuild() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int created = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = orderRepository.findCustomerOrderIdsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> batch = ids;
+            created += transactionTemplate.execute(status -> rebuildBatch(batch));
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == REBUILD_BATCH_SIZE);
+        if (created > 0) {
+            logger.info("补建顾客订单历史完成，数量: {}", created);
+        }
+        return created;
+    }
+
+    private int rebuildBatch(List<Long> ids) {
+        Set<Long> existing = new HashSet<>(historyRepository.findExistingOrderIds(ids));
+        List<CustomerOrderHistory> rows = new ArrayList<>();
+        for (Order order : orderRepository.findWithOrderItemsByIdIn(ids)) {
+            if (!existing.contains(order.getId())) {
+                rows.add(toHistory(order));
+            }
+        }
+        historyRepository.saveAll(rows);
+        entityManager.flush();
+        entityManager.clear();
+        return rows.size();
+    }
+
+    // 读模型为空而订单表有数据时补建，用于启动时
+    public int rebuildIfEmpty() {
+        if (historyRepository.count() > 0 || orderRepository.count() == 0) {
+            return 0;
+        }
+        return rebuild();
+    }
+
+    private CustomerOrderHistory toHistory(Order order) {
+        CustomerOrderHistory history = new CustomerOrderHistory();
+        history.setOrderId(order.getId());
+        history.setCustomerId(order.getCustomerId());
+        history.setStoreId(order.getStoreId());
+        history.setOrderNo(order.getOrderNo());
+        history.setActualAmount(order.getActualAmount());
+        history.setOrderStatus(order.getOrderStatus());
+        history.setCreatedAt(order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now());
+        history.setUpdatedAt(LocalDateTime.now());
+
+        int itemCount = 0;
+        StringBuilder names = new StringBuilder();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+                itemCount += quantity;
+                if (names.length() > 0) {
+                    names.append(", ");
+                }
+                names.append(item.getProductName());
+                if (quantity > 1) {
+                    names.append(" x").append(quantity);
+                }
+            }
+        }
+        history.setItemCount(itemCount);
+        history.setItemNames(names.length() > MAX_ITEM_NAMES_LENGTH
+                ? names.substring(0, MAX_ITEM_NAMES_LENGTH - 3) + "..." : names.toString());
+        return history;
+    }
+}
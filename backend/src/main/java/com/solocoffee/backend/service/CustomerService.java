@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class CustomerService {
@@ -93,8 +94,19 @@ public class CustomerService {
 
     @Transactional
     public Customer addPoints(Long customerId, Integer points, Integer type, Long relatedId, String description) {
-        Optional<Customer> optionalCustomer = customerRepository.findById(customerId);
-        if (optionalCustomer.isPresent()) {
+        return addPointsIf(customerId, points, type, relatedId, description, () -> true);
+    }
+
+    /**
+     * 锁定客户后再判断是否累计积分，与同一客户的积分扣回串行执行
+     * @param condition 加锁后在同一事务中判断，返回false时不累计
+     * @return 更新后的客户，客户不存在或不满足条件时为null
+     */
+    @Transactional
+    public Customer addPointsIf(Long customerId, Integer points, Integer type, Long relatedId, String description,
+            BooleanSupplier condition) {
+        Optional<Customer> optionalCustomer = customerRepository.findByIdForUpdate(customerId);
+        if (optionalCustomer.isPresent() && condition.getAsBoolean()) {
             Customer customer = optionalCustomer.get();
             customer.setPoints(customer.getPoints() + points);
 
@@ -141,6 +153,47 @@ public class CustomerService {
         return null;
     }
 
+    /**
+     * 扣回某笔业务获得的积分（如订单退款）
+     * 按积分记录计算该业务获得且尚未扣回的积分，重复调用不会重复扣除；余额不足时扣到0为止
+     * @param earnedType 获得积分的记录类型
+     * @param revokeType 扣回积分的记录类型
+     * @return 本次扣回的积分
+     */
+    @Transactional
+    public int revokePoints(Long customerId, Integer earnedType, Integer revokeType, Long relatedId,
+            String description) {
+        // 加锁后再读取积分记录，并发的累计提交后才能看到它的记录
+        Optional<Customer> optionalCustomer = customerRepository.findByIdForUpdate(customerId);
+        if (optionalCustomer.isEmpty()) {
+            return 0;
+        }
+        int remaining = 0;
+        for (PointsRecord record : pointsRecordRepository.findByCustomerIdAndRelatedId(customerId, relatedId)) {
+            if (earnedType.equals(record.getType()) || revokeType.equals(record.getType())) {
+                remaining += record.getPoints();
+            }
+        }
+        Customer customer = optionalCustomer.get();
+        int points = Math.min(remaining, customer.getPoints() == null ? 0 : customer.getPoints());
+        if (points <= 0) {
+            return 0;
+        }
+        customer.setPoints(customer.getPoints() - points);
+
+        PointsRecord pointsRecord = new PointsRecord();
+        pointsRecord.setCustomerId(customerId);
+        pointsRecord.setPoints(-points);
+        pointsRecord.setType(revokeType);
+        pointsRecord.setRelatedId(relatedId);
+        pointsRecord.setDescription(description);
+        pointsRecordRepository.save(pointsRecord);
+
+        updateMemberLevel(customer);
+        customerRepository.save(customer);
+        return points;
+    }
+
     private void updateMemberLevel(Customer customer) {
         if (customer == null) {
             return;
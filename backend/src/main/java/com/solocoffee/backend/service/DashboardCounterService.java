@@ -0,0 +1,356 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.Money;
+import com.solocoffee.backend.entity.DashboardCheckpoint;
+import com.solocoffee.backend.event.OrderStatusChangedEvent;
+import com.solocoffee.backend.repository.CustomerRepository;
+import com.solocoffee.backend.repository.DashboardCheckpointRepository;
+import com.solocoffee.backend.repository.InventoryRepository;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仪表盘实时计数器
+ * 每个门店在内存中保存今天和昨天两组计数，按15分钟分段用 LongAdder 累加销售额（分）和下单数，
+ * 由订单事件在事务提交后更新：下单计入订单数，进入已完成计入销售额，已完成的订单进入退款中或已退款时冲减。
+ * 计数按事件发生的时间分段：订单数按下单时间，销售额按完成时间，从订单表初始化时使用相同的口径。
+ * 会员数和低库存数只在快照时刷新，订单事件不查询数据库。
+ * 读取只汇总内存中的计数，不查询数据库；与昨天的对比取昨天同一时刻的累计值（分段内按时间比例折算）。
+ * 计数定期写入快照表，重启时恢复，最多丢失一个快照间隔内的事件；某天没有快照时从订单表统计初始化。
+ * 计数只包含本实例处理的订单事件，多实例部署时需要按门店路由订单请求。
+ */
+@Service
+public class DashboardCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCounterService.class);
+
+    static final int SLOT_MINUTES = 15;
+    static final int SLOTS = 24 * 60 / SLOT_MINUTES;
+
+    @Autowired
+    private DashboardCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    // 门店ID -> 计数
+    private final Map<Long, StoreCounters> stores = new ConcurrentHashMap<>();
+
+    private volatile long totalCustomers;
+    private volatile long newCustomersToday;
+
+    /**
+     * 按订单状态变更事件累加计数
+     */
+    public void record(OrderStatusChangedEvent event) {
+        if (event.getStoreId() == null) {
+            return;
+        }
+        StoreCounters store = store(event.getStoreId());
+        LocalDateTime at = event.getOccurredAt();
+        DayCounters day = store.day(at.toLocalDate());
+        if (day == null) {
+            // 早于昨天的事件（如长时间积压）不再计入
+            return;
+        }
+        int slot = slot(at);
+        if (event.getFromStatus() == null) {
+            day.orders[slot].increment();
+        }
+        Integer status = event.getToStatus();
+        if (status != null && status == OrderStateMachine.COMPLETED) {
+            day.sales[slot].add(Money.of(event.getActualAmount()).getMinorUnits());
+        } else if (OrderStateMachine.isRefundOfCompleted(event.getFromStatus(), event.getToStatus())) {
+            // 只冲减计入过销售额的订单；未完成就退款（待确认 -> 退款中 -> 已退款）不冲减
+            day.sales[slot].add(-Money.of(event.getActualAmount()).getMinorUnits());
+        }
+        store.dirty = true;
+    }
+
+    /**
+     * 仪表盘概览
+     * @param storeId 门店ID，为 null 时汇总所有门店
+     */
+    public Map<String, Object> getOverview(Long storeId) {
+        return getOverview(storeId, LocalDateTime.now());
+    }
+
+    Map<String, Object> getOverview(Long storeId, LocalDateTime now) {
+        Collection<StoreCounters> selected;
+        if (storeId == null) {
+            selected = stores.values();
+        } else {
+            StoreCounters store = stores.get(storeId);
+            selected = store == null ? List.of() : List.of(store);
+        }
+
+        LocalDate today = now.toLocalDate();
+        long todaySales = 0;
+        long todayOrders = 0;
+        long yesterdaySales = 0;
+        long yesterdayOrders = 0;
+        long lowStock = 0;
+        long yesterdayLowStock = 0;
+        for (StoreCounters store : selected) {
+            DayCounters current = store.day(today);
+            todaySales += sum(current.sales, SLOTS);
+            todayOrders += sum(current.orders, SLOTS);
+            lowStock += store.lowStock;
+            DayCounters previous = store.day(today.minusDays(1));
+            if (previous != null) {
+                yesterdaySales += sameTime(previous.sales, now);
+                yesterdayOrders += sameTime(previous.orders, now);
+                yesterdayLowStock += previous.lowStock;
+            }
+        }
+
+        long customers = totalCustomers;
+        long newCustomers = newCustomersToday;
+        Map<String, Object> overview = new HashMap<>();
+        overview.put("todaySales", Money.ofMinor(todaySales).toBigDecimal());
+        overview.put("yesterdaySales", Money.ofMinor(yesterdaySales).toBigDecimal());
+        overview.put("salesGrowth", growth(todaySales, yesterdaySales));
+        overview.put("todayOrderCount", todayOrders);
+        overview.put("yesterdayOrderCount", yesterdayOrders);
+        overview.put("orderGrowth", growth(todayOrders, yesterdayOrders));
+        overview.put("lowStockCount", lowStock);
+        overview.put("inventoryGrowth", lowStock - yesterdayLowStock); // 较昨天快照增减的低库存商品数
+        overview.put("totalCustomers", customers);
+        overview.put("customerGrowth", growth(customers, customers - newCustomers)); // 今日新增会员占比
+        return overview;
+    }
+
+    /**
+     * 启动完成后恢复计数：读取今天和昨天的快照，没有快照的日期从订单表统计；再刷新低库存数和会员数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = List.of(today.minusDays(1), today);
+        Set<LocalDate> restored = new HashSet<>();
+        for (DashboardCheckpoint checkpoint : checkpointRepository.findByBusinessDateIn(days)) {
+            DayCounters day = store(checkpoint.getStoreId()).day(checkpoint.getBusinessDate());
+            if (day != null) {
+                day.load(checkpoint);
+                restored.add(checkpoint.getBusinessDate());
+            }
+        }
+        for (LocalDate date : days) {
+            if (!restored.contains(date)) {
+                initialize(date);
+            }
+        }
+        refresh();
+        logger.info("仪表盘计数已恢复，门店数: {}，快照日期: {}", stores.size(), restored);
+    }
+
+    /**
+     * 刷新会员数和各门店低库存数，并把有变化的门店计数写入快照
+     */
+    @Scheduled(fixedDelayString = "${dashboard.checkpoint-interval-ms:30000}",
+            initialDelayString = "${dashboard.checkpoint-interval-ms:30000}")
+    public void checkpoint() {
+        refresh();
+        int saved = 0;
+        for (Map.Entry<Long, StoreCounters> entry : stores.entrySet()) {
+            StoreCounters store = entry.getValue();
+            DayCounters today = store.day(LocalDate.now());
+            if (!store.dirty && today.lowStock == store.lowStock) {
+                continue;
+            }
+            store.dirty = false;
+            today.lowStock = store.lowStock;
+            List<DayCounters> days = new ArrayList<>(List.of(today));
+            DayCounters yesterday = store.yesterday;
+            if (yesterday != null) {
+                days.add(yesterday);
+            }
+            for (DayCounters day : days) {
+                DashboardCheckpoint checkpoint = day.toCheckpoint(entry.getKey());
+                day.checkpointId = checkpointRepository.save(checkpoint).getId();
+            }
+            saved++;
+        }
+        if (saved > 0) {
+            logger.debug("仪表盘计数快照已写入，门店数: {}", saved);
+        }
+    }
+
+    private void refresh() {
+        totalCustomers = customerRepository.count();
+        newCustomersToday = customerRepository.countByCreatedAtGreaterThanEqual(LocalDate.now().atStartOfDay());
+        Map<Long, Long> lowStock = new HashMap<>();
+        for (Object[] row : inventoryRepository.countLowStockByStore()) {
+            lowStock.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        lowStock.keySet().forEach(this::store);
+        stores.forEach((storeId, store) -> store.lowStock = lowStock.getOrDefault(storeId, 0L));
+    }
+
+    // 从订单表统计某天的计数，与订单事件的口径一致：订单数计入下单时间所在分段，销售额计入完成时间所在分段
+    private void initialize(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        for (Object[] row : orderRepository.countByStoreAndMinute(start, end)) {
+            DayCounters day = store((Long) row[0]).day(date);
+            if (day != null) {
+                day.orders[((Number) row[1]).intValue() / SLOT_MINUTES].add(((Number) row[2]).longValue());
+            }
+        }
+        for (Object[] row : orderRepository.sumCompletedByStoreAndMinute(start, end)) {
+            DayCounters day = store((Long) row[0]).day(date);
+            if (day != null) {
+                day.sales[((Number) row[1]).intValue() / SLOT_MINUTES]
+                        .add(Money.of((BigDecimal) row[2]).getMinorUnits());
+            }
+        }
+    }
+
+    private StoreCounters store(Long storeId) {
+        return stores.computeIfAbsent(storeId, k -> new StoreCounters(LocalDate.now()));
+    }
+
+    private static int slot(LocalDateTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private static long sum(LongAdder[] slots, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += slots[i].sum();
+        }
+        return total;
+    }
+
+    // 截至 now 同一时刻的累计值，当前分段按已过去的时间比例计入
+    private static long sameTime(LongAdder[] slots, LocalDateTime now) {
+        int slot = slot(now);
+        double elapsed = ((now.getMinute() % SLOT_MINUTES) * 60 + now.getSecond()) / (SLOT_MINUTES * 60.0);
+        return sum(slots, slot) + Math.round(slots[slot].sum() * elapsed);
+    }
+
+    // 增长率（%），保留一位小数；基数为0时返回0
+    private static double growth(long current, long base) {
+        if (base == 0) {
+            return 0.0;
+        }
+        return BigDecimal.valueOf((current - base) * 100.0 / base).setScale(1, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static String join(LongAdder[] slots) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < slots.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(slots[i].sum());
+        }
+        return sb.toString();
+    }
+
+    private static void add(LongAdder[] slots, String values) {
+        String[] parts = values.split(",");
+        for (int i = 0; i < parts.length && i < slots.length; i++) {
+            slots[i].add(Long.parseLong(parts[i].trim()));
+        }
+    }
+
+    // 一个门店的计数，跨天时把今天的计数转为昨天
+    private static final class StoreCounters {
+        private volatile DayCounters today;
+        private volatile DayCounters yesterday;
+        private volatile long lowStock;
+        private volatile boolean dirty;
+
+        StoreCounters(LocalDate date) {
+            this.today = new DayCounters(date);
+            this.yesterday = new DayCounters(date.minusDays(1));
+        }
+
+        // 某天的计数，早于昨天时返回 null
+        DayCounters day(LocalDate date) {
+            DayCounters current = today;
+            if (date.equals(current.date)) {
+                return current;
+            }
+            if (date.isBefore(current.date)) {
+                DayCounters previous = yesterday;
+                return previous != null && date.equals(previous.date) ? previous : null;
+            }
+            synchronized (this) {
+                if (date.isAfter(today.date)) {
+                    yesterday = date.minusDays(1).equals(today.date) ? today : new DayCounters(date.minusDays(1));
+                    today = new DayCounters(date);
+                    dirty = true;
+                }
+                return date.equals(today.date) ? today : null;
+            }
+        }
+    }
+
+    // 一天的分段计数
+    private static final class DayCounters {
+        private final LocalDate date;
+        private final LongAdder[] sales = newSlots();
+        private final LongAdder[] orders = newSlots();
+        private volatile long lowStock; // 最近一次快照时的低库存数
+        private Long checkpointId;
+
+        DayCounters(LocalDate date) {
+            this.date = date;
+        }
+
+        void load(DashboardCheckpoint checkpoint) {
+            add(sales, checkpoint.getSalesSlots());
+            add(orders, checkpoint.getOrderSlots());
+            lowStock = checkpoint.getLowStockCount();
+            checkpointId = checkpoint.getId();
+        }
+
+        DashboardCheckpoint toCheckpoint(Long storeId) {
+            DashboardCheckpoint checkpoint = new DashboardCheckpoint();
+            checkpoint.setId(checkpointId);
+            checkpoint.setStoreId(storeId);
+            checkpoint.setBusinessDate(date);
+            checkpoint.setSalesSlots(join(sales));
+            checkpoint.setOrderSlots(join(orders));
+            checkpoint.setLowStockCount(lowStock);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            return checkpoint;
+        }
+
+        private static LongAdder[] newSlots() {
+            LongAdder[] slots = new LongAdder[SLOTS];
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = new LongAdder();
+            }
+            return slots;
+        }
+    }
+}
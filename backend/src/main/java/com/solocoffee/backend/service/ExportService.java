@@ -0,0 +1,188 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.CsvWriter;
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.repository.OrderArchiveRepository;
+import com.solocoffee.backend.repository.OrderExportRepository;
+import com.solocoffee.backend.repository.SalesRollupRepository;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV 导出
+ * 响应体由 MVC 异步线程写出，数据库结果集逐行写入响应流，内存占用与行数无关；
+ * 订单先按月份顺序读取归档表，再读取在线表，每张表一条只读查询，不开启事务。
+ * gzip=true 时输出 .csv.gz 文件。
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final String EXPORT_TIMER = "export.write";
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_GZIP = new MediaType("application", "gzip");
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
+    /**
+     * 写出 CSV 的任务，返回数据行数（不含表头）
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        long write(CsvWriter csv) throws IOException;
+    }
+
+    /**
+     * 以附件形式流式下载
+     * @param type 导出类型，用于文件名、日志和监控标签
+     * @param gzip 是否 gzip 压缩
+     */
+    public ResponseEntity<StreamingResponseBody> download(String type, boolean gzip, ExportTask task) {
+        String fileName = type + "-" + LocalDateTime.now().format(FILE_TIME_FORMATTER) + (gzip ? ".csv.gz" : ".csv");
+        StreamingResponseBody body = out -> write(type, gzip, task, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .contentType(gzip ? APPLICATION_GZIP : TEXT_CSV)
+                .body(body);
+    }
+
+    private void write(String type, boolean gzip, ExportTask task, OutputStream out) throws IOException {
+        Timer.Sample sample = serviceMetrics.start();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : null;
+            CsvWriter csv = new CsvWriter(compressed != null ? compressed : out);
+            long rows = task.write(csv);
+            csv.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            outcome = ServiceMetrics.SUCCESS;
+            logger.info("导出完成: {}，行数: {}，gzip: {}", type, rows, gzip);
+        } catch (UncheckedIOException e) {
+            // 客户端断开等写出失败，在读取回调中抛出后终止查询
+            logger.warn("导出中断: {}，原因: {}", type, e.getCause().getMessage());
+            throw e.getCause();
+        } finally {
+            serviceMetrics.stop(sample, EXPORT_TIMER, outcome, "type", type);
+        }
+    }
+
+    /**
+     * 导出订单，每个订单一行
+     */
+    public long writeOrders(OrderQueryDTO query, CsvWriter csv) throws IOException {
+        csv.writeRow("订单ID", "订单号", "门店ID", "会员ID", "订单状态", "支付方式", "订单金额", "实付金额",
+                "下单时间", "取餐时间", "备注");
+        RowCounter counter = new RowCounter(rs -> csv.writeRow(rs.getLong(1), rs.getString(2), rs.getLong(3),
+                rs.getObject(4), rs.getInt(5), rs.getInt(6), rs.getBigDecimal(7), rs.getBigDecimal(8),
+                toLocalDateTime(rs.getTimestamp(9)), toLocalDateTime(rs.getTimestamp(10)), rs.getString(11)));
+        for (YearMonth month : archiveMonths(query)) {
+            orderExportRepository.streamOrders(OrderArchiveRepository.ordersTable(month), query, counter);
+        }
+        orderExportRepository.streamOrders("orders", query, counter);
+        return counter.rows;
+    }
+
+    /**
+     * 导出订单商品行，每个商品行一行，带所属订单的订单号、门店和状态
+     */
+    public long writeOrderItems(OrderQueryDTO query, CsvWriter csv) throws IOException {
+        csv.writeRow("订单号", "门店ID", "订单状态", "下单时间", "商品ID", "商品名称", "数量", "单价", "小计",
+                "定制选项");
+        RowCounter counter = new RowCounter(rs -> csv.writeRow(rs.getString(1), rs.getLong(2), rs.getInt(3),
+                toLocalDateTime(rs.getTimestamp(4)), rs.getLong(5), rs.getString(6), rs.getInt(7),
+                rs.getBigDecimal(8), rs.getBigDecimal(9), rs.getString(10)));
+        for (YearMonth month : archiveMonths(query)) {
+            orderExportRepository.streamItems(OrderArchiveRepository.ordersTable(month),
+                    OrderArchiveRepository.itemsTable(month), query, counter);
+        }
+        orderExportRepository.streamItems("orders", "order_items", query, counter);
+        return counter.rows;
+    }
+
+    /**
+     * 导出 [start, end) 内的小时销售汇总，商品ID为 0 的行是整单合计
+     */
+    public long writeHourlySales(LocalDateTime start, LocalDateTime end, CsvWriter csv) throws IOException {
+        csv.writeRow("小时", "门店ID", "商品ID", "数量", "销售额", "订单数");
+        RowCounter counter = new RowCounter(rs -> csv.writeRow(toLocalDateTime(rs.getTimestamp(1)), rs.getLong(2),
+                rs.getLong(3), rs.getLong(4), rs.getBigDecimal(5), rs.getLong(6)));
+        salesRollupRepository.stream(start, end, counter);
+        return counter.rows;
+    }
+
+    // 与查询时间范围重叠的归档月份，按时间升序
+    private List<YearMonth> archiveMonths(OrderQueryDTO query) {
+        List<YearMonth> months = new ArrayList<>(orderArchiveService.getPartitions(query.getStartTime(),
+                query.getEndTime()));
+        months.sort(null);
+        return months;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    // 逐行写出并计数，写出失败时包装为非受检异常终止查询
+    private static final class RowCounter implements RowCallbackHandler {
+        private final RowWriter writer;
+        private long rows;
+
+        RowCounter(RowWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                writer.write(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+}
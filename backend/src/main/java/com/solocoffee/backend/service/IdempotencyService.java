@@ -0,0 +1,291 @@
+package com.solocoffee.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.IdempotencyRecord;
+import com.solocoffee.backend.repository.IdempotencyRecordRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务
+ * 客户端通过 Idempotency-Key 请求头标识一次逻辑请求，重试时直接返回首次执行成功的 ApiResponse。
+ * 成功的响应保存在有容量上限、按过期时间淘汰的内存缓存中，同时写入 idempotency_records 表，重启后仍然有效。
+ * 同一个键的并发重复请求只执行一次，其余请求等待首个请求的结果。失败的请求不缓存，客户端可以用同一个键重试。
+ * 记录中保存请求方法、路径和请求体的摘要，同一个键用于内容不同的请求时返回 422，不回放首次的响应。
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 缓存有效期（分钟）
+    @Value("${idempotency.ttl-minutes:1440}")
+    private long ttlMinutes = 1440;
+
+    // 内存缓存的最大条目数
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    // 重复请求等待首个请求完成的最长时间（毫秒）
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs = 30000;
+
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    // 按访问顺序排列，超过上限时淘汰最久未使用的条目
+    private final LinkedHashMap<String, CachedResponse> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // 正在执行的请求
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 以幂等方式执行请求
+     * @param scope 接口范围，如 "order-create"、"order-pay:1"，同一个键在不同接口之间互不影响
+     * @param key 客户端传入的 Idempotency-Key，为空时直接执行
+     * @param request 当前请求，取方法和路径计算请求摘要
+     * @param body 反序列化后的请求体
+     * @param action 实际的请求处理
+     * @return 首次执行的响应，或缓存的响应
+     */
+    public ResponseEntity<ApiResponse<?>> execute(String scope, String key, HttpServletRequest request, Object body,
+            Supplier<ResponseEntity<ApiResponse<?>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BizException(ErrorCode.PARAMETER_ERROR, HEADER + " 长度不能超过" + MAX_KEY_LENGTH);
+        }
+        String recordKey = scope + ":" + key;
+        String requestHash = requestHash(request, body);
+
+        CachedResponse cached = lookup(recordKey);
+        if (cached != null) {
+            logger.debug("幂等键命中缓存: {}", recordKey);
+            return replay(recordKey, requestHash, cached);
+        }
+
+        CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(recordKey, mine);
+        if (existing != null) {
+            logger.debug("幂等键正在处理中，等待首个请求完成: {}", recordKey);
+            return replay(recordKey, requestHash, await(existing));
+        }
+
+        try {
+            // 首个请求可能在 lookup 和 putIfAbsent 之间完成
+            cached = lookupMemory(recordKey);
+            if (cached == null) {
+                ResponseEntity<ApiResponse<?>> response = action.get();
+                cached = store(recordKey, requestHash, response);
+                mine.complete(cached);
+                return response;
+            }
+            mine.complete(cached);
+            return replay(recordKey, requestHash, cached);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, mine);
+        }
+    }
+
+    // 定时清理过期的内存缓存和持久化记录
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        cacheLock.lock();
+        try {
+            cache.values().removeIf(cachedResponse -> cachedResponse.isExpired(now));
+        } finally {
+            cacheLock.unlock();
+        }
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        if (deleted > 0) {
+            logger.info("清理过期幂等记录，数量: {}", deleted);
+        }
+    }
+
+    // 请求摘要与首次请求一致时回放响应；早期没有摘要的记录直接回放
+    private ResponseEntity<ApiResponse<?>> replay(String recordKey, String requestHash, CachedResponse cached) {
+        if (cached.requestHash != null && !cached.requestHash.equals(requestHash)) {
+            logger.warn("幂等键已用于内容不同的请求: {}", recordKey);
+            throw new BizException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        return cached.toResponse();
+    }
+
+    // 方法 + 路径 + 请求体JSON 的 SHA-256，Map 按键排序，字段顺序不同的相同请求体得到相同的摘要
+    private String requestHash(HttpServletRequest request, Object body) {
+        try {
+            String json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsString(body);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((request.getMethod() + " " + request.getRequestURI() + "\n" + json)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("计算幂等请求摘要失败", e);
+        }
+    }
+
+    private CachedResponse lookup(String recordKey) {
+        CachedResponse cached = lookupMemory(recordKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findByRecordKey(recordKey);
+        if (record.isEmpty() || !record.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        try {
+            ApiResponse<?> body = objectMapper.readValue(record.get().getResponseBody(), ApiResponse.class);
+            cached = new CachedResponse(record.get().getRequestHash(), record.get().getStatusCode(), body,
+                    record.get().getExpiresAt());
+            putMemory(recordKey, cached);
+            return cached;
+        } catch (JsonProcessingException e) {
+            logger.error("幂等记录反序列化失败: {}", recordKey, e);
+            return null;
+        }
+    }
+
+    private CachedResponse lookupMemory(String recordKey) {
+        cacheLock.lock();
+        try {
+            CachedResponse cached = cache.get(recordKey);
+            if (cached != null && cached.isExpired(LocalDateTime.now())) {
+                cache.remove(recordKey);
+                return null;
+            }
+            return cached;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void putMemory(String recordKey, CachedResponse cached) {
+        cacheLock.lock();
+        try {
+            cache.put(recordKey, cached);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    // 缓存的是响应JSON反序列化后的副本，与持久化记录一致，也不再引用实体对象
+    private CachedResponse store(String recordKey, String requestHash, ResponseEntity<ApiResponse<?>> response) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        int statusCode = response.getStatusCode().value();
+        String json;
+        CachedResponse cached;
+        try {
+            json = objectMapper.writeValueAsString(response.getBody());
+            cached = new CachedResponse(requestHash, statusCode, objectMapper.readValue(json, ApiResponse.class),
+                    expiresAt);
+        } catch (JsonProcessingException e) {
+            logger.warn("幂等响应序列化失败，不缓存: {}, {}", recordKey, e.getMessage());
+            return new CachedResponse(requestHash, statusCode, response.getBody(), expiresAt);
+        }
+        putMemory(recordKey, cached);
+
+        try {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setRecordKey(recordKey);
+            record.setRequestHash(requestHash);
+            record.setStatusCode(statusCode);
+            record.setResponseBody(json);
+            record.setExpiresAt(expiresAt);
+            idempotencyRecordRepository.save(record);
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例已保存同一个键，内存缓存仍然有效
+            logger.warn("保存幂等记录失败: {}, {}", recordKey, e.getMessage());
+        }
+        return cached;
+    }
+
+    private CachedResponse await(CompletableFuture<CachedResponse> future) {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BizException(ErrorCode.SYSTEM_ERROR, "系统内部错误");
+        } catch (TimeoutException e) {
+            throw new BizException(ErrorCode.REQUEST_IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException(ErrorCode.REQUEST_IN_PROGRESS);
+        }
+    }
+
+    private static class CachedResponse {
+        private final String requestHash;
+        private final int statusCode;
+        private final ApiResponse<?> body;
+        private final LocalDateTime expiresAt;
+
+        CachedResponse(String requestHash, int statusCode, ApiResponse<?> body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        ResponseEntity<ApiResponse<?>> toResponse() {
+            return ResponseEntity.status(statusCode).header(REPLAYED_HEADER, "true").body(body);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.InventoryReservation;
+import com.solocoffee.backend.repository.InventoryReservationRepository;
+import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 库存预占服务
+ * 下单时按BOM预占原料，订单完成时转为扣减，取消或超时后释放。
+ * 各门店的预占合计保存在内存中（每个门店一把锁，门店之间互不竞争），预占明细持久化到 inventory_reservations 表。
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    // 预占状态
+    public static final int STATUS_HELD = 1; // 占用中
+    public static final int STATUS_DEDUCTED = 2; // 已扣减
+    public static final int STATUS_RELEASED = 3; // 已释放
+    public static final int STATUS_EXPIRED = 4; // 已过期
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private RawMaterialInventoryRepository rawMaterialInventoryRepository;
+
+    // 预占有效期（分钟）
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long ttlMinutes = 30;
+
+    // 门店ID -> 该门店的预占合计
+    private final Map<Long, StoreReservations> stores = new ConcurrentHashMap<>();
+
+    // 启动时从数据库恢复占用中的预占合计
+    @PostConstruct
+    public void loadActiveReservations() {
+        List<InventoryReservation> activeReservations = reservationRepository.findByStatus(STATUS_HELD);
+        for (InventoryReservation reservation : activeReservations) {
+            storeOf(reservation.getStoreId()).add(Map.of(reservation.getMaterialId(), reservation.getQuantity()));
+        }
+        logger.info("恢复库存预占记录完成，数量: {}", activeReservations.size());
+    }
+
+    /**
+     * 为订单预占原料
+     * 在门店锁内读取当前库存并扣除其他订单的预占量，可用量不足时抛出异常
+     * @param orderId 订单ID
+     * @param storeId 门店ID
+     * @param materials 原料ID -> 预占数量
+     * @return 预占记录
+     */
+    @Transactional
+    public List<InventoryReservation> reserve(Long orderId, Long storeId, Map<Long, BigDecimal> materials) {
+        if (materials == null || materials.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        StoreReservations store = storeOf(storeId);
+        store.lock.lock();
+        try {
+            Map<Long, BigDecimal> onHand = rawMaterialInventoryRepository.findQuantities(storeId, materials.keySet());
+            Long shortMaterialId = findShortage(store, onHand, materials);
+            if (shortMaterialId != null) {
+                throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY, "原料ID: " + shortMaterialId + " 库存不足");
+            }
+            store.add(materials);
+        } finally {
+            store.lock.unlock();
+        }
+
+        // 事务回滚时撤销内存中的预占
+        afterRollback(() -> store.subtract(materials));
+
+        return saveHeld(orderId, storeId, materials);
+    }
+
+    /**
+     * 为同一门店的一批订单预占原料：一次加锁、一次读取库存，按顺序逐个判断，
+     * 可用量不足的订单被跳过，不影响其他订单
+     * 预占成功的订单需在订单保存后调用 {@link #saveHeld} 写入预占明细
+     * @param storeId 门店ID
+     * @param demands 每个订单的原料需求（原料ID -> 数量）
+     * @return 与入参顺序一致，预占失败的原料ID；预占成功为 null
+     */
+    @Transactional
+    public List<Long> holdEach(Long storeId, List<Map<Long, BigDecimal>> demands) {
+        List<Long> shortages = new ArrayList<>(demands.size());
+        Set<Long> materialIds = new HashSet<>();
+        for (Map<Long, BigDecimal> materials : demands) {
+            materialIds.addAll(materials.keySet());
+        }
+        if (materialIds.isEmpty()) {
+            demands.forEach(materials -> shortages.add(null));
+            return shortages;
+        }
+
+        StoreReservations store = storeOf(storeId);
+        Map<Long, BigDecimal> held = new HashMap<>();
+        store.lock.lock();
+        try {
+            Map<Long, BigDecimal> onHand = rawMaterialInventoryRepository.findQuantities(storeId, materialIds);
+            for (Map<Long, BigDecimal> materials : demands) {
+                Long shortMaterialId = findShortage(store, onHand, materials);
+                if (shortMaterialId == null) {
+                    store.add(materials);
+                    materials.forEach((materialId, quantity) -> held.merge(materialId, quantity, BigDecimal::add));
+                }
+                shortages.add(shortMaterialId);
+            }
+        } finally {
+            store.lock.unlock();
+        }
+
+        afterRollback(() -> store.subtract(held));
+        return shortages;
+    }
+
+    /**
+     * 保存已在内存中预占的原料明细
+     * @param orderId 订单ID
+     * @param storeId 门店ID
+     * @param materials 原料ID -> 预占数量
+     * @return 预占记录
+     */
+    @Transactional
+    public List<InventoryReservation> saveHeld(Long orderId, Long storeId, Map<Long, BigDecimal> materials) {
+        if (materials == null || materials.isEmpty()) {
+            return new ArrayList<>();
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<InventoryReservation> reservations = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : materials.entrySet()) {
+            InventoryReservation reservation = new InventoryReservation();
+            reservation.setOrderId(orderId);
+            reservation.setStoreId(storeId);
+            reservation.setMaterialId(entry.getKey());
+            reservation.setQuantity(entry.getValue());
+            reservation.setStatus(STATUS_HELD);
+            reservation.setExpiresAt(expiresAt);
+            reservations.add(reservation);
+        }
+        logger.debug("订单ID: {} 预占原料: {}", orderId, materials);
+        return reservationRepository.saveAll(reservations);
+    }
+
+    /**
+     * 订单完成，将预占转为扣减（实际库存扣减由调用方在同一事务中完成）
+     * @param orderId 订单ID
+     */
+    @Transactional
+    public void convertToDeduction(Long orderId) {
+        finish(orderId, STATUS_DEDUCTED);
+    }
+
+    /**
+     * 订单取消，释放预占
+     * @param orderId 订单ID
+     */
+    @Transactional
+    public void release(Long orderId) {
+        finish(orderId, STATUS_RELEASED);
+    }
+
+    // 定时释放过期的预占
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    @Transactional
+    public void releaseExpired() {
+        List<InventoryReservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(STATUS_HELD,
+                LocalDateTime.now());
+        if (expired.isEmpty()) {
+            return;
+        }
+        updateStatus(expired, STATUS_EXPIRED);
+        logger.info("释放过期库存预占，数量: {}", expired.size());
+    }
+
+    /**
+     * 获取门店当前的预占合计
+     * @param storeId 门店ID
+     * @return 原料ID -> 预占数量
+     */
+    public Map<Long, BigDecimal> getReservedQuantities(Long storeId) {
+        StoreReservations store = stores.get(storeId);
+        if (store == null) {
+            return new TreeMap<>();
+        }
+        store.lock.lock();
+        try {
+            return new TreeMap<>(store.reserved);
+        } finally {
+            store.lock.unlock();
+        }
+    }
+
+    private void finish(Long orderId, int status) {
+        List<InventoryReservation> reservations = reservationRepository.findByOrderIdAndStatus(orderId, STATUS_HELD);
+        if (!reservations.isEmpty()) {
+            updateStatus(reservations, status);
+            logger.debug("订单ID: {} 的库存预占状态更新为: {}", orderId, status);
+        }
+    }
+
+    // 更新预占状态，事务提交后再从内存合计中扣除，保证库存扣减提交前预占仍然可见
+    // 只有从占用中更新成功（更新行数为1）的预占才扣除内存合计，已被其他事务过期或扣减的预占跳过
+    private void updateStatus(List<InventoryReservation> reservations, int status) {
+        Map<Long, Map<Long, BigDecimal>> byStore = new HashMap<>();
+        for (InventoryReservation reservation : reservations) {
+            if (reservationRepository.updateStatusIf(reservation.getId(), STATUS_HELD, status) != 1) {
+                logger.debug("库存预占ID: {} 已不是占用中，跳过", reservation.getId());
+                continue;
+            }
+            reservation.setStatus(status);
+            byStore.computeIfAbsent(reservation.getStoreId(), k -> new HashMap<>())
+                    .merge(reservation.getMaterialId(), reservation.getQuantity(), BigDecimal::add);
+        }
+        afterCommit(() -> byStore.forEach((storeId, materials) -> storeOf(storeId).subtract(materials)));
+    }
+
+    // 在门店锁内调用，返回第一个可用量不足的原料ID，全部充足时返回 null
+    private Long findShortage(StoreReservations store, Map<Long, BigDecimal> onHand, Map<Long, BigDecimal> materials) {
+        for (Map.Entry<Long, BigDecimal> entry : materials.entrySet()) {
+            BigDecimal available = onHand.getOrDefault(entry.getKey(), BigDecimal.ZERO)
+                    .subtract(store.reserved.getOrDefault(entry.getKey(), BigDecimal.ZERO));
+            if (available.compareTo(entry.getValue()) < 0) {
+                logger.error("门店ID: {} 的原料ID: {} 可用库存不足，所需数量: {}, 可用数量: {}",
+                        store.storeId, entry.getKey(), entry.getValue(), available);
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private StoreReservations storeOf(Long storeId) {
+        return stores.computeIfAbsent(storeId, StoreReservations::new);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    // 单个门店的预占合计
+    private static class StoreReservations {
+        private final Long storeId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, BigDecimal> reserved = new HashMap<>(); // 原料ID -> 预占数量
+
+        StoreReservations(Long storeId) {
+            this.storeId = storeId;
+        }
+
+        void add(Map<Long, BigDecimal> materials) {
+            lock.lock();
+            try {
+                materials.forEach((materialId, quantity) -> reserved.merge(materialId, quantity, BigDecimal::add));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void subtract(Map<Long, BigDecimal> materials) {
+            lock.lock();
+            try {
+                materials.forEach((materialId, quantity) -> {
+                    BigDecimal remaining = reserved.getOrDefault(materialId, BigDecimal.ZERO).subtract(quantity);
+                    if (remaining.signum() > 0) {
+                        reserved.put(materialId, remaining);
+                    } else {
+                        reserved.remove(materialId);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
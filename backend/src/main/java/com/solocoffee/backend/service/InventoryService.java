@@ -5,6 +5,8 @@ import com.solocoffee.backend.entity.Inventory;
 import com.solocoffee.backend.entity.Product;
 import com.solocoffee.backend.repository.InventoryRepository;
 import com.solocoffee.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +21,8 @@ import java.util.stream.Collectors;
 @Service
 public class InventoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
     @Autowired
     private InventoryRepository inventoryRepository;
 
@@ -133,21 +137,37 @@ public class InventoryService {
         return false;
     }
 
+    // 单商品接口不带门店，按商品所在的库存记录确定门店
     @Transactional
     public boolean deductInventory(Long productId, BigDecimal quantity) {
-        Optional<Inventory> optionalInventory = inventoryRepository.findByProductId(productId);
-        if (optionalInventory.isPresent()) {
-            Inventory inventory = optionalInventory.get();
-            if (inventory.getQuantity().compareTo(quantity) >= 0) {
-                inventory.setQuantity(inventory.getQuantity().subtract(quantity));
-
-                // 检查是否需要自动补货
-                checkAndReorder(inventory);
+        return inventoryRepository.findByProductId(productId)
+                .map(inventory -> deductProducts(inventory.getStoreId(), Map.of(productId, quantity)).isEmpty())
+                .orElse(false);
+    }
 
-                return inventoryRepository.save(inventory) != null;
-            }
+    /**
+     * 批量扣减成品库存
+     * 每个商品执行一条带条件的UPDATE（quantity >= 扣减数量），整单一次批处理提交，无需先查询再保存
+     * @param storeId 门店ID，只扣减该门店的库存
+     * @param quantities 商品ID -> 扣减数量
+     * @return 库存不足、未能扣减的商品ID，全部成功时为空
+     */
+    @Transactional
+    public List<Long> deductProducts(Long storeId, Map<Long, BigDecimal> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return new ArrayList<>();
         }
-        return false;
+        List<Long> failedProductIds = inventoryRepository.deductIfSufficient(storeId, quantities);
+
+        // 检查是否需要自动补货
+        List<Long> deductedProductIds = new ArrayList<>(quantities.keySet());
+        deductedProductIds.removeAll(failedProductIds);
+        int reordered = inventoryRepository.reorderBelow(storeId, deductedProductIds,
+                BigDecimal.valueOf(REORDER_THRESHOLD + 1), BigDecimal.valueOf(REORDER_QUANTITY));
+        if (reordered > 0) {
+            logger.info("自动补货：补货商品数：{}", reordered);
+        }
+        return failedProductIds;
     }
 
     public Inventory updateInventoryByProductId(Inventory inventory) {
@@ -165,13 +185,18 @@ public class InventoryService {
 
     @Transactional
     public boolean addInventory(Long productId, BigDecimal quantity) {
-        Optional<Inventory> optionalInventory = inventoryRepository.findByProductId(productId);
-        if (optionalInventory.isPresent()) {
-            Inventory inventory = optionalInventory.get();
-            inventory.setQuantity(inventory.getQuantity().add(quantity));
-            return inventoryRepository.save(inventory) != null;
+        return inventoryRepository.findByProductId(productId)
+                .map(inventory -> addProducts(inventory.getStoreId(), Map.of(productId, quantity)).isEmpty())
+                .orElse(false);
+    }
+
+    // 批量增加门店成品库存，返回不存在库存记录的商品ID
+    @Transactional
+    public List<Long> addProducts(Long storeId, Map<Long, BigDecimal> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return new ArrayList<>();
         }
-        return false;
+        return inventoryRepository.addQuantities(storeId, quantities);
     }
 
     public List<Inventory> getLowInventory() {
@@ -204,7 +229,7 @@ public class InventoryService {
                 reorderedInventory.add(inventory);
 
                 // 这里可以添加补货记录或通知逻辑
-                System.out.println("自动补货：商品ID " + inventory.getProductId() + "，补货数量：" + reorderAmount);
+                logger.info("自动补货：商品ID {}，补货数量：{}", inventory.getProductId(), reorderAmount);
             }
         }
 
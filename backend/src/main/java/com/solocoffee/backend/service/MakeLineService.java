@@ -0,0 +1,285 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.config.AsyncConfig;
+import com.solocoffee.backend.dto.MakeLineOrder;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 门店出品队列（制作中的订单）
+ * 每个门店在内存中维护一个按取餐时间/下单时间排序的队列，由订单状态变更驱动：进入制作中时加入，离开制作中时移除。
+ * 吧台屏幕通过 SSE 订阅，连接时收到完整快照，之后只收到增量的 add/remove 事件，不再轮询订单表。
+ * 门店队列在第一次访问时从数据库加载，之后只在状态变更时更新。
+ * 队列变更在门店锁内完成，SSE 发送交给单线程的推送线程池，锁内只按顺序提交发送任务。
+ */
+@Service
+public class MakeLineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MakeLineService.class);
+
+    public static final String EVENT_SNAPSHOT = "snapshot";
+    public static final String EVENT_ADD = "add";
+    public static final String EVENT_REMOVE = "remove";
+
+    // 取餐时间（没有时为下单时间）越早越靠前，相同时按下单时间、订单ID
+    private static final Comparator<MakeLineOrder> QUEUE_ORDER = Comparator
+            .comparing(MakeLineOrder::getDueAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(MakeLineOrder::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(MakeLineOrder::getOrderId);
+
+    // 每个门店记录最近状态的订单数量上限，超出后淘汰最早的记录（被淘汰的订单仍以数据库状态为准）
+    private static final int MAX_TRACKED_STATUSES = 1000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    @Qualifier(AsyncConfig.MAKE_LINE_EXECUTOR)
+    private Executor sseExecutor;
+
+    // SSE 连接超时（毫秒），超时后浏览器 EventSource 会自动重连并重新获取快照
+    @Value("${makeline.sse.timeout-ms:1800000}")
+    private long sseTimeoutMs = 1800000;
+
+    // 门店ID -> 出品队列
+    private final Map<Long, StoreQueue> stores = new ConcurrentHashMap<>();
+
+    /**
+     * 获取门店当前的出品队列
+     * @param storeId 门店ID
+     * @return 按制作顺序排列的订单
+     */
+    public List<MakeLineOrder> getQueue(Long storeId) {
+        StoreQueue store = loadedStoreOf(storeId);
+        store.lock.lock();
+        try {
+            return new ArrayList<>(store.queue);
+        } finally {
+            store.lock.unlock();
+        }
+    }
+
+    /**
+     * 订阅门店出品队列：先发送快照，之后推送增量事件
+     * @param storeId 门店ID
+     * @return SSE 连接
+     */
+    public SseEmitter subscribe(Long storeId) {
+        StoreQueue store = loadedStoreOf(storeId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> store.emitters.remove(emitter));
+        emitter.onTimeout(() -> store.emitters.remove(emitter));
+        emitter.onError(e -> store.emitters.remove(emitter));
+
+        // 在门店锁内提交快照并登记连接，保证快照之后的增量事件不会遗漏或重复
+        store.lock.lock();
+        try {
+            send(store, List.of(emitter), EVENT_SNAPSHOT, store.version, snapshotOf(store));
+            store.emitters.add(emitter);
+        } finally {
+            store.lock.unlock();
+        }
+        logger.debug("门店ID: {} 新增出品队列订阅，当前连接数: {}", storeId, store.emitters.size());
+        return emitter;
+    }
+
+    /**
+     * 订单状态变更后更新出品队列，在状态变更事务提交后调用
+     * @param orderId 订单ID
+     * @param storeId 门店ID
+     * @param fromStatus 原状态，新建订单为 null
+     * @param toStatus 新状态
+     */
+    public void onStatusChanged(Long orderId, Long storeId, Integer fromStatus, Integer toStatus) {
+        boolean entering = toStatus != null && toStatus == OrderStateMachine.PREPARING;
+        boolean leaving = fromStatus != null && fromStatus == OrderStateMachine.PREPARING;
+        if (!entering && !leaving) {
+            return;
+        }
+        StoreQueue store = stores.get(storeId);
+        if (store == null) {
+            // 门店队列尚未加载，首次访问时会从数据库读取最新状态
+            return;
+        }
+
+        store.lock.lock();
+        try {
+            if (!store.loaded) {
+                return;
+            }
+            // 状态只向前流转，已记录的状态不早于本次变更时说明事件迟到，丢弃
+            Integer current = store.statuses.get(orderId);
+            if (current != null && !OrderStateMachine.isReachable(current, toStatus)) {
+                logger.debug("订单ID: {} 的状态变更 {} -> {} 早于已处理的状态 {}，忽略", orderId, fromStatus, toStatus,
+                        current);
+                return;
+            }
+            store.statuses.put(orderId, toStatus);
+
+            // 加入队列在锁内读取订单和商品行，并再次确认订单仍在制作中
+            MakeLineOrder added = null;
+            if (entering) {
+                Optional<Order> order = orderRepository.findWithOrderItemsById(orderId);
+                if (order.isPresent() && order.get().getOrderStatus() == OrderStateMachine.PREPARING) {
+                    added = MakeLineOrder.of(order.get());
+                }
+            }
+            if (added != null) {
+                removeOrder(store, orderId);
+                store.queue.add(added);
+                store.index.put(orderId, added);
+                store.version++;
+                broadcast(store, EVENT_ADD, change(store, added.getOrderId(), added));
+            } else if (removeOrder(store, orderId)) {
+                store.version++;
+                broadcast(store, EVENT_REMOVE, change(store, orderId, null));
+            }
+        } finally {
+            store.lock.unlock();
+        }
+    }
+
+    // 定时发送心跳，及时清理已断开的连接
+    @Scheduled(fixedDelayString = "${makeline.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (StoreQueue store : stores.values()) {
+            if (store.emitters.isEmpty()) {
+                continue;
+            }
+            List<SseEmitter> emitters = List.copyOf(store.emitters);
+            // 与增量事件使用同一推送线程，不与事件交错发送
+            sseExecutor.execute(() -> {
+                for (SseEmitter emitter : emitters) {
+                    try {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        store.emitters.remove(emitter);
+                    }
+                }
+            });
+        }
+    }
+
+    public int getSubscriberCount(Long storeId) {
+        StoreQueue store = stores.get(storeId);
+        return store == null ? 0 : store.emitters.size();
+    }
+
+    private StoreQueue loadedStoreOf(Long storeId) {
+        StoreQueue store = stores.computeIfAbsent(storeId, StoreQueue::new);
+        if (store.loaded) {
+            return store;
+        }
+        store.lock.lock();
+        try {
+            if (!store.loaded) {
+                List<Order> orders = orderRepository.findWithOrderItemsByStoreIdAndOrderStatus(storeId,
+                        OrderStateMachine.PREPARING);
+                for (Order order : orders) {
+                    MakeLineOrder makeLineOrder = MakeLineOrder.of(order);
+                    store.queue.add(makeLineOrder);
+                    store.index.put(order.getId(), makeLineOrder);
+                    store.statuses.put(order.getId(), OrderStateMachine.PREPARING);
+                }
+                store.loaded = true;
+                logger.info("加载门店ID: {} 的出品队列，订单数量: {}", storeId, orders.size());
+            }
+        } finally {
+            store.lock.unlock();
+        }
+        return store;
+    }
+
+    private boolean removeOrder(StoreQueue store, Long orderId) {
+        MakeLineOrder existing = store.index.remove(orderId);
+        return existing != null && store.queue.remove(existing);
+    }
+
+    private Map<String, Object> snapshotOf(StoreQueue store) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("storeId", store.storeId);
+        snapshot.put("version", store.version);
+        snapshot.put("orders", new ArrayList<>(store.queue));
+        return snapshot;
+    }
+
+    // 增量事件带门店队列版本号，客户端发现版本不连续时可重新连接获取快照
+    private Map<String, Object> change(StoreQueue store, Long orderId, MakeLineOrder order) {
+        Map<String, Object> change = new HashMap<>();
+        change.put("storeId", store.storeId);
+        change.put("version", store.version);
+        change.put("orderId", orderId);
+        if (order != null) {
+            change.put("order", order);
+            change.put("position", store.queue.headSet(order).size());
+        }
+        change.put("occurredAt", LocalDateTime.now());
+        return change;
+    }
+
+    // 在门店锁内调用：复制当前连接列表并按版本顺序提交发送任务，发送本身不占用门店锁
+    private void broadcast(StoreQueue store, String name, Object data) {
+        if (!store.emitters.isEmpty()) {
+            send(store, List.copyOf(store.emitters), name, store.version, data);
+        }
+    }
+
+    private void send(StoreQueue store, List<SseEmitter> emitters, String name, long version, Object data) {
+        sseExecutor.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(name).id(String.valueOf(version)).data(data));
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("门店ID: {} 出品队列连接已断开: {}", store.storeId, e.getMessage());
+                    store.emitters.remove(emitter);
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+    }
+
+    // 单个门店的出品队列
+    private static class StoreQueue {
+        private final Long storeId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeSet<MakeLineOrder> queue = new TreeSet<>(QUEUE_ORDER);
+        private final Map<Long, MakeLineOrder> index = new HashMap<>(); // 订单ID -> 队列中的订单
+        // 订单ID -> 最近处理的状态，按加入顺序淘汰
+        private final Map<Long, Integer> statuses = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > MAX_TRACKED_STATUSES;
+            }
+        };
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile boolean loaded;
+        private long version;
+
+        StoreQueue(Long storeId) {
+            this.storeId = storeId;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.solocoffee.backend.service;
 
+import com.solocoffee.backend.common.Money;
 import com.solocoffee.backend.entity.Customer;
 import com.solocoffee.backend.entity.MemberLevel;
 import com.solocoffee.backend.entity.PointsRecord;
@@ -258,6 +259,20 @@ public class MemberService {
         return response;
     }
     
+    /**
+     * 计算会员折后金额
+     * @param points 会员积分
+     * @param amount 原价
+     * @return 按会员等级折扣率计算后的金额，四舍五入到分
+     */
+    public BigDecimal applyMemberDiscount(Integer points, BigDecimal amount) {
+        MemberLevel level = calculateMemberLevel(points != null ? points : 0);
+        if (level.getDiscountRate() == null) {
+            return Money.of(amount).toBigDecimal();
+        }
+        return Money.of(amount).times(level.getDiscountRate()).toBigDecimal();
+    }
+    
     private MemberLevel calculateMemberLevel(int points) {
         // 找到对应的会员等级
         List<Integer> thresholds = new ArrayList<>(memberLevels.keySet());
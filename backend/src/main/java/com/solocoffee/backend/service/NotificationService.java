@@ -1,11 +1,14 @@
 package com.solocoffee.backend.service;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Service
@@ -14,9 +17,17 @@ public class NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     
     // 模拟通知存储
-    private Map<Long, Notification> notifications = new HashMap<>();
+    private Map<Long, Notification> notifications = new ConcurrentHashMap<>(); // 订单事件线程池会并发写入
     private AtomicLong notificationIdGenerator = new AtomicLong(1);
     
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+    
+    @PostConstruct
+    public void initMetrics() {
+        serviceMetrics.gauge("notification.store.size", "内存中的通知数", notifications, Map::size);
+    }
+    
     /**
      * 获取通知列表
      * @param customerId 客户ID
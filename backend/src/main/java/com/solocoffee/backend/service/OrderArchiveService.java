@@ -0,0 +1,300 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.config.AsyncConfig;
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderArchivePartition;
+import com.solocoffee.backend.repository.OrderArchivePartitionRepository;
+import com.solocoffee.backend.repository.OrderArchiveRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 订单归档服务
+ * 定时把超过保留期限的终态订单（已完成、已取消、已退款）连同商品行按创建月份移入归档表，分批执行并在批次之间暂停，
+ * 避免长事务和对在线业务的冲击。归档分区目录缓存在内存中，查询只在请求的时间范围与已归档月份重叠时才合并归档数据，
+ * 未指定开始时间的查询视为不限开始时间，合并所有不晚于结束时间的归档月份。
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    // 可归档的终态: 3: 已完成, 4: 已取消, 6: 已退款
+    public static final List<Integer> ARCHIVABLE_STATUSES = List.of(
+            OrderStateMachine.COMPLETED, OrderStateMachine.CANCELLED, OrderStateMachine.REFUNDED);
+
+    private static final Comparator<OrderSummary> BY_CREATED_AT_DESC = Comparator
+            .comparing(OrderSummary::getCreatedAt).reversed()
+            .thenComparing(Comparator.comparing(OrderSummary::getId).reversed());
+
+    private static final Comparator<OrderSummary> BY_ID_DESC = Comparator.comparing(OrderSummary::getId).reversed();
+
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @Autowired
+    private OrderArchivePartitionRepository partitionRepository;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled = true;
+
+    // 在线保留天数，早于该期限的终态订单会被归档
+    @Value("${archive.horizon-days:180}")
+    private int horizonDays = 180;
+
+    @Value("${archive.batch-size:500}")
+    private int batchSize = 500;
+
+    // 批次之间的暂停时间（毫秒）
+    @Value("${archive.batch-pause-ms:200}")
+    private long batchPauseMs = 200;
+
+    // 单次运行最多处理的批数
+    @Value("${archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun = 200;
+
+    // 已归档的月份，按时间倒序
+    private volatile List<YearMonth> partitions = List.of();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    public void loadPartitions() {
+        refreshPartitions();
+    }
+
+    // 定时重新读取分区目录，多实例部署时同步其他实例创建的分区
+    @Scheduled(fixedDelayString = "${archive.partition-refresh-interval-ms:300000}",
+            initialDelayString = "${archive.partition-refresh-interval-ms:300000}")
+    public void refreshPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (OrderArchivePartition partition : partitionRepository.findAll()) {
+            months.add(YearMonth.of(Integer.parseInt(partition.getArchiveMonth().substring(0, 4)),
+                    Integer.parseInt(partition.getArchiveMonth().substring(4))));
+        }
+        months.sort(Comparator.reverseOrder());
+        partitions = List.copyOf(months);
+    }
+
+    // 在独立线程中执行，批次之间的暂停不阻塞其他定时任务
+    @Async(AsyncConfig.ARCHIVE_EXECUTOR)
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive(LocalDateTime.now().minusDays(horizonDays));
+        }
+    }
+
+    /**
+     * 归档早于指定时间的终态订单
+     * @param before 创建时间上限（不含）
+     * @return 归档的订单数
+     */
+    public int archive(LocalDateTime before) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("订单归档正在执行，跳过本次");
+            return 0;
+        }
+        int archived = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Map<Long, LocalDateTime> candidates = orderArchiveRepository.findArchivable(ARCHIVABLE_STATUSES,
+                        before, batchSize);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                Map<YearMonth, List<Long>> byMonth = new LinkedHashMap<>();
+                candidates.forEach((id, createdAt) ->
+                        byMonth.computeIfAbsent(YearMonth.from(createdAt), k -> new ArrayList<>()).add(id));
+                for (Map.Entry<YearMonth, List<Long>> entry : byMonth.entrySet()) {
+                    OrderArchivePartition partition = ensurePartition(entry.getKey());
+                    int moved = orderArchiveRepository.moveBatch(entry.getKey(), entry.getValue(),
+                            ARCHIVABLE_STATUSES);
+                    partition.setOrderCount(partition.getOrderCount() + moved);
+                    partition.setUpdatedAt(LocalDateTime.now());
+                    partitionRepository.save(partition);
+                    archived += moved;
+                }
+                if (candidates.size() < batchSize || !pause()) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        if (archived > 0) {
+            logger.info("订单归档完成，归档订单数量: {}, 截止时间: {}", archived, before);
+        }
+        return archived;
+    }
+
+    /**
+     * 查询条件是否需要读取归档数据：时间范围（开始时间可为空）与已归档月份重叠
+     */
+    public boolean covers(OrderQueryDTO query) {
+        return !partitionsFor(query).isEmpty();
+    }
+
+    /**
+     * 合并在线数据和归档数据，返回排序后的前 limit 条
+     * @param online 在线数据，已按相同顺序排序并取前 limit 条
+     * @param byIdOnly 为 true 时按ID倒序，否则按 (创建时间, ID) 倒序
+     */
+    public List<OrderSummary> merge(List<OrderSummary> online, OrderQueryDTO query, boolean byIdOnly, int limit) {
+        List<OrderSummary> merged = new ArrayList<>(online);
+        for (YearMonth month : partitionsFor(query)) {
+            merged.addAll(orderArchiveRepository.findSummaries(month, query, byIdOnly, limit));
+        }
+        merged.sort(byIdOnly ? BY_ID_DESC : BY_CREATED_AT_DESC);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    // 归档数据中满足条件的订单数
+    public long count(OrderQueryDTO query) {
+        long count = 0;
+        for (YearMonth month : partitionsFor(query)) {
+            count += orderArchiveRepository.count(month, query);
+        }
+        return count;
+    }
+
+    /**
+     * 按摘要加载归档订单及商品行，每个月份一次订单查询和一次商品行查询
+     * @return 与入参顺序一致，不在归档中的订单被跳过
+     */
+    public List<Order> findOrders(List<OrderSummary> summaries) {
+        Map<YearMonth, List<Long>> byMonth = new LinkedHashMap<>();
+        for (OrderSummary summary : summaries) {
+            byMonth.computeIfAbsent(YearMonth.from(summary.getCreatedAt()), k -> new ArrayList<>())
+                    .add(summary.getId());
+        }
+        Map<Long, Order> loaded = new HashMap<>();
+        byMonth.forEach((month, ids) -> {
+            if (partitions.contains(month)) {
+                orderArchiveRepository.findOrders(month, ids).forEach(order -> loaded.put(order.getId(), order));
+            }
+        });
+        List<Order> result = new ArrayList<>(summaries.size());
+        for (OrderSummary summary : summaries) {
+            if (loaded.containsKey(summary.getId())) {
+                result.add(loaded.get(summary.getId()));
+            }
+        }
+        return result;
+    }
+
+    // 按ID在归档中查找订单，从最近的月份开始
+    public Optional<Order> findOrder(Long orderId) {
+        for (YearMonth month : partitions) {
+            Optional<Order> order = orderArchiveRepository.findOrder(month, orderId);
+            if (order.isPresent()) {
+                return order;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 归档订单在时间范围内的实付金额合计和订单数，只读取与范围重叠的月份
+     * 按门店/状态分组时，各月份的结果逐行返回，由调用方按分组键合并
+     */
+    public List<SalesTotals> aggregateSales(LocalDateTime start, LocalDateTime end, boolean byStore,
+            boolean byStatus) {
+        List<SalesTotals> result = new ArrayList<>();
+        for (YearMonth month : partitionsFor(start, end)) {
+            result.addAll(orderArchiveRepository.aggregateSales(month, start, end, byStore, byStatus));
+        }
+        return result;
+    }
+
+    public List<YearMonth> getPartitions() {
+        return partitions;
+    }
+
+    // 与 [start, end] 重叠的归档月份，供按表名聚合的报表查询使用
+    public List<YearMonth> getPartitions(LocalDateTime start, LocalDateTime end) {
+        return partitionsFor(start, end);
+    }
+
+    private List<YearMonth> partitionsFor(OrderQueryDTO query) {
+        LocalDateTime end = query.getEndTime();
+        if (query.getAfterCreatedAt() != null && (end == null || query.getAfterCreatedAt().isBefore(end))) {
+            end = query.getAfterCreatedAt();
+        }
+        return partitionsFor(query.getStartTime(), end);
+    }
+
+    // 与 [start, end] 重叠的归档月份，start 或 end 为空时该端不限
+    private List<YearMonth> partitionsFor(LocalDateTime start, LocalDateTime end) {
+        List<YearMonth> current = partitions;
+        if (current.isEmpty()) {
+            return List.of();
+        }
+        YearMonth from = start == null ? null : YearMonth.from(start);
+        YearMonth to = end == null ? null : YearMonth.from(end);
+        List<YearMonth> result = new ArrayList<>();
+        for (YearMonth month : current) {
+            if ((from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to))) {
+                result.add(month);
+            }
+        }
+        return result;
+    }
+
+    private OrderArchivePartition ensurePartition(YearMonth month) {
+        String key = OrderArchiveRepository.suffix(month);
+        Optional<OrderArchivePartition> existing = partitionRepository.findByArchiveMonth(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        orderArchiveRepository.createTables(month);
+        OrderArchivePartition partition = new OrderArchivePartition();
+        partition.setArchiveMonth(key);
+        partition.setOrdersTable(OrderArchiveRepository.ordersTable(month));
+        partition.setItemsTable(OrderArchiveRepository.itemsTable(month));
+        partition.setOrderCount(0L);
+        partition.setUpdatedAt(LocalDateTime.now());
+        partition = partitionRepository.save(partition);
+
+        List<YearMonth> months = new ArrayList<>(partitions);
+        months.add(month);
+        months.sort(Comparator.reverseOrder());
+        partitions = List.copyOf(months);
+        logger.info("创建订单归档分区: {}", key);
+        return partition;
+    }
+
+    // 批次之间暂停，被中断时返回 false 结束本次归档
+    private boolean pause() {
+        if (batchPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
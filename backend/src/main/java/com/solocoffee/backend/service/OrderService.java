@@ -2,15 +2,21 @@ package com.solocoffee.backend.service;
 
 import com.solocoffee.backend.common.BizException;
 import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.common.IdGenerator;
+import com.solocoffee.backend.common.Money;
+import com.solocoffee.backend.dto.BatchOrderResult;
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
 import com.solocoffee.backend.entity.Order;
 import com.solocoffee.backend.entity.OrderItem;
-import com.solocoffee.backend.entity.ProductBOM;
+import com.solocoffee.backend.event.OrderStatusChangedEvent;
 import com.solocoffee.backend.repository.OrderRepository;
-import com.solocoffee.backend.repository.ProductBOMRepository;
-import com.solocoffee.backend.repository.ProductRepository;
+import com.solocoffee.backend.repository.OrderSpecifications;
 import com.solocoffee.backend.service.InventoryService;
 import com.solocoffee.backend.service.RawMaterialInventoryService;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
@@ -19,19 +25,34 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.math.BigDecimal;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 
 @Service
 public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
     @Autowired
     private InventoryService inventoryService;
 
@@ -39,10 +60,38 @@ public class OrderService {
     private RawMaterialInventoryService rawMaterialInventoryService;
 
     @Autowired
-    private ProductBOMRepository productBOMRepository;
+    private OrderValidationService orderValidationService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    private ProductRepository productRepository;
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
+    // 进入某个状态时必须与状态变更在同一事务中完成的动作，参数为订单和变更前的状态
+    private final Map<Integer, BiConsumer<Order, Integer>> onEnter = Map.of(
+            // 已完成: 按订单汇总需求批量原子扣减库存，并将预占转为扣减
+            OrderStateMachine.COMPLETED, (order, fromStatus) -> {
+                deductInventoryForOrder(order);
+                inventoryReservationService.convertToDeduction(order.getId());
+            },
+            // 已取消: 释放预占
+            OrderStateMachine.CANCELLED, (order, fromStatus) -> inventoryReservationService.release(order.getId()),
+            // 退款中: 未完成的订单释放预占；已完成的订单库存已扣减，退款时恢复。
+            // 退款中只能流转到已退款，已完成只能经退款中退款，因此只在这里判断一次
+            OrderStateMachine.REFUNDING, (order, fromStatus) -> {
+                if (fromStatus != null && fromStatus == OrderStateMachine.COMPLETED) {
+                    restoreInventoryForOrder(order);
+                } else {
+                    inventoryReservationService.release(order.getId());
+                }
+            });
 
     // @Autowired
     // private CustomerService customerService;
@@ -57,105 +106,24 @@ public class OrderService {
     public Order createOrder(Order order) {
         logger.debug("开始创建订单，订单对象: {}", order);
 
+        Timer.Sample sample = serviceMetrics.start();
+        String outcome = ServiceMetrics.ERROR;
         try {
-            // 生成订单号
-            String orderNo = "ORD" + System.currentTimeMillis();
-            order.setOrderNo(orderNo);
-            logger.debug("生成订单号: {}", orderNo);
-
-            // 设置初始订单状态 (1: 待确认)
-            order.setOrderStatus(1);
-            logger.debug("设置初始订单状态为: {}", order.getOrderStatus());
-
-            // 确保支付方式已设置
-            if (order.getPaymentMethod() == null) {
-                order.setPaymentMethod(1); // 默认微信支付
-                logger.debug("设置默认支付方式为: {}", order.getPaymentMethod());
-            }
+            // 生成订单号，设置初始状态、默认支付方式和创建时间
+            initializeOrder(order, java.time.LocalDateTime.now());
+            logger.debug("生成订单号: {}, 初始状态: {}, 支付方式: {}", order.getOrderNo(), order.getOrderStatus(),
+                    order.getPaymentMethod());
 
-            // 设置创建和更新时间
-            java.time.LocalDateTime now = java.time.LocalDateTime.now();
-            order.setCreatedAt(now);
-            order.setUpdatedAt(now);
-            logger.debug("设置创建时间: {}, 更新时间: {}", order.getCreatedAt(), order.getUpdatedAt());
-
-            // 检查库存是否充足
+            // 批量校验商品和库存（商品、BOM、原料库存各一次查询，按原料汇总需求）
+            OrderValidationService.MaterialDemand demand = new OrderValidationService.MaterialDemand();
             if (order.getOrderItems() != null) {
                 logger.debug("开始检查库存，订单商品数量: {}", order.getOrderItems().size());
-                for (OrderItem item : order.getOrderItems()) {
-                    // 设置订单关联
-                    item.setOrder(order);
-                    logger.debug("检查商品ID: {} 的库存，商品名称: {}, 请求数量: {}",
-                            item.getProductId(), item.getProductName(), item.getQuantity());
-
-                    // 检查商品ID和数量
-                    if (item.getProductId() == null) {
-                        throw new BizException(ErrorCode.PARAMETER_ERROR, "商品ID不能为空");
-                    }
-                    if (item.getQuantity() <= 0) {
-                        throw new BizException(ErrorCode.PARAMETER_ERROR, "商品数量必须大于0");
-                    }
-
-                    // 从数据库获取商品信息以确保价格准确
-                    com.solocoffee.backend.entity.Product product = productRepository.findById(item.getProductId())
-                            .orElseThrow(() -> new BizException(ErrorCode.RESOURCE_NOT_FOUND,
-                                    "商品不存在: " + item.getProductId()));
-
-                    // 使用数据库中的信息覆盖前端传递的数据（安全起见）
-                    item.setPrice(product.getPrice());
-                    item.setProductName(product.getName());
-                    item.setSubtotal(product.getPrice().multiply(new BigDecimal(item.getQuantity())));
-
-                    // 检查制作该商品所需的库存是否充足
-                    List<ProductBOM> bomList = productBOMRepository.findByProductId(item.getProductId());
-                    if (bomList != null && !bomList.isEmpty()) {
-                        // 有BOM表，检查原料库存
-                        for (ProductBOM bom : bomList) {
-                            // 计算所需原料数量（商品数量 × BOM单数量）
-                            BigDecimal requiredMaterialQuantity = bom.getQuantity()
-                                    .multiply(BigDecimal.valueOf(item.getQuantity()));
-                            logger.debug("检查商品ID: {} 的原料ID: {} 库存，所需数量: {}",
-                                    item.getProductId(), bom.getMaterialId(), requiredMaterialQuantity);
-
-                            boolean isRawMaterialSufficient = rawMaterialInventoryService.checkRawMaterialInventory(
-                                    order.getStoreId(), bom.getMaterialId(), requiredMaterialQuantity);
-
-                            if (!isRawMaterialSufficient) {
-                                // 原料库存不足时抛出异常
-                                logger.error("制作商品ID: {} 的原料ID: {} 库存不足，所需数量: {}",
-                                        item.getProductId(), bom.getMaterialId(), requiredMaterialQuantity);
-                                throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
-                                        "制作商品ID: " + item.getProductId() + " 的原料库存不足");
-                            }
-                        }
-                    } else {
-                        // 没有BOM表，使用原来的成品库存检查逻辑（兼容现有测试和旧系统）
-                        boolean isInventorySufficient = inventoryService.checkInventory(item.getProductId(),
-                                BigDecimal.valueOf(item.getQuantity()));
-                        logger.debug("商品ID: {} 的库存是否充足: {}", item.getProductId(), isInventorySufficient);
-
-                        // 检查每个商品的库存是否充足
-                        if (!isInventorySufficient) {
-                            // 库存不足时抛出异常
-                            logger.error("商品ID: {} 库存不足，请求数量: {}", item.getProductId(), item.getQuantity());
-                            throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
-                                    "商品ID: " + item.getProductId() + " 库存不足");
-                        }
-                    }
-                }
+                demand = orderValidationService.validateOrder(order);
             }
 
             // 计算总金额
             if (order.getOrderItems() != null) {
-                logger.debug("开始计算总金额，订单商品数量: {}", order.getOrderItems().size());
-                double totalAmount = 0;
-
-                for (OrderItem item : order.getOrderItems()) {
-                    totalAmount += item.getSubtotal().doubleValue();
-                }
-
-                order.setTotalAmount(java.math.BigDecimal.valueOf(totalAmount));
-                order.setActualAmount(order.getTotalAmount());
+                calculateTotal(order);
                 logger.debug("计算总金额完成，总金额: {}, 实际支付金额: {}", order.getTotalAmount(), order.getActualAmount());
             }
 
@@ -164,17 +132,119 @@ public class OrderService {
             Order savedOrder = orderRepository.save(order);
             logger.debug("订单保存成功，订单ID: {}, 订单号: {}", savedOrder.getId(), savedOrder.getOrderNo());
 
+            // 预占原料库存，避免并发订单同时通过检查后超卖
+            inventoryReservationService.reserve(savedOrder.getId(), savedOrder.getStoreId(), demand.getMaterials());
+
+            publishStatusChanged(savedOrder, null);
+            outcome = ServiceMetrics.SUCCESS;
             return savedOrder;
         } catch (Exception e) {
+            outcome = ServiceMetrics.outcome(e);
             logger.error("订单创建失败，异常类型: {}, 异常信息: {}", e.getClass().getName(), e.getMessage(), e);
             throw e;
+        } finally {
+            // 门店ID来自请求，只有创建成功（通过校验）的订单才按门店打标签
+            String store = ServiceMetrics.SUCCESS.equals(outcome) ? ServiceMetrics.store(order.getStoreId())
+                    : ServiceMetrics.NO_STORE;
+            serviceMetrics.stop(sample, "order.create", outcome, "store", store);
+        }
+    }
+
+    /**
+     * 批量创建订单（POS离线积压的订单一次提交）
+     * 商品、BOM和成品库存对整批订单各查询一次，原料按门店一次加锁预占，订单和明细在同一事务中批量写入。
+     * 单个订单校验或预占失败只影响该订单，结果按提交顺序返回。
+     * @param orders 待创建的订单
+     * @return 与入参顺序一致的创建结果
+     */
+    @Transactional
+    public List<BatchOrderResult> createOrders(List<Order> orders) {
+        List<OrderValidationService.ValidatedOrder> validated = orderValidationService.validateOrders(orders);
+
+        // 按门店分组预占原料，可用量不足的订单标记失败
+        Map<Long, List<OrderValidationService.ValidatedOrder>> byStore = new LinkedHashMap<>();
+        for (OrderValidationService.ValidatedOrder result : validated) {
+            if (result.isValid()) {
+                byStore.computeIfAbsent(result.getOrder().getStoreId(), k -> new ArrayList<>()).add(result);
+            }
+        }
+        for (Map.Entry<Long, List<OrderValidationService.ValidatedOrder>> entry : byStore.entrySet()) {
+            List<Map<Long, BigDecimal>> demands = new ArrayList<>(entry.getValue().size());
+            for (OrderValidationService.ValidatedOrder result : entry.getValue()) {
+                demands.add(result.getDemand().getMaterials());
+            }
+            List<Long> shortages = inventoryReservationService.holdEach(entry.getKey(), demands);
+            for (int i = 0; i < shortages.size(); i++) {
+                if (shortages.get(i) != null) {
+                    entry.getValue().get(i).setError(new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
+                            "原料ID: " + shortages.get(i) + " 库存不足"));
+                }
+            }
+        }
+
+        // 批量保存通过校验的订单，再写入预占明细
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        List<Order> accepted = new ArrayList<>();
+        for (OrderValidationService.ValidatedOrder result : validated) {
+            if (result.isValid()) {
+                initializeOrder(result.getOrder(), now);
+                calculateTotal(result.getOrder());
+                accepted.add(result.getOrder());
+            }
+        }
+        orderRepository.saveAll(accepted);
+        for (OrderValidationService.ValidatedOrder result : validated) {
+            if (result.isValid()) {
+                inventoryReservationService.saveHeld(result.getOrder().getId(), result.getOrder().getStoreId(),
+                        result.getDemand().getMaterials());
+                publishStatusChanged(result.getOrder(), null);
+            }
+        }
+
+        List<BatchOrderResult> results = new ArrayList<>(validated.size());
+        for (int i = 0; i < validated.size(); i++) {
+            OrderValidationService.ValidatedOrder result = validated.get(i);
+            if (result.isValid()) {
+                results.add(BatchOrderResult.success(i, result.getOrder()));
+            } else {
+                results.add(BatchOrderResult.failure(i, result.getError()));
+            }
+        }
+        logger.info("批量创建订单完成，提交: {}, 成功: {}", orders.size(), accepted.size());
+        return results;
+    }
+
+    // 生成订单号，设置初始订单状态 (1: 待确认)、默认支付方式和创建时间
+    private void initializeOrder(Order order, java.time.LocalDateTime now) {
+        order.setOrderNo(idGenerator.nextId("ORD"));
+        order.setOrderStatus(1);
+        if (order.getPaymentMethod() == null) {
+            order.setPaymentMethod(1); // 默认微信支付
+        }
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+    }
+
+    // 以分为单位累加商品小计，避免 double 误差
+    private void calculateTotal(Order order) {
+        Money totalAmount = Money.ZERO;
+        for (OrderItem item : order.getOrderItems()) {
+            totalAmount = totalAmount.plus(Money.of(item.getSubtotal()));
         }
+        order.setTotalAmount(totalAmount.toBigDecimal());
+        order.setActualAmount(order.getTotalAmount());
     }
 
     public Optional<Order> getOrderById(Long id) {
         return orderRepository.findById(id);
     }
 
+    // 查询订单详情，订单和商品行在同一条查询中加载；在线表中没有时再查归档
+    public Optional<Order> getOrderDetail(Long id) {
+        Optional<Order> order = orderRepository.findWithOrderItemsById(id);
+        return order.isPresent() ? order : orderArchiveService.findOrder(id);
+    }
+
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
@@ -183,54 +253,245 @@ public class OrderService {
         return orderRepository.findAll(pageable);
     }
 
+    /**
+     * 按条件分页查询订单，筛选在数据库中完成
+     * 先分页查询订单，再按订单ID一次加载本页所有商品行，查询次数与每页数量无关
+     */
+    @Transactional(readOnly = true)
+    public Page<Order> getOrders(OrderQueryDTO query, Pageable pageable) {
+        if (orderArchiveService.covers(query)) {
+            Page<OrderSummary> page = getOrderSummaries(query, pageable);
+            return new PageImpl<>(loadOrders(page.getContent()), pageable, page.getTotalElements());
+        }
+        Page<Order> page = orderRepository.findAll(OrderSpecifications.matches(query), pageable);
+        return new PageImpl<>(withOrderItems(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    // 按条件分页查询订单摘要，不加载商品行
+    @Transactional(readOnly = true)
+    public Page<OrderSummary> getOrderSummaries(OrderQueryDTO query, Pageable pageable) {
+        Specification<Order> spec = OrderSpecifications.matches(query);
+        if (orderArchiveService.covers(query)) {
+            // 时间范围包含已归档月份: 各取前 offset + size 条按 (创建时间, ID) 倒序合并
+            int limit = (int) pageable.getOffset() + pageable.getPageSize();
+            List<OrderSummary> merged = orderArchiveService.merge(
+                    orderRepository.findSummaries(spec, NEWEST_FIRST, 0, limit), query, false, limit);
+            List<OrderSummary> content = merged.size() > pageable.getOffset()
+                    ? merged.subList((int) pageable.getOffset(), merged.size()) : List.of();
+            return new PageImpl<>(new ArrayList<>(content), pageable,
+                    orderRepository.count(spec) + orderArchiveService.count(query));
+        }
+        List<OrderSummary> summaries = orderRepository.findSummaries(spec, pageable.getSort(),
+                pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(summaries, pageable, () -> orderRepository.count(spec));
+    }
+
+    /**
+     * 键集分页查询订单，按 (创建时间, ID) 倒序，从游标之后取 size 条
+     * 不执行 count 查询，翻到任意深度的代价都只与 size 有关
+     */
+    @Transactional(readOnly = true)
+    public Slice<Order> getOrdersAfter(OrderQueryDTO query, int size) {
+        Sort sort = keysetSort(query);
+        if (orderArchiveService.covers(query)) {
+            Slice<OrderSummary> summaries = getOrderSummariesAfter(query, size);
+            return new SliceImpl<>(loadOrders(summaries.getContent()), PageRequest.of(0, size, sort),
+                    summaries.hasNext());
+        }
+        List<Order> orders = orderRepository.findBy(OrderSpecifications.matches(query),
+                q -> q.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = orders.size() > size;
+        if (hasNext) {
+            orders = orders.subList(0, size);
+        }
+        return new SliceImpl<>(withOrderItems(orders), PageRequest.of(0, size, sort), hasNext);
+    }
+
+    // 键集分页查询订单摘要，不加载商品行
+    @Transactional(readOnly = true)
+    public Slice<OrderSummary> getOrderSummariesAfter(OrderQueryDTO query, int size) {
+        Sort sort = keysetSort(query);
+        List<OrderSummary> summaries = orderRepository.findSummaries(OrderSpecifications.matches(query), sort, 0,
+                size + 1);
+        if (orderArchiveService.covers(query)) {
+            boolean byIdOnly = query.getAfterCreatedAt() == null && query.getAfterId() != null;
+            summaries = orderArchiveService.merge(summaries, query, byIdOnly, size + 1);
+        }
+        boolean hasNext = summaries.size() > size;
+        if (hasNext) {
+            summaries = summaries.subList(0, size);
+        }
+        return new SliceImpl<>(summaries, PageRequest.of(0, size, sort), hasNext);
+    }
+
+    private Sort keysetSort(OrderQueryDTO query) {
+        if (query.getAfterCreatedAt() == null && query.getAfterId() != null) {
+            return Sort.by(Sort.Order.desc("id"));
+        }
+        return NEWEST_FIRST;
+    }
+
+    // 按摘要加载订单及商品行：在线订单一次查询，其余从归档加载，保持原有顺序
+    private List<Order> loadOrders(List<OrderSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(summaries.size());
+        for (OrderSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        Map<Long, Order> loaded = new HashMap<>();
+        for (Order order : orderRepository.findWithOrderItemsByIdIn(ids)) {
+            loaded.put(order.getId(), order);
+        }
+        List<OrderSummary> archived = new ArrayList<>();
+        for (OrderSummary summary : summaries) {
+            if (!loaded.containsKey(summary.getId())) {
+                archived.add(summary);
+            }
+        }
+        for (Order order : orderArchiveService.findOrders(archived)) {
+            loaded.put(order.getId(), order);
+        }
+        List<Order> result = new ArrayList<>(summaries.size());
+        for (OrderSummary summary : summaries) {
+            if (loaded.containsKey(summary.getId())) {
+                result.add(loaded.get(summary.getId()));
+            }
+        }
+        return result;
+    }
+
+    // 按订单ID一次加载商品行，并保持原有顺序
+    private List<Order> withOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        List<Long> ids = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            ids.add(order.getId());
+        }
+        Map<Long, Order> loaded = new HashMap<>();
+        for (Order order : orderRepository.findWithOrderItemsByIdIn(ids)) {
+            loaded.put(order.getId(), order);
+        }
+        List<Order> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            result.add(loaded.getOrDefault(order.getId(), order));
+        }
+        return result;
+    }
+
+    /**
+     * 更新订单状态
+     * 状态变更和库存扣减/预占释放在当前事务中同步完成；积分、通知等次要副作用通过订单事件在提交后异步执行
+     * @return 更新后的订单，订单不存在或状态流转不合法时返回 null
+     */
     @Transactional
     public Order updateOrderStatus(Long id, Integer status) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);
-        if (optionalOrder.isPresent()) {
-            Order order = optionalOrder.get();
-            Integer oldStatus = order.getOrderStatus();
-
-            // 订单状态流转逻辑
-            if (isValidStatusTransition(oldStatus, status)) {
-                order.setOrderStatus(status);
-
-                // 状态为已完成时，更新库存
-                if (status == 3) { // 3: 已完成
-                    // 根据BOM表扣减原料库存
-                    if (order.getOrderItems() != null) {
-                        for (OrderItem item : order.getOrderItems()) {
-                            // 获取商品的BOM清单
-                            List<ProductBOM> bomList = productBOMRepository.findByProductId(item.getProductId());
-                            if (bomList != null && !bomList.isEmpty()) {
-                                // 有BOM表，扣减原料库存
-                                for (ProductBOM bom : bomList) {
-                                    // 计算需要扣减的原料数量（商品数量 × BOM单数量）
-                                    BigDecimal requiredMaterialQuantity = bom.getQuantity()
-                                            .multiply(BigDecimal.valueOf(item.getQuantity()));
-                                    logger.debug("订单完成，扣减商品ID: {} 的原料ID: {} 库存，数量: {}",
-                                            item.getProductId(), bom.getMaterialId(), requiredMaterialQuantity);
-
-                                    // 扣减原料库存
-                                    rawMaterialInventoryService.deductRawMaterialInventory(
-                                            order.getStoreId(), bom.getMaterialId(), requiredMaterialQuantity);
-                                }
-                            } else {
-                                // 没有BOM表，使用原来的成品库存扣减逻辑（兼容现有测试和旧系统）
-                                logger.debug("订单完成，扣减商品ID: {} 的库存，数量: {}",
-                                        item.getProductId(), item.getQuantity());
-
-                                // 扣减成品库存
-                                inventoryService.deductInventory(item.getProductId(),
-                                        BigDecimal.valueOf(item.getQuantity()));
-                            }
-                        }
-                    }
+        Timer.Sample sample = serviceMetrics.start();
+        Long storeId = null;
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            Optional<Order> optionalOrder = orderRepository.findById(id);
+            if (optionalOrder.isPresent()) {
+                Order order = optionalOrder.get();
+                storeId = order.getStoreId();
+                Integer oldStatus = order.getOrderStatus();
+
+                // 订单状态流转逻辑
+                if (OrderStateMachine.canTransition(oldStatus, status)) {
+                    Order updated = transition(order, status);
+                    outcome = ServiceMetrics.SUCCESS;
+                    return updated;
                 }
-
-                return orderRepository.save(order);
             }
+            outcome = ServiceMetrics.REJECTED;
+            return null;
+        } catch (RuntimeException e) {
+            outcome = ServiceMetrics.outcome(e);
+            throw e;
+        } finally {
+            // 目标状态来自请求，不在状态表中的取值统一记为 invalid
+            serviceMetrics.stop(sample, "order.status.update", outcome, "store", ServiceMetrics.store(storeId),
+                    "status", OrderStateMachine.isKnown(status) ? String.valueOf(status) : ServiceMetrics.INVALID);
+        }
+    }
+
+    // 执行状态流转：进入新状态时的同步动作、保存、发布状态变更事件
+    private Order transition(Order order, Integer status) {
+        Integer oldStatus = order.getOrderStatus();
+        order.setOrderStatus(status);
+        BiConsumer<Order, Integer> action = onEnter.get(status);
+        if (action != null) {
+            action.accept(order, oldStatus);
+        }
+        Order saved = orderRepository.save(order);
+        publishStatusChanged(saved, oldStatus);
+        return saved;
+    }
+
+    // 发布订单状态变更事件，oldStatus 为 null 表示新建订单；同步监听器在当前事务中写入发件箱
+    private void publishStatusChanged(Order order, Integer oldStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getOrderNo(),
+                order.getStoreId(), order.getCustomerId(), oldStatus, order.getOrderStatus(), order.getActualAmount()));
+    }
+
+    /**
+     * 扣减订单所需库存
+     * 按BOM汇总整单原料需求，每种原料一条带条件的UPDATE批量提交；任一原料不足时抛出异常，整个事务回滚
+     */
+    private void deductInventoryForOrder(Order order) {
+        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+            return;
+        }
+
+        OrderValidationService.MaterialDemand demand = orderValidationService.calculateDemand(order.getOrderItems());
+        logger.debug("订单完成，扣减订单ID: {} 的库存，原料需求: {}, 成品需求: {}",
+                order.getId(), demand.getMaterials(), demand.getProducts());
+
+        Timer.Sample sample = serviceMetrics.start();
+        String outcome = ServiceMetrics.ERROR;
+        List<Long> failedMaterialIds;
+        List<Long> failedProductIds;
+        try {
+            failedMaterialIds = rawMaterialInventoryService.deductRawMaterials(order.getStoreId(),
+                    demand.getMaterials());
+            failedProductIds = inventoryService.deductProducts(order.getStoreId(), demand.getProducts());
+            outcome = failedMaterialIds.isEmpty() && failedProductIds.isEmpty()
+                    ? ServiceMetrics.SUCCESS : ServiceMetrics.REJECTED;
+        } finally {
+            serviceMetrics.stop(sample, "inventory.deduct", outcome, "store", ServiceMetrics.store(order.getStoreId()));
+        }
+        if (!failedMaterialIds.isEmpty() || !failedProductIds.isEmpty()) {
+            serviceMetrics.increment("inventory.shortage", "store", ServiceMetrics.store(order.getStoreId()));
+            logger.error("订单ID: {} 扣减库存失败，库存不足的原料ID: {}, 商品ID: {}",
+                    order.getId(), failedMaterialIds, failedProductIds);
+            throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
+                    "库存不足，原料ID: " + failedMaterialIds + ", 商品ID: " + failedProductIds);
+        }
+    }
+
+    /**
+     * 已完成订单退款时恢复完成时扣减的库存
+     * 按BOM汇总整单原料，原料和成品各一次批量更新
+     */
+    private void restoreInventoryForOrder(Order order) {
+        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+            return;
+        }
+
+        OrderValidationService.MaterialDemand demand = orderValidationService.calculateDemand(order.getOrderItems());
+        logger.debug("退款处理，恢复订单ID: {} 的库存，原料: {}, 成品: {}",
+                order.getId(), demand.getMaterials(), demand.getProducts());
+
+        List<Long> missingMaterialIds = rawMaterialInventoryService.addRawMaterials(order.getStoreId(),
+                demand.getMaterials());
+        List<Long> missingProductIds = inventoryService.addProducts(order.getStoreId(), demand.getProducts());
+        if (!missingMaterialIds.isEmpty() || !missingProductIds.isEmpty()) {
+            logger.error("订单ID: {} 恢复库存失败，不存在库存记录的原料ID: {}, 商品ID: {}",
+                    order.getId(), missingMaterialIds, missingProductIds);
         }
-        return null;
     }
 
     @Transactional
@@ -239,8 +500,8 @@ public class OrderService {
         if (optionalOrder.isPresent()) {
             Order order = optionalOrder.get();
 
-            // 检查订单状态 (1: 待确认)
-            if (order.getOrderStatus() == 1) {
+            // 检查订单状态 (1: 待确认 -> 2: 制作中)
+            if (order.getOrderStatus() == OrderStateMachine.PENDING) {
                 // 从请求中获取支付信息
                 String paymentMethod = (String) request.get("paymentMethod");
                 Map<String, Object> paymentDetails = (Map<String, Object>) request.get("paymentDetails");
@@ -248,15 +509,14 @@ public class OrderService {
                 // 模拟支付成功
                 Map<String, Object> paymentResult = Map.of(
                         "success", true,
-                        "transactionId", "TXN" + System.currentTimeMillis());
+                        "transactionId", idGenerator.nextId("TXN"));
 
                 // 检查支付结果
                 if ((Boolean) paymentResult.get("success")) {
                     // 更新订单状态为制作中 (2)
-                    order.setOrderStatus(2);
                     order.setPaymentMethod(1); // 假设1: 微信支付
 
-                    return orderRepository.save(order);
+                    return transition(order, OrderStateMachine.PREPARING);
                 } else {
                     throw new BizException(ErrorCode.PAYMENT_FAILED, "支付失败: 支付处理未完成");
                 }
@@ -274,91 +534,41 @@ public class OrderService {
 
     @Transactional
     public Order processRefund(Long id, String refundReason, BigDecimal refundAmount) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);
-        if (optionalOrder.isPresent()) {
-            Order order = optionalOrder.get();
-
-            // 检查订单状态是否可以退款
-            Integer currentStatus = order.getOrderStatus();
-            if (currentStatus == 3 || currentStatus == 5) { // 3: 已完成, 5: 退款中
-                // 更新订单状态为退款中
-                order.setOrderStatus(5);
-                order.setRemarks(refundReason);
-
-                // 模拟退款处理
-                // 实际项目中这里应该调用支付服务进行退款操作
-
-                // 退款成功后更新状态为已退款
-                order.setOrderStatus(6);
-
-                // 恢复库存
-                if (order.getOrderItems() != null) {
-                    for (OrderItem item : order.getOrderItems()) {
-                        // 获取商品的BOM清单
-                        List<ProductBOM> bomList = productBOMRepository.findByProductId(item.getProductId());
-                        if (bomList != null && !bomList.isEmpty()) {
-                            // 有BOM表，恢复原料库存
-                            for (ProductBOM bom : bomList) {
-                                // 计算需要恢复的原料数量（商品数量 × BOM单数量）
-                                BigDecimal requiredMaterialQuantity = bom.getQuantity()
-                                        .multiply(BigDecimal.valueOf(item.getQuantity()));
-                                logger.debug("退款处理，恢复商品ID: {} 的原料ID: {} 库存，数量: {}",
-                                        item.getProductId(), bom.getMaterialId(), requiredMaterialQuantity);
-
-                                // 恢复原料库存
-                                boolean success = rawMaterialInventoryService.addRawMaterialInventory(
-                                        order.getStoreId(), bom.getMaterialId(), requiredMaterialQuantity);
-                                if (success) {
-                                    logger.debug("成功恢复原料ID: {} 的库存，数量: {}",
-                                            bom.getMaterialId(), requiredMaterialQuantity);
-                                } else {
-                                    logger.error("恢复原料ID: {} 的库存失败，数量: {}",
-                                            bom.getMaterialId(), requiredMaterialQuantity);
-                                }
-                            }
-                        } else {
-                            // 没有BOM表，使用原来的成品库存恢复逻辑（兼容现有测试和旧系统）
-                            logger.debug("退款处理，恢复商品ID: {} 的库存，数量: {}",
-                                    item.getProductId(), item.getQuantity());
-
-                            // 恢复成品库存
-                            inventoryService.addInventory(item.getProductId(), BigDecimal.valueOf(item.getQuantity()));
-                        }
+        Timer.Sample sample = serviceMetrics.start();
+        Long storeId = null;
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            Optional<Order> optionalOrder = orderRepository.findById(id);
+            if (optionalOrder.isPresent()) {
+                Order order = optionalOrder.get();
+                storeId = order.getStoreId();
+
+                // 检查订单状态是否可以退款 (3: 已完成, 5: 退款中)
+                Integer currentStatus = order.getOrderStatus();
+                if (currentStatus == OrderStateMachine.COMPLETED || currentStatus == OrderStateMachine.REFUNDING) {
+                    order.setRemarks(refundReason);
+
+                    // 模拟退款处理
+                    // 实际项目中这里应该调用支付服务进行退款操作
+
+                    // 按状态表经退款中流转到已退款，已完成的订单在进入退款中时恢复库存
+                    if (currentStatus == OrderStateMachine.COMPLETED) {
+                        order = transition(order, OrderStateMachine.REFUNDING);
                     }
+                    Order refunded = transition(order, OrderStateMachine.REFUNDED);
+                    outcome = ServiceMetrics.SUCCESS;
+                    return refunded;
+                } else {
+                    throw new BizException(ErrorCode.REFUND_FAILED, "退款失败: 订单状态不允许退款");
                 }
-
-                return orderRepository.save(order);
             } else {
-                throw new BizException(ErrorCode.REFUND_FAILED, "退款失败: 订单状态不允许退款");
+                throw new BizException(ErrorCode.ORDER_NOT_FOUND, "订单不存在");
             }
-        } else {
-            throw new BizException(ErrorCode.ORDER_NOT_FOUND, "订单不存在");
-        }
-    }
-
-    private boolean isValidStatusTransition(Integer oldStatus, Integer newStatus) {
-        // 订单状态流转规则
-        // 1: 待确认 -> 2: 制作中, 4: 已取消
-        // 2: 制作中 -> 3: 已完成, 4: 已取消
-        // 3: 已完成 -> 不可更改
-        // 4: 已取消 -> 不可更改
-        // 5: 退款中 -> 6: 已退款
-
-        switch (oldStatus) {
-            case 1:
-                return newStatus == 2 || newStatus == 4 || newStatus == 5;
-            case 2:
-                return newStatus == 3 || newStatus == 4 || newStatus == 5;
-            case 3:
-                return newStatus == 5;
-            case 4:
-                return false;
-            case 5:
-                return newStatus == 6;
-            case 6:
-                return false;
-            default:
-                return false;
+        } catch (RuntimeException e) {
+            outcome = ServiceMetrics.outcome(e);
+            throw e;
+        } finally {
+            serviceMetrics.stop(sample, "order.refund", outcome, "store", ServiceMetrics.store(storeId));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.solocoffee.backend.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态机
+ * 状态流转规则集中在一张表中，新增状态或流转只需修改表
+ */
+public final class OrderStateMachine {
+
+    public static final int PENDING = 1; // 待确认
+    public static final int PREPARING = 2; // 制作中
+    public static final int COMPLETED = 3; // 已完成
+    public static final int CANCELLED = 4; // 已取消
+    public static final int REFUNDING = 5; // 退款中
+    public static final int REFUNDED = 6; // 已退款
+
+    // 当前状态 -> 允许流转到的状态
+    private static final Map<Integer, Set<Integer>> TRANSITIONS = Map.of(
+            PENDING, Set.of(PREPARING, CANCELLED, REFUNDING),
+            PREPARING, Set.of(COMPLETED, CANCELLED, REFUNDING),
+            COMPLETED, Set.of(REFUNDING),
+            CANCELLED, Set.of(),
+            REFUNDING, Set.of(REFUNDED),
+            REFUNDED, Set.of());
+
+    private OrderStateMachine() {
+    }
+
+    public static boolean isKnown(Integer status) {
+        return status != null && TRANSITIONS.containsKey(status);
+    }
+
+    public static boolean canTransition(Integer from, Integer to) {
+        if (from == null || to == null) {
+            return false;
+        }
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    // 状态只向前流转，to 能否经过一次或多次流转从 from 到达，用于判断两次状态变更的先后
+    public static boolean isReachable(Integer from, Integer to) {
+        if (from == null || to == null) {
+            return false;
+        }
+        for (Integer next : TRANSITIONS.getOrDefault(from, Set.of())) {
+            if (next.equals(to) || isReachable(next, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 已完成的订单发起退款（已完成 -> 退款中），销售额需要冲减；退款中 -> 已退款不再重复冲减，
+    // 未完成就退款（待确认/制作中 -> 退款中 -> 已退款）没有计入过销售额。已完成 -> 已退款兼容旧事件
+    public static boolean isRefundOfCompleted(Integer from, Integer to) {
+        return from != null && from == COMPLETED && to != null && (to == REFUNDING || to == REFUNDED);
+    }
+
+    // 已完成、已取消、已退款为终态（已完成仍可发起退款）
+    public static boolean isTerminal(Integer status) {
+        return status != null && (status == COMPLETED || status == CANCELLED || status == REFUNDED);
+    }
+}
@@ -0,0 +1,345 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.common.Money;
+import com.solocoffee.backend.entity.Inventory;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.Product;
+import com.solocoffee.backend.entity.ProductBOM;
+import com.solocoffee.backend.entity.RawMaterialInventory;
+import com.solocoffee.backend.repository.InventoryRepository;
+import com.solocoffee.backend.repository.ProductBOMRepository;
+import com.solocoffee.backend.repository.ProductRepository;
+import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 订单校验服务
+ * 以固定次数的批量查询加载商品、BOM和库存，在内存中汇总原料需求并判断库存是否充足
+ */
+@Service
+public class OrderValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderValidationService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBOMRepository productBOMRepository;
+
+    @Autowired
+    private RawMaterialInventoryRepository rawMaterialInventoryRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
+    /**
+     * 校验订单并回填商品价格、名称和小计
+     * @param order 待创建的订单
+     * @return 订单汇总后的原料及成品需求
+     */
+    public MaterialDemand validateOrder(Order order) {
+        List<OrderItem> items = order.getOrderItems() != null ? order.getOrderItems() : new ArrayList<>();
+        logger.debug("开始批量校验订单，门店ID: {}, 商品行数: {}", order.getStoreId(), items.size());
+
+        // 1. 参数校验
+        Set<Long> productIds = new LinkedHashSet<>();
+        checkItems(order, productIds);
+        if (productIds.isEmpty()) {
+            return new MaterialDemand();
+        }
+
+        // 2. 一次查询加载所有商品，使用数据库中的信息覆盖前端传递的数据（安全起见）
+        applyProducts(items, loadProducts(productIds));
+
+        // 3. 一次查询加载所有BOM并汇总需求，多个商品共用的原料合并计算
+        MaterialDemand demand = calculateDemand(items);
+
+        serviceMetrics.record("inventory.check", () -> {
+            // 4. 一次查询加载门店相关原料库存，在内存中判断是否充足
+            checkRawMaterials(order.getStoreId(), demand);
+
+            // 5. 没有BOM表的商品使用成品库存检查逻辑（兼容现有测试和旧系统）
+            checkProducts(order.getStoreId(), demand);
+            return demand;
+        }, "store", ServiceMetrics.store(order.getStoreId()));
+
+        return demand;
+    }
+
+    /**
+     * 批量校验多个订单，商品、BOM和成品库存对整批订单各只查询一次
+     * 单个订单校验失败不影响其他订单；原料库存由调用方在预占时按门店统一判断
+     * @param orders 待创建的订单
+     * @return 与入参顺序一致的校验结果
+     */
+    public List<ValidatedOrder> validateOrders(List<Order> orders) {
+        List<ValidatedOrder> results = new ArrayList<>(orders.size());
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            ValidatedOrder result = new ValidatedOrder(order);
+            results.add(result);
+            try {
+                if (order.getStoreId() == null) {
+                    throw new BizException(ErrorCode.PARAMETER_ERROR, "店铺ID不能为空");
+                }
+                if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+                    throw new BizException(ErrorCode.PARAMETER_ERROR, "订单商品不能为空");
+                }
+                checkItems(order, productIds);
+            } catch (BizException e) {
+                result.error = e;
+            }
+        }
+        if (productIds.isEmpty()) {
+            return results;
+        }
+        logger.debug("开始批量校验订单，订单数: {}, 商品种类: {}", orders.size(), productIds.size());
+
+        // 整批订单共用一次商品查询和一次BOM查询
+        Map<Long, Product> productMap = loadProducts(productIds);
+        Map<Long, List<ProductBOM>> bomMap = loadBoms(productIds);
+        for (ValidatedOrder result : results) {
+            if (result.error == null) {
+                try {
+                    applyProducts(result.order.getOrderItems(), productMap);
+                    result.demand = demandOf(result.order.getOrderItems(), bomMap);
+                } catch (BizException e) {
+                    result.error = e;
+                }
+            }
+        }
+
+        // 无BOM的商品按订单顺序累计扣减所在门店的可用成品库存，后面的订单看到的是前面订单占用后的余量
+        Set<Long> storeIds = new LinkedHashSet<>();
+        Set<Long> finishedProductIds = new LinkedHashSet<>();
+        for (ValidatedOrder result : results) {
+            if (result.isValid() && !result.demand.getProducts().isEmpty()) {
+                storeIds.add(result.order.getStoreId());
+                finishedProductIds.addAll(result.demand.getProducts().keySet());
+            }
+        }
+        if (!finishedProductIds.isEmpty()) {
+            // 门店ID -> (商品ID -> 可用数量)
+            Map<Long, Map<Long, BigDecimal>> availableByStore = new HashMap<>();
+            for (Inventory inventory : inventoryRepository
+                    .findByStoreIdInAndProductIdIn(storeIds, finishedProductIds)) {
+                availableByStore.computeIfAbsent(inventory.getStoreId(), k -> new HashMap<>())
+                        .put(inventory.getProductId(), inventory.getQuantity());
+            }
+            for (ValidatedOrder result : results) {
+                if (result.isValid() && !result.demand.getProducts().isEmpty()) {
+                    Map<Long, BigDecimal> available = availableByStore
+                            .computeIfAbsent(result.order.getStoreId(), k -> new HashMap<>());
+                    try {
+                        checkAvailable(result.order.getStoreId(), result.demand.getProducts(), available);
+                        result.demand.getProducts().forEach((productId, quantity) ->
+                                available.merge(productId, quantity.negate(), BigDecimal::add));
+                    } catch (BizException e) {
+                        result.error = e;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 根据BOM汇总订单商品行的原料需求，没有BOM的商品计入成品需求
+     * @param items 订单商品行
+     * @return 汇总后的需求
+     */
+    public MaterialDemand calculateDemand(List<OrderItem> items) {
+        MaterialDemand demand = new MaterialDemand();
+        if (items == null || items.isEmpty()) {
+            return demand;
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return demandOf(items, loadBoms(productIds));
+    }
+
+    private void checkItems(Order order, Set<Long> productIds) {
+        if (order.getOrderItems() == null) {
+            return;
+        }
+        for (OrderItem item : order.getOrderItems()) {
+            item.setOrder(order);
+            if (item.getProductId() == null) {
+                throw new BizException(ErrorCode.PARAMETER_ERROR, "商品ID不能为空");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new BizException(ErrorCode.PARAMETER_ERROR, "商品数量必须大于0");
+            }
+            productIds.add(item.getProductId());
+        }
+    }
+
+    private Map<Long, Product> loadProducts(Set<Long> productIds) {
+        Map<Long, Product> productMap = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            productMap.put(product.getId(), product);
+        }
+        return productMap;
+    }
+
+    private void applyProducts(List<OrderItem> items, Map<Long, Product> productMap) {
+        for (OrderItem item : items) {
+            Product product = productMap.get(item.getProductId());
+            if (product == null) {
+                throw new BizException(ErrorCode.RESOURCE_NOT_FOUND, "商品不存在: " + item.getProductId());
+            }
+            item.setPrice(product.getPrice());
+            item.setProductName(product.getName());
+            item.setSubtotal(Money.of(product.getPrice()).times(item.getQuantity()).toBigDecimal());
+        }
+    }
+
+    private Map<Long, List<ProductBOM>> loadBoms(Set<Long> productIds) {
+        Map<Long, List<ProductBOM>> bomMap = new HashMap<>();
+        for (ProductBOM bom : productBOMRepository.findByProductIdIn(productIds)) {
+            bomMap.computeIfAbsent(bom.getProductId(), k -> new ArrayList<>()).add(bom);
+        }
+        return bomMap;
+    }
+
+    private MaterialDemand demandOf(List<OrderItem> items, Map<Long, List<ProductBOM>> bomMap) {
+        MaterialDemand demand = new MaterialDemand();
+        for (OrderItem item : items) {
+            BigDecimal itemQuantity = BigDecimal.valueOf(item.getQuantity());
+            List<ProductBOM> bomList = bomMap.get(item.getProductId());
+            if (bomList != null && !bomList.isEmpty()) {
+                for (ProductBOM bom : bomList) {
+                    // 所需原料数量 = 商品数量 × BOM单数量
+                    demand.getMaterials().merge(bom.getMaterialId(), bom.getQuantity().multiply(itemQuantity),
+                            BigDecimal::add);
+                }
+            } else {
+                demand.getProducts().merge(item.getProductId(), itemQuantity, BigDecimal::add);
+            }
+        }
+        return demand;
+    }
+
+    private void checkRawMaterials(Long storeId, MaterialDemand demand) {
+        if (demand.getMaterials().isEmpty()) {
+            return;
+        }
+
+        Map<Long, BigDecimal> available = new HashMap<>();
+        for (RawMaterialInventory inventory : rawMaterialInventoryRepository
+                .findByStoreIdAndMaterialIdIn(storeId, demand.getMaterials().keySet())) {
+            available.put(inventory.getMaterialId(), inventory.getQuantity());
+        }
+
+        for (Map.Entry<Long, BigDecimal> entry : demand.getMaterials().entrySet()) {
+            BigDecimal quantity = available.get(entry.getKey());
+            if (quantity == null || quantity.compareTo(entry.getValue()) < 0) {
+                logger.error("门店ID: {} 的原料ID: {} 库存不足，所需数量: {}, 当前库存: {}",
+                        storeId, entry.getKey(), entry.getValue(), quantity);
+                throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
+                        "原料ID: " + entry.getKey() + " 库存不足");
+            }
+        }
+    }
+
+    private void checkProducts(Long storeId, MaterialDemand demand) {
+        if (demand.getProducts().isEmpty()) {
+            return;
+        }
+
+        // 只看下单门店的库存，其他门店的库存不能用于本单
+        Map<Long, BigDecimal> available = new HashMap<>();
+        for (Inventory inventory : inventoryRepository
+                .findByStoreIdAndProductIdIn(storeId, demand.getProducts().keySet())) {
+            available.put(inventory.getProductId(), inventory.getQuantity());
+        }
+        checkAvailable(storeId, demand.getProducts(), available);
+    }
+
+    private void checkAvailable(Long storeId, Map<Long, BigDecimal> products, Map<Long, BigDecimal> available) {
+        for (Map.Entry<Long, BigDecimal> entry : products.entrySet()) {
+            BigDecimal quantity = available.get(entry.getKey());
+            if (quantity == null || quantity.compareTo(entry.getValue()) < 0) {
+                logger.error("门店ID: {} 的商品ID: {} 库存不足，请求数量: {}", storeId, entry.getKey(), entry.getValue());
+                throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY,
+                        "商品ID: " + entry.getKey() + " 库存不足");
+            }
+        }
+    }
+
+    // 批量校验中单个订单的结果
+    public static class ValidatedOrder {
+        private final Order order;
+        private MaterialDemand demand;
+        private BizException error;
+
+        ValidatedOrder(Order order) {
+            this.order = order;
+        }
+
+        public ValidatedOrder(Order order, MaterialDemand demand) {
+            this.order = order;
+            this.demand = demand;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public MaterialDemand getDemand() {
+            return demand;
+        }
+
+        public BizException getError() {
+            return error;
+        }
+
+        public void setError(BizException error) {
+            this.error = error;
+        }
+
+        public boolean isValid() {
+            return error == null && demand != null;
+        }
+    }
+
+    // 订单需求汇总，按ID排序以保证后续加锁和扣减顺序一致
+    public static class MaterialDemand {
+        private final Map<Long, BigDecimal> materials = new TreeMap<>(); // 原料ID -> 所需数量
+        private final Map<Long, BigDecimal> products = new TreeMap<>(); // 无BOM商品ID -> 所需数量
+
+        public Map<Long, BigDecimal> getMaterials() {
+            return materials;
+        }
+
+        public Map<Long, BigDecimal> getProducts() {
+            return products;
+        }
+
+        public boolean isEmpty() {
+            return materials.isEmpty() && products.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.solocoffee.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.OutboxEvent;
+import com.solocoffee.backend.event.OutboxMessage;
+import com.solocoffee.backend.event.OutboxPublisher;
+import com.solocoffee.backend.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事务发件箱服务
+ * 领域事件与业务数据在同一事务中写入 outbox_events 表，再由 {@link com.solocoffee.backend.event.OutboxRelay}
+ * 按写入顺序分批交给 {@link OutboxPublisher}。发布成功后才标记为已投递，因此是至少一次投递；
+ * 发布失败的事件按指数退避重试。同一聚合的某条事件发布失败后，在它投递成功前该聚合后续的事件都不再发布
+ * （超过最大重试次数的需人工处理后才放行），保证同一订单的事件按顺序到达。
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    // 发件箱事件状态
+    public static final int STATUS_PENDING = 0; // 待投递
+    public static final int STATUS_PUBLISHED = 1; // 已投递
+    public static final int STATUS_FAILED = 2; // 超过最大重试次数，需人工处理
+
+    public static final String AGGREGATE_ORDER = "order";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 单条事件的最大发布次数
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    // 第一次失败后的重试间隔（毫秒），之后每次失败翻倍
+    @Value("${outbox.relay.backoff-ms:1000}")
+    private long backoffMs = 1000;
+
+    // 重试间隔上限（毫秒）
+    @Value("${outbox.relay.max-backoff-ms:300000}")
+    private long maxBackoffMs = 300000;
+
+    private Counter publishedCounter;
+    private Counter failureCounter;
+    private Timer deliveryTimer;
+
+    // 最近一次统计的待投递数量和最早待投递事件的积压时长（毫秒），供监控采集
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+
+    @PostConstruct
+    public void initMetrics() {
+        publishedCounter = Counter.builder("outbox.published")
+                .description("发件箱已投递事件数")
+                .register(meterRegistry);
+        failureCounter = Counter.builder("outbox.publish.failures")
+                .description("发件箱发布失败次数")
+                .register(meterRegistry);
+        deliveryTimer = Timer.builder("outbox.delivery.latency")
+                .description("事件从写入发件箱到投递成功的耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pendingCount, AtomicLong::get)
+                .description("待投递事件数")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", oldestPendingAgeMs, value -> value.get() / 1000.0)
+                .description("最早待投递事件的积压时长（秒）")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在当前事务中写入一条事件，必须在业务数据变更所在的事务中调用
+     * @param aggregateType 聚合类型
+     * @param aggregateId 聚合ID
+     * @param eventType 事件类型
+     * @param payload 事件内容，序列化为JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent append(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new BizException(ErrorCode.SYSTEM_ERROR, "事件序列化失败: " + e.getMessage());
+        }
+        return outboxEventRepository.save(event);
+    }
+
+    /**
+     * 投递一批待投递事件
+     * @param batchSize 每批最多读取的事件数
+     * @return 本批投递成功的事件数
+     */
+    @Transactional
+    public int relayBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.findBatchToRelay(STATUS_PENDING, STATUS_FAILED, now,
+                PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> blocked = new HashSet<>();
+        int published = 0;
+        for (OutboxEvent event : batch) {
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blocked.contains(aggregate)) {
+                continue;
+            }
+            try {
+                outboxPublisher.publish(OutboxMessage.of(event));
+                event.setStatus(STATUS_PUBLISHED);
+                event.setPublishedAt(now);
+                event.setLastError(null);
+                event.setNextAttemptAt(null);
+                published++;
+                publishedCounter.increment();
+                deliveryTimer.record(Duration.between(event.getCreatedAt(), now));
+            } catch (Exception e) {
+                blocked.add(aggregate);
+                failureCounter.increment();
+                recordFailure(event, e, now);
+            }
+        }
+        logger.debug("发件箱投递完成，读取: {}, 成功: {}", batch.size(), published);
+        return published;
+    }
+
+    // 刷新待投递数量和积压时长
+    @Transactional(readOnly = true)
+    public void refreshBacklog() {
+        pendingCount.set(outboxEventRepository.countByStatus(STATUS_PENDING));
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAtByStatus(STATUS_PENDING);
+        oldestPendingAgeMs.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+
+    /**
+     * 删除已投递且早于指定时间的事件
+     * @return 删除数量
+     */
+    @Transactional
+    public int purgePublished(LocalDateTime before) {
+        return outboxEventRepository.deleteByStatusAndPublishedAtBefore(STATUS_PUBLISHED, before);
+    }
+
+    private void recordFailure(OutboxEvent event, Exception e, LocalDateTime now) {
+        event.setAttempts(event.getAttempts() + 1);
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(STATUS_FAILED);
+            logger.error("发件箱事件ID: {} ({}:{}) 发布失败{}次，不再重试: {}", event.getId(), event.getAggregateType(),
+                    event.getAggregateId(), event.getAttempts(), error);
+        } else {
+            long delayMs = backoffDelayMs(event.getAttempts());
+            event.setNextAttemptAt(now.plus(Duration.ofMillis(delayMs)));
+            logger.warn("发件箱事件ID: {} ({}:{}) 发布失败，第{}次，{}毫秒后重试: {}", event.getId(),
+                    event.getAggregateType(), event.getAggregateId(), event.getAttempts(), delayMs, error);
+        }
+    }
+
+    // 第n次失败后等待 backoffMs * 2^(n-1)，不超过上限
+    long backoffDelayMs(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(maxBackoffMs, backoffMs << shift);
+    }
+}
@@ -1,5 +1,8 @@
 package com.solocoffee.backend.service;
 
+import com.solocoffee.backend.common.Money;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,16 +26,34 @@ public class PredictionService {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+    
     // 模拟预测订单存储
     private Map<Long, PredictedOrder> predictedOrders = new HashMap<>();
     private AtomicLong predictionIdGenerator = new AtomicLong(1);
     
+    @PostConstruct
+    public void initMetrics() {
+        serviceMetrics.gauge("prediction.predicted.orders", "内存中的预测订单数", predictedOrders, Map::size);
+    }
+    
     /**
      * 生成订单预测
      * @param customerId 客户ID
      * @return 预测订单
      */
     public Map<String, Object> predictOrder(Long customerId) {
+        Timer.Sample sample = serviceMetrics.start();
+        Map<String, Object> predictionResult = doPredictOrder(customerId);
+        // 预测失败时结果中带 error，门店取预测结果中的门店
+        serviceMetrics.stop(sample, "prediction.predict",
+                predictionResult.containsKey("error") ? ServiceMetrics.ERROR : ServiceMetrics.SUCCESS,
+                "store", ServiceMetrics.store((Long) predictionResult.get("storeId")));
+        return predictionResult;
+    }
+    
+    private Map<String, Object> doPredictOrder(Long customerId) {
         logger.debug("生成订单预测，客户ID: {}", customerId);
         
         Map<String, Object> predictionResult = new HashMap<>();
@@ -236,7 +257,7 @@ public class PredictionService {
         
         // 转换商品项
         List<com.solocoffee.backend.entity.OrderItem> orderItems = new ArrayList<>();
-        java.math.BigDecimal totalAmount = java.math.BigDecimal.ZERO;
+        Money totalAmount = Money.ZERO;
         
         for (Map<String, Object> predictedItem : predictedOrder.getItems()) {
             com.solocoffee.backend.entity.OrderItem orderItem = new com.solocoffee.backend.entity.OrderItem();
@@ -244,16 +265,17 @@ public class PredictionService {
             orderItem.setProductId(Long.valueOf(predictedItem.get("productId").toString()));
             orderItem.setProductName((String) predictedItem.get("productName"));
             orderItem.setQuantity((Integer) predictedItem.get("quantity"));
-            orderItem.setPrice(java.math.BigDecimal.valueOf((Double) predictedItem.get("price")));
-            java.math.BigDecimal subtotal = java.math.BigDecimal.valueOf((Double) predictedItem.get("price") * (Integer) predictedItem.get("quantity"));
-            orderItem.setSubtotal(subtotal);
-            totalAmount = totalAmount.add(subtotal);
+            Money price = Money.of((Double) predictedItem.get("price"));
+            Money subtotal = price.times((Integer) predictedItem.get("quantity"));
+            orderItem.setPrice(price.toBigDecimal());
+            orderItem.setSubtotal(subtotal.toBigDecimal());
+            totalAmount = totalAmount.plus(subtotal);
             orderItems.add(orderItem);
         }
         
         actualOrder.setOrderItems(orderItems);
-        actualOrder.setTotalAmount(totalAmount);
-        actualOrder.setActualAmount(totalAmount);
+        actualOrder.setTotalAmount(totalAmount.toBigDecimal());
+        actualOrder.setActualAmount(totalAmount.toBigDecimal());
         
         return actualOrder;
     }
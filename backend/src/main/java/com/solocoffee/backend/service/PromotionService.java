@@ -1,5 +1,6 @@
 package com.solocoffee.backend.service;
 
+import com.solocoffee.backend.common.Money;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -101,23 +102,25 @@ public class PromotionService {
     public Map<String, Object> calculatePromotionDiscount(java.math.BigDecimal orderTotal, List<Long> productIds, Long customerId) {
         Map<String, Object> result = new HashMap<>();
         
+        // 以分为单位计算，只在返回时转换为 BigDecimal
+        Money total = Money.of(orderTotal);
         List<Promotion> validPromotions = getValidPromotions();
-        java.math.BigDecimal totalDiscount = java.math.BigDecimal.ZERO;
+        Money totalDiscount = Money.ZERO;
         List<Promotion> appliedPromotions = new ArrayList<>();
         
         for (Promotion promotion : validPromotions) {
             // 检查促销活动是否适用
-            if (isPromotionApplicable(promotion, orderTotal, productIds, customerId)) {
+            if (isPromotionApplicable(promotion, total, productIds, customerId)) {
                 // 计算折扣
-                java.math.BigDecimal discount = calculateDiscount(promotion, orderTotal, productIds);
-                totalDiscount = totalDiscount.add(discount);
+                Money discount = calculateDiscount(promotion, total, productIds);
+                totalDiscount = totalDiscount.plus(discount);
                 appliedPromotions.add(promotion);
             }
         }
         
-        result.put("totalDiscount", totalDiscount);
+        result.put("totalDiscount", totalDiscount.toBigDecimal());
         result.put("appliedPromotions", appliedPromotions);
-        result.put("finalAmount", orderTotal.subtract(totalDiscount));
+        result.put("finalAmount", total.minus(totalDiscount).toBigDecimal());
         
         return result;
     }
@@ -130,15 +133,15 @@ public class PromotionService {
      * @param customerId 客户ID
      * @return 是否适用
      */
-    private boolean isPromotionApplicable(Promotion promotion, java.math.BigDecimal orderTotal, List<Long> productIds, Long customerId) {
+    private boolean isPromotionApplicable(Promotion promotion, Money orderTotal, List<Long> productIds, Long customerId) {
         // 检查促销类型
         switch (promotion.getType()) {
             case "discount":
                 // 折扣促销，检查最低消费
-                return orderTotal.compareTo(promotion.getMinSpend()) >= 0;
+                return orderTotal.isGreaterThanOrEqual(Money.of(promotion.getMinSpend()));
             case "full_reduction":
                 // 满减促销，检查最低消费
-                return orderTotal.compareTo(promotion.getMinSpend()) >= 0;
+                return orderTotal.isGreaterThanOrEqual(Money.of(promotion.getMinSpend()));
             case "buy_one_get_one":
                 // 买一送一，检查是否包含指定商品
                 return productIds.contains(promotion.getProductId());
@@ -157,23 +160,27 @@ public class PromotionService {
      * @param productIds 订单商品ID列表
      * @return 折扣金额
      */
-    private java.math.BigDecimal calculateDiscount(Promotion promotion, java.math.BigDecimal orderTotal, List<Long> productIds) {
+    private Money calculateDiscount(Promotion promotion, Money orderTotal, List<Long> productIds) {
         switch (promotion.getType()) {
             case "discount":
                 // 折扣促销
-                return orderTotal.multiply(java.math.BigDecimal.valueOf(1 - promotion.getDiscount() / 100));
+                return orderTotal.percent(100 - promotion.getDiscount());
             case "full_reduction":
                 // 满减促销
-                int times = orderTotal.divide(promotion.getMinSpend(), 0, java.math.RoundingMode.DOWN).intValue();
-                return promotion.getReductionAmount().multiply(java.math.BigDecimal.valueOf(times));
+                Money minSpend = Money.of(promotion.getMinSpend());
+                if (minSpend.isZero()) {
+                    return Money.ZERO;
+                }
+                long times = orderTotal.divideToIntegral(minSpend);
+                return Money.of(promotion.getReductionAmount()).times(times);
             case "buy_one_get_one":
                 // 买一送一，假设送相同商品
-                return java.math.BigDecimal.ZERO; // 实际应该计算赠品价值
+                return Money.ZERO; // 实际应该计算赠品价值
             case "member_exclusive":
                 // 会员专享折扣
-                return orderTotal.multiply(java.math.BigDecimal.valueOf(1 - promotion.getDiscount() / 100));
+                return orderTotal.percent(100 - promotion.getDiscount());
             default:
-                return java.math.BigDecimal.ZERO;
+                return Money.ZERO;
         }
     }
     
@@ -2,17 +2,24 @@ package com.solocoffee.backend.service;
 
 import com.solocoffee.backend.entity.RawMaterialInventory;
 import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class RawMaterialInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawMaterialInventoryService.class);
+
     @Autowired
     private RawMaterialInventoryRepository inventoryRepository;
 
@@ -92,20 +99,32 @@ public class RawMaterialInventoryService {
     // 扣减原料库存
     @Transactional
     public boolean deductRawMaterialInventory(Long storeId, Long materialId, BigDecimal quantity) {
-        Optional<RawMaterialInventory> optionalInventory = inventoryRepository.findByStoreIdAndMaterialId(storeId, materialId);
-        if (optionalInventory.isPresent()) {
-            RawMaterialInventory inventory = optionalInventory.get();
-            if (inventory.getQuantity().compareTo(quantity) >= 0) {
-                inventory.setQuantity(inventory.getQuantity().subtract(quantity));
-                inventoryRepository.save(inventory);
-                
-                // 检查是否需要自动补货
-                checkAndReorder(inventory);
-                
-                return true;
-            }
+        return deductRawMaterials(storeId, Map.of(materialId, quantity)).isEmpty();
+    }
+
+    /**
+     * 批量扣减原料库存
+     * 每种原料执行一条带条件的UPDATE（quantity >= 扣减数量），整单一次批处理提交，无需先查询再保存
+     * @param storeId 门店ID
+     * @param quantities 原料ID -> 扣减数量
+     * @return 库存不足、未能扣减的原料ID，全部成功时为空
+     */
+    @Transactional
+    public List<Long> deductRawMaterials(Long storeId, Map<Long, BigDecimal> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return new ArrayList<>();
         }
-        return false;
+        List<Long> failedMaterialIds = inventoryRepository.deductIfSufficient(storeId, quantities);
+
+        // 检查是否需要自动补货
+        List<Long> deductedMaterialIds = new ArrayList<>(quantities.keySet());
+        deductedMaterialIds.removeAll(failedMaterialIds);
+        int reordered = inventoryRepository.reorderBelow(storeId, deductedMaterialIds,
+                BigDecimal.valueOf(REORDER_THRESHOLD + 1), BigDecimal.valueOf(REORDER_QUANTITY));
+        if (reordered > 0) {
+            logger.info("自动补货：门店ID：{}，补货原料数：{}", storeId, reordered);
+        }
+        return failedMaterialIds;
     }
 
     // 检查原料库存是否充足
@@ -136,7 +155,8 @@ public class RawMaterialInventoryService {
                 reorderedInventory.add(inventory);
                 
                 // 这里可以添加补货记录或通知逻辑
-                System.out.println("自动补货：原料ID " + inventory.getMaterialId() + "，门店ID：" + inventory.getStoreId() + "，补货数量：" + reorderAmount);
+                logger.info("自动补货：原料ID {}，门店ID：{}，补货数量：{}", inventory.getMaterialId(), inventory.getStoreId(),
+                        reorderAmount);
             }
         }
         
@@ -161,15 +181,16 @@ public class RawMaterialInventoryService {
     // 增加原料库存（用于退款等场景）
     @Transactional
     public boolean addRawMaterialInventory(Long storeId, Long materialId, BigDecimal quantity) {
-        Optional<RawMaterialInventory> optionalInventory = inventoryRepository.findByStoreIdAndMaterialId(storeId, materialId);
-        if (optionalInventory.isPresent()) {
-            RawMaterialInventory inventory = optionalInventory.get();
-            // 增加原料库存
-            inventory.setQuantity(inventory.getQuantity().add(quantity));
-            inventoryRepository.save(inventory);
-            return true;
+        return addRawMaterials(storeId, Map.of(materialId, quantity)).isEmpty();
+    }
+
+    // 批量增加原料库存，返回不存在库存记录的原料ID
+    @Transactional
+    public List<Long> addRawMaterials(Long storeId, Map<Long, BigDecimal> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return new ArrayList<>();
         }
-        return false;
+        return inventoryRepository.addQuantities(storeId, quantities);
     }
 
     // 获取低于预警阈值的原料库存
@@ -13,6 +13,8 @@ public class RecommendationService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
 
+    private static final String RECOMMENDATION_TIMER = "recommendation.generate";
+
     @Autowired
     private OrderService orderService;
 
@@ -22,6 +24,9 @@ public class RecommendationService {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private ServiceMetrics serviceMetrics;
+
     /**
      * 获取个性化商品推荐
      * 
@@ -30,6 +35,11 @@ public class RecommendationService {
      * @return 推荐商品列表
      */
     public List<Map<String, Object>> getPersonalizedRecommendations(Long customerId, int limit) {
+        return serviceMetrics.record(RECOMMENDATION_TIMER, () -> buildPersonalizedRecommendations(customerId, limit),
+                "type", "personalized");
+    }
+
+    private List<Map<String, Object>> buildPersonalizedRecommendations(Long customerId, int limit) {
         logger.debug("获取个性化推荐，客户ID: {}, 推荐数量: {}", customerId, limit);
 
         List<Map<String, Object>> recommendations = new ArrayList<>();
@@ -93,6 +103,11 @@ public class RecommendationService {
      * @return 复购建议列表
      */
     public List<Map<String, Object>> getQuickReorderSuggestions(Long customerId, int limit) {
+        return serviceMetrics.record(RECOMMENDATION_TIMER, () -> buildQuickReorderSuggestions(customerId, limit),
+                "type", "quick_reorder");
+    }
+
+    private List<Map<String, Object>> buildQuickReorderSuggestions(Long customerId, int limit) {
         logger.debug("获取快速复购建议，客户ID: {}, 建议数量: {}", customerId, limit);
 
         List<Map<String, Object>> suggestions = new ArrayList<>();
@@ -1,20 +1,42 @@
 package com.solocoffee.backend.service;
 
-import com.solocoffee.backend.repository.CustomerRepository;
-import com.solocoffee.backend.repository.InventoryRepository;
+import com.solocoffee.backend.dto.ProductSales;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.repository.OrderArchiveRepository;
 import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.repository.ProductSalesRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Service
 public class ReportService {
 
+    private static final String REPORT_TIMER = "report.generate";
+
+    private static final List<String> TREND_INTERVALS = List.of("day", "week", "month");
+
+    private static final int DEFAULT_TOP_PRODUCTS = 10;
+
+    // 热销商品按销售额、销量降序，相同时按商品ID
+    private static final Comparator<ProductSales> TOP_PRODUCT_ORDER = Comparator
+            .comparing(ProductSales::getRevenue).reversed()
+            .thenComparing(Comparator.comparingLong(ProductSales::getQuantity).reversed())
+            .thenComparing(ProductSales::getProductId);
+
+    // 销售报表分组按门店ID、订单状态升序排列，未参与分组的键为 null
+    private static final Comparator<SalesTotals> SALES_GROUP_ORDER = Comparator
+            .comparing(SalesTotals::getStoreId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .thenComparing(SalesTotals::getOrderStatus, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+
     @Autowired
     private OrderService orderService;
 
@@ -31,49 +53,64 @@ public class ReportService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private OrderArchiveService orderArchiveService;
 
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private ServiceMetrics serviceMetrics;
 
-    /**
-     * 生成仪表盘概览数据
-     * 
-     * @return 概览数据
-     */
-    public Map<String, Object> generateOverviewReport() {
-        Map<String, Object> report = new HashMap<>();
+    @Autowired
+    private SalesRollupService salesRollupService;
 
-        java.time.LocalDateTime startOfToday = java.time.LocalDate.now().atStartOfDay();
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
 
-        // 1. 今日销售额 (仅统计已完成订单)
-        java.util.List<com.solocoffee.backend.entity.Order> todayOrders = orderRepository
-                .findByCreatedAtAfter(startOfToday);
-        java.math.BigDecimal todaySales = todayOrders.stream()
-                .filter(o -> o.getOrderStatus() == 3) // 已完成
-                .map(com.solocoffee.backend.entity.Order::getActualAmount)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+    @Autowired
+    private ProductSalesRepository productSalesRepository;
 
-        // 2. 今日订单数
-        long todayOrderCount = todayOrders.size();
+    // 门店ID -> 订单状态 -> 进入该状态的订单数（自启动以来，由订单事件异步累加）
+    private final Map<Long, Map<Integer, LongAdder>> statusCounters = new ConcurrentHashMap<>();
 
-        // 3. 库存预警数
-        long lowStockCount = inventoryRepository.countLowStock();
+    /**
+     * 记录订单状态变更
+     * @param storeId 门店ID
+     * @param status 新状态
+     */
+    public void recordStatusChange(Long storeId, Integer status) {
+        statusCounters.computeIfAbsent(storeId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, k -> new LongAdder())
+                .increment();
+    }
 
-        // 4. 会员总数
-        long totalCustomers = customerRepository.count();
+    /**
+     * 获取门店各状态的订单计数
+     * @param storeId 门店ID
+     * @return 订单状态 -> 订单数
+     */
+    public Map<Integer, Long> getStatusCounters(Long storeId) {
+        Map<Integer, Long> counters = new HashMap<>();
+        statusCounters.getOrDefault(storeId, Map.of())
+                .forEach((status, counter) -> counters.put(status, counter.sum()));
+        return counters;
+    }
 
-        // 5. 较昨日的增长率 (模拟逻辑，实际需对比昨日数据)
-        report.put("todaySales", todaySales);
-        report.put("salesGrowth", 12.5); // 模拟增长率
-        report.put("todayOrderCount", todayOrderCount);
-        report.put("orderGrowth", 8.3); // 模拟增长率
-        report.put("lowStockCount", lowStockCount);
-        report.put("inventoryGrowth", -2); // 模拟
-        report.put("totalCustomers", totalCustomers);
-        report.put("customerGrowth", 2.1); // 模拟
+    /**
+     * 生成仪表盘概览数据
+     * 
+     * @return 概览数据
+     */
+    public Map<String, Object> generateOverviewReport() {
+        return generateOverviewReport(null);
+    }
 
-        return report;
+    /**
+     * 生成仪表盘概览数据，只读取内存计数器，可以高频刷新
+     *
+     * @param storeId 门店ID，为 null 时汇总所有门店
+     * @return 概览数据
+     */
+    public Map<String, Object> generateOverviewReport(Long storeId) {
+        return serviceMetrics.record(REPORT_TIMER, () -> dashboardCounterService.getOverview(storeId),
+                "report", "overview");
     }
 
     /**
@@ -84,29 +121,53 @@ public class ReportService {
      * @return 销售报表数据
      */
     public Map<String, Object> generateSalesReport(java.util.Date startDate, java.util.Date endDate) {
+        return generateSalesReport(startDate, endDate, false, false);
+    }
+
+    /**
+     * 生成销售报表，可按门店和/或订单状态分组
+     * 合计在数据库中按 created_at 索引聚合，报表大小只与分组数有关
+     *
+     * @param startDate 开始日期
+     * @param endDate   结束日期
+     * @param byStore   按门店分组
+     * @param byStatus  按订单状态分组
+     * @return 销售报表数据，分组时 groups 为各分组的合计
+     */
+    public Map<String, Object> generateSalesReport(java.util.Date startDate, java.util.Date endDate,
+            boolean byStore, boolean byStatus) {
+        return serviceMetrics.record(REPORT_TIMER, () -> buildSalesReport(startDate, endDate, byStore, byStatus),
+                "report", "sales");
+    }
+
+    private Map<String, Object> buildSalesReport(java.util.Date startDate, java.util.Date endDate,
+            boolean byStore, boolean byStatus) {
         Map<String, Object> report = new HashMap<>();
 
-        // 使用真实数据
         java.time.LocalDateTime start = startDate.toInstant().atZone(java.time.ZoneId.systemDefault())
                 .toLocalDateTime();
         java.time.LocalDateTime end = endDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime();
 
-        // 实际开发中应使用 repository 的专门方法查询
-        List<com.solocoffee.backend.entity.Order> orders = orderRepository.findAll().stream()
-                .filter(o -> !o.getCreatedAt().isBefore(start) && !o.getCreatedAt().isAfter(end))
-                .collect(Collectors.toList());
-
-        double totalSales = orders.stream()
-                .mapToDouble(o -> o.getActualAmount().doubleValue())
-                .sum();
-        int orderCount = orders.size();
-        double averageOrderValue = orderCount > 0 ? totalSales / orderCount : 0;
+        // 在线订单和已归档月份按相同的分组键合并
+        Map<List<Object>, SalesTotals> groups = new HashMap<>();
+        List<SalesTotals> rows = new ArrayList<>(orderRepository.aggregateSales(start, end, byStore, byStatus));
+        rows.addAll(orderArchiveService.aggregateSales(start, end, byStore, byStatus));
+        SalesTotals total = new SalesTotals();
+        for (SalesTotals row : rows) {
+            groups.merge(java.util.Arrays.asList(row.getStoreId(), row.getOrderStatus()), row, SalesTotals::plus);
+            total = total.plus(row);
+        }
 
-        report.put("totalSales", totalSales);
-        report.put("orderCount", orderCount);
-        report.put("averageOrderValue", averageOrderValue);
+        report.put("totalSales", total.getAmount().doubleValue());
+        report.put("orderCount", total.getOrderCount());
+        report.put("averageOrderValue", total.getAverage().doubleValue());
         report.put("startDate", startDate);
         report.put("endDate", endDate);
+        if (byStore || byStatus) {
+            List<SalesTotals> sorted = new ArrayList<>(groups.values());
+            sorted.sort(SALES_GROUP_ORDER);
+            report.put("groups", sorted);
+        }
 
         return report;
     }
@@ -119,37 +180,66 @@ public class ReportService {
      * @return 产品销售报表数据
      */
     public Map<String, Object> generateProductSalesReport(java.util.Date startDate, java.util.Date endDate) {
+        return generateProductSalesReport(startDate, endDate, null, null, DEFAULT_TOP_PRODUCTS);
+    }
+
+    /**
+     * 生成热销商品报表
+     * 已完成订单的商品行在数据库中按商品聚合，逐行读取后合并在线和归档数据，内存只与商品数有关
+     *
+     * @param startDate  开始日期
+     * @param endDate    结束日期（当天整天计入）
+     * @param storeId    门店ID，为 null 时统计所有门店
+     * @param categoryId 商品分类ID，为 null 时不过滤
+     * @param limit      返回的商品数
+     * @return 按销售额降序的商品销售数据
+     */
+    public Map<String, Object> generateProductSalesReport(java.util.Date startDate, java.util.Date endDate,
+            Long storeId, Long categoryId, int limit) {
+        return serviceMetrics.record(REPORT_TIMER,
+                () -> buildProductSalesReport(startDate, endDate, storeId, categoryId, limit),
+                "report", "product_sales");
+    }
+
+    private Map<String, Object> buildProductSalesReport(java.util.Date startDate, java.util.Date endDate,
+            Long storeId, Long categoryId, int limit) {
         Map<String, Object> report = new HashMap<>();
 
-        // 模拟产品销售数据
-        List<Map<String, Object>> productSalesData = new ArrayList<>();
+        java.time.LocalDateTime start = startDate.toInstant().atZone(java.time.ZoneId.systemDefault())
+                .toLocalDate().atStartOfDay();
+        java.time.LocalDateTime end = endDate.toInstant().atZone(java.time.ZoneId.systemDefault())
+                .toLocalDate().plusDays(1).atStartOfDay();
+
+        Map<Long, ProductSales> byProduct = new HashMap<>();
+        java.util.function.Consumer<ProductSales> merge = row -> byProduct.merge(row.getProductId(), row,
+                ProductSales::plus);
+        productSalesRepository.aggregate("orders", "order_items", OrderStateMachine.COMPLETED, start, end, storeId,
+                categoryId, merge);
+        for (java.time.YearMonth month : orderArchiveService.getPartitions(start, end)) {
+            productSalesRepository.aggregate(OrderArchiveRepository.ordersTable(month),
+                    OrderArchiveRepository.itemsTable(month), OrderStateMachine.COMPLETED, start, end, storeId,
+                    categoryId, merge);
+        }
 
-        // 添加模拟数据
-        Map<String, Object> product1 = new HashMap<>();
-        product1.put("product_id", 1);
-        product1.put("product_name", "Americano");
-        product1.put("sales", 3500.00);
-        product1.put("quantity", 350);
-        product1.put("average_price", 10.00);
-        productSalesData.add(product1);
-
-        Map<String, Object> product2 = new HashMap<>();
-        product2.put("product_id", 2);
-        product2.put("product_name", "Latte");
-        product2.put("sales", 4200.00);
-        product2.put("quantity", 350);
-        product2.put("average_price", 12.00);
-        productSalesData.add(product2);
-
-        Map<String, Object> product3 = new HashMap<>();
-        product3.put("product_id", 3);
-        product3.put("product_name", "Cappuccino");
-        product3.put("sales", 2800.00);
-        product3.put("quantity", 200);
-        product3.put("average_price", 14.00);
-        productSalesData.add(product3);
+        List<Map<String, Object>> productSalesData = byProduct.values().stream()
+                .sorted(TOP_PRODUCT_ORDER)
+                .limit(Math.max(limit, 0))
+                .map(sales -> {
+                    Map<String, Object> product = new HashMap<>();
+                    product.put("product_id", sales.getProductId());
+                    product.put("product_name", sales.getProductName());
+                    product.put("sales", sales.getRevenue().doubleValue());
+                    product.put("quantity", sales.getQuantity());
+                    product.put("average_price", sales.getAveragePrice().doubleValue());
+                    product.put("order_count", sales.getOrderCount());
+                    return product;
+                })
+                .collect(Collectors.toList());
 
         report.put("popularProducts", productSalesData);
+        report.put("productCount", byProduct.size());
+        report.put("storeId", storeId);
+        report.put("categoryId", categoryId);
         report.put("startDate", startDate);
         report.put("endDate", endDate);
 
@@ -164,6 +254,10 @@ public class ReportService {
      * @return 客户报表数据
      */
     public Map<String, Object> generateCustomerReport(java.util.Date startDate, java.util.Date endDate) {
+        return serviceMetrics.record(REPORT_TIMER, () -> buildCustomerReport(startDate, endDate), "report", "customer");
+    }
+
+    private Map<String, Object> buildCustomerReport(java.util.Date startDate, java.util.Date endDate) {
         Map<String, Object> report = new HashMap<>();
 
         // 模拟客户数据
@@ -209,6 +303,10 @@ public class ReportService {
      * @return 库存报表数据
      */
     public Map<String, Object> generateInventoryReport() {
+        return serviceMetrics.record(REPORT_TIMER, this::buildInventoryReport, "report", "inventory");
+    }
+
+    private Map<String, Object> buildInventoryReport() {
         Map<String, Object> report = new HashMap<>();
 
         // 模拟库存数据
@@ -266,50 +364,38 @@ public class ReportService {
      */
     public Map<String, Object> generateSalesTrendReport(java.util.Date startDate, java.util.Date endDate,
             String interval) {
-        Map<String, Object> report = new HashMap<>();
+        return serviceMetrics.record(REPORT_TIMER, () -> buildSalesTrendReport(startDate, endDate, interval),
+                "report", "sales_trend");
+    }
 
-        // 模拟销售趋势数据
-        List<Map<String, Object>> trendData = new ArrayList<>();
+    private Map<String, Object> buildSalesTrendReport(java.util.Date startDate, java.util.Date endDate,
+            String interval) {
+        Map<String, Object> report = new HashMap<>();
 
-        // 添加模拟数据
-        if ("day".equals(interval)) {
-            Map<String, Object> day1 = new HashMap<>();
-            day1.put("period", "2024-01-01");
-            day1.put("sales", 12500.00);
-            day1.put("orders", 125);
-            trendData.add(day1);
-
-            Map<String, Object> day2 = new HashMap<>();
-            day2.put("period", "2024-01-02");
-            day2.put("sales", 13200.00);
-            day2.put("orders", 132);
-            trendData.add(day2);
-        } else if ("week".equals(interval)) {
-            Map<String, Object> week1 = new HashMap<>();
-            week1.put("period", "2024-W01");
-            week1.put("sales", 85000.00);
-            week1.put("orders", 850);
-            trendData.add(week1);
-
-            Map<String, Object> week2 = new HashMap<>();
-            week2.put("period", "2024-W02");
-            week2.put("sales", 92000.00);
-            week2.put("orders", 920);
-            trendData.add(week2);
-        } else if ("month".equals(interval)) {
-            Map<String, Object> month1 = new HashMap<>();
-            month1.put("period", "2024-01");
-            month1.put("sales", 380000.00);
-            month1.put("orders", 3800);
-            trendData.add(month1);
-
-            Map<String, Object> month2 = new HashMap<>();
-            month2.put("period", "2024-02");
-            month2.put("sales", 420000.00);
-            month2.put("orders", 4200);
-            trendData.add(month2);
+        // 从小时汇总表按天读取，再按周/月合并；结束日期当天整天计入
+        java.time.LocalDate firstDay = startDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+        java.time.LocalDate lastDay = endDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+        Map<java.time.LocalDate, SalesTotals> daily = salesRollupService.getDailyTotals(firstDay.atStartOfDay(),
+                lastDay.plusDays(1).atStartOfDay());
+
+        // 范围内的每个周期都输出，没有销售的周期为0
+        Map<String, SalesTotals> periods = new java.util.LinkedHashMap<>();
+        if (TREND_INTERVALS.contains(interval)) {
+            for (java.time.LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                SalesTotals totals = daily.getOrDefault(day, new SalesTotals());
+                periods.merge(trendPeriod(day, interval), totals, SalesTotals::plus);
+            }
         }
 
+        List<Map<String, Object>> trendData = new ArrayList<>();
+        periods.forEach((period, totals) -> {
+            Map<String, Object> point = new HashMap<>();
+            point.put("period", period);
+            point.put("sales", totals.getAmount().doubleValue());
+            point.put("orders", totals.getOrderCount());
+            trendData.add(point);
+        });
+
         // 添加测试期望的字段
         List<String> labels = trendData.stream().map(d -> (String) d.get("period")).collect(Collectors.toList());
         List<Double> salesData = trendData.stream().map(d -> (Double) d.get("sales")).collect(Collectors.toList());
@@ -332,4 +418,17 @@ public class ReportService {
 
         return report;
     }
-}
\ No newline at end of file
+
+    // 趋势周期标签：day 2024-01-01，week 2024-W01（ISO 周），month 2024-01
+    private static String trendPeriod(java.time.LocalDate day, String interval) {
+        switch (interval) {
+            case "week":
+                return String.format("%d-W%02d", day.get(java.time.temporal.IsoFields.WEEK_BASED_YEAR),
+                        day.get(java.time.temporal.IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case "month":
+                return java.time.YearMonth.from(day).toString();
+            default:
+                return day.toString();
+        }
+    }
+}
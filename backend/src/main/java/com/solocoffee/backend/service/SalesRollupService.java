@@ -0,0 +1,205 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.SalesRollupHourly;
+import com.solocoffee.backend.repository.OrderArchiveRepository;
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.repository.SalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 小时销售汇总
+ * 订单进入已完成时按下单时间所在小时累加一次，进入已退款时冲减（与退款恢复库存一致，按已完成订单处理），
+ * 与订单状态变更在同一事务中完成。历史数据由补建任务从在线表和归档表重新聚合；
+ * 每天定时重建最近几天，修正未经过已完成就退款的订单等增量无法准确处理的情况。
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    @Autowired
+    private SalesRollupRepository rollupRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Value("${rollup.reconcile-days:2}")
+    private int reconcileDays = 2;
+
+    /**
+     * 订单完成时累加
+     * @param order 订单，商品行已加载
+     */
+    @Transactional
+    public void recordCompleted(Order order) {
+        rollupRepository.add(deltas(order, 1));
+    }
+
+    /**
+     * 订单退款时冲减
+     */
+    @Transactional
+    public void recordRefunded(Order order) {
+        rollupRepository.add(deltas(order, -1));
+    }
+
+    /**
+     * 按天汇总所有门店的实付金额和订单数
+     * @param start 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return 日期 -> 合计，没有销售的日期不返回
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, SalesTotals> getDailyTotals(LocalDateTime start, LocalDateTime end) {
+        return rollupRepository.dailyTotals(start, end);
+    }
+
+    /**
+     * 重新聚合时间范围内的汇总数据，先删除范围内的汇总行，再从在线表和重叠的归档月份聚合已完成订单
+     * 范围按小时对齐；范围内有订单正在完成或退款时，以提交较晚的一方为准，由下一次重建修正
+     * @param start 开始时间
+     * @param end 结束时间
+     * @return 写入的汇总行数
+     */
+    @Transactional
+    public int backfill(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.HOURS);
+        if (to.isBefore(end)) {
+            to = to.plusHours(1);
+        }
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+
+        List<SalesRollupHourly> items = new ArrayList<>(rollupRepository.aggregateItems("orders", "order_items",
+                OrderStateMachine.COMPLETED, from, to));
+        List<SalesRollupHourly> orders = new ArrayList<>(rollupRepository.aggregateOrders("orders",
+                OrderStateMachine.COMPLETED, from, to));
+        for (YearMonth month : orderArchiveService.getPartitions(from, to)) {
+            String ordersTable = OrderArchiveRepository.ordersTable(month);
+            items.addAll(rollupRepository.aggregateItems(ordersTable, OrderArchiveRepository.itemsTable(month),
+                    OrderStateMachine.COMPLETED, from, to));
+            orders.addAll(rollupRepository.aggregateOrders(ordersTable, OrderStateMachine.COMPLETED, from, to));
+        }
+
+        // 归档只移动整单，同一小时的数据可能分布在在线表和归档表，按键合并；整单行的件数由商品行汇总
+        Map<List<Object>, SalesRollupHourly> rows = new LinkedHashMap<>();
+        for (SalesRollupHourly row : items) {
+            merge(rows, row);
+            SalesRollupHourly quantity = row(row.getStoreId(), SalesRollupHourly.ORDER_TOTAL, row.getBucketHour(),
+                    row.getQuantity(), BigDecimal.ZERO, 0);
+            merge(rows, quantity);
+        }
+        for (SalesRollupHourly row : orders) {
+            merge(rows, row);
+        }
+
+        int deleted = rollupRepository.deleteRange(from, to);
+        rollupRepository.insert(rows.values());
+        logger.info("重建销售汇总 [{}, {})，删除 {} 行，写入 {} 行", from, to, deleted, rows.size());
+        return rows.size();
+    }
+
+    // 汇总表为空而订单表有数据时从最早的订单开始补建，用于启动时
+    @Transactional
+    public int backfillIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return 0;
+        }
+        LocalDateTime start = null;
+        List<YearMonth> partitions = orderArchiveService.getPartitions();
+        if (!partitions.isEmpty()) {
+            // 分区按时间倒序
+            start = partitions.get(partitions.size() - 1).atDay(1).atStartOfDay();
+        }
+        List<Order> earliest = orderRepository.findAll(PageRequest.of(0, 1, Sort.by("createdAt"))).getContent();
+        if (!earliest.isEmpty() && (start == null || earliest.get(0).getCreatedAt().isBefore(start))) {
+            start = earliest.get(0).getCreatedAt();
+        }
+        if (start == null) {
+            return 0;
+        }
+        return backfill(start, LocalDateTime.now());
+    }
+
+    // 每天重建最近几天的汇总
+    @Scheduled(cron = "${rollup.reconcile-cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        if (reconcileDays <= 0) {
+            return;
+        }
+        LocalDateTime end = LocalDate.now().atStartOfDay();
+        backfill(end.minusDays(reconcileDays), end);
+    }
+
+    // 一个订单对各汇总行的增量：每个商品一行，再加一行整单合计
+    private List<SalesRollupHourly> deltas(Order order, int sign) {
+        LocalDateTime hour = (order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now())
+                .truncatedTo(ChronoUnit.HOURS);
+        BigDecimal direction = BigDecimal.valueOf(sign);
+        Map<Long, SalesRollupHourly> byProduct = new HashMap<>();
+        long quantity = 0;
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                int itemQuantity = item.getQuantity() != null ? item.getQuantity() : 0;
+                BigDecimal subtotal = item.getSubtotal() != null ? item.getSubtotal()
+                        : item.getPrice().multiply(BigDecimal.valueOf(itemQuantity));
+                quantity += itemQuantity;
+                // 同一商品可能有多行（不同定制选项），订单数只计一次
+                byProduct.merge(item.getProductId(),
+                        row(order.getStoreId(), item.getProductId(), hour, (long) sign * itemQuantity,
+                                subtotal.multiply(direction), sign),
+                        (a, b) -> row(a.getStoreId(), a.getProductId(), hour, a.getQuantity() + b.getQuantity(),
+                                a.getRevenue().add(b.getRevenue()), sign));
+            }
+        }
+        List<SalesRollupHourly> deltas = new ArrayList<>(byProduct.values());
+        deltas.add(row(order.getStoreId(), SalesRollupHourly.ORDER_TOTAL, hour, sign * quantity,
+                order.getActualAmount().multiply(direction), sign));
+        return deltas;
+    }
+
+    private static void merge(Map<List<Object>, SalesRollupHourly> rows, SalesRollupHourly row) {
+        rows.merge(List.of(row.getStoreId(), row.getProductId(), row.getBucketHour()), row,
+                (a, b) -> row(a.getStoreId(), a.getProductId(), a.getBucketHour(), a.getQuantity() + b.getQuantity(),
+                        a.getRevenue().add(b.getRevenue()), a.getOrderCount() + b.getOrderCount()));
+    }
+
+    private static SalesRollupHourly row(Long storeId, Long productId, LocalDateTime hour, long quantity,
+            BigDecimal revenue, long orderCount) {
+        SalesRollupHourly row = new SalesRollupHourly();
+        row.setStoreId(storeId);
+        row.setProductId(productId);
+        row.setBucketHour(hour);
+        row.setQuantity(quantity);
+        row.setRevenue(revenue);
+        row.setOrderCount(orderCount);
+        return row;
+    }
+}
@@ -0,0 +1,100 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.BizException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 业务热点路径的监控指标
+ * 计时器按 outcome 区分结果，并发布百分位直方图供 Prometheus 计算 SLO 分位数；
+ * 同一指标名的标签键必须一致，调用方传入的标签按 键, 值 成对排列。
+ */
+@Component
+public class ServiceMetrics {
+
+    public static final String SUCCESS = "success";
+    // 业务规则拒绝：BizException 或返回空结果（如状态流转不合法）
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    // 没有门店的操作（如全局报表）使用的门店标签值
+    public static final String NO_STORE = "none";
+
+    // 请求中不合法的取值统一使用的标签值，避免外部输入产生无限多的时间序列
+    public static final String INVALID = "invalid";
+
+    // 直方图桶的范围，超出范围的值计入首尾桶
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * 结束计时
+     * @param sample {@link #start()} 返回的计时
+     * @param name 指标名
+     * @param outcome 结果
+     * @param tags 其他标签，键值成对
+     */
+    public void stop(Timer.Sample sample, String name, String outcome, String... tags) {
+        sample.stop(Timer.builder(name)
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 执行并计时，正常返回记为成功，异常按 {@link #outcome(Throwable)} 记录后原样抛出
+     */
+    public <T> T record(String name, Supplier<T> action, String... tags) {
+        Timer.Sample sample = start();
+        String outcome = ERROR;
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            stop(sample, name, outcome, tags);
+        }
+    }
+
+    public void increment(String name, String... tags) {
+        Counter.builder(name).tags(tags).register(meterRegistry).increment();
+    }
+
+    // 内存中数据规模的监控，只保留对象的弱引用
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public static String outcome(Throwable e) {
+        return e instanceof BizException ? REJECTED : ERROR;
+    }
+
+    public static String store(Long storeId) {
+        return storeId == null ? NO_STORE : storeId.toString();
+    }
+}
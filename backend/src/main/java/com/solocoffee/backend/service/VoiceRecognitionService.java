@@ -1,5 +1,6 @@
 package com.solocoffee.backend.service;
 
+import com.solocoffee.backend.common.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -243,8 +244,9 @@ public class VoiceRecognitionService {
             item.setProductId(Long.valueOf(parsedItem.get("productId").toString()));
             item.setProductName((String) parsedItem.get("productName"));
             item.setQuantity((Integer) parsedItem.get("quantity"));
-            item.setPrice(java.math.BigDecimal.valueOf((Double) parsedItem.get("price")));
-            item.setSubtotal(java.math.BigDecimal.valueOf((Double) parsedItem.get("price") * (Integer) parsedItem.get("quantity")));
+            Money price = Money.of((Double) parsedItem.get("price"));
+            item.setPrice(price.toBigDecimal());
+            item.setSubtotal(price.times((Integer) parsedItem.get("quantity")).toBigDecimal());
             orderItems.add(item);
         }
         
@@ -0,0 +1,173 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.BackendApplication;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.Product;
+import com.solocoffee.backend.entity.ProductBOM;
+import com.solocoffee.backend.entity.RawMaterial;
+import com.solocoffee.backend.entity.RawMaterialInventory;
+import com.solocoffee.backend.repository.ProductBOMRepository;
+import com.solocoffee.backend.repository.ProductRepository;
+import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import com.solocoffee.backend.repository.RawMaterialRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMH 基准测试使用的 Spring 上下文和测试数据
+ * 每个 JMH 分叉进程启动一个独立的内嵌 H2 应用上下文；商品、原料和BOM使用独立编号，原料库存足够整轮测试扣减。
+ */
+final class BenchmarkFixture {
+
+    static final long STORE_ID = 9101L;
+
+    // 原料库存初始数量，足够整轮测试扣减而不触发库存不足
+    private static final BigDecimal STOCK = new BigDecimal("1000000000");
+
+    private final ConfigurableApplicationContext context;
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> materialIds = new ArrayList<>();
+
+    private BenchmarkFixture(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    // 启动应用上下文：不启动Web服务器，关闭SQL和调试日志，发件箱中继和仪表盘快照不在测量期间运行
+    // 以命令行参数传入，优先级高于 application.properties
+    static BenchmarkFixture start() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.springframework=warn",
+                        "--logging.level.com.solocoffee=warn",
+                        "--outbox.relay.interval-ms=3600000",
+                        "--dashboard.checkpoint-interval-ms=3600000");
+        return new BenchmarkFixture(context);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 创建商品和原料，每个商品的BOM包含 bomDepth 种原料，相邻商品共用部分原料
+     * @param productCount 商品数量
+     * @param bomDepth 每个商品的BOM行数
+     */
+    BenchmarkFixture withProducts(int productCount, int bomDepth) {
+        LocalDateTime now = LocalDateTime.now();
+        int materialCount = productCount + bomDepth;
+        for (int i = 0; i < materialCount; i++) {
+            materialIds.add(createMaterial("BM-M" + STORE_ID + "-" + i, now));
+        }
+
+        ProductRepository productRepository = getBean(ProductRepository.class);
+        List<ProductBOM> boms = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setProductNo("BM-P" + STORE_ID + "-" + i);
+            product.setName("基准商品" + i);
+            product.setPrice(new BigDecimal("28.00"));
+            product.setCategoryId(1L);
+            product.setStatus(1);
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            Long productId = productRepository.save(product).getId();
+            productIds.add(productId);
+
+            for (int j = 0; j < bomDepth; j++) {
+                ProductBOM bom = new ProductBOM();
+                bom.setProductId(productId);
+                bom.setMaterialId(materialIds.get(i + j));
+                bom.setQuantity(new BigDecimal("10"));
+                bom.setUnit("g");
+                bom.setIsMain(j == 0);
+                bom.setCreatedAt(now);
+                bom.setUpdatedAt(now);
+                boms.add(bom);
+            }
+        }
+        getBean(ProductBOMRepository.class).saveAll(boms);
+        return this;
+    }
+
+    /**
+     * 只创建原料及门店库存
+     * @param materialCount 原料数量
+     */
+    BenchmarkFixture withMaterials(int materialCount) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < materialCount; i++) {
+            materialIds.add(createMaterial("BM-M" + STORE_ID + "-" + i, now));
+        }
+        return this;
+    }
+
+    // 新建订单，每行一件商品
+    Order newOrder(int itemCount) {
+        Order order = new Order();
+        order.setStoreId(STORE_ID);
+        order.setCustomerId(1L);
+        order.setOrderItems(new ArrayList<>());
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(productIds.get(i % productIds.size()));
+            item.setQuantity(1);
+            order.getOrderItems().add(item);
+        }
+        return order;
+    }
+
+    /**
+     * 清空测量期间写入的订单及其附属记录，内存数据库不随迭代增长，各次迭代在相同的数据量下测量
+     * 商品、原料、BOM和原料库存保留
+     */
+    void clearOrders() {
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        for (String table : List.of("order_items", "orders", "inventory_reservations", "outbox_events",
+                "customer_order_history")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    List<Long> getMaterialIds() {
+        return materialIds;
+    }
+
+    void close() {
+        context.close();
+    }
+
+    private Long createMaterial(String materialNo, LocalDateTime now) {
+        RawMaterial material = new RawMaterial();
+        material.setMaterialNo(materialNo);
+        material.setName(materialNo);
+        material.setUnit("g");
+        material.setStatus(1);
+        material.setCreatedAt(now);
+        material.setUpdatedAt(now);
+        Long materialId = getBean(RawMaterialRepository.class).save(material).getId();
+
+        RawMaterialInventory inventory = new RawMaterialInventory();
+        inventory.setStoreId(STORE_ID);
+        inventory.setMaterialId(materialId);
+        inventory.setQuantity(STOCK);
+        inventory.setWarningThreshold(BigDecimal.TEN);
+        inventory.setCreatedAt(now);
+        inventory.setUpdatedAt(now);
+        getBean(RawMaterialInventoryRepository.class).save(inventory);
+        return materialId;
+    }
+}
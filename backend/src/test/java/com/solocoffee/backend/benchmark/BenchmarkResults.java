@@ -0,0 +1,151 @@
+package com.solocoffee.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMH 结果输出和回归检查
+ *
+ * 每个基准测试的结果以 JSON 写入 target/jmh/&lt;名称&gt;.json，再与基线目录（-Dbenchmark.baseline.dir，
+ * 默认 src/test/resources/benchmark-baseline）中的同名文件按基准方法和参数逐项比较，
+ * 置信区间确定比基线慢超过阈值（-Dbenchmark.regression-threshold，默认 0.10 即 10%）时返回回归项。
+ * 基线文件缺失时检查失败，而不是跳过；新增基准测试时先运行一次，把 target/jmh 下的结果复制到基线目录。
+ * 发布时同样用 target/jmh 下的结果更新基线，作为下一个版本的比较对象。
+ */
+final class BenchmarkResults {
+
+    static final String OUTPUT_DIR = "target/jmh";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkResults() {
+    }
+
+    /**
+     * 各基准测试共用的运行参数
+     * 多个分叉进程平均掉单个 JVM 的 JIT 编译和内存布局差异，预热到 JIT 稳定后再测量；固定堆大小并使用串行GC，
+     * 避免堆扩容和并发GC线程与测量线程争用CPU。使误差（99.9% 置信区间半宽）明显小于回归阈值
+     * @param benchmark 基准测试类
+     */
+    static ChainedOptionsBuilder options(Class<?> benchmark) {
+        return new OptionsBuilder()
+                .include(benchmark.getName() + "\\.")
+                .forks(5)
+                .jvmArgsAppend("-Xms1g", "-Xmx1g", "-XX:+UseSerialGC")
+                .warmupIterations(10)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(20)
+                .measurementTime(TimeValue.seconds(1));
+    }
+
+    /**
+     * 运行基准测试并写出 JSON 结果
+     * @param name 结果文件名（不含扩展名）
+     * @param options 基准测试选项
+     * @return 运行结果
+     */
+    static Collection<RunResult> run(String name, ChainedOptionsBuilder options) throws RunnerException, IOException {
+        Files.createDirectories(Paths.get(OUTPUT_DIR));
+        return new Runner(options
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile(name).toString())
+                .build()).run();
+    }
+
+    /**
+     * 与基线比较
+     * @param name 结果文件名（不含扩展名）
+     * @return 回归项说明，没有回归时为空
+     * @throws IllegalStateException 基线文件不存在
+     */
+    static List<String> findRegressions(String name) throws IOException {
+        Path baseline = Paths.get(System.getProperty("benchmark.baseline.dir", "src/test/resources/benchmark-baseline"),
+                name + ".json");
+        if (!Files.exists(baseline)) {
+            throw new IllegalStateException("未找到基线 " + baseline + "，请将本次结果 " + resultFile(name)
+                    + " 复制到基线目录后重新运行");
+        }
+        double threshold = Double.parseDouble(System.getProperty("benchmark.regression-threshold", "0.10"));
+        return compare(objectMapper.readTree(baseline.toFile()), objectMapper.readTree(resultFile(name).toFile()),
+                threshold);
+    }
+
+    /**
+     * 逐项比较两份 JMH JSON 结果，基线中没有的基准跳过
+     * 按置信区间（score ± scoreError）比较：平均时间、单次时间、采样模式分数越低越好，当前下限比基线上限
+     * 慢超过阈值才算回归；吞吐量模式分数越高越好，比较基线下限与当前上限。区间重叠或差距在阈值内视为噪声
+     */
+    static List<String> compare(JsonNode baseline, JsonNode current, double threshold) {
+        Map<String, JsonNode> baselineMetrics = new HashMap<>();
+        for (JsonNode result : baseline) {
+            baselineMetrics.put(key(result), result.path("primaryMetric"));
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (JsonNode result : current) {
+            JsonNode before = baselineMetrics.get(key(result));
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = result.path("primaryMetric");
+            double slowdown;
+            if ("thrpt".equals(result.path("mode").asText())) {
+                double beforeLower = score(before) - error(before);
+                double afterUpper = score(after) + error(after);
+                if (beforeLower <= 0 || afterUpper <= 0) {
+                    continue;
+                }
+                slowdown = beforeLower / afterUpper - 1;
+            } else {
+                double beforeUpper = score(before) + error(before);
+                if (beforeUpper <= 0) {
+                    continue;
+                }
+                slowdown = (score(after) - error(after)) / beforeUpper - 1;
+            }
+            if (slowdown > threshold) {
+                regressions.add(String.format("%s: %.3f ± %.3f -> %.3f ± %.3f %s (%+.1f%%)", key(result),
+                        score(before), error(before), score(after), error(after),
+                        after.path("scoreUnit").asText(), slowdown * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static double score(JsonNode metric) {
+        return metric.path("score").asDouble();
+    }
+
+    // 只有一次测量时 JMH 无法计算误差，记为 "NaN"，按0处理
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String key(JsonNode result) {
+        String benchmark = result.path("benchmark").asText().replaceAll(".*\\.(\\w+\\.\\w+)$", "$1");
+        JsonNode params = result.path("params");
+        return params.isMissingNode() || params.isEmpty() ? benchmark : benchmark + params;
+    }
+
+    private static Path resultFile(String name) {
+        return Paths.get(OUTPUT_DIR, name + ".json");
+    }
+}
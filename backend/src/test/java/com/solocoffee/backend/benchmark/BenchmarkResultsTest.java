@@ -0,0 +1,76 @@
+package com.solocoffee.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkResultsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testCompareFlagsSlowdownsBeyondThreshold() throws Exception {
+        JsonNode baseline = objectMapper.readTree("["
+                + result("createOrder", "avgt", "{\"itemCount\":\"5\"}", 100)
+                + "," + result("createOrder", "avgt", "{\"itemCount\":\"20\"}", 300)
+                + "," + result("deduct", "thrpt", null, 50)
+                + "]");
+        JsonNode current = objectMapper.readTree("["
+                // 平均时间变长15%，超过10%阈值
+                + result("createOrder", "avgt", "{\"itemCount\":\"5\"}", 115)
+                // 变长5%，在阈值内
+                + "," + result("createOrder", "avgt", "{\"itemCount\":\"20\"}", 315)
+                // 吞吐量下降到40，相当于变慢25%
+                + "," + result("deduct", "thrpt", null, 40)
+                // 基线中没有，跳过
+                + "," + result("completeOrder", "avgt", null, 999)
+                + "]");
+
+        List<String> regressions = BenchmarkResults.compare(baseline, current, 0.10);
+
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("SampleBenchmark.createOrder{\"itemCount\":\"5\"}"));
+        assertTrue(regressions.get(1).startsWith("SampleBenchmark.deduct:"));
+    }
+
+    @Test
+    void testCompareUsesConfidenceIntervals() throws Exception {
+        JsonNode baseline = objectMapper.readTree("["
+                + result("createOrder", "avgt", "{\"itemCount\":\"5\"}", 100, 5)
+                + "," + result("createOrder", "avgt", "{\"itemCount\":\"20\"}", 300, 30)
+                + "," + result("deduct", "thrpt", null, 50, 2)
+                + "," + result("completeOrder", "avgt", null, 80, "\"NaN\"")
+                + "]");
+        JsonNode current = objectMapper.readTree("["
+                // 分数变长20%，但区间 [112, 128] 与基线上限105相比只慢6.7%，视为噪声
+                + result("createOrder", "avgt", "{\"itemCount\":\"5\"}", 120, 8)
+                // 区间下限340比基线上限330慢3%，在阈值内
+                + "," + result("createOrder", "avgt", "{\"itemCount\":\"20\"}", 400, 60)
+                // 基线下限48，当前上限41，慢17%
+                + "," + result("deduct", "thrpt", null, 40, 1)
+                // 基线误差为NaN时按0处理，下限90比80慢12.5%
+                + "," + result("completeOrder", "avgt", null, 95, 5)
+                + "]");
+
+        List<String> regressions = BenchmarkResults.compare(baseline, current, 0.10);
+
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("SampleBenchmark.deduct:"));
+        assertTrue(regressions.get(1).startsWith("SampleBenchmark.completeOrder:"));
+    }
+
+    private String result(String method, String mode, String params, double score) {
+        return result(method, mode, params, score, null);
+    }
+
+    private String result(String method, String mode, String params, double score, Object scoreError) {
+        return "{\"benchmark\":\"com.solocoffee.backend.benchmark.SampleBenchmark." + method + "\",\"mode\":\"" + mode
+                + "\"" + (params == null ? "" : ",\"params\":" + params)
+                + ",\"primaryMetric\":{\"score\":" + score
+                + (scoreError == null ? "" : ",\"scoreError\":" + scoreError) + ",\"scoreUnit\":\"us/op\"}}";
+    }
+}
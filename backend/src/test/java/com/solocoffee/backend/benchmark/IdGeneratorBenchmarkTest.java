@@ -0,0 +1,72 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.common.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ID生成器吞吐量基准测试，运行方式: mvn test -Pbenchmark
+ * 单节点每毫秒最多 4096 个ID，吞吐量上限约为每秒 410 万
+ */
+@Tag("benchmark")
+class IdGeneratorBenchmarkTest {
+
+    private static final long DURATION_MILLIS = 2_000;
+
+    @Test
+    void benchmarkThroughput() throws Exception {
+        int[] threadCounts = { 1, 4, Math.max(8, Runtime.getRuntime().availableProcessors()) };
+        for (int threads : threadCounts) {
+            double idsPerSecond = run(threads);
+            System.out.printf("SnowflakeIdGenerator threads=%d throughput=%.0f ids/s%n", threads, idsPerSecond);
+            assertTrue(idsPerSecond > 1_000_000, "吞吐量低于每秒100万: " + idsPerSecond);
+        }
+    }
+
+    private double run(int threads) throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + DURATION_MILLIS * 1_000_000;
+                long count = 0;
+                long previous = -1;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    long id = generator.nextId();
+                    if (id <= previous) {
+                        throw new IllegalStateException("ID未单调递增");
+                    }
+                    // ID中的时间戳不能超前于时钟，否则测到的是借用未来时间戳的速度
+                    if ((count & 1023) == 0 && SnowflakeIdGenerator.timestampOf(id) > System.currentTimeMillis()) {
+                        throw new IllegalStateException("ID时间戳超前于时钟");
+                    }
+                    previous = id;
+                    count++;
+                }
+                return count;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long total = 0;
+        for (Future<Long> future : futures) {
+            total += future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return total * 1_000_000_000.0 / elapsed;
+    }
+}
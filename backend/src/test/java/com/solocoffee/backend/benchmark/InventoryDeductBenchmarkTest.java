@@ -0,0 +1,101 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.service.RawMaterialInventoryService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.RunResult;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 原料库存扣减并发基准测试，运行方式: mvn test -Pbenchmark -Dtest=InventoryDeductBenchmarkTest
+ *
+ * 8个线程同时调用 deductRawMaterialInventory：全部扣减同一行库存（行锁竞争）与每个线程扣减各自的原料对比。
+ * 结果写入 target/jmh/inventory-deduct.json，并与基线比较。
+ */
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryDeductBenchmarkTest {
+
+    private static final String RESULT_NAME = "inventory-deduct";
+    // 经 Spring 事务和 JDBC 批处理的调用路径编译量大，单核机器上C2编译需一分半钟以上才稳定，预热时间长于默认值
+    private static final int WARMUP_ITERATIONS = 120;
+    private static final int THREADS = 8;
+    private static final BigDecimal QUANTITY = new BigDecimal("18");
+
+    @State(Scope.Benchmark)
+    public static class InventoryState {
+
+        BenchmarkFixture fixture;
+        RawMaterialInventoryService inventoryService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = BenchmarkFixture.start().withMaterials(THREADS + 1);
+            inventoryService = fixture.getBean(RawMaterialInventoryService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    // 第一种原料由所有线程共用，其余原料每个线程一种
+    @State(Scope.Thread)
+    public static class ThreadMaterial {
+
+        Long sharedMaterialId;
+        Long ownMaterialId;
+
+        @Setup(Level.Trial)
+        public void setUp(InventoryState state, ThreadParams threads) {
+            sharedMaterialId = state.fixture.getMaterialIds().get(0);
+            ownMaterialId = state.fixture.getMaterialIds().get(1 + threads.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean deductSharedMaterial(InventoryState state, ThreadMaterial material) {
+        return state.inventoryService.deductRawMaterialInventory(BenchmarkFixture.STORE_ID,
+                material.sharedMaterialId, QUANTITY);
+    }
+
+    @Benchmark
+    public boolean deductOwnMaterial(InventoryState state, ThreadMaterial material) {
+        return state.inventoryService.deductRawMaterialInventory(BenchmarkFixture.STORE_ID,
+                material.ownMaterialId, QUANTITY);
+    }
+
+    @Test
+    void benchmarkDeductUnderContention() throws Exception {
+        Collection<RunResult> results = BenchmarkResults.run(RESULT_NAME,
+                BenchmarkResults.options(InventoryDeductBenchmarkTest.class).threads(THREADS)
+                        .warmupIterations(WARMUP_ITERATIONS));
+
+        assertEquals(2, results.size());
+        for (RunResult result : results) {
+            System.out.printf("%-22s threads=%d %10.1f us/op%n", result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    THREADS, result.getPrimaryResult().getScore());
+        }
+
+        List<String> regressions = BenchmarkResults.findRegressions(RESULT_NAME);
+        assertTrue(regressions.isEmpty(), "性能回归: " + regressions);
+    }
+}
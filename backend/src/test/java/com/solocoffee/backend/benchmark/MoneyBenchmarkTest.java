@@ -0,0 +1,116 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.common.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金额计算 JMH 基准测试，运行方式: mvn test -Pbenchmark -Dtest=MoneyBenchmarkTest
+ *
+ * 对比订单总额累加（5个商品行）和促销折扣计算在三种实现下的耗时：
+ * 原有的 double 累加再转 BigDecimal、纯 BigDecimal，以及以分为单位的 Money。
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmarkTest {
+
+    private static final int ITEMS = 5;
+
+    private BigDecimal[] subtotals;
+    private Money[] moneySubtotals;
+    private BigDecimal orderTotal;
+    private Money moneyOrderTotal;
+    private double discountPercent;
+
+    @Setup
+    public void setUp() {
+        subtotals = new BigDecimal[ITEMS];
+        moneySubtotals = new Money[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            subtotals[i] = new BigDecimal("4.50").multiply(BigDecimal.valueOf(i + 1));
+            moneySubtotals[i] = Money.of(subtotals[i]);
+        }
+        orderTotal = new BigDecimal("67.50");
+        moneyOrderTotal = Money.of(orderTotal);
+        discountPercent = 20;
+    }
+
+    // 原有实现: createOrder 中的 double 累加
+    @Benchmark
+    public BigDecimal totalDouble() {
+        double total = 0;
+        for (BigDecimal subtotal : subtotals) {
+            total += subtotal.doubleValue();
+        }
+        return BigDecimal.valueOf(total);
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal subtotal : subtotals) {
+            total = total.add(subtotal);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long totalMoney() {
+        Money total = Money.ZERO;
+        for (Money subtotal : moneySubtotals) {
+            total = total.plus(subtotal);
+        }
+        return total.getMinorUnits();
+    }
+
+    // 原有实现: PromotionService 中 BigDecimal 乘以 double 换算的比例
+    @Benchmark
+    public BigDecimal discountBigDecimal() {
+        return orderTotal.multiply(BigDecimal.valueOf(1 - discountPercent / 100)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public long discountMoney() {
+        return moneyOrderTotal.percent(100 - discountPercent).getMinorUnits();
+    }
+
+    @Test
+    void benchmarkMoneyArithmetic() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(MoneyBenchmarkTest.class.getName() + "\\.")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertEquals(5, results.size());
+        for (RunResult result : results) {
+            System.out.printf("%-20s %8.2f ns/op%n", result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getPrimaryResult().getScore());
+        }
+    }
+}
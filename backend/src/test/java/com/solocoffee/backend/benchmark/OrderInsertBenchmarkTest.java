@@ -0,0 +1,125 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单批量写入基准测试，运行方式: mvn test -Pbenchmark
+ *
+ * 对比每行一次往返（batch_size=1，相当于 IDENTITY 主键下 Hibernate 无法批量插入的情况）
+ * 与序列主键 + JDBC 批处理两种方式写入 10000 个订单（每单3个商品行）的吞吐量。
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.solocoffee=info",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderInsertBenchmarkTest {
+
+    private static final int ORDER_COUNT = 10_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void benchmarkOrderInserts() {
+        // 预热
+        insertOrders("WARM", 1_000, 50);
+
+        long before = orderRepository.count();
+        Result unbatched = insertOrders("ROW", ORDER_COUNT, 1);
+        Result batched = insertOrders("BATCH", ORDER_COUNT, 50);
+
+        System.out.printf("Order inserts (%d orders x %d items) batch_size=1:  %.0f orders/s, %d prepared statements%n",
+                ORDER_COUNT, ITEMS_PER_ORDER, unbatched.ordersPerSecond, unbatched.preparedStatements);
+        System.out.printf("Order inserts (%d orders x %d items) batch_size=50: %.0f orders/s, %d prepared statements%n",
+                ORDER_COUNT, ITEMS_PER_ORDER, batched.ordersPerSecond, batched.preparedStatements);
+        System.out.printf("Speedup: %.2fx%n", batched.ordersPerSecond / unbatched.ordersPerSecond);
+
+        assertEquals(before + 2L * ORDER_COUNT, orderRepository.count());
+        assertTrue(batched.preparedStatements < unbatched.preparedStatements);
+    }
+
+    private Result insertOrders(String prefix, int count, int batchSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int offset = 0; offset < count; offset += CHUNK_SIZE) {
+            int chunkStart = offset;
+            int chunkEnd = Math.min(offset + CHUNK_SIZE, count);
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    entityManager.persist(newOrder(prefix + i));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result();
+        result.ordersPerSecond = count * 1_000_000_000.0 / elapsed;
+        result.preparedStatements = statistics.getPrepareStatementCount();
+        return result;
+    }
+
+    private Order newOrder(String orderNo) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setStoreId(1L);
+        order.setCustomerId(1L);
+        order.setPaymentMethod(1);
+        order.setOrderStatus(1);
+        order.setTotalAmount(new BigDecimal("96.00"));
+        order.setActualAmount(new BigDecimal("96.00"));
+        order.setOrderItems(new ArrayList<>());
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(i + 1L);
+            item.setProductName("Product " + (i + 1));
+            item.setQuantity(1);
+            item.setPrice(new BigDecimal("32.00"));
+            item.setSubtotal(new BigDecimal("32.00"));
+            order.getOrderItems().add(item);
+        }
+        return order;
+    }
+
+    private static class Result {
+        private double ordersPerSecond;
+        private long preparedStatements;
+    }
+}
@@ -0,0 +1,110 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.service.OrderService;
+import com.solocoffee.backend.service.OrderStateMachine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单下单和完成的 JMH 基准测试，运行方式: mvn test -Pbenchmark -Dtest=OrderServiceBenchmarkTest
+ *
+ * 在内嵌 H2 上测量 createOrder（1/5/20 个商品行，每个商品 2/6 行BOM）和 updateOrderStatus 完成订单
+ * （按BOM汇总扣减原料并转换预占）的单次耗时。结果写入 target/jmh/order-service.json，并与基线比较。
+ */
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderServiceBenchmarkTest {
+
+    private static final String RESULT_NAME = "order-service";
+    // 经 Spring 和 Hibernate 的调用路径编译量大，单核机器上C2编译约需90秒才稳定，预热时间长于默认值
+    private static final int WARMUP_ITERATIONS = 120;
+
+    @State(Scope.Benchmark)
+    public static class OrderState {
+
+        @Param({"1", "5", "20"})
+        public int itemCount;
+
+        @Param({"2", "6"})
+        public int bomDepth;
+
+        BenchmarkFixture fixture;
+        OrderService orderService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = BenchmarkFixture.start().withProducts(20, bomDepth);
+            orderService = fixture.getBean(OrderService.class);
+        }
+
+        // 每次迭代后清空订单，避免数据量随测量增长
+        @TearDown(Level.Iteration)
+        public void clearOrders() {
+            fixture.clearOrders();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    // 每次调用前准备一个待确认的订单，只测量完成这一步
+    @State(Scope.Thread)
+    public static class PendingOrder {
+
+        Long orderId;
+
+        @Setup(Level.Invocation)
+        public void setUp(OrderState state) {
+            orderId = state.orderService.createOrder(state.fixture.newOrder(state.itemCount)).getId();
+        }
+    }
+
+    @Benchmark
+    public Order createOrder(OrderState state) {
+        return state.orderService.createOrder(state.fixture.newOrder(state.itemCount));
+    }
+
+    @Benchmark
+    public Order completeOrder(OrderState state, PendingOrder pending) {
+        return state.orderService.updateOrderStatus(pending.orderId, OrderStateMachine.COMPLETED);
+    }
+
+    @Test
+    void benchmarkOrderService() throws Exception {
+        Collection<RunResult> results = BenchmarkResults.run(RESULT_NAME,
+                BenchmarkResults.options(OrderServiceBenchmarkTest.class)
+                        .warmupIterations(WARMUP_ITERATIONS));
+
+        assertEquals(12, results.size());
+        for (RunResult result : results) {
+            System.out.printf("%-14s items=%-3s bom=%-2s %10.1f us/op%n",
+                    result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getParams().getParam("itemCount"), result.getParams().getParam("bomDepth"),
+                    result.getPrimaryResult().getScore());
+        }
+
+        List<String> regressions = BenchmarkResults.findRegressions(RESULT_NAME);
+        assertTrue(regressions.isEmpty(), "性能回归: " + regressions);
+    }
+}
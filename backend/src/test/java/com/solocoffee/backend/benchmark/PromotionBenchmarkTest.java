@@ -0,0 +1,88 @@
+package com.solocoffee.backend.benchmark;
+
+import com.solocoffee.backend.service.PromotionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 促销折扣计算基准测试，运行方式: mvn test -Pbenchmark -Dtest=PromotionBenchmarkTest
+ *
+ * 在 5/50 个有效促销活动（折扣、满减、买一送一、会员专享轮流）下计算一个5行订单的折扣。
+ * 结果写入 target/jmh/promotion.json，并与基线比较。
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PromotionBenchmarkTest {
+
+    private static final String RESULT_NAME = "promotion";
+    private static final String[] TYPES = {"discount", "full_reduction", "buy_one_get_one", "member_exclusive"};
+
+    @Param({"5", "50"})
+    public int promotionCount;
+
+    private PromotionService promotionService;
+    private BigDecimal orderTotal;
+    private List<Long> productIds;
+
+    @Setup
+    public void setUp() {
+        promotionService = new PromotionService();
+        Date start = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Date end = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        for (int i = 0; i < promotionCount; i++) {
+            PromotionService.Promotion promotion = new PromotionService.Promotion();
+            promotion.setName("促销" + i);
+            promotion.setType(TYPES[i % TYPES.length]);
+            promotion.setDiscount(95.0);
+            promotion.setMinSpend(new BigDecimal("50.00"));
+            promotion.setReductionAmount(new BigDecimal("5.00"));
+            promotion.setProductId((long) (i % 10) + 1);
+            promotion.setStartTime(start);
+            promotion.setEndTime(end);
+            promotion.setStatus(1);
+            promotionService.createPromotion(promotion);
+        }
+        orderTotal = new BigDecimal("136.50");
+        productIds = List.of(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Benchmark
+    public Map<String, Object> calculatePromotionDiscount() {
+        return promotionService.calculatePromotionDiscount(orderTotal, productIds, 1L);
+    }
+
+    @Test
+    void benchmarkPromotionDiscount() throws Exception {
+        Collection<RunResult> results = BenchmarkResults.run(RESULT_NAME,
+                BenchmarkResults.options(PromotionBenchmarkTest.class));
+
+        assertEquals(2, results.size());
+        for (RunResult result : results) {
+            System.out.printf("promotions=%-3s %10.1f ns/op%n", result.getParams().getParam("promotionCount"),
+                    result.getPrimaryResult().getScore());
+        }
+
+        List<String> regressions = BenchmarkResults.findRegressions(RESULT_NAME);
+        assertTrue(regressions.isEmpty(), "性能回归: " + regressions);
+    }
+}
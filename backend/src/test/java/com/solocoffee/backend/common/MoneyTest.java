@@ -0,0 +1,47 @@
+package com.solocoffee.backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testConversionRoundsHalfUpToCents() {
+        assertEquals(350, Money.of(new BigDecimal("3.50")).getMinorUnits());
+        assertEquals(101, Money.of(new BigDecimal("1.005")).getMinorUnits());
+        assertEquals(new BigDecimal("3.50"), Money.of(3.5).toBigDecimal());
+        assertEquals(Money.ZERO, Money.of((BigDecimal) null));
+    }
+
+    @Test
+    void testSumIsExactWhereDoubleIsNot() {
+        Money total = Money.ZERO;
+        double doubleTotal = 0;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.of(new BigDecimal("0.10")));
+            doubleTotal += 0.10;
+        }
+        assertEquals(new BigDecimal("1.00"), total.toBigDecimal());
+        assertNotEquals(1.0, doubleTotal);
+    }
+
+    @Test
+    void testRatesRoundToNearestCent() {
+        Money amount = Money.of(new BigDecimal("33.33"));
+        // 33.33 × 0.95 = 31.6635
+        assertEquals(new BigDecimal("31.66"), amount.times(new BigDecimal("0.95")).toBigDecimal());
+        // 33.33 × 80% = 26.664
+        assertEquals(new BigDecimal("26.66"), amount.percent(80).toBigDecimal());
+        assertEquals(new BigDecimal("-0.50"), Money.ofMinor(-100).timesBasisPoints(5000).toBigDecimal());
+        assertEquals(3, Money.of(new BigDecimal("99.99")).divideToIntegral(Money.of(new BigDecimal("30"))));
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2).times(3));
+    }
+}
@@ -0,0 +1,90 @@
+package com.solocoffee.backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        int threads = 8;
+        int idsPerThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long previous = -1;
+                for (int i = 0; i < idsPerThread; i++) {
+                    long id = generator.nextId();
+                    // 同一线程内严格递增
+                    if (id <= previous || !ids.add(id)) {
+                        return false;
+                    }
+                    previous = id;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void testSequenceOverflowWaitsForNextMillisecond() {
+        long now = SnowflakeIdGenerator.EPOCH + 1_000;
+        // 时钟在被读取 5000 次后才前进到下一毫秒
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3,
+                () -> reads.incrementAndGet() <= 5_000 ? now : now + 1);
+
+        long previous = -1;
+        for (int i = 0; i < 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(3, SnowflakeIdGenerator.nodeIdOf(id));
+            assertEquals(now, SnowflakeIdGenerator.timestampOf(id));
+            previous = id;
+        }
+        // 序列号用尽后等待时钟前进，而不是借用下一毫秒
+        long next = generator.nextId();
+        assertTrue(next > previous);
+        assertEquals(now + 1, SnowflakeIdGenerator.timestampOf(next));
+        assertTrue(reads.get() > 5_000);
+    }
+
+    @Test
+    void testClockMovingBackwardsStaysMonotonic() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 5_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+
+        long first = generator.nextId();
+        clock.addAndGet(-1_000);
+        long second = generator.nextId();
+
+        assertTrue(second > first);
+    }
+
+    @Test
+    void testPrefixedIdAndNodeRange() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID);
+        assertTrue(generator.nextId("ORD").startsWith("ORD"));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.solocoffee.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testRejectsWhenLimitReachedAndReleasesAfterCompletion() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 50, objectMapper);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 第一个请求占住唯一的许可
+            Future<MockHttpServletResponse> first = executor.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products"), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return response;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertEquals(1, filter.getActive());
+
+            // 等待超时后返回 503
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products"), rejected,
+                    (req, res) -> fail("超出并发上限的请求不应继续处理"));
+            assertEquals(503, rejected.getStatus());
+            assertEquals("1", rejected.getHeader("Retry-After"));
+            assertEquals(50301, objectMapper.readTree(rejected.getContentAsByteArray()).path("code").asInt());
+
+            release.countDown();
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(0, filter.getActive());
+
+            // 许可释放后可以继续处理
+            MockHttpServletResponse accepted = new MockHttpServletResponse();
+            boolean[] handled = {false};
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products"), accepted,
+                    (req, res) -> handled[0] = true);
+            assertTrue(handled[0]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReleasesPermitWhenHandlerThrows() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 50, objectMapper);
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("POST", "/api/v1/orders"), new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new IllegalStateException("处理失败");
+                }));
+        assertEquals(0, filter.getActive());
+    }
+}
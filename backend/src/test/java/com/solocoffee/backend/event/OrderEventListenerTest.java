@@ -0,0 +1,122 @@
+package com.solocoffee.backend.event;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.service.CustomerService;
+import com.solocoffee.backend.service.DashboardCounterService;
+import com.solocoffee.backend.service.NotificationService;
+import com.solocoffee.backend.service.ReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderEventListenerTest {
+
+    @Mock
+    private CustomerService customerService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private DashboardCounterService dashboardCounterService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testCompletedOrderAccruesPointsAndNotifies() {
+        OrderStatusChangedEvent event = event(2, 3, new BigDecimal("38.90"));
+        listener.onOrderStatusChanged(event);
+
+        verify(reportService).recordStatusChange(1L, 3);
+        verify(dashboardCounterService).record(event);
+        verify(customerService).addPointsIf(eq(7L), eq(38), eq(1), eq(100L), anyString(), any());
+        verify(notificationService).createNotification(eq(7L), anyString(), contains("ORD100"), eq("order"), eq(100L));
+    }
+
+    @Test
+    void testPointsFailureDoesNotBlockNotification() {
+        when(customerService.addPointsIf(anyLong(), anyInt(), anyInt(), anyLong(), anyString(), any()))
+                .thenThrow(new RuntimeException("db down"));
+
+        listener.onOrderStatusChanged(event(2, 3, new BigDecimal("20.00")));
+
+        verify(notificationService).createNotification(eq(7L), anyString(), anyString(), eq("order"), eq(100L));
+    }
+
+    @Test
+    void testCancelledOrderDoesNotAccruePoints() {
+        listener.onOrderStatusChanged(event(1, 4, new BigDecimal("20.00")));
+
+        verify(customerService, never()).addPointsIf(anyLong(), anyInt(), anyInt(), anyLong(), anyString(), any());
+        verify(notificationService).createNotification(eq(7L), anyString(), contains("已取消"), eq("order"), eq(100L));
+    }
+
+    @Test
+    void testReportFailureDoesNotBlockOtherSideEffects() {
+        doThrow(new RuntimeException("report down")).when(reportService).recordStatusChange(anyLong(), anyInt());
+
+        OrderStatusChangedEvent event = event(2, 3, new BigDecimal("20.00"));
+        listener.onOrderStatusChanged(event);
+
+        verify(dashboardCounterService).record(event);
+        verify(customerService).addPointsIf(eq(7L), eq(20), eq(1), eq(100L), anyString(), any());
+        verify(notificationService).createNotification(eq(7L), anyString(), anyString(), eq("order"), eq(100L));
+    }
+
+    @Test
+    void testRefundedOrderRevokesPoints() {
+        listener.onOrderStatusChanged(event(5, 6, new BigDecimal("20.00")));
+
+        verify(customerService).revokePoints(eq(7L), eq(1), eq(4), eq(100L), anyString());
+        verify(customerService, never()).addPointsIf(anyLong(), anyInt(), anyInt(), anyLong(), anyString(), any());
+        verify(notificationService).createNotification(eq(7L), anyString(), contains("已退款"), eq("order"), eq(100L));
+    }
+
+    @Test
+    void testAccrualSkipsOrderRefundedBeforeItRuns() {
+        listener.onOrderStatusChanged(event(2, 3, new BigDecimal("20.00")));
+
+        // 累计条件在锁定客户后判断：订单仍是已完成才累计，扣回先执行（订单已退款）时不累计
+        ArgumentCaptor<BooleanSupplier> condition = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(customerService).addPointsIf(eq(7L), eq(20), eq(1), eq(100L), anyString(), condition.capture());
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(order(3)));
+        assertTrue(condition.getValue().getAsBoolean());
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(order(6)));
+        assertFalse(condition.getValue().getAsBoolean());
+    }
+
+    private Order order(int status) {
+        Order order = new Order();
+        order.setId(100L);
+        order.setOrderStatus(status);
+        return order;
+    }
+
+    private OrderStatusChangedEvent event(int from, int to, BigDecimal amount) {
+        return new OrderStatusChangedEvent(100L, "ORD100", 1L, 7L, from, to, amount);
+    }
+}
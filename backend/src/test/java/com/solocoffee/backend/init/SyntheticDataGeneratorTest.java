@@ -0,0 +1,100 @@
+package com.solocoffee.backend.init;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.SeedDataRepository;
+import com.solocoffee.backend.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 合成数据生成测试，使用独立的内存库，不影响其他测试共用的数据
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:seedtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "outbox.relay.interval-ms=3600000",
+        "seed.scale=2",
+        "seed.products=40",
+        "seed.materials=20",
+        "seed.customers-per-store=50",
+        "seed.orders-per-store=300",
+        "seed.days=7",
+        "seed.batch-size=64",
+        "seed.threads=2"
+})
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SeedDataRepository seedDataRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void testGeneratesStoresCustomersAndOrders() {
+        List<Long> storeIds = seedDataRepository.findStoreIds(SyntheticDataGenerator.STORE_PREFIX);
+        assertEquals(2, storeIds.size());
+        assertEquals(40, seedDataRepository.countProducts(SyntheticDataGenerator.PRODUCT_PREFIX));
+        assertEquals(100, count("SELECT COUNT(*) FROM customers WHERE phone LIKE '190%'"));
+        assertEquals(40, count("SELECT COUNT(DISTINCT product_id) FROM product_bom"));
+        assertEquals(40, count("SELECT COUNT(*) FROM raw_material_inventory"));
+
+        for (Long storeId : storeIds) {
+            assertEquals(300, count("SELECT COUNT(*) FROM orders WHERE order_no LIKE 'SYN%' AND store_id = " + storeId));
+        }
+        // 金额与商品行一致，会员订单都有历史记录
+        assertEquals(0, count("SELECT COUNT(*) FROM orders o WHERE o.order_no LIKE 'SYN%' AND o.total_amount <> "
+                + "(SELECT SUM(i.subtotal) FROM order_items i WHERE i.order_id = o.id)"));
+        assertEquals(count("SELECT COUNT(*) FROM orders WHERE order_no LIKE 'SYN%' AND customer_id IS NOT NULL"),
+                count("SELECT COUNT(*) FROM customer_order_history WHERE order_no LIKE 'SYN%'"));
+        // 只在营业时间内、且都在今天之前
+        assertEquals(0, count("SELECT COUNT(*) FROM orders WHERE order_no LIKE 'SYN%' "
+                + "AND (HOUR(created_at) < 7 OR HOUR(created_at) >= 22)"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE order_no LIKE 'SYN%' "
+                + "AND created_at >= ?", Long.class, Timestamp.valueOf(LocalDate.now().atStartOfDay())));
+    }
+
+    @Test
+    void testApplicationWritesAfterSeedingDoNotCollide() {
+        Long storeId = seedDataRepository.findStoreIds(SyntheticDataGenerator.STORE_PREFIX).get(0);
+        Long productId = seedDataRepository.findProductIds(SyntheticDataGenerator.PRODUCT_PREFIX).get(0);
+        long maxSeededId = count("SELECT MAX(id) FROM orders WHERE order_no LIKE 'SYN%'");
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Order order = new Order();
+            order.setStoreId(storeId);
+            order.setOrderItems(new ArrayList<>());
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(productId);
+            item.setQuantity(1);
+            order.getOrderItems().add(item);
+            ids.add(orderService.createOrder(order).getId());
+        }
+        assertEquals(60, ids.stream().distinct().count());
+        assertTrue(ids.stream().noneMatch(id -> id <= maxSeededId && seededOrder(id)));
+    }
+
+    private boolean seededOrder(Long id) {
+        return count("SELECT COUNT(*) FROM orders WHERE id = " + id + " AND order_no LIKE 'SYN%'") > 0;
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
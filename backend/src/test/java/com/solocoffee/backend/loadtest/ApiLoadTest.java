@@ -0,0 +1,180 @@
+package com.solocoffee.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solocoffee.backend.init.SyntheticDataGenerator;
+import com.solocoffee.backend.repository.SeedDataRepository;
+import com.solocoffee.backend.service.OrderStateMachine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 接口压测，运行方式: mvn test -Pbenchmark -Dtest=ApiLoadTest
+ *
+ * 在随机端口启动应用并生成合成数据，按权重混合下单、订单状态流转、商品列表、附近门店和经营概览接口，
+ * 依次运行闭环和开环两种模型，结果写入 target/loadtest/api.json，并与基线比较。
+ * 可通过系统属性调整：loadtest.model（closed/open/both）、loadtest.concurrency、loadtest.rate、
+ * loadtest.max-in-flight、loadtest.duration-seconds、loadtest.warmup-seconds、loadtest.think-time-ms、
+ * loadtest.max-error-rate。
+ *
+ * -Dloadtest.virtual-threads=true 时以虚拟线程模式启动（需要 JDK 21），结果写入 api-virtual.json；
+ * 两种模式的结果都存在时，输出吞吐量和 p99 的对比到 target/loadtest/api-threads.txt。
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=warn",
+        "logging.level.com.solocoffee=warn",
+        "outbox.relay.interval-ms=3600000",
+        "spring.threads.virtual.enabled=${loadtest.virtual-threads:false}",
+        "seed.scale=5",
+        "seed.products=200",
+        "seed.materials=60",
+        "seed.customers-per-store=2000",
+        "seed.orders-per-store=5000",
+        "seed.days=30"
+})
+class ApiLoadTest {
+
+    private static final String RESULT_NAME = "api";
+    private static final String VIRTUAL_RESULT_NAME = "api-virtual";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 等待推进状态的订单：{订单ID, 目标状态}
+    private final Queue<long[]> pendingOrders = new ConcurrentLinkedQueue<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SeedDataRepository seedDataRepository;
+
+    private List<Long> storeIds;
+    private List<Long> productIds;
+
+    @Test
+    void testMixedWorkload() throws Exception {
+        boolean virtual = Boolean.getBoolean("loadtest.virtual-threads");
+        assumeTrue(!virtual || Runtime.version().feature() >= 21, "虚拟线程需要 JDK 21");
+        storeIds = seedDataRepository.findStoreIds(SyntheticDataGenerator.STORE_PREFIX);
+        productIds = seedDataRepository.findProductIds(SyntheticDataGenerator.PRODUCT_PREFIX);
+        assertFalse(storeIds.isEmpty(), "合成数据未生成");
+
+        String model = System.getProperty("loadtest.model", "both");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int rate = Integer.getInteger("loadtest.rate", 100);
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 256);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 30));
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 10));
+        Duration thinkTime = Duration.ofMillis(Integer.getInteger("loadtest.think-time-ms", 0));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+        LoadGenerator generator = new LoadGenerator(workload());
+        LoadReport report = new LoadReport(virtual ? VIRTUAL_RESULT_NAME : RESULT_NAME, virtual ? "virtual" : "platform");
+        // 预热：JIT 编译、连接池和缓存，结果丢弃
+        generator.runClosed(concurrency, warmup, Duration.ZERO);
+
+        if (!"open".equals(model)) {
+            check(generator.runClosed(concurrency, duration, thinkTime), report, maxErrorRate);
+        }
+        if (!"closed".equals(model)) {
+            check(generator.runOpen(rate, duration, maxInFlight), report, maxErrorRate);
+        }
+        System.out.println("压测报告 " + report.write().toAbsolutePath() + report.summary());
+        String comparison = LoadReport.compareThreads(RESULT_NAME, VIRTUAL_RESULT_NAME);
+        if (comparison != null) {
+            System.out.println(comparison);
+        }
+
+        List<String> regressions = report.findRegressions();
+        assertTrue(regressions.isEmpty(), "性能回归: " + regressions);
+    }
+
+    private void check(LoadGenerator.RunResult result, LoadReport report, double maxErrorRate) {
+        report.add(result);
+        assertTrue(result.totalCount() > 0, result.model + " 没有完成任何请求");
+        assertTrue(result.totalErrors() <= result.totalCount() * maxErrorRate,
+                result.model + " 失败 " + result.totalErrors() + "/" + result.totalCount());
+    }
+
+    private Workload workload() {
+        return new Workload()
+                .add("createOrder", 25, this::createOrder, this::orderUpdated)
+                .add("orderStatus", 15, this::advanceOrder, this::orderUpdated)
+                .add("products", 30, () -> get("/api/v1/products?page=" + (1 + random(5)) + "&size=20"), null)
+                .add("nearbyStores", 15, () -> get(String.format("/api/v1/stores/nearby?latitude=%.4f&longitude=%.4f",
+                        39.9 + random(100) / 1000.0, 116.4 + random(100) / 1000.0)), null)
+                .add("overview", 15, () -> get("/api/v1/analytics/overview"), null);
+    }
+
+    private HttpRequest createOrder() {
+        StringBuilder items = new StringBuilder();
+        int itemCount = 1 + random(3);
+        for (int i = 0; i < itemCount; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("{\"productId\":").append(productIds.get(random(productIds.size())))
+                    .append(",\"quantity\":").append(1 + random(2)).append('}');
+        }
+        String body = "{\"storeId\":" + storeIds.get(random(storeIds.size())) + ",\"orderItems\":[" + items + "]}";
+        return request("/api/v1/orders").header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    // 待确认 -> 制作中 -> 已完成：上一步成功后才排入下一步，同一订单不会并发流转
+    private void orderUpdated(HttpResponse<String> response) {
+        JsonNode data;
+        try {
+            data = objectMapper.readTree(response.body()).path("data");
+        } catch (IOException e) {
+            throw new IllegalStateException("订单响应无法解析: " + response.body(), e);
+        }
+        int status = data.path("orderStatus").asInt();
+        if (status == OrderStateMachine.PENDING) {
+            pendingOrders.add(new long[]{data.path("id").asLong(), OrderStateMachine.PREPARING});
+        } else if (status == OrderStateMachine.PREPARING) {
+            pendingOrders.add(new long[]{data.path("id").asLong(), OrderStateMachine.COMPLETED});
+        }
+    }
+
+    // 没有可推进的订单时返回 null，改选其他场景
+    private HttpRequest advanceOrder() {
+        long[] order = pendingOrders.poll();
+        if (order == null) {
+            return null;
+        }
+        return request("/api/v1/orders/" + order[0] + "/status").header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"status\":" + order[1] + "}")).build();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
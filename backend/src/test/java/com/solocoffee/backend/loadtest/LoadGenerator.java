@@ -0,0 +1,185 @@
+package com.solocoffee.backend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP 压测负载发生器
+ *
+ * 闭环模型：固定数量的虚拟用户，每个用户收到响应（并等待思考时间）后再发下一个请求，吞吐量由响应速度决定。
+ * 开环模型：按固定速率发起请求，不等待响应；延迟从计划发起时刻算起，发送端落后时排队的时间也计入，
+ * 避免协调遗漏（coordinated omission）低估尾延迟。在途请求超过上限时不再发送，记为拒绝（计入失败，不计入延迟）。
+ */
+final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Workload workload;
+    private final HttpClient client;
+
+    LoadGenerator(Workload workload) {
+        this.workload = workload;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 闭环压测
+     * @param concurrency 并发用户数
+     * @param duration 持续时间
+     * @param thinkTime 每个用户两次请求之间的间隔，可为 0
+     */
+    RunResult runClosed(int concurrency, Duration duration, Duration thinkTime) throws InterruptedException {
+        RunResult result = new RunResult("closed", concurrency, 0, workload);
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            users.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    Workload.Next next = workload.next();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(next.request, HttpResponse.BodyHandlers.ofString());
+                        result.record(next.scenario, response, System.nanoTime() - start);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        result.recordError(next.scenario, System.nanoTime() - start);
+                    }
+                    if (!thinkTime.isZero()) {
+                        LockSupport.parkNanos(thinkTime.toNanos());
+                    }
+                }
+            });
+        }
+        users.shutdown();
+        if (!users.awaitTermination(duration.plus(REQUEST_TIMEOUT).toSeconds(), TimeUnit.SECONDS)) {
+            users.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    /**
+     * 开环压测
+     * @param ratePerSecond 每秒发起的请求数
+     * @param duration 持续时间
+     * @param maxInFlight 在途请求上限
+     */
+    RunResult runOpen(int ratePerSecond, Duration duration, int maxInFlight) throws InterruptedException {
+        RunResult result = new RunResult("open", maxInFlight, ratePerSecond, workload);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long started = System.nanoTime();
+        long total = duration.toNanos() / interval;
+        for (long i = 0; i < total; i++) {
+            long intended = started + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Workload.Next next = workload.next();
+            if (!inFlight.tryAcquire()) {
+                result.scenarios.get(next.scenario.name).rejected.increment();
+                continue;
+            }
+            client.sendAsync(next.request, HttpResponse.BodyHandlers.ofString())
+                    .orTimeout(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - intended;
+                        try {
+                            if (error != null) {
+                                result.recordError(next.scenario, latency);
+                            } else {
+                                result.record(next.scenario, response, latency);
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+        // 等待在途请求完成
+        if (!inFlight.tryAcquire(maxInFlight, REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            throw new IllegalStateException("在途请求未在超时时间内完成");
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    /**
+     * 一次压测的结果，按场景记录延迟分布（微秒）、失败数和开环模型下的拒绝数
+     */
+    static final class RunResult {
+        final String model;
+        final int concurrency;
+        final int rate;
+        final Map<String, ScenarioStats> scenarios = new LinkedHashMap<>();
+        long elapsedNanos;
+
+        RunResult(String model, int concurrency, int rate, Workload workload) {
+            this.model = model;
+            this.concurrency = concurrency;
+            this.rate = rate;
+            for (String name : workload.names()) {
+                scenarios.put(name, new ScenarioStats());
+            }
+        }
+
+        long totalCount() {
+            return scenarios.values().stream().mapToLong(ScenarioStats::count).sum();
+        }
+
+        long totalErrors() {
+            return scenarios.values().stream().mapToLong(ScenarioStats::errors).sum();
+        }
+
+        // 状态码 4xx/5xx 记为失败，成功响应交给场景处理
+        void record(Workload.Scenario scenario, HttpResponse<String> response, long latencyNanos) {
+            if (response.statusCode() >= 400) {
+                recordError(scenario, latencyNanos);
+                return;
+            }
+            scenarios.get(scenario.name).record(latencyNanos);
+            scenario.succeeded(response);
+        }
+
+        void recordError(Workload.Scenario scenario, long latencyNanos) {
+            ScenarioStats stats = scenarios.get(scenario.name);
+            stats.errors.increment();
+            stats.record(latencyNanos);
+        }
+    }
+
+    static final class ScenarioStats {
+        final Histogram histogram = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+        long count() {
+            return histogram.getTotalCount() + rejected.sum();
+        }
+
+        long errors() {
+            return errors.sum() + rejected.sum();
+        }
+
+        private void record(long latencyNanos) {
+            histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.solocoffee.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告输出和回归检查
+ *
+ * 报告以 JSON 写入 target/loadtest/&lt;名称&gt;.json，同时按时间戳保留一份，便于多次运行之间比较。
+ * 基线目录（-Dloadtest.baseline.dir，默认 src/test/resources/loadtest-baseline）中存在同名文件时，
+ * 按“模型/场景”逐项比较 p99 延迟和吞吐量，变差超过阈值（-Dloadtest.regression-threshold，默认 0.20）时返回回归项。
+ */
+final class LoadReport {
+
+    static final String OUTPUT_DIR = "target/loadtest";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final String name;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final ObjectNode root = objectMapper.createObjectNode();
+    private final ArrayNode runs;
+
+    /**
+     * @param name 报告名称，也是输出文件名
+     * @param threads 被测应用的请求执行模式（platform/virtual）
+     */
+    LoadReport(String name, String threads) {
+        this.name = name;
+        root.put("name", name);
+        root.put("startedAt", startedAt.toString());
+        ObjectNode environment = root.putObject("environment");
+        environment.put("threads", threads);
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / 1024 / 1024);
+        runs = root.putArray("runs");
+    }
+
+    LoadReport add(LoadGenerator.RunResult result) {
+        double seconds = result.elapsedNanos / 1e9;
+        ObjectNode run = runs.addObject();
+        run.put("model", result.model);
+        run.put("concurrency", result.concurrency);
+        run.put("rate", result.rate);
+        run.put("durationSeconds", round(seconds));
+        run.put("requests", result.totalCount());
+        run.put("errors", result.totalErrors());
+        run.put("throughput", round(result.totalCount() / seconds));
+        ObjectNode scenarios = run.putObject("scenarios");
+        for (Map.Entry<String, LoadGenerator.ScenarioStats> entry : result.scenarios.entrySet()) {
+            LoadGenerator.ScenarioStats stats = entry.getValue();
+            Histogram histogram = stats.histogram;
+            ObjectNode scenario = scenarios.putObject(entry.getKey());
+            scenario.put("count", stats.count());
+            scenario.put("errors", stats.errors());
+            scenario.put("throughput", round(stats.count() / seconds));
+            scenario.put("meanMs", millis(histogram.getMean()));
+            scenario.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            scenario.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+            scenario.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            scenario.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            scenario.put("maxMs", millis(histogram.getMaxValue()));
+        }
+        return this;
+    }
+
+    /**
+     * 写出报告：最新一份和带时间戳的一份
+     * @return 最新报告的路径
+     */
+    Path write() throws IOException {
+        Files.createDirectories(Paths.get(OUTPUT_DIR));
+        Path latest = Paths.get(OUTPUT_DIR, name + ".json");
+        objectMapper.writeValue(latest.toFile(), root);
+        objectMapper.writeValue(Paths.get(OUTPUT_DIR, name + "-" + startedAt.format(FILE_TIME_FORMATTER) + ".json")
+                .toFile(), root);
+        return latest;
+    }
+
+    // 文本汇总表，输出到控制台
+    String summary() {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode run : runs) {
+            text.append(String.format("%n[%s] 并发=%d 速率=%d/s 时长=%.1fs 请求=%d 失败=%d 吞吐=%.1f/s%n",
+                    run.path("model").asText(), run.path("concurrency").asInt(), run.path("rate").asInt(),
+                    run.path("durationSeconds").asDouble(), run.path("requests").asLong(),
+                    run.path("errors").asLong(), run.path("throughput").asDouble()));
+            text.append(String.format("%-12s %8s %6s %9s %9s %9s %9s %9s %9s%n",
+                    "场景", "请求", "失败", "吞吐/s", "p50ms", "p90ms", "p99ms", "p999ms", "maxms"));
+            run.path("scenarios").fields().forEachRemaining(entry -> {
+                JsonNode s = entry.getValue();
+                text.append(String.format("%-12s %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                        s.path("count").asLong(), s.path("errors").asLong(), s.path("throughput").asDouble(),
+                        s.path("p50Ms").asDouble(), s.path("p90Ms").asDouble(), s.path("p99Ms").asDouble(),
+                        s.path("p999Ms").asDouble(), s.path("maxMs").asDouble()));
+            });
+        }
+        return text.toString();
+    }
+
+    /**
+     * 对比平台线程和虚拟线程两种模式最近一次的报告，写入 target/loadtest/api-threads.txt
+     * @return 对比表，任一报告不存在时为 null
+     */
+    static String compareThreads(String platformName, String virtualName) throws IOException {
+        Path platform = Paths.get(OUTPUT_DIR, platformName + ".json");
+        Path virtual = Paths.get(OUTPUT_DIR, virtualName + ".json");
+        if (!Files.exists(platform) || !Files.exists(virtual)) {
+            return null;
+        }
+        String table = compareThreads(objectMapper.readTree(platform.toFile()), objectMapper.readTree(virtual.toFile()));
+        Files.writeString(Paths.get(OUTPUT_DIR, platformName + "-threads.txt"), table);
+        return table;
+    }
+
+    static String compareThreads(JsonNode platform, JsonNode virtual) {
+        Map<String, JsonNode> virtualScenarios = scenarios(virtual);
+        StringBuilder text = new StringBuilder(String.format("%n平台线程 vs 虚拟线程%n%-24s %12s %12s %12s %12s%n",
+                "模型/场景", "平台吞吐/s", "虚拟吞吐/s", "平台p99ms", "虚拟p99ms"));
+        for (Map.Entry<String, JsonNode> entry : scenarios(platform).entrySet()) {
+            JsonNode other = virtualScenarios.get(entry.getKey());
+            if (other == null) {
+                continue;
+            }
+            text.append(String.format("%-24s %12.1f %12.1f %12.2f %12.2f%n", entry.getKey(),
+                    entry.getValue().path("throughput").asDouble(), other.path("throughput").asDouble(),
+                    entry.getValue().path("p99Ms").asDouble(), other.path("p99Ms").asDouble()));
+        }
+        return text.toString();
+    }
+
+    /**
+     * 与基线比较
+     * @return 回归项说明，没有基线或没有回归时为空
+     */
+    List<String> findRegressions() throws IOException {
+        Path baseline = Paths.get(System.getProperty("loadtest.baseline.dir", "src/test/resources/loadtest-baseline"),
+                name + ".json");
+        if (!Files.exists(baseline)) {
+            System.out.println("未找到基线 " + baseline + "，跳过回归检查");
+            return new ArrayList<>();
+        }
+        double threshold = Double.parseDouble(System.getProperty("loadtest.regression-threshold", "0.20"));
+        return compare(objectMapper.readTree(baseline.toFile()), root, threshold);
+    }
+
+    /**
+     * 逐项比较两份报告，基线中没有的模型或场景跳过
+     * p99 越低越好，吞吐量越高越好
+     */
+    static List<String> compare(JsonNode baseline, JsonNode current, double threshold) {
+        Map<String, JsonNode> baselineScenarios = scenarios(baseline);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : scenarios(current).entrySet()) {
+            JsonNode before = baselineScenarios.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double beforeP99 = before.path("p99Ms").asDouble();
+            double afterP99 = after.path("p99Ms").asDouble();
+            if (beforeP99 > 0 && afterP99 / beforeP99 - 1 > threshold) {
+                regressions.add(String.format("%s p99: %.2f -> %.2f ms (%+.1f%%)", entry.getKey(), beforeP99, afterP99,
+                        (afterP99 / beforeP99 - 1) * 100));
+            }
+            double beforeThroughput = before.path("throughput").asDouble();
+            double afterThroughput = after.path("throughput").asDouble();
+            if (afterThroughput > 0 && beforeThroughput / afterThroughput - 1 > threshold) {
+                regressions.add(String.format("%s 吞吐量: %.1f -> %.1f/s (%+.1f%%)", entry.getKey(), beforeThroughput,
+                        afterThroughput, (afterThroughput / beforeThroughput - 1) * 100));
+            }
+        }
+        return regressions;
+    }
+
+    // 模型/场景 -> 场景结果
+    private static Map<String, JsonNode> scenarios(JsonNode report) {
+        Map<String, JsonNode> scenarios = new LinkedHashMap<>();
+        for (JsonNode run : report.path("runs")) {
+            String model = run.path("model").asText();
+            run.path("scenarios").fields().forEachRemaining(entry ->
+                    scenarios.put(model + "/" + entry.getKey(), entry.getValue()));
+        }
+        return scenarios;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
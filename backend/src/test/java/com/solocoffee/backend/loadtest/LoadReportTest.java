@@ -0,0 +1,79 @@
+package com.solocoffee.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadReportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testCompareFlagsP99AndThroughputRegressions() throws Exception {
+        JsonNode baseline = report(
+                run("closed", scenario("createOrder", 12.0, 100) + "," + scenario("products", 5.0, 300)),
+                run("open", scenario("createOrder", 20.0, 50)));
+        JsonNode current = report(
+                // p99 变长30%，超过20%阈值；吞吐量不变
+                run("closed", scenario("createOrder", 15.6, 100)
+                        // 吞吐量下降到200，相当于变差50%
+                        + "," + scenario("products", 5.0, 200)
+                        // 基线中没有，跳过
+                        + "," + scenario("overview", 99.0, 1)),
+                // 变化在阈值内
+                run("open", scenario("createOrder", 22.0, 48)));
+
+        List<String> regressions = LoadReport.compare(baseline, current, 0.20);
+
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("closed/createOrder p99"));
+        assertTrue(regressions.get(1).startsWith("closed/products 吞吐量"));
+    }
+
+    @Test
+    void testReportContainsRunsAndPercentiles() {
+        Workload workload = new Workload().add("products", 1, () -> null, null);
+        LoadGenerator.RunResult result = new LoadGenerator.RunResult("closed", 4, 0, workload);
+        LoadGenerator.ScenarioStats stats = result.scenarios.get("products");
+        for (int i = 1; i <= 100; i++) {
+            stats.histogram.recordValue(i * 1000L);
+        }
+        stats.errors.increment();
+        result.elapsedNanos = 2_000_000_000L;
+
+        String summary = new LoadReport("unit", "platform").add(result).summary();
+
+        assertTrue(summary.contains("[closed]"));
+        assertTrue(summary.matches("(?s).*products\\s+100\\s+1\\s+50\\.0\\s+50\\.\\d+\\s+90\\.\\d+\\s+99\\.\\d+.*"),
+                summary);
+    }
+
+    @Test
+    void testCompareThreadsListsBothModesPerScenario() throws Exception {
+        JsonNode platform = report(run("closed",
+                scenario("createOrder", 40.0, 80) + "," + scenario("products", 9.0, 200)));
+        JsonNode virtual = report(run("closed", scenario("createOrder", 30.0, 95)));
+
+        String table = LoadReport.compareThreads(platform, virtual);
+
+        assertTrue(table.matches("(?s).*closed/createOrder\\s+80\\.0\\s+95\\.0\\s+40\\.00\\s+30\\.00.*"), table);
+        // 只有一种模式有结果的场景不输出
+        assertFalse(table.contains("closed/products"));
+    }
+
+    private JsonNode report(String... runs) throws Exception {
+        return objectMapper.readTree("{\"runs\":[" + String.join(",", runs) + "]}");
+    }
+
+    private String run(String model, String scenarios) {
+        return "{\"model\":\"" + model + "\",\"scenarios\":{" + scenarios + "}}";
+    }
+
+    private String scenario(String name, double p99, double throughput) {
+        return "\"" + name + "\":{\"p99Ms\":" + p99 + ",\"throughput\":" + throughput + "}";
+    }
+}
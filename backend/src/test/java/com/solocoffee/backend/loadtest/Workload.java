@@ -0,0 +1,82 @@
+package com.solocoffee.backend.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 压测负载：按权重混合的一组接口场景
+ */
+final class Workload {
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private int totalWeight;
+
+    /**
+     * 添加场景
+     * @param name 场景名称，报告中按名称汇总
+     * @param weight 权重
+     * @param request 构造请求，暂时无法构造（如没有可更新的订单）时返回 null，改选其他场景
+     * @param onSuccess 成功响应的处理，可为 null
+     */
+    Workload add(String name, int weight, Supplier<HttpRequest> request, Consumer<HttpResponse<String>> onSuccess) {
+        scenarios.add(new Scenario(name, weight, request, onSuccess));
+        totalWeight += weight;
+        return this;
+    }
+
+    List<String> names() {
+        return scenarios.stream().map(scenario -> scenario.name).toList();
+    }
+
+    // 按权重随机选择一个能构造出请求的场景
+    Next next() {
+        while (true) {
+            int value = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (Scenario scenario : scenarios) {
+                value -= scenario.weight;
+                if (value < 0) {
+                    HttpRequest request = scenario.request.get();
+                    if (request != null) {
+                        return new Next(scenario, request);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    static final class Scenario {
+        final String name;
+        final int weight;
+        private final Supplier<HttpRequest> request;
+        private final Consumer<HttpResponse<String>> onSuccess;
+
+        Scenario(String name, int weight, Supplier<HttpRequest> request, Consumer<HttpResponse<String>> onSuccess) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+            this.onSuccess = onSuccess;
+        }
+
+        void succeeded(HttpResponse<String> response) {
+            if (onSuccess != null) {
+                onSuccess.accept(response);
+            }
+        }
+    }
+
+    static final class Next {
+        final Scenario scenario;
+        final HttpRequest request;
+
+        Next(Scenario scenario, HttpRequest request) {
+            this.scenario = scenario;
+            this.request = request;
+        }
+    }
+}
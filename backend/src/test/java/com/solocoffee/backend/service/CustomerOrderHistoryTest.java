@@ -0,0 +1,120 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.CustomerOrderHistory;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 顾客订单历史读模型测试：由订单事件维护，分页查询只读读模型表
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "outbox.relay.interval-ms=3600000"
+})
+class CustomerOrderHistoryTest {
+
+    private static final long STORE_ID = 9003L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerOrderHistoryService historyService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testHistoryIsMaintainedFromOrderEventsAndPagedByKeyset() {
+        long customerId = 7001L;
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            created.add(orderService.createOrder(newOrder(customerId)).getId());
+        }
+        orderService.updateOrderStatus(created.get(24), OrderStateMachine.CANCELLED);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<CustomerOrderHistory> all = new ArrayList<>();
+        Slice<CustomerOrderHistory> page = historyService.getHistory(customerId, null, null, 10);
+        all.addAll(page.getContent());
+        while (page.hasNext()) {
+            CustomerOrderHistory last = page.getContent().get(page.getNumberOfElements() - 1);
+            page = historyService.getHistory(customerId, last.getCreatedAt(), last.getOrderId(), 10);
+            all.addAll(page.getContent());
+        }
+
+        // 每页一条查询，不读取订单和商品行
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(25, all.size());
+        Set<Long> orderIds = new HashSet<>();
+        all.forEach(history -> orderIds.add(history.getOrderId()));
+        assertEquals(new HashSet<>(created), orderIds);
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getCreatedAt().isAfter(all.get(i - 1).getCreatedAt()));
+        }
+        CustomerOrderHistory cancelled = all.stream()
+                .filter(history -> history.getOrderId().equals(created.get(24))).findFirst().orElseThrow();
+        assertEquals(OrderStateMachine.CANCELLED, cancelled.getOrderStatus());
+    }
+
+    @Test
+    void testRebuildBackfillsOrdersWrittenOutsideOrderService() {
+        long customerId = 7002L;
+        Order order = newOrder(customerId);
+        order.setOrderNo("HIST-REBUILD");
+        order.setOrderStatus(OrderStateMachine.COMPLETED);
+        order.setPaymentMethod(1);
+        order.setOrderItems(new ArrayList<>(List.of(item(order, "拿铁", 2), item(order, "美式", 1))));
+        orderRepository.save(order);
+
+        assertTrue(historyService.rebuild() >= 1);
+        assertEquals(0, historyService.rebuild());
+
+        List<CustomerOrderHistory> history = historyService.getHistory(customerId, null, null, 10).getContent();
+        assertEquals(1, history.size());
+        assertEquals("拿铁 x2, 美式", history.get(0).getItemNames());
+        assertEquals(3, history.get(0).getItemCount());
+    }
+
+    private Order newOrder(Long customerId) {
+        Order order = new Order();
+        order.setStoreId(STORE_ID);
+        order.setCustomerId(customerId);
+        order.setTotalAmount(new BigDecimal("12.00"));
+        order.setActualAmount(new BigDecimal("12.00"));
+        return order;
+    }
+
+    private OrderItem item(Order order, String name, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(1L);
+        item.setProductName(name);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal("6.00"));
+        item.setSubtotal(new BigDecimal("6.00").multiply(BigDecimal.valueOf(quantity)));
+        return item;
+    }
+}
@@ -0,0 +1,105 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.Customer;
+import com.solocoffee.backend.entity.PointsRecord;
+import com.solocoffee.backend.repository.CustomerRepository;
+import com.solocoffee.backend.repository.PointsRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerServiceTest {
+
+    private static final int EARNED = 1;
+    private static final int REVOKED = 4;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PointsRecordRepository pointsRecordRepository;
+
+    @InjectMocks
+    private CustomerService customerService;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        customer = new Customer();
+        customer.setId(7L);
+        customer.setPoints(1010);
+        customer.setMemberLevelId(2L);
+        when(customerRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(customer));
+    }
+
+    @Test
+    void testRevokePointsDeductsEarnedPointsOnce() {
+        when(pointsRecordRepository.findByCustomerIdAndRelatedId(7L, 100L)).thenReturn(List.of(record(38, EARNED)));
+
+        assertEquals(38, customerService.revokePoints(7L, EARNED, REVOKED, 100L, "订单退款扣回积分: ORD100"));
+
+        assertEquals(972, customer.getPoints());
+        // 扣回后低于1000积分，降为普通会员
+        assertEquals(1L, customer.getMemberLevelId());
+        ArgumentCaptor<PointsRecord> saved = ArgumentCaptor.forClass(PointsRecord.class);
+        verify(pointsRecordRepository).save(saved.capture());
+        assertEquals(-38, saved.getValue().getPoints());
+        assertEquals(REVOKED, saved.getValue().getType());
+
+        // 已有扣回记录时不再扣除
+        when(pointsRecordRepository.findByCustomerIdAndRelatedId(7L, 100L))
+                .thenReturn(List.of(record(38, EARNED), saved.getValue()));
+        assertEquals(0, customerService.revokePoints(7L, EARNED, REVOKED, 100L, "订单退款扣回积分: ORD100"));
+        assertEquals(972, customer.getPoints());
+    }
+
+    @Test
+    void testRevokePointsWithoutEarnedRecordDoesNothing() {
+        // 未完成就退款的订单没有获得积分，其他类型的记录不计入
+        when(pointsRecordRepository.findByCustomerIdAndRelatedId(7L, 100L)).thenReturn(List.of(record(-50, 2)));
+
+        assertEquals(0, customerService.revokePoints(7L, EARNED, REVOKED, 100L, "订单退款扣回积分: ORD100"));
+
+        assertEquals(1010, customer.getPoints());
+        verify(pointsRecordRepository, never()).save(any());
+    }
+
+    @Test
+    void testRevokePointsStopsAtZeroBalance() {
+        customer.setPoints(10);
+        when(pointsRecordRepository.findByCustomerIdAndRelatedId(7L, 100L)).thenReturn(List.of(record(38, EARNED)));
+
+        assertEquals(10, customerService.revokePoints(7L, EARNED, REVOKED, 100L, "订单退款扣回积分: ORD100"));
+
+        assertEquals(0, customer.getPoints());
+    }
+
+    @Test
+    void testAddPointsIfSkipsWhenConditionFails() {
+        assertNull(customerService.addPointsIf(7L, 38, EARNED, 100L, "订单消费获得积分: ORD100", () -> false));
+
+        assertEquals(1010, customer.getPoints());
+        verify(pointsRecordRepository, never()).save(any());
+    }
+
+    private PointsRecord record(int points, int type) {
+        PointsRecord record = new PointsRecord();
+        record.setCustomerId(7L);
+        record.setPoints(points);
+        record.setType(type);
+        record.setRelatedId(100L);
+        return record;
+    }
+}
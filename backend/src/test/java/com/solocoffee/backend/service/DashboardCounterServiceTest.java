@@ -0,0 +1,170 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.DashboardCheckpoint;
+import com.solocoffee.backend.event.OrderStatusChangedEvent;
+import com.solocoffee.backend.repository.CustomerRepository;
+import com.solocoffee.backend.repository.DashboardCheckpointRepository;
+import com.solocoffee.backend.repository.InventoryRepository;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DashboardCounterServiceTest {
+
+    private static final long STORE_ID = 1L;
+
+    @Mock
+    private DashboardCheckpointRepository checkpointRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private DashboardCounterService counterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(checkpointRepository.save(any(DashboardCheckpoint.class))).thenAnswer(invocation -> {
+            DashboardCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoint.setId(1L);
+            return checkpoint;
+        });
+    }
+
+    @Test
+    void testOrderEventsUpdateTodayCounters() {
+        counterService.record(event(null, OrderStateMachine.PENDING, "12.50"));
+        counterService.record(event(null, OrderStateMachine.PENDING, "20.00"));
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "12.50"));
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "20.00"));
+        counterService.record(event(OrderStateMachine.COMPLETED, OrderStateMachine.REFUNDED, "20.00"));
+
+        Map<String, Object> overview = counterService.getOverview(STORE_ID);
+        assertEquals(0, new BigDecimal("12.50").compareTo((BigDecimal) overview.get("todaySales")));
+        assertEquals(2L, overview.get("todayOrderCount"));
+        // 读取不查询订单表，订单事件不查询库存
+        verify(orderRepository, never()).countByStoreAndMinute(any(), any());
+        verifyNoInteractions(inventoryRepository);
+
+        // 低库存数在快照时刷新
+        when(inventoryRepository.countLowStockByStore()).thenReturn(List.<Object[]>of(new Object[]{STORE_ID, 3L}));
+        counterService.checkpoint();
+        assertEquals(3L, counterService.getOverview(STORE_ID).get("lowStockCount"));
+    }
+
+    @Test
+    void testRefundSubtractsOnlyCompletedOrders() {
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "30.00"));
+        // 已完成的订单经退款中到已退款，只冲减一次
+        counterService.record(event(OrderStateMachine.COMPLETED, OrderStateMachine.REFUNDING, "30.00"));
+        counterService.record(event(OrderStateMachine.REFUNDING, OrderStateMachine.REFUNDED, "30.00"));
+        // 未完成就退款的订单没有计入销售额，不冲减
+        counterService.record(event(OrderStateMachine.PENDING, OrderStateMachine.REFUNDING, "18.00"));
+        counterService.record(event(OrderStateMachine.REFUNDING, OrderStateMachine.REFUNDED, "18.00"));
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "12.00"));
+        // 直接从已完成退款
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "8.00"));
+        counterService.record(event(OrderStateMachine.COMPLETED, OrderStateMachine.REFUNDED, "8.00"));
+
+        assertEquals(0, new BigDecimal("12.00").compareTo(
+                (BigDecimal) counterService.getOverview(STORE_ID).get("todaySales")));
+    }
+
+    @Test
+    void testComparesWithYesterdayAtSameTime() {
+        // 昨天每个15分钟分段销售1元、1单
+        LocalDate today = LocalDate.now();
+        DashboardCheckpoint yesterday = new DashboardCheckpoint();
+        yesterday.setId(5L);
+        yesterday.setStoreId(STORE_ID);
+        yesterday.setBusinessDate(today.minusDays(1));
+        yesterday.setSalesSlots(String.join(",", Collections.nCopies(DashboardCounterService.SLOTS, "100")));
+        yesterday.setOrderSlots(String.join(",", Collections.nCopies(DashboardCounterService.SLOTS, "1")));
+        yesterday.setLowStockCount(4L);
+        when(checkpointRepository.findByBusinessDateIn(anyCollection())).thenReturn(List.of(yesterday));
+        when(inventoryRepository.countLowStockByStore()).thenReturn(List.<Object[]>of(new Object[]{STORE_ID, 6L}));
+        counterService.restore();
+
+        // 今天没有快照，从订单表统计初始化：订单数按下单时间，销售额按完成时间
+        verify(orderRepository).countByStoreAndMinute(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        verify(orderRepository).sumCompletedByStoreAndMinute(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+
+        counterService.record(event(null, OrderStateMachine.PENDING, "30.00"));
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "30.00"));
+
+        // 12:07:30，昨天同一时刻为48个整段加半段
+        Map<String, Object> overview = counterService.getOverview(STORE_ID, today.atTime(LocalTime.of(12, 7, 30)));
+        assertEquals(0, new BigDecimal("48.50").compareTo((BigDecimal) overview.get("yesterdaySales")));
+        assertEquals(-38.1, (Double) overview.get("salesGrowth"), 0.001);
+        assertEquals(49L, overview.get("yesterdayOrderCount"));
+        assertEquals(6L, overview.get("lowStockCount"));
+        assertEquals(2L, overview.get("inventoryGrowth"));
+    }
+
+    @Test
+    void testCheckpointWritesChangedStoresAndRestoresCounters() {
+        counterService.record(event(null, OrderStateMachine.PENDING, "8.00"));
+        counterService.record(event(OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED, "8.00"));
+
+        counterService.checkpoint();
+
+        ArgumentCaptor<DashboardCheckpoint> saved = ArgumentCaptor.forClass(DashboardCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        DashboardCheckpoint today = saved.getAllValues().stream()
+                .filter(checkpoint -> checkpoint.getBusinessDate().equals(LocalDate.now()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(800L, sumSlots(today.getSalesSlots()));
+        assertEquals(1L, sumSlots(today.getOrderSlots()));
+
+        // 没有变化时不再写入
+        counterService.checkpoint();
+        verify(checkpointRepository, times(2)).save(any(DashboardCheckpoint.class));
+
+        // 新实例从快照恢复
+        when(checkpointRepository.findByBusinessDateIn(anyCollection())).thenReturn(List.of(today));
+        DashboardCounterService restored = new DashboardCounterService();
+        ReflectionTestUtils.setField(restored, "checkpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(restored, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(restored, "inventoryRepository", inventoryRepository);
+        ReflectionTestUtils.setField(restored, "customerRepository", customerRepository);
+        restored.restore();
+        assertEquals(0, new BigDecimal("8.00").compareTo(
+                (BigDecimal) restored.getOverview(STORE_ID).get("todaySales")));
+    }
+
+    private long sumSlots(String slots) {
+        long total = 0;
+        for (String value : slots.split(",")) {
+            total += Long.parseLong(value);
+        }
+        return total;
+    }
+
+    private OrderStatusChangedEvent event(Integer from, int to, String amount) {
+        return new OrderStatusChangedEvent(100L, "ORD100", STORE_ID, null, from, to, new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,150 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CSV 导出测试：在线和归档订单按时间顺序写出，字段转义，gzip 输出
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "outbox.relay.interval-ms=3600000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportServiceTest {
+
+    private static final long STORE_ID = 9009L;
+    private static final LocalDateTime MAR = LocalDateTime.of(2023, 3, 15, 9, 0);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        // 3月的订单归档，4月的订单留在在线表
+        save("EXP-ARCHIVED", MAR, "少冰", item("拿铁", 2, "30.00"));
+        save("EXP-ONLINE", MAR.plusMonths(1), "多加糖, \"热\"", item("=美式", 1, "12.00"), item("摩卡", 1, "18.00"));
+        orderArchiveService.archive(LocalDateTime.of(2023, 4, 1, 0, 0));
+    }
+
+    @Test
+    void testExportsArchivedAndOnlineOrdersInTimeOrder() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = exportService.download("orders", false,
+                csv -> exportService.writeOrders(query(), csv));
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains(".csv"));
+
+        List<String> lines = lines(response, false);
+        assertTrue(lines.get(0).startsWith("\uFEFF订单ID,订单号"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains(",EXP-ARCHIVED,9009,"));
+        assertTrue(lines.get(1).contains(",2023-03-15 09:00:00,"));
+        assertTrue(lines.get(1).endsWith(",少冰"));
+        assertTrue(lines.get(2).contains(",EXP-ONLINE,9009,"));
+        assertTrue(lines.get(2).endsWith(",\"多加糖, \"\"热\"\"\""));
+    }
+
+    @Test
+    void testExportsItemsGzipped() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = exportService.download("order-items", true,
+                csv -> exportService.writeOrderItems(query(), csv));
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains(".csv.gz"));
+
+        List<String> lines = lines(response, true);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("EXP-ARCHIVED,9009,3,2023-03-15 09:00:00,"));
+        assertTrue(lines.get(1).contains(",拿铁,2,15.00,30.00,"));
+        // 以 = 开头的文本加单引号前缀，不被 Excel 当作公式
+        assertTrue(lines.stream().anyMatch(line -> line.contains(",'=美式,1,12.00,12.00,")));
+    }
+
+    @Test
+    void testFiltersByTimeRange() throws IOException {
+        OrderQueryDTO query = query();
+        query.setEndTime(MAR.plusDays(1));
+        List<String> lines = lines(exportService.download("orders", false,
+                csv -> exportService.writeOrders(query, csv)), false);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains(",EXP-ARCHIVED,"));
+    }
+
+    private OrderQueryDTO query() {
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStoreId(STORE_ID);
+        query.setStartTime(LocalDateTime.of(2023, 3, 1, 0, 0));
+        return query;
+    }
+
+    private List<String> lines(ResponseEntity<StreamingResponseBody> response, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        if (gzip) {
+            in = new GZIPInputStream(in);
+        }
+        return List.of(new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\r\n"));
+    }
+
+    private void save(String orderNo, LocalDateTime createdAt, String remarks, OrderItem... items) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setStoreId(STORE_ID);
+        order.setOrderStatus(OrderStateMachine.COMPLETED);
+        order.setPaymentMethod(1);
+        order.setRemarks(remarks);
+        BigDecimal amount = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            amount = amount.add(item.getSubtotal());
+        }
+        order.setTotalAmount(amount);
+        order.setActualAmount(amount);
+        order.setOrderItems(new ArrayList<>(List.of(items)));
+        Long id = orderRepository.save(order).getId();
+        // 创建时间由实体回调设置为当前时间，这里改为指定的历史时间
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+    }
+
+    private OrderItem item(String productName, int quantity, String subtotal) {
+        OrderItem item = new OrderItem();
+        item.setProductId(9901L);
+        item.setProductName(productName);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(subtotal).divide(BigDecimal.valueOf(quantity)));
+        item.setSubtotal(new BigDecimal(subtotal));
+        return item;
+    }
+}
@@ -0,0 +1,187 @@
+package com.solocoffee.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solocoffee.backend.common.ApiResponse;
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.IdempotencyRecord;
+import com.solocoffee.backend.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> BODY = Map.of("storeId", 1);
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotencyRecordRepository.findByRecordKey(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testRepeatReturnsCachedResponse() {
+        ResponseEntity<ApiResponse<?>> first = idempotencyService.execute("order-create", "key-1", request, BODY,
+                this::createOrder);
+        ResponseEntity<ApiResponse<?>> second = idempotencyService.execute("order-create", "key-1", request, BODY,
+                this::createOrder);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(first.getBody().getRequestId(), second.getBody().getRequestId());
+        assertEquals(1001, ((Map<?, ?>) second.getBody().getData()).get("orderId"));
+        verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+
+        // 同一个键用于其他接口时互不影响
+        idempotencyService.execute("order-pay:1", "key-1", request, BODY, this::createOrder);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testConcurrentDuplicatesExecuteOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<ApiResponse<?>>> first = executor.submit(() ->
+                    idempotencyService.execute("order-create", "key-2", request, BODY, () -> {
+                        started.countDown();
+                        await(release);
+                        return createOrder();
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<ApiResponse<?>>> second = executor.submit(() ->
+                    idempotencyService.execute("order-create", "key-2", request, BODY, this::createOrder));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS).getBody().getRequestId(),
+                    second.get(5, TimeUnit.SECONDS).getBody().getRequestId());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedRequestIsNotCached() {
+        assertThrows(BizException.class, () -> idempotencyService.execute("order-create", "key-3", request, BODY,
+                () -> {
+                    throw new BizException(ErrorCode.INSUFFICIENT_INVENTORY);
+                }));
+
+        idempotencyService.execute("order-create", "key-3", request, BODY, this::createOrder);
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testPersistedRecordIsReplayed() throws Exception {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRecordKey("order-create:key-4");
+        record.setStatusCode(200);
+        record.setResponseBody(objectMapper.writeValueAsString(ApiResponse.success(Map.of("orderId", 7))));
+        record.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        when(idempotencyRecordRepository.findByRecordKey("order-create:key-4")).thenReturn(Optional.of(record));
+
+        ResponseEntity<ApiResponse<?>> response = idempotencyService.execute("order-create", "key-4", request, BODY,
+                this::createOrder);
+
+        assertEquals(0, executions.get());
+        assertEquals(7, ((Map<?, ?>) response.getBody().getData()).get("orderId"));
+    }
+
+    @Test
+    void testReusedKeyWithDifferentBodyIsRejected() {
+        idempotencyService.execute("order-create", "key-5", request, BODY, this::createOrder);
+
+        BizException e = assertThrows(BizException.class, () -> idempotencyService.execute("order-create", "key-5",
+                request, Map.of("storeId", 2), this::createOrder));
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, e.getErrorCode());
+        assertEquals(1, executions.get());
+
+        // 字段顺序不同的相同请求体仍然回放
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("storeId", 1);
+        first.put("remarks", "少冰");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("remarks", "少冰");
+        reordered.put("storeId", 1);
+        idempotencyService.execute("order-create", "key-6", request, first, this::createOrder);
+        ResponseEntity<ApiResponse<?>> replayed = idempotencyService.execute("order-create", "key-6", request,
+                reordered, this::createOrder);
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testPersistedRecordWithDifferentHashIsRejected() throws Exception {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRecordKey("order-create:key-7");
+        record.setRequestHash("0".repeat(64));
+        record.setStatusCode(200);
+        record.setResponseBody(objectMapper.writeValueAsString(ApiResponse.success(Map.of("orderId", 7))));
+        record.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        when(idempotencyRecordRepository.findByRecordKey("order-create:key-7")).thenReturn(Optional.of(record));
+
+        assertThrows(BizException.class, () -> idempotencyService.execute("order-create", "key-7", request, BODY,
+                this::createOrder));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testMissingKeyAlwaysExecutes() {
+        idempotencyService.execute("order-create", null, request, BODY, this::createOrder);
+        idempotencyService.execute("order-create", null, request, BODY, this::createOrder);
+
+        assertEquals(2, executions.get());
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+    }
+
+    private ResponseEntity<ApiResponse<?>> createOrder() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok(ApiResponse.success("订单创建成功", Map.of("orderId", 1001)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.InventoryReservation;
+import com.solocoffee.backend.repository.InventoryReservationRepository;
+import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InventoryReservationServiceTest {
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+
+    @Mock
+    private RawMaterialInventoryRepository rawMaterialInventoryRepository;
+
+    @InjectMocks
+    private InventoryReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        // 门店1的牛奶(10)还剩500
+        when(rawMaterialInventoryRepository.findQuantities(eq(1L), anyCollection()))
+                .thenReturn(Map.of(10L, BigDecimal.valueOf(500)));
+        when(reservationRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationRepository.updateStatusIf(any(), eq(InventoryReservationService.STATUS_HELD), anyInt()))
+                .thenReturn(1);
+    }
+
+    @Test
+    void testReserveRejectsWhenHeldByOtherOrders() {
+        reservationService.reserve(1L, 1L, Map.of(10L, BigDecimal.valueOf(300)));
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(reservationService.getReservedQuantities(1L).get(10L)));
+
+        // 第二单单看库存足够，但已有300被占用
+        BizException e = assertThrows(BizException.class,
+                () -> reservationService.reserve(2L, 1L, Map.of(10L, BigDecimal.valueOf(300))));
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY, e.getErrorCode());
+
+        // 其他门店不受影响
+        when(rawMaterialInventoryRepository.findQuantities(eq(2L), anyCollection()))
+                .thenReturn(Map.of(10L, BigDecimal.valueOf(500)));
+        reservationService.reserve(3L, 2L, Map.of(10L, BigDecimal.valueOf(300)));
+    }
+
+    @Test
+    void testHoldEachSkipsOrdersThatNoLongerFit() {
+        List<Long> shortages = reservationService.holdEach(1L, List.of(
+                Map.of(10L, BigDecimal.valueOf(200)),
+                Map.of(10L, BigDecimal.valueOf(400)),
+                Map.of(10L, BigDecimal.valueOf(300))));
+
+        // 第二单在第一单占用200后只剩300，被跳过；第三单正好用完
+        assertNull(shortages.get(0));
+        assertEquals(10L, shortages.get(1));
+        assertNull(shortages.get(2));
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(reservationService.getReservedQuantities(1L).get(10L)));
+        verify(rawMaterialInventoryRepository, times(1)).findQuantities(eq(1L), anyCollection());
+    }
+
+    @Test
+    void testReleaseFreesHeldQuantity() {
+        List<InventoryReservation> held = reservationService.reserve(1L, 1L, Map.of(10L, BigDecimal.valueOf(300)));
+        assertEquals(InventoryReservationService.STATUS_HELD, held.get(0).getStatus());
+        when(reservationRepository.findByOrderIdAndStatus(1L, InventoryReservationService.STATUS_HELD))
+                .thenReturn(held);
+
+        reservationService.release(1L);
+
+        assertEquals(InventoryReservationService.STATUS_RELEASED, held.get(0).getStatus());
+        assertTrue(reservationService.getReservedQuantities(1L).isEmpty());
+        reservationService.reserve(2L, 1L, Map.of(10L, BigDecimal.valueOf(500)));
+    }
+
+    @Test
+    void testReleaseExpired() {
+        List<InventoryReservation> held = reservationService.reserve(1L, 1L, Map.of(10L, BigDecimal.valueOf(300)));
+        when(reservationRepository.findByStatusAndExpiresAtBefore(eq(InventoryReservationService.STATUS_HELD), any()))
+                .thenReturn(held);
+
+        reservationService.releaseExpired();
+
+        assertEquals(InventoryReservationService.STATUS_EXPIRED, held.get(0).getStatus());
+        assertTrue(reservationService.getReservedQuantities(1L).isEmpty());
+    }
+
+    @Test
+    void testExpiredReservationIsNotSubtractedAgainOnCompletion() {
+        List<InventoryReservation> held = reservationService.reserve(1L, 1L, Map.of(10L, BigDecimal.valueOf(300)));
+        reservationService.reserve(2L, 1L, Map.of(10L, BigDecimal.valueOf(200)));
+        when(reservationRepository.findByStatusAndExpiresAtBefore(eq(InventoryReservationService.STATUS_HELD), any()))
+                .thenReturn(held);
+        reservationService.releaseExpired();
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(reservationService.getReservedQuantities(1L).get(10L)));
+
+        // 订单1完成时读到的仍是占用中，但过期释放已先更新，条件更新返回0行
+        when(reservationRepository.findByOrderIdAndStatus(1L, InventoryReservationService.STATUS_HELD))
+                .thenReturn(held);
+        when(reservationRepository.updateStatusIf(any(), eq(InventoryReservationService.STATUS_HELD),
+                eq(InventoryReservationService.STATUS_DEDUCTED))).thenReturn(0);
+        reservationService.convertToDeduction(1L);
+
+        assertEquals(InventoryReservationService.STATUS_EXPIRED, held.get(0).getStatus());
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(reservationService.getReservedQuantities(1L).get(10L)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.dto.MakeLineOrder;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MakeLineServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private MakeLineService makeLineService;
+
+    // 提交的发送任务，由测试决定何时执行
+    private final List<Runnable> sends = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(makeLineService, "sseExecutor", (Executor) sends::add);
+    }
+
+    @Test
+    void testQueueIsOrderedByPickupTimeThenCreatedAt() {
+        // 订单1 9:00下单无取餐时间，订单2 8:50下单预约9:30取餐，订单3 9:05下单预约8:55取餐（按取餐时间排在最前）
+        when(orderRepository.findWithOrderItemsByStoreIdAndOrderStatus(1L, OrderStateMachine.PREPARING))
+                .thenReturn(List.of(order(1L, NOW, null), order(2L, NOW.minusMinutes(10), NOW.plusMinutes(30)),
+                        order(3L, NOW.plusMinutes(5), NOW.minusMinutes(5))));
+
+        assertEquals(List.of(3L, 1L, 2L), orderIds(makeLineService.getQueue(1L)));
+
+        // 只在首次访问时加载
+        makeLineService.getQueue(1L);
+        verify(orderRepository, times(1)).findWithOrderItemsByStoreIdAndOrderStatus(1L, OrderStateMachine.PREPARING);
+    }
+
+    @Test
+    void testStatusTransitionsAddAndRemoveOrders() {
+        when(orderRepository.findWithOrderItemsByStoreIdAndOrderStatus(1L, OrderStateMachine.PREPARING))
+                .thenReturn(List.of(order(1L, NOW, null)));
+        makeLineService.getQueue(1L);
+
+        when(orderRepository.findWithOrderItemsById(4L)).thenReturn(Optional.of(order(4L, NOW.minusMinutes(1), null)));
+        makeLineService.onStatusChanged(4L, 1L, OrderStateMachine.PENDING, OrderStateMachine.PREPARING);
+        assertEquals(List.of(4L, 1L), orderIds(makeLineService.getQueue(1L)));
+        assertEquals("Latte", makeLineService.getQueue(1L).get(0).getItems().get(0).getProductName());
+
+        makeLineService.onStatusChanged(1L, 1L, OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED);
+        assertEquals(List.of(4L), orderIds(makeLineService.getQueue(1L)));
+
+        // 与制作中无关的状态变更不查询数据库
+        makeLineService.onStatusChanged(5L, 1L, null, OrderStateMachine.PENDING);
+        verify(orderRepository, never()).findWithOrderItemsById(5L);
+    }
+
+    @Test
+    void testStaleAddIsIgnoredWhenOrderAlreadyLeftQueue() {
+        makeLineService.getQueue(1L);
+        Order completed = order(4L, NOW, null);
+        completed.setOrderStatus(OrderStateMachine.COMPLETED);
+        when(orderRepository.findWithOrderItemsById(4L)).thenReturn(Optional.of(completed));
+
+        makeLineService.onStatusChanged(4L, 1L, OrderStateMachine.PENDING, OrderStateMachine.PREPARING);
+
+        assertTrue(makeLineService.getQueue(1L).isEmpty());
+    }
+
+    @Test
+    void testLateAddAfterRemovalIsDropped() {
+        when(orderRepository.findWithOrderItemsByStoreIdAndOrderStatus(1L, OrderStateMachine.PREPARING))
+                .thenReturn(List.of(order(1L, NOW, null)));
+        makeLineService.getQueue(1L);
+        // 数据库读到的仍是制作中，但完成事件已先处理
+        when(orderRepository.findWithOrderItemsById(1L)).thenReturn(Optional.of(order(1L, NOW, null)));
+
+        makeLineService.onStatusChanged(1L, 1L, OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED);
+        makeLineService.onStatusChanged(1L, 1L, OrderStateMachine.PENDING, OrderStateMachine.PREPARING);
+
+        assertTrue(makeLineService.getQueue(1L).isEmpty());
+        verify(orderRepository, never()).findWithOrderItemsById(1L);
+    }
+
+    @Test
+    void testBroadcastIsSentOnExecutor() {
+        makeLineService.subscribe(1L);
+        assertEquals(1, sends.size());
+
+        when(orderRepository.findWithOrderItemsById(4L)).thenReturn(Optional.of(order(4L, NOW, null)));
+        makeLineService.onStatusChanged(4L, 1L, OrderStateMachine.PENDING, OrderStateMachine.PREPARING);
+        makeLineService.onStatusChanged(4L, 1L, OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED);
+
+        // 快照、加入、移除按顺序提交，状态变更不等待发送完成
+        assertEquals(3, sends.size());
+        sends.forEach(Runnable::run);
+        assertEquals(1, makeLineService.getSubscriberCount(1L));
+    }
+
+    @Test
+    void testEventsForUnloadedStoreAreSkipped() {
+        makeLineService.onStatusChanged(4L, 2L, OrderStateMachine.PENDING, OrderStateMachine.PREPARING);
+
+        verify(orderRepository, never()).findWithOrderItemsById(4L);
+    }
+
+    @Test
+    void testSubscribeRegistersConnection() {
+        makeLineService.subscribe(1L);
+        makeLineService.subscribe(1L);
+
+        assertEquals(2, makeLineService.getSubscriberCount(1L));
+        assertEquals(0, makeLineService.getSubscriberCount(2L));
+    }
+
+    private List<Long> orderIds(List<MakeLineOrder> queue) {
+        return queue.stream().map(MakeLineOrder::getOrderId).toList();
+    }
+
+    private Order order(Long id, LocalDateTime createdAt, LocalDateTime pickupTime) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNo("ORD" + id);
+        order.setStoreId(1L);
+        order.setOrderStatus(OrderStateMachine.PREPARING);
+        order.setCreatedAt(createdAt);
+        order.setPickupTime(pickupTime);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setProductName("Latte");
+        item.setQuantity(1);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
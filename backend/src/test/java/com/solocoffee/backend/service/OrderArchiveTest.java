@@ -0,0 +1,194 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.dto.SalesTotals;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单归档测试：终态订单按月移入归档表，按时间范围查询时透明合并在线和归档数据
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "outbox.relay.interval-ms=3600000",
+        "archive.batch-size=2",
+        "archive.batch-pause-ms=0"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderArchiveTest {
+
+    private static final long STORE_ID = 9004L;
+    private static final LocalDateTime JAN = LocalDateTime.of(2023, 1, 10, 10, 0);
+    private static final LocalDateTime FEB = LocalDateTime.of(2023, 2, 10, 10, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> archivedIds = new ArrayList<>();
+    private Long pendingId;
+
+    @BeforeAll
+    void setUp() {
+        // 1月3单、2月2单已完成/已取消，1月1单仍待确认（不归档），另有2单近期订单
+        archivedIds.add(save("AR-J1", OrderStateMachine.COMPLETED, JAN));
+        archivedIds.add(save("AR-J2", OrderStateMachine.CANCELLED, JAN.plusHours(1)));
+        archivedIds.add(save("AR-J3", OrderStateMachine.REFUNDED, JAN.plusHours(2)));
+        archivedIds.add(save("AR-F1", OrderStateMachine.COMPLETED, FEB));
+        archivedIds.add(save("AR-F2", OrderStateMachine.COMPLETED, FEB.plusHours(1)));
+        pendingId = save("AR-P1", OrderStateMachine.PENDING, JAN.plusHours(3));
+        save("AR-N1", OrderStateMachine.COMPLETED, LocalDateTime.now().minusDays(1));
+        save("AR-N2", OrderStateMachine.COMPLETED, LocalDateTime.now().minusHours(1));
+
+        orderArchiveService.archive(LocalDateTime.of(2023, 6, 1, 0, 0));
+    }
+
+    @Test
+    void testTerminalOrdersAreMovedIntoMonthlyTables() {
+        for (Long id : archivedIds) {
+            assertFalse(orderRepository.existsById(id));
+        }
+        assertTrue(orderRepository.existsById(pendingId));
+        assertTrue(orderArchiveService.getPartitions().containsAll(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2))));
+        Integer items = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items_archive_202301 WHERE order_id IN (?, ?, ?)", Integer.class,
+                archivedIds.get(0), archivedIds.get(1), archivedIds.get(2));
+        assertEquals(3, items);
+
+        Optional<Order> detail = orderService.getOrderDetail(archivedIds.get(3));
+        assertTrue(detail.isPresent());
+        assertEquals("AR-F1", detail.get().getOrderNo());
+        assertEquals("拿铁", detail.get().getOrderItems().get(0).getProductName());
+    }
+
+    @Test
+    void testQueriesUnionArchiveTransparently() {
+        // 只查询与时间范围重叠的月份，范围晚于已归档月份时只读在线数据
+        OrderQueryDTO recent = new OrderQueryDTO();
+        recent.setStoreId(STORE_ID);
+        recent.setStartTime(LocalDateTime.of(2023, 6, 1, 0, 0));
+        assertFalse(orderArchiveService.covers(recent));
+        assertEquals(2, orderService.getOrderSummaries(recent, PageRequest.of(0, 20)).getTotalElements());
+
+        // 没有开始时间时包含全部归档月份
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStoreId(STORE_ID);
+        Page<OrderSummary> page = orderService.getOrderSummaries(query, PageRequest.of(0, 20));
+        assertEquals(8, page.getTotalElements());
+        for (int i = 1; i < page.getContent().size(); i++) {
+            assertFalse(page.getContent().get(i).getCreatedAt().isAfter(page.getContent().get(i - 1).getCreatedAt()));
+        }
+        Page<Order> second = orderService.getOrders(query, PageRequest.of(1, 3));
+        assertEquals(List.of("AR-F1", "AR-P1", "AR-J3"), second.getContent().stream().map(Order::getOrderNo).toList());
+        assertFalse(second.getContent().get(2).getOrderItems().isEmpty());
+
+        // 键集分页跨越在线和归档数据
+        List<String> orderNos = new ArrayList<>();
+        Slice<Order> slice = orderService.getOrdersAfter(query, 3);
+        while (true) {
+            slice.getContent().forEach(order -> {
+                orderNos.add(order.getOrderNo());
+                assertFalse(order.getOrderItems().isEmpty());
+            });
+            if (!slice.hasNext()) {
+                break;
+            }
+            Order last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            OrderQueryDTO next = new OrderQueryDTO();
+            next.setStoreId(STORE_ID);
+            next.setAfterCreatedAt(last.getCreatedAt());
+            next.setAfterId(last.getId());
+            slice = orderService.getOrdersAfter(next, 3);
+        }
+        assertEquals(List.of("AR-N2", "AR-N1", "AR-F2", "AR-F1", "AR-P1", "AR-J3", "AR-J2", "AR-J1"), orderNos);
+    }
+
+    @Test
+    void testSalesReportIncludesArchivedMonths() {
+        Map<String, Object> report = reportService.generateSalesReport(toDate(LocalDateTime.of(2023, 2, 1, 0, 0)),
+                toDate(LocalDateTime.of(2023, 2, 28, 23, 59)));
+
+        assertEquals(2L, ((Number) report.get("orderCount")).longValue());
+        assertEquals(24.0, ((Number) report.get("totalSales")).doubleValue(), 0.001);
+    }
+
+    @Test
+    void testSalesReportGroupsOnlineAndArchivedByStoreAndStatus() {
+        Map<String, Object> report = reportService.generateSalesReport(toDate(LocalDateTime.of(2023, 1, 1, 0, 0)),
+                toDate(LocalDateTime.of(2023, 1, 31, 23, 59)), true, true);
+
+        // 1月待确认订单仍在在线表，其余3单在归档表
+        @SuppressWarnings("unchecked")
+        List<SalesTotals> groups = ((List<SalesTotals>) report.get("groups")).stream()
+                .filter(group -> group.getStoreId() == STORE_ID)
+                .toList();
+        assertEquals(List.of(OrderStateMachine.PENDING, OrderStateMachine.COMPLETED, OrderStateMachine.CANCELLED,
+                OrderStateMachine.REFUNDED), groups.stream().map(SalesTotals::getOrderStatus).toList());
+        for (SalesTotals group : groups) {
+            assertEquals(1, group.getOrderCount());
+            assertEquals(0, new BigDecimal("12.00").compareTo(group.getAverage()));
+        }
+    }
+
+    private Long save(String orderNo, int status, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setStoreId(STORE_ID);
+        order.setCustomerId(1L);
+        order.setOrderStatus(status);
+        order.setPaymentMethod(1);
+        order.setTotalAmount(new BigDecimal("12.00"));
+        order.setActualAmount(new BigDecimal("12.00"));
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(1L);
+        item.setProductName("拿铁");
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal("12.00"));
+        item.setSubtotal(new BigDecimal("12.00"));
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        Long id = orderRepository.save(order).getId();
+        // 创建时间由实体回调设置为当前时间，这里改为指定的历史时间
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    private Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
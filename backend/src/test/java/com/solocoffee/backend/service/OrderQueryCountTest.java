@@ -0,0 +1,154 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.dto.OrderQueryDTO;
+import com.solocoffee.backend.dto.OrderSummary;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单列表查询次数测试：无论每页多少条，查询次数保持不变（没有逐单加载商品行的 N+1 查询）
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // 发件箱中继的后台查询会计入同一个 SessionFactory 的统计
+        "outbox.relay.interval-ms=3600000"
+})
+class OrderQueryCountTest {
+
+    private static final long STORE_ID = 9001L;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            orders.add(newOrder("QC" + i));
+        }
+        orderRepository.saveAll(orders);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll().stream()
+                .filter(order -> STORE_ID == order.getStoreId())
+                .toList());
+    }
+
+    @Test
+    void testOrderPageQueryCountIsIndependentOfPageSize() {
+        long small = countStatements(() -> assertItemsLoaded(orderService.getOrders(query(), page(5)).getContent()));
+        long large = countStatements(() -> assertItemsLoaded(orderService.getOrders(query(), page(50)).getContent()));
+
+        // 分页查询 + count查询 + 按订单ID批量加载商品行
+        assertEquals(3, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void testKeysetQueryCountIsIndependentOfPageSize() {
+        OrderQueryDTO query = query();
+        query.setAfterId(Long.MAX_VALUE);
+
+        long small = countStatements(() -> assertItemsLoaded(orderService.getOrdersAfter(query, 5).getContent()));
+        long large = countStatements(() -> assertItemsLoaded(orderService.getOrdersAfter(query, 50).getContent()));
+
+        // 键集查询 + 按订单ID批量加载商品行，没有count查询
+        assertEquals(2, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void testOrderSummariesSkipOrderItems() {
+        long statements = countStatements(() -> {
+            Page<OrderSummary> summaries = orderService.getOrderSummaries(query(), page(50));
+            assertEquals(50, summaries.getNumberOfElements());
+            assertEquals(60, summaries.getTotalElements());
+        });
+        assertEquals(2, statements);
+        assertEquals(0, statistics.getCollectionFetchCount());
+
+        OrderQueryDTO query = query();
+        query.setAfterId(Long.MAX_VALUE);
+        Slice<OrderSummary> slice = orderService.getOrderSummariesAfter(query, 50);
+        assertEquals(50, slice.getNumberOfElements());
+        assertTrue(slice.hasNext());
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void assertItemsLoaded(List<Order> orders) {
+        assertFalse(orders.isEmpty());
+        for (Order order : orders) {
+            assertEquals(ITEMS_PER_ORDER, order.getOrderItems().size());
+        }
+    }
+
+    private OrderQueryDTO query() {
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStoreId(STORE_ID);
+        return query;
+    }
+
+    private PageRequest page(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+    }
+
+    private Order newOrder(String orderNo) {
+        Order order = new Order();
+        order.setOrderNo(orderNo);
+        order.setStoreId(STORE_ID);
+        order.setCustomerId(1L);
+        order.setPaymentMethod(1);
+        order.setOrderStatus(1);
+        order.setTotalAmount(new BigDecimal("96.00"));
+        order.setActualAmount(new BigDecimal("96.00"));
+        order.setOrderItems(new ArrayList<>());
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(i + 1L);
+            item.setProductName("Product " + (i + 1));
+            item.setQuantity(1);
+            item.setPrice(new BigDecimal("32.00"));
+            item.setSubtotal(new BigDecimal("32.00"));
+            order.getOrderItems().add(item);
+        }
+        return order;
+    }
+}
@@ -1,21 +1,39 @@
 package com.solocoffee.backend.service;
 
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.common.IdGenerator;
+import com.solocoffee.backend.dto.BatchOrderResult;
+import com.solocoffee.backend.dto.OrderQueryDTO;
 import com.solocoffee.backend.entity.Order;
 import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.event.OrderStatusChangedEvent;
 import com.solocoffee.backend.repository.OrderRepository;
 import com.solocoffee.backend.repository.ProductBOMRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OrderServiceTest {
@@ -23,6 +41,9 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private IdGenerator idGenerator;
+
     @Mock
     private InventoryService inventoryService;
 
@@ -32,6 +53,23 @@ class OrderServiceTest {
     @Mock
     private ProductBOMRepository productBOMRepository;
 
+    @Mock
+    private OrderValidationService orderValidationService;
+
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ServiceMetrics serviceMetrics = new ServiceMetrics(meterRegistry);
+
     @InjectMocks
     private OrderService orderService;
 
@@ -61,20 +99,23 @@ class OrderServiceTest {
 
         order.setOrderItems(orderItems);
 
-        // 模拟 inventoryService.checkInventory() 方法
-        when(inventoryService.checkInventory(anyLong(), any(BigDecimal.class))).thenReturn(true);
+        // 模拟批量库存校验
+        when(orderValidationService.validateOrder(order)).thenReturn(new OrderValidationService.MaterialDemand());
 
         // 模拟 repository.save() 方法
         when(orderRepository.save(order)).thenReturn(order);
+        when(idGenerator.nextId("ORD")).thenReturn("ORD1001");
 
         // 调用服务方法
         Order createdOrder = orderService.createOrder(order);
 
         // 验证结果
         assertNotNull(createdOrder);
-        assertNotNull(createdOrder.getOrderNo());
-        assertEquals(BigDecimal.valueOf(3.50), createdOrder.getTotalAmount());
-        assertEquals(BigDecimal.valueOf(3.50), createdOrder.getActualAmount());
+        assertEquals("ORD1001", createdOrder.getOrderNo());
+        assertEquals(new BigDecimal("3.50"), createdOrder.getTotalAmount());
+        assertEquals(new BigDecimal("3.50"), createdOrder.getActualAmount());
+        verify(orderValidationService, times(1)).validateOrder(order);
+        verify(inventoryReservationService, times(1)).reserve(any(), eq(1L), anyMap());
         verify(orderRepository, times(1)).save(order);
     }
 
@@ -145,6 +186,239 @@ class OrderServiceTest {
         assertEquals(2, updatedOrder.getOrderStatus());
         verify(orderRepository, times(1)).findById(1L);
         verify(orderRepository, times(1)).save(order);
+
+        // 次要副作用通过事件在提交后处理
+        ArgumentCaptor<OrderStatusChangedEvent> event = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(1, event.getValue().getFromStatus());
+        assertEquals(2, event.getValue().getToStatus());
+    }
+
+    @Test
+    void testUpdateOrderStatusRejectsInvalidTransition() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setOrderStatus(4);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        assertNull(orderService.updateOrderStatus(1L, 2));
+        verify(orderRepository, never()).save(order);
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(1, meterRegistry.get("order.status.update")
+                .tags("outcome", ServiceMetrics.REJECTED, "status", "2").timer().count());
+    }
+
+    @Test
+    void testMetricTagsDoNotUseUnvalidatedInput() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStoreId(1L);
+        order.setOrderStatus(1);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        // 不在状态表中的目标状态统一记为 invalid
+        assertNull(orderService.updateOrderStatus(1L, 987654));
+        assertEquals(1, meterRegistry.get("order.status.update")
+                .tags("outcome", ServiceMetrics.REJECTED, "status", ServiceMetrics.INVALID).timer().count());
+
+        // 校验失败的订单不按请求中的门店打标签
+        Order rejected = new Order();
+        rejected.setStoreId(123456789L);
+        rejected.setOrderItems(new ArrayList<>());
+        when(orderValidationService.validateOrder(rejected))
+                .thenThrow(new BizException(ErrorCode.RESOURCE_NOT_FOUND, "商品不存在"));
+        assertThrows(BizException.class, () -> orderService.createOrder(rejected));
+        assertEquals(1, meterRegistry.get("order.create")
+                .tags("outcome", ServiceMetrics.REJECTED, "store", ServiceMetrics.NO_STORE).timer().count());
+        assertTrue(meterRegistry.find("order.create").tag("store", "123456789").timers().isEmpty());
+    }
+
+    @Test
+    void testRefundRestoresAggregatedInventory() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStoreId(1L);
+        order.setOrderStatus(3);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+
+        OrderValidationService.MaterialDemand demand = new OrderValidationService.MaterialDemand();
+        demand.getMaterials().put(10L, BigDecimal.valueOf(400));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(order)).thenReturn(order);
+        when(orderValidationService.calculateDemand(order.getOrderItems())).thenReturn(demand);
+        when(rawMaterialInventoryService.addRawMaterials(1L, demand.getMaterials())).thenReturn(new ArrayList<>());
+        when(inventoryService.addProducts(1L, demand.getProducts())).thenReturn(new ArrayList<>());
+
+        Order refunded = orderService.processRefund(1L, "顾客退款", BigDecimal.TEN);
+
+        assertEquals(6, refunded.getOrderStatus());
+        verify(rawMaterialInventoryService, times(1)).addRawMaterials(1L, demand.getMaterials());
+        // 按状态表经退款中到已退款，发布两次状态变更
+        verify(eventPublisher, times(2)).publishEvent(any(OrderStatusChangedEvent.class));
+
+        // 已退款的订单不能再次退款
+        BizException e = assertThrows(BizException.class, () -> orderService.processRefund(1L, "重复", BigDecimal.TEN));
+        assertEquals(ErrorCode.REFUND_FAILED, e.getErrorCode());
+    }
+
+    @Test
+    void testRefundBeforeCompletionDoesNotRestoreInventory() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStoreId(1L);
+        order.setOrderStatus(2);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(order)).thenReturn(order);
+
+        // 制作中发起退款只释放预占，未扣减过库存，退款完成时不恢复
+        orderService.updateOrderStatus(1L, 5);
+        orderService.updateOrderStatus(1L, 6);
+
+        assertEquals(6, order.getOrderStatus());
+        verify(inventoryReservationService, times(1)).release(1L);
+        verify(rawMaterialInventoryService, never()).addRawMaterials(anyLong(), any());
+        verify(inventoryService, never()).addProducts(anyLong(), any());
+    }
+
+    @Test
+    void testCompleteOrderDeductsAggregatedDemand() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStoreId(1L);
+        order.setOrderStatus(2);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+
+        OrderValidationService.MaterialDemand demand = new OrderValidationService.MaterialDemand();
+        demand.getMaterials().put(10L, BigDecimal.valueOf(400));
+
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(order)).thenReturn(order);
+        when(orderValidationService.calculateDemand(order.getOrderItems())).thenReturn(demand);
+        when(rawMaterialInventoryService.deductRawMaterials(1L, demand.getMaterials())).thenReturn(new ArrayList<>());
+        when(inventoryService.deductProducts(1L, demand.getProducts())).thenReturn(new ArrayList<>());
+
+        Order updatedOrder = orderService.updateOrderStatus(1L, 3);
+
+        assertEquals(3, updatedOrder.getOrderStatus());
+        verify(rawMaterialInventoryService, times(1)).deductRawMaterials(1L, demand.getMaterials());
+        verify(rawMaterialInventoryService, never()).deductRawMaterialInventory(anyLong(), anyLong(), any());
+        verify(inventoryReservationService, times(1)).convertToDeduction(1L);
+    }
+
+    @Test
+    void testCompleteOrderFailsWhenDeductionFails() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStoreId(1L);
+        order.setOrderStatus(2);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+
+        OrderValidationService.MaterialDemand demand = new OrderValidationService.MaterialDemand();
+        demand.getMaterials().put(10L, BigDecimal.valueOf(400));
+
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderValidationService.calculateDemand(order.getOrderItems())).thenReturn(demand);
+        when(rawMaterialInventoryService.deductRawMaterials(1L, demand.getMaterials())).thenReturn(List.of(10L));
+        when(inventoryService.deductProducts(1L, demand.getProducts())).thenReturn(new ArrayList<>());
+
+        BizException e = assertThrows(BizException.class, () -> orderService.updateOrderStatus(1L, 3));
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY, e.getErrorCode());
+        verify(orderRepository, never()).save(order);
+
+        // 按门店和结果记录耗时，库存不足单独计数
+        assertEquals(1, meterRegistry.get("inventory.deduct")
+                .tags("store", "1", "outcome", ServiceMetrics.REJECTED).timer().count());
+        assertEquals(1, meterRegistry.get("order.status.update")
+                .tags("store", "1", "outcome", ServiceMetrics.REJECTED).timer().count());
+        assertEquals(1.0, meterRegistry.get("inventory.shortage").tag("store", "1").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetOrdersAfterFetchesOneExtraRowInsteadOfCounting() {
+        OrderQueryDTO query = new OrderQueryDTO();
+        query.setStoreId(1L);
+        query.setAfterCreatedAt(LocalDateTime.of(2024, 6, 1, 12, 0));
+        query.setAfterId(100L);
+
+        List<Order> rows = new ArrayList<>();
+        for (long id = 99; id >= 97; id--) {
+            Order order = new Order();
+            order.setId(id);
+            rows.add(order);
+        }
+        when(orderRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(rows);
+
+        Slice<Order> slice = orderService.getOrdersAfter(query, 2);
+
+        assertEquals(2, slice.getNumberOfElements());
+        assertTrue(slice.hasNext());
+        assertEquals(98L, slice.getContent().get(1).getId());
+        verify(orderRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testCreateOrdersReportsPerOrderResults() {
+        Order first = batchOrder(1L);
+        Order second = batchOrder(1L);
+        Order invalid = batchOrder(1L);
+        OrderValidationService.MaterialDemand demand = new OrderValidationService.MaterialDemand();
+        demand.getMaterials().put(10L, BigDecimal.valueOf(200));
+
+        List<OrderValidationService.ValidatedOrder> validated = List.of(
+                validated(first, demand), validated(second, demand), validated(invalid, null));
+        validated.get(2).setError(new BizException(ErrorCode.PRODUCT_NOT_FOUND));
+        when(orderValidationService.validateOrders(anyList())).thenReturn(validated);
+        when(idGenerator.nextId("ORD")).thenReturn("ORD1", "ORD2");
+        // 第二单原料不足
+        when(inventoryReservationService.holdEach(eq(1L), anyList())).thenReturn(java.util.Arrays.asList(null, 10L));
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> saved = invocation.getArgument(0);
+            for (int i = 0; i < saved.size(); i++) {
+                saved.get(i).setId(100L + i);
+            }
+            return saved;
+        });
+
+        List<BatchOrderResult> results = orderService.createOrders(List.of(first, second, invalid));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(100L, results.get(0).getOrderId());
+        assertEquals(0, new BigDecimal("7.0").compareTo(results.get(0).getTotalAmount()));
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY.getCode(), results.get(1).getCode());
+        assertEquals(ErrorCode.PRODUCT_NOT_FOUND.getCode(), results.get(2).getCode());
+        verify(orderRepository, times(1)).saveAll(List.of(first));
+        verify(inventoryReservationService, times(1)).saveHeld(100L, 1L, demand.getMaterials());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    private Order batchOrder(Long storeId) {
+        Order order = new Order();
+        order.setStoreId(storeId);
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        item.setSubtotal(BigDecimal.valueOf(7.0));
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+
+    private OrderValidationService.ValidatedOrder validated(Order order, OrderValidationService.MaterialDemand demand) {
+        return new OrderValidationService.ValidatedOrder(order, demand);
     }
 
     @Test
@@ -0,0 +1,37 @@
+package com.solocoffee.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static com.solocoffee.backend.service.OrderStateMachine.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateMachineTest {
+
+    @Test
+    void testAllowedTransitions() {
+        assertTrue(canTransition(PENDING, PREPARING));
+        assertTrue(canTransition(PENDING, CANCELLED));
+        assertTrue(canTransition(PREPARING, COMPLETED));
+        assertTrue(canTransition(COMPLETED, REFUNDING));
+        assertTrue(canTransition(REFUNDING, REFUNDED));
+    }
+
+    @Test
+    void testRejectedTransitions() {
+        assertFalse(canTransition(PENDING, COMPLETED));
+        assertFalse(canTransition(COMPLETED, CANCELLED));
+        assertFalse(canTransition(CANCELLED, PREPARING));
+        assertFalse(canTransition(REFUNDED, REFUNDING));
+        assertFalse(canTransition(PREPARING, PREPARING));
+        assertFalse(canTransition(null, PREPARING));
+        assertFalse(canTransition(99, PREPARING));
+    }
+
+    @Test
+    void testRefundOfCompleted() {
+        assertTrue(isRefundOfCompleted(COMPLETED, REFUNDING));
+        assertFalse(isRefundOfCompleted(REFUNDING, REFUNDED));
+        assertFalse(isRefundOfCompleted(PREPARING, REFUNDING));
+        assertFalse(isRefundOfCompleted(null, REFUNDED));
+    }
+}
@@ -0,0 +1,178 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.common.BizException;
+import com.solocoffee.backend.common.ErrorCode;
+import com.solocoffee.backend.entity.Inventory;
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.Product;
+import com.solocoffee.backend.entity.ProductBOM;
+import com.solocoffee.backend.entity.RawMaterialInventory;
+import com.solocoffee.backend.repository.InventoryRepository;
+import com.solocoffee.backend.repository.ProductBOMRepository;
+import com.solocoffee.backend.repository.ProductRepository;
+import com.solocoffee.backend.repository.RawMaterialInventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderValidationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductBOMRepository productBOMRepository;
+
+    @Mock
+    private RawMaterialInventoryRepository rawMaterialInventoryRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Spy
+    private ServiceMetrics serviceMetrics = new ServiceMetrics(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private OrderValidationService orderValidationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        // 拿铁(1)和卡布奇诺(2)共用牛奶(10)
+        when(productRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(product(1L, "Latte", "4.50"), product(2L, "Cappuccino", "4.00")));
+        when(productBOMRepository.findByProductIdIn(anyCollection()))
+                .thenReturn(List.of(bom(1L, 10L, "200"), bom(1L, 11L, "18"), bom(2L, 10L, "150")));
+    }
+
+    @Test
+    void testValidateOrderAggregatesSharedMaterials() {
+        when(rawMaterialInventoryRepository.findByStoreIdAndMaterialIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(inventory(10L, "550"), inventory(11L, "100")));
+
+        Order order = order(item(1L, 2), item(2L, 1));
+        OrderValidationService.MaterialDemand demand = orderValidationService.validateOrder(order);
+
+        // 2杯拿铁 × 200 + 1杯卡布奇诺 × 150 = 550
+        assertEquals(0, new BigDecimal("550").compareTo(demand.getMaterials().get(10L)));
+        assertEquals(0, new BigDecimal("36").compareTo(demand.getMaterials().get(11L)));
+        assertTrue(demand.getProducts().isEmpty());
+        assertEquals(new BigDecimal("9.00"), order.getOrderItems().get(0).getSubtotal());
+        assertEquals("Cappuccino", order.getOrderItems().get(1).getProductName());
+
+        // 无论商品行数多少，每类数据只查询一次
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(productBOMRepository, times(1)).findByProductIdIn(anyCollection());
+        verify(rawMaterialInventoryRepository, times(1)).findByStoreIdAndMaterialIdIn(eq(1L), anyCollection());
+        verify(inventoryRepository, never()).findByStoreIdAndProductIdIn(anyLong(), anyCollection());
+    }
+
+    @Test
+    void testValidateOrderRejectsCombinedShortage() {
+        // 单看每一行都够，但合计需要550
+        when(rawMaterialInventoryRepository.findByStoreIdAndMaterialIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(inventory(10L, "500"), inventory(11L, "100")));
+
+        BizException e = assertThrows(BizException.class,
+                () -> orderValidationService.validateOrder(order(item(1L, 2), item(2L, 1))));
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY, e.getErrorCode());
+    }
+
+    @Test
+    void testValidateOrderRejectsUnknownProduct() {
+        BizException e = assertThrows(BizException.class,
+                () -> orderValidationService.validateOrder(order(item(3L, 1))));
+        assertEquals(ErrorCode.RESOURCE_NOT_FOUND, e.getErrorCode());
+    }
+
+    @Test
+    void testValidateOrdersSharesLookupsAndIsolatesFailures() {
+        // 商品3没有BOM，成品库存只有3件
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product(1L, "Latte", "4.50"),
+                product(2L, "Cappuccino", "4.00"), product(3L, "Muffin", "3.00")));
+        Inventory muffins = new Inventory();
+        muffins.setStoreId(1L);
+        muffins.setProductId(3L);
+        muffins.setQuantity(new BigDecimal("3"));
+        when(inventoryRepository.findByStoreIdInAndProductIdIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(muffins));
+
+        Order missingStore = order(item(1L, 1));
+        missingStore.setStoreId(null);
+        Order otherStore = order(item(3L, 1));
+        otherStore.setStoreId(2L);
+        List<OrderValidationService.ValidatedOrder> results = orderValidationService.validateOrders(List.of(
+                order(item(1L, 2), item(2L, 1)),
+                order(item(3L, 2)),
+                order(item(4L, 1)),
+                missingStore,
+                order(item(3L, 2)),
+                otherStore));
+
+        assertTrue(results.get(0).isValid());
+        assertEquals(0, new BigDecimal("550").compareTo(results.get(0).getDemand().getMaterials().get(10L)));
+        assertTrue(results.get(1).isValid());
+        assertEquals(ErrorCode.RESOURCE_NOT_FOUND, results.get(2).getError().getErrorCode());
+        assertEquals(ErrorCode.PARAMETER_ERROR, results.get(3).getError().getErrorCode());
+        // 前一单已用掉2件，只剩1件
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY, results.get(4).getError().getErrorCode());
+        // 门店1的库存不能用于门店2的订单
+        assertEquals(ErrorCode.INSUFFICIENT_INVENTORY, results.get(5).getError().getErrorCode());
+
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(productBOMRepository, times(1)).findByProductIdIn(anyCollection());
+        verify(inventoryRepository, times(1)).findByStoreIdInAndProductIdIn(anyCollection(), anyCollection());
+    }
+
+    private Order order(OrderItem... items) {
+        Order order = new Order();
+        order.setStoreId(1L);
+        order.setOrderItems(new ArrayList<>(List.of(items)));
+        return order;
+    }
+
+    private OrderItem item(Long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private Product product(Long id, String name, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private ProductBOM bom(Long productId, Long materialId, String quantity) {
+        ProductBOM bom = new ProductBOM();
+        bom.setProductId(productId);
+        bom.setMaterialId(materialId);
+        bom.setQuantity(new BigDecimal(quantity));
+        return bom;
+    }
+
+    private RawMaterialInventory inventory(Long materialId, String quantity) {
+        RawMaterialInventory inventory = new RawMaterialInventory();
+        inventory.setStoreId(1L);
+        inventory.setMaterialId(materialId);
+        inventory.setQuantity(new BigDecimal(quantity));
+        return inventory;
+    }
+}
@@ -0,0 +1,131 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OutboxEvent;
+import com.solocoffee.backend.event.OutboxEventWriter;
+import com.solocoffee.backend.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发件箱端到端测试：订单变更与事件同事务写入，中继按写入顺序投递
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "outbox.publisher=memory",
+        "outbox.relay.interval-ms=100"
+})
+class OutboxRelayTest {
+
+    private static final long STORE_ID = 9002L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testOrderEventsAreRelayedInOrder() throws InterruptedException {
+        Order order = orderService.createOrder(newOrder());
+        orderService.updateOrderStatus(order.getId(), OrderStateMachine.PREPARING);
+        orderService.updateOrderStatus(order.getId(), OrderStateMachine.CANCELLED);
+
+        List<OutboxEvent> events = eventsOf(order.getId());
+        assertEquals(3, events.size());
+        assertEquals(OutboxEventWriter.ORDER_CREATED, events.get(0).getEventType());
+        assertTrue(events.get(1).getPayload().contains("\"toStatus\":2"));
+        assertTrue(events.get(2).getPayload().contains("\"toStatus\":4"));
+
+        // 测试上下文之间共用同一个内存数据库，事件可能由任一上下文的中继投递
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline
+                && eventsOf(order.getId()).stream().anyMatch(e -> e.getStatus() != OutboxService.STATUS_PUBLISHED)) {
+            Thread.sleep(100);
+        }
+        events = eventsOf(order.getId());
+        assertTrue(events.stream().allMatch(e -> e.getStatus() == OutboxService.STATUS_PUBLISHED));
+        assertFalse(events.get(1).getPublishedAt().isBefore(events.get(0).getPublishedAt()));
+        assertFalse(events.get(2).getPublishedAt().isBefore(events.get(1).getPublishedAt()));
+    }
+
+    @Test
+    void testRolledBackOrderLeavesNoEvent() {
+        long before = outboxEventRepository.count();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.createOrder(newOrder());
+            status.setRollbackOnly();
+        });
+        assertTrue(outboxEventRepository.count() <= before);
+    }
+
+    @Test
+    void testBatchSkipsAggregatesBehindUnpublishedEvents() {
+        // 在回滚的事务中写入，其他上下文的中继看不到这些事件
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            OutboxEvent failedHead = save(9201L, OutboxService.STATUS_FAILED, null, now.minusMinutes(3));
+            OutboxEvent behindFailed = save(9201L, OutboxService.STATUS_PENDING, null, now.minusMinutes(2));
+            OutboxEvent waitingHead = save(9202L, OutboxService.STATUS_PENDING, now.plusMinutes(1),
+                    now.minusMinutes(3));
+            OutboxEvent behindWaiting = save(9202L, OutboxService.STATUS_PENDING, null, now.minusMinutes(2));
+            OutboxEvent dueHead = save(9203L, OutboxService.STATUS_PENDING, now.minusSeconds(1), now.minusMinutes(3));
+            OutboxEvent behindDue = save(9203L, OutboxService.STATUS_PENDING, null, now.minusMinutes(2));
+
+            List<Long> ids = outboxEventRepository.findBatchToRelay(OutboxService.STATUS_PENDING,
+                    OutboxService.STATUS_FAILED, now, PageRequest.of(0, 1000)).stream()
+                    .map(OutboxEvent::getId).toList();
+
+            assertFalse(ids.contains(failedHead.getId()));
+            assertFalse(ids.contains(behindFailed.getId()));
+            assertFalse(ids.contains(waitingHead.getId()));
+            assertFalse(ids.contains(behindWaiting.getId()));
+            // 更早的事件本批可投递时，后续事件排在它后面一起读取
+            assertTrue(ids.indexOf(dueHead.getId()) >= 0);
+            assertTrue(ids.indexOf(behindDue.getId()) > ids.indexOf(dueHead.getId()));
+            status.setRollbackOnly();
+        });
+    }
+
+    private OutboxEvent save(Long aggregateId, int status, LocalDateTime nextAttemptAt, LocalDateTime createdAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(OutboxService.AGGREGATE_ORDER);
+        event.setAggregateId(aggregateId);
+        event.setEventType(OutboxEventWriter.ORDER_CREATED);
+        event.setPayload("{}");
+        event.setStatus(status);
+        event.setNextAttemptAt(nextAttemptAt);
+        event.setCreatedAt(createdAt);
+        return outboxEventRepository.saveAndFlush(event);
+    }
+
+    private List<OutboxEvent> eventsOf(Long orderId) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> orderId.equals(event.getAggregateId()))
+                .sorted(Comparator.comparing(OutboxEvent::getCreatedAt).thenComparing(OutboxEvent::getId))
+                .toList();
+    }
+
+    private Order newOrder() {
+        Order order = new Order();
+        order.setStoreId(STORE_ID);
+        order.setCustomerId(1L);
+        order.setTotalAmount(new BigDecimal("12.00"));
+        order.setActualAmount(new BigDecimal("12.00"));
+        return order;
+    }
+}
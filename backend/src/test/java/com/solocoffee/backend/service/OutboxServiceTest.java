@@ -0,0 +1,138 @@
+package com.solocoffee.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solocoffee.backend.entity.OutboxEvent;
+import com.solocoffee.backend.event.OutboxMessage;
+import com.solocoffee.backend.event.OutboxPublisher;
+import com.solocoffee.backend.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxService.initMetrics();
+    }
+
+    @Test
+    void testRelayPublishesInOrderAndMarksPublished() throws Exception {
+        OutboxEvent first = event(1L, 100L);
+        OutboxEvent second = event(2L, 100L);
+        when(outboxEventRepository.findBatchToRelay(eq(OutboxService.STATUS_PENDING), eq(OutboxService.STATUS_FAILED),
+                any(), any()))
+                .thenReturn(List.of(first, second));
+
+        assertEquals(2, outboxService.relayBatch(10));
+
+        ArgumentCaptor<OutboxMessage> messages = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxPublisher, times(2)).publish(messages.capture());
+        assertEquals(List.of(1L, 2L), messages.getAllValues().stream().map(OutboxMessage::getId).toList());
+        assertEquals(OutboxService.STATUS_PUBLISHED, first.getStatus());
+        assertNotNull(second.getPublishedAt());
+        assertEquals(2.0, meterRegistry.get("outbox.published").counter().count());
+    }
+
+    @Test
+    void testFailureBlocksLaterEventsOfSameAggregateOnly() throws Exception {
+        OutboxEvent a1 = event(1L, 100L);
+        OutboxEvent b1 = event(2L, 200L);
+        OutboxEvent a2 = event(3L, 100L);
+        when(outboxEventRepository.findBatchToRelay(eq(OutboxService.STATUS_PENDING), eq(OutboxService.STATUS_FAILED),
+                any(), any()))
+                .thenReturn(List.of(a1, b1, a2));
+        doThrow(new IllegalStateException("broker unavailable"))
+                .when(outboxPublisher).publish(argThat(message -> message.getId() == 1L));
+
+        assertEquals(1, outboxService.relayBatch(10));
+
+        // 订单100的第二条事件不能先于第一条投递
+        verify(outboxPublisher, never()).publish(argThat(message -> message.getId() == 3L));
+        assertEquals(OutboxService.STATUS_PENDING, a1.getStatus());
+        assertEquals(1, a1.getAttempts());
+        assertTrue(a1.getLastError().contains("broker unavailable"));
+        // 第一次失败后按退避间隔延后重试
+        assertTrue(a1.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(OutboxService.STATUS_PUBLISHED, b1.getStatus());
+        assertEquals(OutboxService.STATUS_PENDING, a2.getStatus());
+        assertEquals(0, a2.getAttempts());
+    }
+
+    @Test
+    void testEventIsParkedAfterMaxAttempts() throws Exception {
+        OutboxEvent poison = event(1L, 100L);
+        poison.setAttempts(9);
+        when(outboxEventRepository.findBatchToRelay(eq(OutboxService.STATUS_PENDING), eq(OutboxService.STATUS_FAILED),
+                any(), any()))
+                .thenReturn(List.of(poison));
+        doThrow(new IllegalStateException("message too large")).when(outboxPublisher).publish(any());
+
+        assertEquals(0, outboxService.relayBatch(10));
+        assertEquals(OutboxService.STATUS_FAILED, poison.getStatus());
+        assertEquals(10, poison.getAttempts());
+    }
+
+    @Test
+    void testBackoffDoublesUpToLimit() {
+        assertEquals(1000, outboxService.backoffDelayMs(1));
+        assertEquals(2000, outboxService.backoffDelayMs(2));
+        assertEquals(256000, outboxService.backoffDelayMs(9));
+        assertEquals(300000, outboxService.backoffDelayMs(10));
+        assertEquals(300000, outboxService.backoffDelayMs(100));
+    }
+
+    @Test
+    void testRefreshBacklogReportsLag() {
+        when(outboxEventRepository.countByStatus(OutboxService.STATUS_PENDING)).thenReturn(5L);
+        when(outboxEventRepository.findOldestCreatedAtByStatus(OutboxService.STATUS_PENDING))
+                .thenReturn(LocalDateTime.now().minusSeconds(30));
+
+        outboxService.refreshBacklog();
+
+        assertEquals(5.0, meterRegistry.get("outbox.pending").gauge().value());
+        assertTrue(meterRegistry.get("outbox.relay.lag").gauge().value() >= 30.0);
+    }
+
+    private OutboxEvent event(Long id, Long orderId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType(OutboxService.AGGREGATE_ORDER);
+        event.setAggregateId(orderId);
+        event.setEventType("OrderStatusChanged");
+        event.setPayload("{}");
+        event.setStatus(OutboxService.STATUS_PENDING);
+        event.setAttempts(0);
+        event.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+}
@@ -0,0 +1,172 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.Product;
+import com.solocoffee.backend.repository.OrderRepository;
+import com.solocoffee.backend.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热销商品报表测试：已完成订单的商品行在数据库中聚合，合并在线和归档数据，支持门店和分类过滤
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "outbox.relay.interval-ms=3600000",
+        "archive.batch-pause-ms=0"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSalesReportTest {
+
+    private static final long STORE_ID = 9007L;
+    private static final long OTHER_STORE_ID = 9008L;
+    private static final long COFFEE = 9701L;
+    private static final long TEA = 9702L;
+    private static final LocalDateTime APR = LocalDateTime.of(2023, 4, 10, 9, 0);
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long latte;
+    private Long greenTea;
+
+    @BeforeAll
+    void setUp() {
+        latte = product("PS-LATTE", COFFEE);
+        greenTea = product("PS-TEA", TEA);
+
+        // 4月的订单归档，近期订单在在线表；已取消订单不计入
+        save(STORE_ID, OrderStateMachine.COMPLETED, APR, item(latte, 2, "20.00"), item(greenTea, 1, "15.00"));
+        save(STORE_ID, OrderStateMachine.COMPLETED, LocalDateTime.now().minusDays(1), item(latte, 1, "10.00"));
+        save(STORE_ID, OrderStateMachine.CANCELLED, APR.plusHours(1), item(greenTea, 5, "75.00"));
+        save(OTHER_STORE_ID, OrderStateMachine.COMPLETED, APR.plusHours(2), item(greenTea, 3, "45.00"));
+
+        orderArchiveService.archive(LocalDateTime.of(2023, 5, 1, 0, 0));
+    }
+
+    @Test
+    void testAggregatesOnlineAndArchivedOrdersPerProduct() {
+        Map<String, Object> report = reportService.generateProductSalesReport(
+                toDate(LocalDateTime.of(2023, 4, 1, 0, 0)), new Date(), STORE_ID, null, 100);
+
+        Map<String, Object> latteSales = find(report, latte);
+        assertNotNull(latteSales);
+        assertEquals(3L, ((Number) latteSales.get("quantity")).longValue());
+        assertEquals(30.0, ((Number) latteSales.get("sales")).doubleValue(), 0.001);
+        assertEquals(2L, ((Number) latteSales.get("order_count")).longValue());
+        assertEquals(10.0, ((Number) latteSales.get("average_price")).doubleValue(), 0.001);
+
+        Map<String, Object> teaSales = find(report, greenTea);
+        assertEquals(1L, ((Number) teaSales.get("quantity")).longValue());
+        assertEquals(15.0, ((Number) teaSales.get("sales")).doubleValue(), 0.001);
+    }
+
+    @Test
+    void testFiltersByCategoryAndStore() {
+        Date start = toDate(LocalDateTime.of(2023, 4, 1, 0, 0));
+        Date end = toDate(LocalDateTime.of(2023, 4, 30, 0, 0));
+
+        Map<String, Object> tea = reportService.generateProductSalesReport(start, end, null, TEA, 100);
+        assertNull(find(tea, latte));
+        assertEquals(4L, ((Number) find(tea, greenTea).get("quantity")).longValue());
+
+        Map<String, Object> otherStore = reportService.generateProductSalesReport(start, end, OTHER_STORE_ID, null,
+                100);
+        assertNull(find(otherStore, latte));
+        assertEquals(45.0, ((Number) find(otherStore, greenTea).get("sales")).doubleValue(), 0.001);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOrdersByRevenueAndAppliesLimit() {
+        Map<String, Object> report = reportService.generateProductSalesReport(
+                toDate(LocalDateTime.of(2023, 4, 1, 0, 0)), toDate(LocalDateTime.of(2023, 4, 30, 0, 0)), STORE_ID,
+                null, 1);
+
+        List<Map<String, Object>> products = (List<Map<String, Object>>) report.get("popularProducts");
+        assertEquals(1, products.size());
+        assertEquals(latte, ((Number) products.get(0).get("product_id")).longValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> find(Map<String, Object> report, Long productId) {
+        return ((List<Map<String, Object>>) report.get("popularProducts")).stream()
+                .filter(product -> Objects.equals(productId, ((Number) product.get("product_id")).longValue()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Long product(String productNo, long categoryId) {
+        Product product = new Product();
+        product.setProductNo(productNo);
+        product.setName(productNo);
+        product.setPrice(BigDecimal.TEN);
+        product.setCategoryId(categoryId);
+        product.setStatus(1);
+        return productRepository.save(product).getId();
+    }
+
+    private void save(long storeId, int status, LocalDateTime createdAt, OrderItem... items) {
+        Order order = new Order();
+        order.setOrderNo("PS-" + System.nanoTime());
+        order.setStoreId(storeId);
+        order.setOrderStatus(status);
+        order.setPaymentMethod(1);
+        BigDecimal amount = BigDecimal.ZERO;
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            orderItems.add(item);
+            amount = amount.add(item.getSubtotal());
+        }
+        order.setTotalAmount(amount);
+        order.setActualAmount(amount);
+        order.setOrderItems(orderItems);
+        Long id = orderRepository.save(order).getId();
+        // 创建时间由实体回调设置为当前时间，这里改为指定的历史时间
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+    }
+
+    private OrderItem item(Long productId, int quantity, String subtotal) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("商品" + productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(subtotal).divide(BigDecimal.valueOf(quantity)));
+        item.setSubtotal(new BigDecimal(subtotal));
+        return item;
+    }
+
+    private Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
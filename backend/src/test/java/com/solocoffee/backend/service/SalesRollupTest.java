@@ -0,0 +1,192 @@
+package com.solocoffee.backend.service;
+
+import com.solocoffee.backend.entity.Order;
+import com.solocoffee.backend.entity.OrderItem;
+import com.solocoffee.backend.entity.SalesRollupHourly;
+import com.solocoffee.backend.event.OrderStatusChangedEvent;
+import com.solocoffee.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 小时销售汇总测试：补建从订单表聚合，订单完成/退款事件增量更新，趋势报表读取汇总表
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "outbox.relay.interval-ms=3600000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SalesRollupTest {
+
+    private static final long STORE_ID = 9006L;
+    private static final long LATTE = 9601L;
+    private static final long AMERICANO = 9602L;
+    private static final LocalDateTime MAR5 = LocalDateTime.of(2023, 3, 5, 10, 5);
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void setUp() {
+        // 3月5日10点2单已完成、1单已取消（不计入），3月6日1单已完成
+        save(OrderStateMachine.COMPLETED, MAR5, new BigDecimal("28.00"), item(LATTE, 2, "20.00"),
+                item(AMERICANO, 1, "8.00"));
+        save(OrderStateMachine.COMPLETED, MAR5.plusMinutes(35), new BigDecimal("10.00"), item(LATTE, 1, "10.00"));
+        save(OrderStateMachine.CANCELLED, MAR5.plusMinutes(45), new BigDecimal("10.00"), item(LATTE, 1, "10.00"));
+        save(OrderStateMachine.COMPLETED, MAR5.plusDays(1), new BigDecimal("8.00"), item(AMERICANO, 1, "8.00"));
+
+        rollupService.backfill(LocalDateTime.of(2023, 3, 5, 0, 0), LocalDateTime.of(2023, 3, 7, 0, 0));
+    }
+
+    @Test
+    void testBackfillAggregatesCompletedOrdersPerHourIdempotently() {
+        for (int run = 0; run < 2; run++) {
+            LocalDateTime hour = LocalDateTime.of(2023, 3, 5, 10, 0);
+            assertRollup(SalesRollupHourly.ORDER_TOTAL, hour, 4, "38.00", 2);
+            assertRollup(LATTE, hour, 3, "30.00", 2);
+            assertRollup(AMERICANO, hour, 1, "8.00", 1);
+            assertRollup(AMERICANO, LocalDateTime.of(2023, 3, 6, 10, 0), 1, "8.00", 1);
+
+            rollupService.backfill(LocalDateTime.of(2023, 3, 5, 0, 0), LocalDateTime.of(2023, 3, 7, 0, 0));
+        }
+    }
+
+    @Test
+    void testCompletedAndRefundedEventsUpdateRollupIncrementally() {
+        LocalDateTime createdAt = LocalDateTime.of(2023, 3, 8, 15, 20);
+        Order order = save(OrderStateMachine.COMPLETED, createdAt, new BigDecimal("18.00"), item(LATTE, 1, "10.00"),
+                item(LATTE, 1, "10.00"));
+        LocalDateTime hour = createdAt.withMinute(0);
+
+        publish(order, OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED);
+        assertRollup(SalesRollupHourly.ORDER_TOTAL, hour, 2, "18.00", 1);
+        // 同一商品的两行只计一个订单
+        assertRollup(LATTE, hour, 2, "20.00", 1);
+
+        publish(order, OrderStateMachine.COMPLETED, OrderStateMachine.REFUNDING);
+        assertRollup(SalesRollupHourly.ORDER_TOTAL, hour, 0, "0.00", 0);
+        assertRollup(LATTE, hour, 0, "0.00", 0);
+
+        // 退款中 -> 已退款不再重复冲减
+        publish(order, OrderStateMachine.REFUNDING, OrderStateMachine.REFUNDED);
+        assertRollup(SalesRollupHourly.ORDER_TOTAL, hour, 0, "0.00", 0);
+        assertRollup(LATTE, hour, 0, "0.00", 0);
+    }
+
+    @Test
+    void testRefundBeforeCompletionDoesNotReduceRollup() {
+        LocalDateTime createdAt = LocalDateTime.of(2023, 3, 9, 11, 10);
+        Order completed = save(OrderStateMachine.COMPLETED, createdAt, new BigDecimal("10.00"),
+                item(LATTE, 1, "10.00"));
+        publish(completed, OrderStateMachine.PREPARING, OrderStateMachine.COMPLETED);
+
+        // 制作中就退款的订单从未计入汇总，不能冲减同一小时其他订单的销售
+        Order refunded = save(OrderStateMachine.REFUNDED, createdAt.plusMinutes(5), new BigDecimal("10.00"),
+                item(LATTE, 1, "10.00"));
+        publish(refunded, OrderStateMachine.PREPARING, OrderStateMachine.REFUNDING);
+        publish(refunded, OrderStateMachine.REFUNDING, OrderStateMachine.REFUNDED);
+
+        LocalDateTime hour = createdAt.withMinute(0);
+        assertRollup(SalesRollupHourly.ORDER_TOTAL, hour, 1, "10.00", 1);
+        assertRollup(LATTE, hour, 1, "10.00", 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSalesTrendReadsDailyTotalsFromRollup() {
+        Map<String, Object> report = reportService.generateSalesTrendReport(toDate(LocalDateTime.of(2023, 3, 5, 0, 0)),
+                toDate(LocalDateTime.of(2023, 3, 6, 0, 0)), "day");
+
+        List<Map<String, Object>> trend = (List<Map<String, Object>>) report.get("trendData");
+        assertEquals(List.of("2023-03-05", "2023-03-06"), report.get("labels"));
+        assertEquals(38.0, ((Number) trend.get(0).get("sales")).doubleValue(), 0.001);
+        assertEquals(2L, ((Number) trend.get(0).get("orders")).longValue());
+        assertEquals(8.0, ((Number) trend.get(1).get("sales")).doubleValue(), 0.001);
+
+        Map<String, Object> monthly = reportService.generateSalesTrendReport(
+                toDate(LocalDateTime.of(2023, 3, 1, 0, 0)), toDate(LocalDateTime.of(2023, 3, 31, 0, 0)), "month");
+        assertEquals(List.of("2023-03"), monthly.get("labels"));
+    }
+
+    private void assertRollup(long productId, LocalDateTime hour, long quantity, String revenue, long orderCount) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT quantity, revenue, order_count "
+                + "FROM sales_rollup_hourly WHERE store_id = ? AND product_id = ? AND bucket_hour = ?",
+                STORE_ID, productId, Timestamp.valueOf(hour));
+        assertEquals(quantity, ((Number) row.get("QUANTITY")).longValue());
+        assertEquals(0, new BigDecimal(revenue).compareTo((BigDecimal) row.get("REVENUE")));
+        assertEquals(orderCount, ((Number) row.get("ORDER_COUNT")).longValue());
+    }
+
+    // 与订单服务一样在事务中发布，同步监听器在同一事务中写入
+    private void publish(Order order, int from, int to) {
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(), order.getOrderNo(), order.getStoreId(), null, from, to, order.getActualAmount())));
+    }
+
+    private Order save(int status, LocalDateTime createdAt, BigDecimal actualAmount, OrderItem... items) {
+        Order order = new Order();
+        order.setOrderNo("RU-" + System.nanoTime());
+        order.setStoreId(STORE_ID);
+        order.setOrderStatus(status);
+        order.setPaymentMethod(1);
+        order.setTotalAmount(actualAmount);
+        order.setActualAmount(actualAmount);
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            orderItems.add(item);
+        }
+        order.setOrderItems(orderItems);
+        Order saved = orderRepository.save(order);
+        // 创建时间由实体回调设置为当前时间，这里改为指定的历史时间
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt),
+                saved.getId());
+        return saved;
+    }
+
+    private OrderItem item(long productId, int quantity, String subtotal) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("商品" + productId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(subtotal).divide(BigDecimal.valueOf(quantity)));
+        item.setSubtotal(new BigDecimal(subtotal));
+        return item;
+    }
+
+    private Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}